@@ -17,7 +17,7 @@ do
 	
 	startTime=$(date +"%d. %B %T")
 	echo "[$startTime] Starting benchmark for $todoLine"
-	java -XX:CompileThreshold=50 -Xmx1000M -Xms500M -cp DNA.jar dna.profiler.benchmarking.BenchmarkingExperiments $todoLine &
+	java -Xmx1000M -Xms500M -cp DNA.jar dna.profiler.benchmarking.DataStructureBenchmarks $todoLine &
 	sleep 1
 done
 
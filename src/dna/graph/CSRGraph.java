@@ -0,0 +1,410 @@
+package dna.graph;
+
+import java.util.Arrays;
+
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.IWeightedEdge;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.LongWeight;
+import dna.graph.weights.Weight;
+import dna.util.Config;
+
+/**
+ * Immutable compressed-sparse-row (CSR) snapshot of a graph.<br>
+ *
+ * Nodes are addressed by their position (0..getNodeCount()-1) in the order of
+ * Graph.getNodes(), the node index of a position is given by
+ * getNodeIndex(int). The neighbors of the node at position p are stored at
+ * targets[offsets[p]] .. targets[offsets[p + 1] - 1] as positions as well,
+ * sorted in ascending order. In case the edges carry int, long or double
+ * weights, they are stored in weights (at the same positions as targets).<br>
+ *
+ * For undirected graphs, each edge is contained in the lists of both of its
+ * nodes and the incoming lists are the same as the outgoing ones. For directed
+ * graphs, getOffsets()/getTargets() contain the outgoing edges and
+ * getInOffsets()/getInTargets() the incoming edges.<br>
+ *
+ * A snapshot is obtained via Graph.getCSR() which caches it until the graph is
+ * changed or its timestamp is set, i.e., it is created at most once per batch.
+ * The returned arrays must not be modified.
+ */
+public class CSRGraph {
+
+	/**
+	 * @return true if metrics should use CSR snapshots for recomputation
+	 *         (METRICS_CSR_SNAPSHOT)
+	 */
+	public static boolean isEnabled() {
+		return Config.getBoolean("METRICS_CSR_SNAPSHOT");
+	}
+
+	private boolean directed;
+
+	private int nodeCount;
+
+	private int edgeCount;
+
+	private int[] nodeIndices;
+
+	private int[] positions;
+
+	private int[] offsets;
+
+	private int[] targets;
+
+	private double[] weights;
+
+	private int[] inOffsets;
+
+	private int[] inTargets;
+
+	private double[] inWeights;
+
+	public CSRGraph(Graph g) {
+		this.directed = g.isDirected();
+		this.nodeCount = g.getNodeCount();
+		this.edgeCount = g.getEdgeCount();
+
+		// positions of all nodes
+		this.nodeIndices = new int[this.nodeCount];
+		this.positions = new int[g.getMaxNodeIndex() + 1];
+		Arrays.fill(this.positions, -1);
+		int pos = 0;
+		for (IElement n_ : g.getNodes()) {
+			int index = ((Node) n_).getIndex();
+			this.nodeIndices[pos] = index;
+			this.positions[index] = pos;
+			pos++;
+		}
+
+		// edges as (src, dst, weight) in the order of the edge list
+		int[] src = new int[this.edgeCount];
+		int[] dst = new int[this.edgeCount];
+		double[] w = null;
+		int i = 0;
+		for (IElement e_ : g.getEdges()) {
+			Edge e = (Edge) e_;
+			src[i] = this.positions[e.getN1Index()];
+			dst[i] = this.positions[e.getN2Index()];
+			if (i == 0 && e instanceof IWeightedEdge
+					&& CSRGraph.isNumeric(((IWeightedEdge) e).getWeight())) {
+				w = new double[this.edgeCount];
+			}
+			if (w != null) {
+				w[i] = CSRGraph.toDouble(((IWeightedEdge) e).getWeight());
+			}
+			i++;
+		}
+
+		if (this.directed) {
+			// transposing twice yields sorted incoming and outgoing lists
+			Adjacency in = Adjacency.fromEdges(this.nodeCount, dst, src, w,
+					false);
+			Adjacency out = in.transpose(this.nodeCount);
+			in = out.transpose(this.nodeCount);
+			this.setOut(out);
+			this.inOffsets = in.offsets;
+			this.inTargets = in.targets;
+			this.inWeights = in.weights;
+		} else {
+			// the adjacency of an undirected graph is symmetric, transposing
+			// it once sorts all lists
+			Adjacency all = Adjacency.fromEdges(this.nodeCount, src, dst, w,
+					true).transpose(this.nodeCount);
+			this.setOut(all);
+			this.inOffsets = this.offsets;
+			this.inTargets = this.targets;
+			this.inWeights = this.weights;
+		}
+	}
+
+	private void setOut(Adjacency out) {
+		this.offsets = out.offsets;
+		this.targets = out.targets;
+		this.weights = out.weights;
+	}
+
+	private static boolean isNumeric(Weight w) {
+		return w instanceof DoubleWeight || w instanceof IntWeight
+				|| w instanceof LongWeight;
+	}
+
+	private static double toDouble(Weight w) {
+		if (w instanceof DoubleWeight)
+			return ((DoubleWeight) w).getWeight();
+		if (w instanceof IntWeight)
+			return ((IntWeight) w).getWeight();
+		if (w instanceof LongWeight)
+			return ((LongWeight) w).getWeight();
+		return Double.NaN;
+	}
+
+	public boolean isDirected() {
+		return this.directed;
+	}
+
+	public int getNodeCount() {
+		return this.nodeCount;
+	}
+
+	/**
+	 * @return number of edges of the graph (an undirected edge is counted once
+	 *         although it is contained in two lists)
+	 */
+	public int getEdgeCount() {
+		return this.edgeCount;
+	}
+
+	/**
+	 * @return the highest node index of the graph
+	 */
+	public int getMaxNodeIndex() {
+		return this.positions.length - 1;
+	}
+
+	/**
+	 * @param position
+	 *            position of a node
+	 * @return index of the node at the given position
+	 */
+	public int getNodeIndex(int position) {
+		return this.nodeIndices[position];
+	}
+
+	/**
+	 * @param nodeIndex
+	 *            index of a node
+	 * @return position of the node with the given index, -1 in case the graph
+	 *         contains no such node
+	 */
+	public int getPosition(int nodeIndex) {
+		if (nodeIndex < 0 || nodeIndex >= this.positions.length)
+			return -1;
+		return this.positions[nodeIndex];
+	}
+
+	/**
+	 * @return offsets of the (outgoing) lists, of length getNodeCount() + 1
+	 */
+	public int[] getOffsets() {
+		return this.offsets;
+	}
+
+	/**
+	 * @return positions of the neighbors (destinations of the outgoing edges)
+	 */
+	public int[] getTargets() {
+		return this.targets;
+	}
+
+	/**
+	 * @return weights of the (outgoing) edges or null in case the edges are
+	 *         not weighted with a single numeric value
+	 */
+	public double[] getWeights() {
+		return this.weights;
+	}
+
+	public int[] getInOffsets() {
+		return this.inOffsets;
+	}
+
+	/**
+	 * @return positions of the sources of the incoming edges
+	 */
+	public int[] getInTargets() {
+		return this.inTargets;
+	}
+
+	public double[] getInWeights() {
+		return this.inWeights;
+	}
+
+	public int getDegree(int position) {
+		if (this.directed)
+			return this.getOutDegree(position) + this.getInDegree(position);
+		return this.getOutDegree(position);
+	}
+
+	public int getOutDegree(int position) {
+		return this.offsets[position + 1] - this.offsets[position];
+	}
+
+	public int getInDegree(int position) {
+		return this.inOffsets[position + 1] - this.inOffsets[position];
+	}
+
+	/**
+	 * Checks whether the graph contains an edge from the node at position src
+	 * to the node at position dst (binary search in the list of src).
+	 *
+	 * @param src
+	 *            position of the source node
+	 * @param dst
+	 *            position of the destination node
+	 * @return true, if the edge exists
+	 */
+	public boolean hasEdge(int src, int dst) {
+		return Arrays.binarySearch(this.targets, this.offsets[src],
+				this.offsets[src + 1], dst) >= 0;
+	}
+
+	/**
+	 * Writes the positions of all nodes that are connected to the node at the
+	 * given position in both directions (for undirected graphs: all neighbors)
+	 * into buffer, in ascending order.
+	 *
+	 * @param position
+	 *            position of the node
+	 * @param buffer
+	 *            array with at least getOutDegree(position) elements after
+	 *            offset
+	 * @param offset
+	 *            position in buffer of the first written position
+	 * @return number of written positions
+	 */
+	public int getMutualNeighbors(int position, int[] buffer, int offset) {
+		int i = this.offsets[position];
+		int iEnd = this.offsets[position + 1];
+		if (!this.directed) {
+			System.arraycopy(this.targets, i, buffer, offset, iEnd - i);
+			return iEnd - i;
+		}
+		int j = this.inOffsets[position];
+		int jEnd = this.inOffsets[position + 1];
+		int count = offset;
+		while (i < iEnd && j < jEnd) {
+			if (this.targets[i] < this.inTargets[j]) {
+				i++;
+			} else if (this.targets[i] > this.inTargets[j]) {
+				j++;
+			} else {
+				buffer[count++] = this.targets[i];
+				i++;
+				j++;
+			}
+		}
+		return count - offset;
+	}
+
+	/**
+	 * Writes the positions of all nodes that are connected to the node at the
+	 * given position in at least one direction into buffer, in ascending
+	 * order.
+	 *
+	 * @param position
+	 *            position of the node
+	 * @param buffer
+	 *            array with at least getDegree(position) elements after
+	 *            offset
+	 * @param offset
+	 *            position in buffer of the first written position
+	 * @return number of written positions
+	 */
+	public int getConnectedNodes(int position, int[] buffer, int offset) {
+		int i = this.offsets[position];
+		int iEnd = this.offsets[position + 1];
+		if (!this.directed) {
+			System.arraycopy(this.targets, i, buffer, offset, iEnd - i);
+			return iEnd - i;
+		}
+		int j = this.inOffsets[position];
+		int jEnd = this.inOffsets[position + 1];
+		int count = offset;
+		while (i < iEnd || j < jEnd) {
+			if (j == jEnd || i < iEnd && this.targets[i] < this.inTargets[j]) {
+				buffer[count++] = this.targets[i++];
+			} else if (i == iEnd || this.targets[i] > this.inTargets[j]) {
+				buffer[count++] = this.inTargets[j++];
+			} else {
+				buffer[count++] = this.targets[i];
+				i++;
+				j++;
+			}
+		}
+		return count - offset;
+	}
+
+	/**
+	 * Lists in CSR format used while building the snapshot.
+	 */
+	private static class Adjacency {
+		private int[] offsets;
+
+		private int[] targets;
+
+		private double[] weights;
+
+		private Adjacency(int[] offsets, int[] targets, double[] weights) {
+			this.offsets = offsets;
+			this.targets = targets;
+			this.weights = weights;
+		}
+
+		/**
+		 * Creates the lists from the given edges (unsorted). In case both is
+		 * true, each edge is added to the lists of both of its nodes.
+		 */
+		private static Adjacency fromEdges(int nodeCount, int[] src,
+				int[] dst, double[] w, boolean both) {
+			int[] offsets = new int[nodeCount + 1];
+			int size = 0;
+			for (int i = 0; i < src.length; i++) {
+				offsets[src[i] + 1]++;
+				size++;
+				if (both && src[i] != dst[i]) {
+					offsets[dst[i] + 1]++;
+					size++;
+				}
+			}
+			for (int p = 0; p < nodeCount; p++) {
+				offsets[p + 1] += offsets[p];
+			}
+			int[] next = Arrays.copyOf(offsets, nodeCount);
+			int[] targets = new int[size];
+			double[] weights = w == null ? null : new double[size];
+			for (int i = 0; i < src.length; i++) {
+				int k = next[src[i]]++;
+				targets[k] = dst[i];
+				if (weights != null)
+					weights[k] = w[i];
+				if (both && src[i] != dst[i]) {
+					k = next[dst[i]]++;
+					targets[k] = src[i];
+					if (weights != null)
+						weights[k] = w[i];
+				}
+			}
+			return new Adjacency(offsets, targets, weights);
+		}
+
+		/**
+		 * Creates the transposed lists. Since the lists are traversed in
+		 * ascending order, all transposed lists are sorted.
+		 */
+		private Adjacency transpose(int nodeCount) {
+			int[] tOffsets = new int[nodeCount + 1];
+			for (int k = 0; k < this.targets.length; k++) {
+				tOffsets[this.targets[k] + 1]++;
+			}
+			for (int p = 0; p < nodeCount; p++) {
+				tOffsets[p + 1] += tOffsets[p];
+			}
+			int[] next = Arrays.copyOf(tOffsets, nodeCount);
+			int[] tTargets = new int[this.targets.length];
+			double[] tWeights = this.weights == null ? null
+					: new double[this.targets.length];
+			for (int p = 0; p < nodeCount; p++) {
+				for (int k = this.offsets[p]; k < this.offsets[p + 1]; k++) {
+					int t = next[this.targets[k]]++;
+					tTargets[t] = p;
+					if (tWeights != null)
+						tWeights[t] = this.weights[k];
+				}
+			}
+			return new Adjacency(tOffsets, tTargets, tWeights);
+		}
+	}
+}
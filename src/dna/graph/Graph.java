@@ -3,7 +3,9 @@ package dna.graph;
 import java.math.BigInteger;
 import java.util.Iterator;
 
+import dna.graph.datastructures.DIntArrayAdjacency;
 import dna.graph.datastructures.DataStructure.ListType;
+import dna.graph.datastructures.DataStructureMigration;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.IDataStructure;
 import dna.graph.datastructures.IEdgeListDatastructure;
@@ -32,12 +34,19 @@ public class Graph {
 	private long timestamp;
 	protected GraphDataStructure gds;
 
+	/** CSR snapshot of the current graph, null if not created yet **/
+	private volatile CSRGraph csr;
+
+	/** migration of the data structures in progress, null if none **/
+	private DataStructureMigration migration;
+
 	public Graph(String name, long timestamp, GraphDataStructure gds) {
 		this.name = name;
 		this.timestamp = timestamp;
 		this.nodes = (INodeListDatastructure) gds.newList(ListType.GlobalNodeList);
 		this.edges = (IEdgeListDatastructure) gds.newList(ListType.GlobalEdgeList);
 		this.gds = gds;
+		DIntArrayAdjacency.bind(this.edges, this, null);
 	}
 
 	public Graph(String name, long timestamp, GraphDataStructure gds,
@@ -46,7 +55,13 @@ public class Graph {
 	}
 
 	public boolean addNode(Node n) {
-		return nodes.add(n);
+		this.csr = null;
+		boolean success = nodes.add(n);
+		if (success)
+			n.bindLists(this);
+		if (success && this.migration != null)
+			this.migration.log(n, true);
+		return success;
 	}
 
 	public boolean containsNode(Node n) {
@@ -88,7 +103,11 @@ public class Graph {
 	}
 
 	public boolean removeNode(Node n) {
-		return nodes.remove(n);
+		this.csr = null;
+		boolean success = nodes.remove(n);
+		if (success && this.migration != null)
+			this.migration.log(n, false);
+		return success;
 	}
 
 	/**
@@ -110,7 +129,11 @@ public class Graph {
 	}
 
 	public boolean addEdge(Edge e) {
-		return this.containsNodes(e) && edges.add(e);
+		this.csr = null;
+		boolean success = this.containsNodes(e) && edges.add(e);
+		if (success && this.migration != null)
+			this.migration.log(e, true);
+		return success;
 	}
 	
 	public boolean containsEdge(Node n1, Node n2) {
@@ -173,7 +196,11 @@ public class Graph {
 	}
 
 	public boolean removeEdge(Edge e) {
-		return edges.remove(e);
+		this.csr = null;
+		boolean success = edges.remove(e);
+		if (success && this.migration != null)
+			this.migration.log(e, false);
+		return success;
 	}
 
 	/**
@@ -221,6 +248,7 @@ public class Graph {
 	}
 
 	public void setTimestamp(long timestamp) {
+		this.csr = null;
 		this.timestamp = timestamp;
 	}
 
@@ -228,6 +256,39 @@ public class Graph {
 		return this.timestamp;
 	}
 
+	/**
+	 * Retrieve a CSR snapshot of this graph. The snapshot is created on the
+	 * first call and cached until a node or edge is added or removed or the
+	 * timestamp is set (which happens whenever a batch has been applied). Edge
+	 * weights changed without a subsequent call of setTimestamp(..) are not
+	 * reflected by a cached snapshot.
+	 * 
+	 * @return CSR snapshot of the current graph
+	 */
+	public CSRGraph getCSR() {
+		CSRGraph csr = this.csr;
+		if (csr == null) {
+			synchronized (this) {
+				csr = this.csr;
+				if (csr == null) {
+					csr = new CSRGraph(this);
+					this.csr = csr;
+				}
+			}
+		}
+		return csr;
+	}
+
+	/**
+	 * Sets the migration that is notified of all nodes and edges added to or
+	 * removed from this graph, null to stop logging them.
+	 * 
+	 * @param migration
+	 */
+	public void setMigration(DataStructureMigration migration) {
+		this.migration = migration;
+	}
+
 	public GraphDataStructure getGraphDatastructures() {
 		return this.gds;
 	}
@@ -331,6 +392,7 @@ public class Graph {
 		switch(type) {
 		case GlobalEdgeList:
 			newDatastructure = gds.newList(type, newDatastructureType);
+			DIntArrayAdjacency.bind(newDatastructure, this, null);
 			this.edges = (IEdgeListDatastructure) ((IEdgeListDatastructureReadable)this.edges).switchTo(newDatastructure);
 			break;
 		case GlobalNodeList:
@@ -343,6 +405,7 @@ public class Graph {
 		case LocalNodeList:
 			for ( IElement n: this.getNodes()) {
 				newDatastructure = gds.newList(type, newDatastructureType);
+				DIntArrayAdjacency.bind(newDatastructure, this, (Node) n);
 				((Node) n).switchDataStructure(type, newDatastructure);
 			}
 		}
@@ -0,0 +1,561 @@
+package dna.graph.datastructures;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+import dna.graph.weights.IWeightedEdge;
+import dna.util.Rand;
+
+/**
+ * Data structure to store IElements by their primitive node indices only. No
+ * element references are kept: the list stores the index of each node (local
+ * node lists), the index of the node each edge connects the owner of the list
+ * to (local edge lists) or the indices of both nodes of each edge (global edge
+ * list) in dense growable int arrays. Nodes are looked up in the graph the
+ * list is bound to and edges are created through its GDS whenever they are
+ * requested, e.g., by get, getRandom or an iterator.<br>
+ *
+ * Lists with up to LINEAR elements are searched linearly, larger ones via an
+ * open-addressing hash table of int positions (linear probing), so no boxed
+ * keys or map entries are allocated and contains, get and remove take
+ * constant time.<br>
+ *
+ * Since edge objects are created on every request and compared by their node
+ * indices only, this list cannot store weighted edges and cannot be used as
+ * the global node list (which owns the node objects). A graph binds its global
+ * edge list on creation and the local lists of a node when the node is added.
+ *
+ * The list can be selected in the GDS string for the other list types, e.g.,
+ * LocalOutEdgeList=dna.graph.datastructures.DIntArrayAdjacency.
+ */
+public class DIntArrayAdjacency extends DataStructureReadable implements
+		INodeListDatastructureReadable, IEdgeListDatastructureReadable {
+
+	private static final int EMPTY = 0;
+
+	/** lists up to this size are searched without a table **/
+	private static final int LINEAR = 32;
+
+	/**
+	 * index of the node (node lists), of the other node of an edge (local
+	 * edge lists) or of the first node of an edge (global edge list) per
+	 * position
+	 **/
+	private int[] n1;
+
+	/** index of the second node of an edge (global edge list), else null **/
+	private int[] n2;
+
+	/**
+	 * open-addressing table containing position + 1, 0 denotes empty, null as
+	 * long as the list has never contained more than LINEAR elements
+	 **/
+	private int[] table;
+
+	private int size;
+
+	private int maxNodeIndex;
+
+	/** graph the nodes of the stored indices are looked up in **/
+	private Graph graph;
+
+	/** node this local list belongs to, null for global lists **/
+	private Node owner;
+
+	public DIntArrayAdjacency(ListType lt, Class<? extends IElement> dT) {
+		super(lt, dT);
+		if (lt == ListType.GlobalNodeList) {
+			throw new RuntimeException("DIntArrayAdjacency stores node "
+					+ "indices only and cannot be used as " + lt);
+		}
+	}
+
+	public void init(Class<? extends IElement> dT, int initialSize,
+			boolean firstTime) {
+		if (initialSize < 1) {
+			initialSize = 1;
+		}
+		this.n1 = new int[initialSize];
+		this.n2 = this.listType == ListType.GlobalEdgeList ? new int[initialSize]
+				: null;
+		this.table = null;
+		this.size = 0;
+		this.maxNodeIndex = -1;
+	}
+
+	/**
+	 * Binds this list to the graph its elements are looked up in.
+	 *
+	 * @param graph
+	 *            graph containing the nodes of all stored indices
+	 * @param owner
+	 *            node this local list belongs to, null for global lists
+	 */
+	public void bind(Graph graph, Node owner) {
+		this.graph = graph;
+		this.owner = owner;
+	}
+
+	/**
+	 * Binds the given list to the graph its elements are looked up in, in case
+	 * it is a DIntArrayAdjacency.
+	 */
+	public static void bind(IDataStructure list, Graph graph, Node owner) {
+		if (list instanceof DIntArrayAdjacency) {
+			((DIntArrayAdjacency) list).bind(graph, owner);
+		}
+	}
+
+	private boolean isNodeList() {
+		return this.listType == ListType.LocalNodeList;
+	}
+
+	private static int tableSizeFor(int capacity) {
+		// keep the load factor of the table below 0.75
+		int min = capacity + capacity / 3 + 1;
+		return Integer.highestOneBit(min * 2 - 1);
+	}
+
+	private static int hash(int n1, int n2) {
+		int h = n1 * 0x9E3779B9 + n2;
+		return h ^ (h >>> 16);
+	}
+
+	private int hashAt(int pos) {
+		return hash(this.n1[pos], this.n2 == null ? 0 : this.n2[pos]);
+	}
+
+	/**
+	 * @return the index stored for the edge between the given nodes in this
+	 *         local edge list, i.e., the index of the node it connects the
+	 *         owner to, or -1 if such an edge does not belong to this list
+	 */
+	private int other(int index1, int index2) {
+		if (this.owner == null) {
+			return -1;
+		}
+		int owner = this.owner.getIndex();
+		switch (this.listType) {
+		case LocalOutEdgeList:
+			return index1 == owner ? index2 : -1;
+		case LocalInEdgeList:
+			return index2 == owner ? index1 : -1;
+		default:
+			if (index1 == owner) {
+				return index2;
+			}
+			return index2 == owner ? index1 : -1;
+		}
+	}
+
+	/**
+	 * @return the position of the edge between the given nodes or -1 if no
+	 *         such edge is stored
+	 */
+	private int findEdge(int index1, int index2) {
+		if (this.n2 != null) {
+			return this.find(index1, index2);
+		}
+		int other = this.other(index1, index2);
+		return other < 0 ? -1 : this.find(other, 0);
+	}
+
+	/**
+	 * @return the position of the element with the given indices or -1 if no
+	 *         such element is stored
+	 */
+	private int find(int index1, int index2) {
+		if (this.table == null) {
+			for (int pos = 0; pos < this.size; pos++) {
+				if (this.n1[pos] == index1
+						&& (this.n2 == null || this.n2[pos] == index2)) {
+					return pos;
+				}
+			}
+			return -1;
+		}
+		int mask = this.table.length - 1;
+		int i = hash(index1, index2) & mask;
+		int entry;
+		while ((entry = this.table[i]) != EMPTY) {
+			int pos = entry - 1;
+			if (this.n1[pos] == index1
+					&& (this.n2 == null || this.n2[pos] == index2)) {
+				return pos;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the slot in the table pointing to the given position
+	 */
+	private int findSlot(int pos) {
+		int mask = this.table.length - 1;
+		int i = this.hashAt(pos) & mask;
+		while (this.table[i] != pos + 1) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void insertIntoTable(int pos) {
+		int mask = this.table.length - 1;
+		int i = this.hashAt(pos) & mask;
+		while (this.table[i] != EMPTY) {
+			i = (i + 1) & mask;
+		}
+		this.table[i] = pos + 1;
+	}
+
+	private void buildTable() {
+		this.table = new int[tableSizeFor(this.n1.length)];
+		for (int pos = 0; pos < this.size; pos++) {
+			this.insertIntoTable(pos);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= this.n1.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, this.n1.length
+				+ (this.n1.length >> 1) + 1);
+		this.n1 = Arrays.copyOf(this.n1, newCapacity);
+		if (this.n2 != null) {
+			this.n2 = Arrays.copyOf(this.n2, newCapacity);
+		}
+		if (this.table != null
+				&& tableSizeFor(newCapacity) > this.table.length) {
+			this.buildTable();
+		}
+	}
+
+	private boolean append(int index1, int index2) {
+		this.ensureCapacity(this.size + 1);
+		int pos = this.size;
+		this.n1[pos] = index1;
+		if (this.n2 != null) {
+			this.n2[pos] = index2;
+		}
+		this.size++;
+		if (this.table != null) {
+			this.insertIntoTable(pos);
+		} else if (this.size > LINEAR) {
+			this.buildTable();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the element at the given position. The last element is moved to
+	 * this position to keep the arrays dense.
+	 */
+	private void removeAt(int pos) {
+		int removed = this.n1[pos];
+		int last = this.size - 1;
+		if (this.table != null) {
+			// remove from table (backward shift deletion for linear probing)
+			int mask = this.table.length - 1;
+			int free = this.findSlot(pos);
+			this.table[free] = EMPTY;
+			int i = free;
+			while (true) {
+				i = (i + 1) & mask;
+				int entry = this.table[i];
+				if (entry == EMPTY) {
+					break;
+				}
+				int ideal = this.hashAt(entry - 1) & mask;
+				// move the entry if its ideal slot is not within (free, i]
+				if (((i - ideal) & mask) >= ((i - free) & mask)) {
+					this.table[free] = entry;
+					this.table[i] = EMPTY;
+					free = i;
+				}
+			}
+			if (pos != last) {
+				this.table[this.findSlot(last)] = pos + 1;
+			}
+		}
+
+		// move last element to the free position
+		if (pos != last) {
+			this.n1[pos] = this.n1[last];
+			if (this.n2 != null) {
+				this.n2[pos] = this.n2[last];
+			}
+		}
+		this.size--;
+
+		if (this.isNodeList() && removed == this.maxNodeIndex) {
+			int max = -1;
+			for (int i = 0; i < this.size; i++) {
+				max = Math.max(this.n1[i], max);
+			}
+			this.maxNodeIndex = max;
+		}
+	}
+
+	private Node node(int index) {
+		if (this.graph == null) {
+			throw new RuntimeException(
+					"DIntArrayAdjacency is not bound to a graph");
+		}
+		return this.graph.getNode(index);
+	}
+
+	/**
+	 * @return the element stored at the given position, edges are created
+	 *         through the GDS of the graph
+	 */
+	private IElement element(int pos) {
+		if (this.isNodeList()) {
+			return this.node(this.n1[pos]);
+		}
+		Node other = this.node(this.n1[pos]);
+		GraphDataStructure gds = this.graph.getGraphDatastructures();
+		switch (this.listType) {
+		case GlobalEdgeList:
+			return gds.newEdgeInstance(other, this.node(this.n2[pos]));
+		case LocalInEdgeList:
+			return gds.newEdgeInstance(other, this.owner);
+		default:
+			return gds.newEdgeInstance(this.owner, other);
+		}
+	}
+
+	@Override
+	public boolean canAdd(IElement element) {
+		super.canAdd(element);
+		if (element instanceof IWeightedEdge) {
+			throw new RuntimeException(
+					"DIntArrayAdjacency cannot store weighted edges");
+		}
+		if (element instanceof Edge && this.n2 == null) {
+			Edge e = (Edge) element;
+			if (this.owner == null) {
+				throw new RuntimeException("DIntArrayAdjacency is not bound "
+						+ "to the node of its local list");
+			}
+			boolean directed = this.listType != ListType.LocalEdgeList;
+			if (directed != (e instanceof DirectedEdge)
+					|| this.other(e.getN1Index(), e.getN2Index()) < 0) {
+				throw new RuntimeException("Edge " + e
+						+ " does not belong to this " + this.listType
+						+ " of node " + this.owner.getIndex());
+			}
+		}
+		return true;
+	}
+
+	public boolean add(IElement element) {
+		if (element instanceof Node)
+			return this.add((Node) element);
+		if (element instanceof Edge)
+			return this.add((Edge) element);
+		throw new RuntimeException("Can't handle element of type "
+				+ element.getClass() + " here");
+	}
+
+	@Override
+	protected boolean add_(Node element) {
+		this.append(element.getIndex(), 0);
+		if (element.getIndex() > this.maxNodeIndex) {
+			this.maxNodeIndex = element.getIndex();
+		}
+		return true;
+	}
+
+	@Override
+	protected boolean add_(Edge element) {
+		if (this.n2 != null) {
+			return this.append(element.getN1Index(), element.getN2Index());
+		}
+		return this.append(
+				this.other(element.getN1Index(), element.getN2Index()), 0);
+	}
+
+	@Override
+	public boolean contains(IElement element) {
+		if (element instanceof Node)
+			return this.contains((Node) element);
+		if (element instanceof Edge)
+			return this.contains((Edge) element);
+		throw new RuntimeException("Can't handle element of type "
+				+ element.getClass() + " here");
+	}
+
+	@Override
+	public boolean contains(Node element) {
+		return this.containsIndex(element.getIndex());
+	}
+
+	@Override
+	public boolean contains(Edge element) {
+		return this.containsIndices(element.getN1Index(),
+				element.getN2Index());
+	}
+
+	/**
+	 * Checks whether a node with the given index is stored in this (node)
+	 * list without requiring a node object.
+	 *
+	 * @param index
+	 *            index of the node
+	 * @return true, if a node with the given index is stored
+	 */
+	public boolean containsIndex(int index) {
+		return this.isNodeList() && this.find(index, 0) >= 0;
+	}
+
+	/**
+	 * Checks whether an edge between the given node indices is stored in this
+	 * (edge) list without requiring an edge object.
+	 *
+	 * @param index1
+	 *            index of the first node
+	 * @param index2
+	 *            index of the second node
+	 * @return true, if such an edge is stored
+	 */
+	public boolean containsIndices(int index1, int index2) {
+		return !this.isNodeList() && this.findEdge(index1, index2) >= 0;
+	}
+
+	@Override
+	public boolean remove(IElement element) {
+		if (element instanceof Node)
+			return this.remove((Node) element);
+		if (element instanceof Edge)
+			return this.remove((Edge) element);
+		else
+			throw new RuntimeException(
+					"Cannot remove a non-node from a node list");
+	}
+
+	@Override
+	public boolean remove(Node element) {
+		if (!this.isNodeList())
+			return false;
+		int pos = this.find(element.getIndex(), 0);
+		if (pos < 0) {
+			return false;
+		}
+		this.removeAt(pos);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Edge element) {
+		if (this.isNodeList())
+			return false;
+		int pos = this.findEdge(element.getN1Index(), element.getN2Index());
+		if (pos < 0) {
+			return false;
+		}
+		this.removeAt(pos);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Node get(int index) {
+		if (!this.isNodeList())
+			return null;
+		return this.find(index, 0) < 0 ? null : this.node(index);
+	}
+
+	@Override
+	public Edge get(int n1, int n2) {
+		if (this.isNodeList())
+			return null;
+		int pos = this.findEdge(n1, n2);
+		return pos < 0 ? null : (Edge) this.element(pos);
+	}
+
+	@Override
+	public Edge get(Edge element) {
+		return this.get(element.getN1Index(), element.getN2Index());
+	}
+
+	@Override
+	public int getMaxNodeIndex() {
+		return this.maxNodeIndex;
+	}
+
+	@Override
+	public IElement getRandom() {
+		return this.element(Rand.rand.nextInt(this.size));
+	}
+
+	@Override
+	public Collection<IElement> getElements() {
+		return new AbstractList<IElement>() {
+			@Override
+			public IElement get(int index) {
+				if (index >= DIntArrayAdjacency.this.size)
+					throw new IndexOutOfBoundsException();
+				return DIntArrayAdjacency.this.element(index);
+			}
+
+			@Override
+			public int size() {
+				return DIntArrayAdjacency.this.size;
+			}
+		};
+	}
+
+	@Override
+	protected Iterator<IElement> iterator_() {
+		return new Iterator<IElement>() {
+			private int next = 0;
+
+			private int current = -1;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < DIntArrayAdjacency.this.size;
+			}
+
+			@Override
+			public IElement next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+				this.current = this.next++;
+				return DIntArrayAdjacency.this.element(this.current);
+			}
+
+			@Override
+			public void remove() {
+				if (this.current < 0)
+					throw new IllegalStateException();
+				DIntArrayAdjacency.this.removeAt(this.current);
+				// the last element has been moved to the current position
+				this.next = this.current;
+				this.current = -1;
+			}
+		};
+	}
+
+	public void prepareForGC() {
+		this.n1 = null;
+		this.n2 = null;
+		this.table = null;
+		this.graph = null;
+		this.owner = null;
+	}
+}
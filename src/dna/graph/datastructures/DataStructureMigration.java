@@ -0,0 +1,365 @@
+package dna.graph.datastructures;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.datastructures.DataStructure.ListType;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.util.Log;
+
+/**
+ * Switches the data structures of a graph without copying the whole graph
+ * between two batches.<br>
+ *
+ * When the migration is started, only the elements of the global node and
+ * edge list are copied into arrays. From this snapshot, a background thread
+ * builds all lists whose type changes (global lists as well as the local
+ * lists of each node, which are derived from the snapshot's edges) while the
+ * graph continues to be updated. All nodes and edges added to or removed from
+ * the graph in the meantime are logged.<br>
+ *
+ * After the thread has finished, install() replays the logged updates on the
+ * new global lists, rebuilds the local lists of all nodes touched by them
+ * from their current lists and replaces the graph's lists. It has to be
+ * called between two batches.
+ */
+public class DataStructureMigration implements Runnable {
+
+	private Graph g;
+
+	private GraphDataStructure newGDS;
+
+	private EnumSet<ListType> changed;
+
+	private IElement[] nodeSnapshot;
+
+	private IElement[] edgeSnapshot;
+
+	private ArrayList<IElement> log;
+
+	private ArrayList<Boolean> logAdditions;
+
+	private IDataStructure newNodes;
+
+	private IDataStructure newEdges;
+
+	private IdentityHashMap<Node, EnumMap<ListType, IDataStructure>> newLocalLists;
+
+	private Thread thread;
+
+	private volatile boolean finished;
+
+	private Throwable error;
+
+	private long elements;
+
+	private long snapshotDuration;
+
+	private long buildDuration;
+
+	private long installDuration;
+
+	private DataStructureMigration(Graph g, GraphDataStructure newGDS) {
+		this.g = g;
+		this.newGDS = newGDS;
+		this.changed = EnumSet.noneOf(ListType.class);
+		GraphDataStructure gds = g.getGraphDatastructures();
+		for (ListType lt : ListType.values()) {
+			if (gds.getListClass(lt) != newGDS.getListClass(lt)) {
+				this.changed.add(lt);
+			}
+		}
+		this.log = new ArrayList<IElement>();
+		this.logAdditions = new ArrayList<Boolean>();
+		this.finished = false;
+		this.error = null;
+	}
+
+	/**
+	 * Takes the snapshot of the graph and starts building the new lists in
+	 * the background. From now on, all nodes and edges added to or removed
+	 * from the graph are logged.
+	 */
+	static DataStructureMigration start(Graph g, GraphDataStructure newGDS) {
+		DataStructureMigration m = new DataStructureMigration(g, newGDS);
+
+		long start = System.nanoTime();
+		m.nodeSnapshot = toArray(g.getNodes(), g.getNodeCount());
+		m.edgeSnapshot = toArray(g.getEdges(), g.getEdgeCount());
+		m.snapshotDuration = System.nanoTime() - start;
+
+		g.setMigration(m);
+		m.thread = new Thread(m, "DataStructureMigration");
+		m.thread.setDaemon(true);
+		m.thread.start();
+		return m;
+	}
+
+	private static IElement[] toArray(Iterable<IElement> list, int size) {
+		IElement[] res = new IElement[size];
+		int i = 0;
+		for (IElement e : list) {
+			res[i++] = e;
+		}
+		return res;
+	}
+
+	/**
+	 * Logs a node or edge that was added to (or removed from) the graph
+	 * after the snapshot was taken.
+	 */
+	public void log(IElement element, boolean addition) {
+		this.log.add(element);
+		this.logAdditions.add(addition);
+	}
+
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		try {
+			this.build();
+		} catch (Throwable t) {
+			this.error = t;
+		} finally {
+			this.buildDuration = System.nanoTime() - start;
+			this.finished = true;
+		}
+	}
+
+	private void build() {
+		if (this.changed.contains(ListType.GlobalNodeList)) {
+			this.newNodes = this.newList(ListType.GlobalNodeList,
+					this.nodeSnapshot.length);
+			for (IElement n : this.nodeSnapshot) {
+				this.newNodes.add(n);
+			}
+			this.elements += this.nodeSnapshot.length;
+		}
+		if (this.changed.contains(ListType.GlobalEdgeList)) {
+			this.newEdges = this.newList(ListType.GlobalEdgeList,
+					this.edgeSnapshot.length);
+			for (IElement e : this.edgeSnapshot) {
+				this.newEdges.add(e);
+			}
+			this.elements += this.edgeSnapshot.length;
+		}
+
+		this.newLocalLists = new IdentityHashMap<>(this.nodeSnapshot.length);
+		EnumSet<ListType> directed = EnumSet.of(ListType.LocalNodeList,
+				ListType.LocalInEdgeList, ListType.LocalOutEdgeList);
+		directed.retainAll(this.changed);
+		EnumSet<ListType> undirected = EnumSet.of(ListType.LocalEdgeList);
+		undirected.retainAll(this.changed);
+		if (directed.isEmpty() && undirected.isEmpty()) {
+			return;
+		}
+		for (IElement n : this.nodeSnapshot) {
+			EnumMap<ListType, IDataStructure> lists = new EnumMap<>(
+					ListType.class);
+			for (ListType lt : n instanceof DirectedNode ? directed
+					: undirected) {
+				IDataStructure list = this.g.getGraphDatastructures().newList(
+						lt, this.newGDS.getListClass(lt));
+				DIntArrayAdjacency.bind(list, this.g, (Node) n);
+				lists.put(lt, list);
+			}
+			this.newLocalLists.put((Node) n, lists);
+		}
+
+		HashSet<Edge> edges = null;
+		if (directed.contains(ListType.LocalNodeList)) {
+			edges = new HashSet<Edge>(this.edgeSnapshot.length);
+			for (IElement e : this.edgeSnapshot) {
+				edges.add((Edge) e);
+			}
+		}
+		for (IElement eTemp : this.edgeSnapshot) {
+			Edge e = (Edge) eTemp;
+			if (e instanceof UndirectedEdge) {
+				this.addLocal(e.getN1(), ListType.LocalEdgeList, e);
+				this.addLocal(e.getN2(), ListType.LocalEdgeList, e);
+			} else if (e instanceof DirectedEdge) {
+				DirectedEdge d = (DirectedEdge) e;
+				this.addLocal(d.getSrc(), ListType.LocalOutEdgeList, d);
+				this.addLocal(d.getDst(), ListType.LocalInEdgeList, d);
+				if (edges != null && edges.contains(d.invert())) {
+					this.addLocal(d.getSrc(), ListType.LocalNodeList,
+							d.getDst());
+				}
+			}
+		}
+	}
+
+	private IDataStructure newList(ListType lt, int size) {
+		IDataStructure res = this.g.getGraphDatastructures().newList(lt,
+				this.newGDS.getListClass(lt));
+		res.reinitializeWithSize(size);
+		DIntArrayAdjacency.bind(res, this.g, null);
+		return res;
+	}
+
+	private void addLocal(Node n, ListType lt, IElement element) {
+		EnumMap<ListType, IDataStructure> lists = this.newLocalLists.get(n);
+		if (lists == null) {
+			return;
+		}
+		IDataStructure list = lists.get(lt);
+		if (list != null) {
+			list.add(element);
+			this.elements++;
+		}
+	}
+
+	/**
+	 * @return true if the new lists are built and the migration can be
+	 *         installed without waiting
+	 */
+	public boolean isFinished() {
+		return this.finished;
+	}
+
+	/**
+	 * Waits for the new lists to be built, replays the logged updates and
+	 * replaces the lists of the graph. Must be called between two batches.
+	 *
+	 * @return true if the data structures were switched
+	 */
+	public boolean install() {
+		this.g.setMigration(null);
+		try {
+			this.thread.join();
+		} catch (InterruptedException e) {
+			Log.error("interrupted while waiting for migration: "
+					+ e.getMessage());
+			return false;
+		}
+		if (this.error != null) {
+			Log.error("migration of data structures failed: " + this.error);
+			return false;
+		}
+
+		long start = System.nanoTime();
+		HashSet<Node> dirty = new HashSet<Node>();
+		Iterator<Boolean> additions = this.logAdditions.iterator();
+		for (IElement element : this.log) {
+			boolean addition = additions.next();
+			IDataStructure list;
+			if (element instanceof Node) {
+				dirty.add((Node) element);
+				list = this.newNodes;
+			} else {
+				dirty.add(((Edge) element).getN1());
+				dirty.add(((Edge) element).getN2());
+				list = this.newEdges;
+			}
+			if (list == null) {
+				continue;
+			}
+			if (addition) {
+				list.add(element);
+			} else {
+				list.remove(element);
+			}
+		}
+
+		if (this.newNodes != null) {
+			this.g.nodes.prepareForGC();
+			this.g.nodes = (INodeListDatastructure) this.newNodes;
+		}
+		if (this.newEdges != null) {
+			this.g.edges.prepareForGC();
+			this.g.edges = (IEdgeListDatastructure) this.newEdges;
+		}
+
+		GraphDataStructure gds = this.g.getGraphDatastructures();
+		for (IElement nTemp : this.g.getNodes()) {
+			Node n = (Node) nTemp;
+			EnumMap<ListType, IDataStructure> lists = this.newLocalLists
+					.get(n);
+			for (ListType lt : this.changed) {
+				if (lt == ListType.GlobalNodeList
+						|| lt == ListType.GlobalEdgeList) {
+					continue;
+				}
+				IDataStructure list = lists == null ? null : lists.get(lt);
+				if (list == null || dirty.contains(n)) {
+					list = gds.newList(lt, this.newGDS.getListClass(lt));
+					DIntArrayAdjacency.bind(list, this.g, n);
+					n.switchDataStructure(lt, list);
+				} else {
+					IDataStructure old = n.setDataStructure(lt, list);
+					if (old != null) {
+						old.prepareForGC();
+					}
+				}
+			}
+		}
+
+		gds.setListClasses(this.newGDS);
+		this.installDuration = System.nanoTime() - start;
+
+		this.nodeSnapshot = null;
+		this.edgeSnapshot = null;
+		this.newLocalLists = null;
+		return true;
+	}
+
+	/**
+	 * Stops logging and discards the new lists (the thread building them is
+	 * not interrupted but its results are never installed).
+	 */
+	public void cancel() {
+		this.g.setMigration(null);
+	}
+
+	public GraphDataStructure getNewGraphDataStructure() {
+		return this.newGDS;
+	}
+
+	/**
+	 * @return number of elements added to the new lists in the background
+	 */
+	public long getMigratedElements() {
+		return this.elements;
+	}
+
+	/**
+	 * @return number of nodes and edges added or removed while the new lists
+	 *         were built
+	 */
+	public int getLoggedUpdates() {
+		return this.log.size();
+	}
+
+	/**
+	 * @return nanoseconds spent in the background building the new lists
+	 */
+	public long getBuildDuration() {
+		return this.buildDuration;
+	}
+
+	/**
+	 * @return nanoseconds spent between batches, i.e., for taking the
+	 *         snapshot and installing the new lists
+	 */
+	public long getPauseDuration() {
+		return this.snapshotDuration + this.installDuration;
+	}
+
+	/**
+	 * @return total nanoseconds spent on the migration
+	 */
+	public long getDuration() {
+		return this.buildDuration + this.getPauseDuration();
+	}
+}
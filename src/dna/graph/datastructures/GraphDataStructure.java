@@ -48,9 +48,14 @@ public class GraphDataStructure implements Cloneable {
 	private WeightSelection edgeWeightSelection;
 	private Constructor<?> lastWeightedEdgeConstructor = null;
 	private Constructor<?> lastEdgeConstructor = null;
+	private Constructor<? extends Node> nodeConstructor = null;
 
 	private IEdgeListDatastructure emptyList = new DEmpty(null);
-	private IEdgeDummy edgeDummy;
+	/**
+	 * Dummy edge used for lookups, kept per thread as metrics may query the
+	 * graph concurrently.
+	 */
+	private ThreadLocal<IEdgeDummy> edgeDummy = new ThreadLocal<IEdgeDummy>();
 
 	private EnumMap<ListType, Class<? extends IDataStructure>> listTypes;
 	private EnumMap<ListType, Integer> defaultListSizes;
@@ -61,7 +66,13 @@ public class GraphDataStructure implements Cloneable {
 
 	private int defaultListSize = 10;
 
-	private static GraphDataStructure currentGDS;
+	/**
+	 * The GDS of the graph that is currently processed by this thread. The
+	 * last one that has been set by any thread serves as fallback for threads
+	 * which never set their own, e.g., helper threads.
+	 */
+	private static ThreadLocal<GraphDataStructure> currentGDS = new ThreadLocal<GraphDataStructure>();
+	private static volatile GraphDataStructure lastGDS;
 
 	public GraphDataStructure(
 			EnumMap<ListType, Class<? extends IDataStructure>> listTypes,
@@ -92,11 +103,15 @@ public class GraphDataStructure implements Cloneable {
 	}
 
 	public static void setCurrent(GraphDataStructure gds) {
-		currentGDS = gds;
+		currentGDS.set(gds);
+		lastGDS = gds;
 	}
 
 	public static GraphDataStructure getCurrent() {
-		return currentGDS;
+		GraphDataStructure gds = currentGDS.get();
+		if (gds == null)
+			return lastGDS;
+		return gds;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -205,6 +220,10 @@ public class GraphDataStructure implements Cloneable {
 			throw new RuntimeException(
 					"The GraphDataStructure cannot be initialized without a global node list");
 		}
+		if (getListClass(ListType.GlobalNodeList) == DIntArrayAdjacency.class) {
+			throw new RuntimeException(
+					"DIntArrayAdjacency cannot be used as global node list");
+		}
 
 		if (getListClass(ListType.LocalNodeList) == null) {
 			listTypes.put(ListType.LocalNodeList,
@@ -215,6 +234,16 @@ public class GraphDataStructure implements Cloneable {
 		if (!validListTypesSet(listTypes)) {
 			throw new RuntimeException("Invalid set of list types");
 		}
+
+		if (this.createsWeightedEdges()) {
+			for (ListType lt : ListType.values()) {
+				if (lt.getStoredClass() == Edge.class
+						&& getListClass(lt) == DIntArrayAdjacency.class) {
+					throw new RuntimeException(
+							"DIntArrayAdjacency cannot store weighted edges");
+				}
+			}
+		}
 		return true;
 	}
 
@@ -399,7 +428,13 @@ public class GraphDataStructure implements Cloneable {
 		}
 
 		try {
-			c = nodeType.getConstructor(int.class, GraphDataStructure.class);
+			// the constructor is resolved only once per node type
+			c = this.nodeConstructor;
+			if (c == null || c.getDeclaringClass() != nodeType) {
+				c = nodeType.getConstructor(int.class,
+						GraphDataStructure.class);
+				this.nodeConstructor = c;
+			}
 			return c.newInstance(index, this);
 		} catch (InvocationTargetException ite) {
 			RuntimeException rt = new RuntimeException(
@@ -572,21 +607,22 @@ public class GraphDataStructure implements Cloneable {
 	}
 
 	public Edge getDummyEdge(int n1, int n2) {
-		if (edgeDummy == null) {
+		IEdgeDummy dummy = edgeDummy.get();
+		if (dummy == null) {
 			if (createsDirected()) {
 				DirectedNode node1 = new DirectedNode(1, this);
 				DirectedNode node2 = new DirectedNode(2, this);
-				edgeDummy = new DummyDirectedEdge(node1, node2);
+				dummy = new DummyDirectedEdge(node1, node2);
 			} else {
 				UndirectedNode node1 = new UndirectedNode(1, this);
 				UndirectedNode node2 = new UndirectedNode(2, this);
-				edgeDummy = new DummyUndirectedEdge(node1, node2);
+				dummy = new DummyUndirectedEdge(node1, node2);
 			}
+			edgeDummy.set(dummy);
 		}
-		edgeDummy.setNodes(n1, n2);
-		return (Edge) edgeDummy;
+		dummy.setNodes(n1, n2);
+		return (Edge) dummy;
 	}
-
 	public Constructor<?> getConstructor(Constructor<?>[] list,
 			Class<?>[] required) {
 		Constructor<?> cNeeded = null;
@@ -843,36 +879,65 @@ public class GraphDataStructure implements Cloneable {
 	 * @param g
 	 */
 	public void switchDatastructures(GraphDataStructure newGDS, Graph g) {
+		if (!this.canSwitchDatastructures()) {
+			return;
+		}
+
+		for (ListType lt : ListType.values()) {
+			if (this.getListClass(lt) != newGDS.getListClass(lt)) {
+				g.switchDataStructure(lt, newGDS.getListClass(lt));
+			}
+		}
+
+		System.gc();
+
+		this.setListClasses(newGDS);
+	}
+
+	/**
+	 * Switch data structures from the current setting stored here to another
+	 * combination without blocking: the new lists are built in the background
+	 * while the graph continues to be updated. The switch takes place when
+	 * the returned migration is installed.
+	 * 
+	 * @param newGDS
+	 * @param g
+	 * @return the started migration, null if switching is not possible
+	 */
+	public DataStructureMigration startMigration(GraphDataStructure newGDS,
+			Graph g) {
+		if (!this.canSwitchDatastructures()) {
+			return null;
+		}
+		return DataStructureMigration.start(g, newGDS);
+	}
+
+	private boolean canSwitchDatastructures() {
 		if (!this.isReadable(getListClass(ListType.GlobalEdgeList))) {
 			System.err
 					.println("Reject switching data structures, as graph edge list of type "
 							+ this.getListClass(ListType.GlobalEdgeList)
 							+ " cannot be converted");
-			return;
+			return false;
 		}
 		if (!this.isReadable(getListClass(ListType.LocalEdgeList))) {
 			System.err
 					.println("Reject switching data structures, as node edge list of type "
 							+ this.getListClass(ListType.LocalEdgeList)
 							+ " cannot be converted");
-			return;
+			return false;
 		}
 		if (!this.isReadable(getListClass(ListType.GlobalNodeList))) {
 			System.err
 					.println("Reject switching data structures, as node list of type "
 							+ this.getListClass(ListType.GlobalNodeList)
 							+ " cannot be converted");
-			return;
-		}
-
-		for (ListType lt : ListType.values()) {
-			if (this.getListClass(lt) != newGDS.getListClass(lt)) {
-				g.switchDataStructure(lt, newGDS.getListClass(lt));
-			}
+			return false;
 		}
+		return true;
+	}
 
-		System.gc();
-
+	void setListClasses(GraphDataStructure newGDS) {
 		for (ListType lt : ListType.values()) {
 			this.listTypes.put(lt, newGDS.getListClass(lt));
 		}
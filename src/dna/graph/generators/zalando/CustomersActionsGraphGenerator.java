@@ -19,7 +19,7 @@ public class CustomersActionsGraphGenerator extends
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public CustomersActionsGraphGenerator(ZalandoGraphDataStructure gds,
 			long timestampInit, int maxNumberOfEvents, String eventsFilepath) {
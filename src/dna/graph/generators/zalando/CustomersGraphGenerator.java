@@ -18,7 +18,7 @@ public class CustomersGraphGenerator extends ZalandoEqualityGraphGenerator {
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public CustomersGraphGenerator(ZalandoGraphDataStructure gds, long timestampInit,
 			int maxNumberOfEvents, String eventsFilepath) {
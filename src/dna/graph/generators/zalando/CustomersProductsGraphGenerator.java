@@ -21,7 +21,7 @@ public class CustomersProductsGraphGenerator extends
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public CustomersProductsGraphGenerator(ZalandoGraphDataStructure gds,
 			long timestampInit, int maxNumberOfEvents, String eventsFilepath) {
@@ -40,7 +40,7 @@ public class CustomersProductsGraphGenerator extends
 	 * products.</b>
 	 */
 	@Override
-	void addEdgesForColumns(Event event) {
+	void addEdgesForColumns(EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		nodeForEventIndex = this.mappings.getMapping(
 				this.columnGroupsToAddAsNodes[0], event);
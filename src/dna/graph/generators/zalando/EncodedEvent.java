@@ -0,0 +1,83 @@
+package dna.graph.generators.zalando;
+
+/**
+ * An event of Zalando online shop with all values encoded as {@code int}s,
+ * i.e. the codes of the values in the {@link EventDictionary} of the
+ * respective {@link EventColumn}. Equal values of a column have equal codes.
+ * <p>
+ * An {@link EncodedEventReader} reuses the same {@link EncodedEvent} for all
+ * lines it reads, so its codes are only valid until the next line is read.
+ * The values are normalized just like the ones of an {@link Event}, e.g. the
+ * second of two equal consecutive {@code WARENGRUPPE}s is replaced by "-".
+ * </p>
+ */
+public class EncodedEvent implements IEvent {
+
+	private final EventDictionary dictionary;
+
+	/** the code of each column, indexed by {@link EventColumn#ordinal()} */
+	final int[] codes;
+
+	/** the number of the line this event has been read from */
+	long lineNumber;
+
+	/**
+	 * Creates an {@link EncodedEvent} for codes of the given dictionaries.
+	 */
+	EncodedEvent(EventDictionary dictionary) {
+		this.dictionary = dictionary;
+		this.codes = new int[EventColumn.values().length];
+		this.lineNumber = -1;
+	}
+
+	/**
+	 * @return The code of the value of given {@link EventColumn} for this
+	 *         {@link EncodedEvent}.
+	 */
+	public int getCode(EventColumn column) {
+		return this.codes[column.ordinal()];
+	}
+
+	/**
+	 * @return The number of the line (starting at 0) this event has been read
+	 *         from. It identifies the event as long as it is read by the same
+	 *         {@link EncodedEventReader}.
+	 */
+	public long getLineNumber() {
+		return this.lineNumber;
+	}
+
+	/**
+	 * @return The dictionaries the codes of this {@link EncodedEvent} refer to.
+	 */
+	public EventDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * @return The value of given {@link EventColumn} for this
+	 *         {@link EncodedEvent} as {@link String}.
+	 */
+	@Override
+	public String get(EventColumn column) {
+		return this.dictionary.getValue(column, this.getCode(column));
+	}
+
+	/**
+	 * Returns a string representation of this {@link EncodedEvent}.
+	 * 
+	 * @return This {@link EncodedEvent} formatted like the line originally
+	 *         read in.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (EventColumn column : EventColumn.values()) {
+			if (sb.length() > 0)
+				sb.append('\t');
+			sb.append(this.get(column));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,387 @@
+package dna.graph.generators.zalando;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import dna.graph.generators.zalando.EventColumn.Aktionen;
+import dna.util.Log;
+
+/**
+ * Reads a Zalando log file line by line and encodes each line as
+ * {@link EncodedEvent}.
+ * <p>
+ * In contrast to {@link EventReader}, no {@link String}s are created for the
+ * lines or their values: the file is read in chunks of bytes, each line is
+ * split into its columns directly in the byte buffer and the value of each
+ * column is interned into the {@link EventDictionary} of the reader. The
+ * codes of the values are written into a single {@link EncodedEvent} that is
+ * reused for all lines.
+ * </p>
+ * <p>
+ * Lines are terminated by "\n" or "\r\n". Lines that can not be parsed as
+ * {@link Event} are omitted.
+ * </p>
+ */
+public class EncodedEventReader {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final EventColumn[] COLUMNS = EventColumn.values();
+
+	private static final byte SEPERATOR = '\t';
+
+	private static final byte[] EMPTY_WARENGRUPPE = { '-' };
+
+	private InputStream in;
+
+	private byte[] buffer;
+
+	private int pos;
+
+	private int limit;
+
+	private boolean eof;
+
+	/** the current line is stored in [lineStart, lineEnd) of the buffer */
+	private int lineStart;
+
+	private int lineEnd;
+
+	private long lineNumber;
+
+	/** the value of column i is stored in [starts[i], ends[i]) of the buffer */
+	private final int[] starts;
+
+	private final int[] ends;
+
+	/** buffer to format the values of ANZAHL and PREISLAGE */
+	private final byte[] number;
+
+	private final EventDictionary dictionary;
+
+	private final EncodedEvent event;
+
+	/**
+	 * Creates an {@link EncodedEventReader} to read in events of given file.
+	 * The values are interned into the dictionaries returned by
+	 * {@link EventDictionary#forEvents(String)}.
+	 *
+	 * @param filepath
+	 *            The path of the file to read in.
+	 */
+	public EncodedEventReader(String filepath) {
+		this(filepath, EventDictionary.forEvents(filepath));
+	}
+
+	/**
+	 * Creates an {@link EncodedEventReader} to read in events of given file.
+	 *
+	 * @param filepath
+	 *            The path of the file to read in.
+	 * @param dictionary
+	 *            The dictionaries to intern the values into. Readers sharing
+	 *            the same dictionaries use the same codes for equal values.
+	 */
+	public EncodedEventReader(String filepath, EventDictionary dictionary) {
+		try {
+			this.in = new FileInputStream(filepath);
+		} catch (FileNotFoundException e) {
+			Log.error("Failure while creating EncodedEventReader for file "
+					+ filepath + ". Is the path correct?");
+		}
+		this.buffer = new byte[BUFFER_SIZE];
+		this.pos = 0;
+		this.limit = 0;
+		this.eof = false;
+		this.lineNumber = 0;
+		this.starts = new int[COLUMNS.length];
+		this.ends = new int[COLUMNS.length];
+		this.number = new byte[11];
+		this.dictionary = dictionary;
+		this.event = new EncodedEvent(dictionary);
+	}
+
+	/**
+	 * @return The dictionaries the values are interned into.
+	 */
+	public EventDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * Closes this {@link EncodedEventReader} and stores its dictionaries (see
+	 * {@link EventDictionary#store()}).
+	 * <p>
+	 * You do not need to call this method if you read all lines of the file,
+	 * because {@link #readNext()} closes the reader if there are no more lines
+	 * to read.
+	 * </p>
+	 */
+	public void close() {
+		if (this.in != null) {
+			try {
+				this.in.close();
+
+				this.in = null;
+			} catch (IOException e) {
+				Log.warn("Failure while closing EncodedEventReader.");
+			}
+			this.dictionary.store();
+		}
+	}
+
+	/**
+	 * Reads the next line, i.e. the next event of the file.
+	 * <p>
+	 * If there are no more lines to read, the reader is closed automatically.
+	 * </p>
+	 *
+	 * @return The read line as {@link EncodedEvent} or {@code null} if either
+	 *         reader is closed or there is no (more) line to read. The same
+	 *         {@link EncodedEvent} is returned for all lines.
+	 */
+	public EncodedEvent readNext() {
+		if (this.in == null) {
+			// reader is closed
+			Log.warn("Read not possible, the reader is closed.");
+			return null;
+		}
+
+		while (true) {
+			try {
+				if (!this.nextLine()) {
+					Log.warn("Read not possible, there are no lines to read.");
+					this.close();
+					return null;
+				}
+			} catch (IOException e) {
+				Log.error("Failure while reading next line.");
+				return null;
+			}
+
+			if (this.encode()) {
+				this.event.lineNumber = this.lineNumber++;
+				return this.event;
+			}
+
+			this.lineNumber++;
+			Log.error("Failure while creating Event with line of current data. Line ommitted and jumped to the next.");
+		}
+	}
+
+	/**
+	 * Moves to the next line, reading further bytes from the file if the line
+	 * is not completely contained in the buffer.
+	 *
+	 * @return false if there are no more lines
+	 */
+	private boolean nextLine() throws IOException {
+		int i = this.pos;
+		while (true) {
+			while (i < this.limit) {
+				if (this.buffer[i] == '\n') {
+					this.setLine(this.pos, i);
+					this.pos = i + 1;
+					return true;
+				}
+				i++;
+			}
+
+			if (this.eof) {
+				if (this.pos == this.limit)
+					return false;
+				// last line without line terminator
+				this.setLine(this.pos, this.limit);
+				this.pos = this.limit;
+				return true;
+			}
+
+			// move the beginning of the current line to the beginning of the
+			// buffer (or grow the buffer for long lines) and fill it
+			final int scanned = i - this.pos;
+			if (this.pos > 0) {
+				System.arraycopy(this.buffer, this.pos, this.buffer, 0,
+						this.limit - this.pos);
+				this.limit -= this.pos;
+				this.pos = 0;
+			} else if (this.limit == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+			}
+			i = scanned;
+
+			final int read = this.in.read(this.buffer, this.limit,
+					this.buffer.length - this.limit);
+			if (read < 0)
+				this.eof = true;
+			else
+				this.limit += read;
+		}
+	}
+
+	private void setLine(int start, int end) {
+		if (end > start && this.buffer[end - 1] == '\r')
+			end--;
+		this.lineStart = start;
+		this.lineEnd = end;
+	}
+
+	/**
+	 * Splits the current line into its columns and writes the codes of their
+	 * values into {@link #event}. Values are only interned if the whole line
+	 * is valid.
+	 *
+	 * @return false if the line is not a valid event
+	 */
+	private boolean encode() {
+		// split
+		int column = 0;
+		int start = this.lineStart;
+		for (int i = this.lineStart; i <= this.lineEnd
+				&& column < COLUMNS.length; i++) {
+			if (i == this.lineEnd || this.buffer[i] == SEPERATOR) {
+				this.starts[column] = start;
+				this.ends[column++] = i;
+				start = i + 1;
+			}
+		}
+		if (column < COLUMNS.length)
+			return false;
+
+		// validate
+		int anzahl, preislage;
+		try {
+			anzahl = this.parseInt(EventColumn.ANZAHL);
+			preislage = this.parseInt(EventColumn.PREISLAGE);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		int aktion = this.dictionary.get(EventColumn.AKTION, this.buffer,
+				this.start(EventColumn.AKTION), this.length(EventColumn.AKTION));
+		if (aktion == -1) {
+			try {
+				Aktionen.valueOf(new String(this.buffer,
+						this.start(EventColumn.AKTION),
+						this.length(EventColumn.AKTION), StandardCharsets.UTF_8));
+			} catch (IllegalArgumentException e) {
+				return false;
+			}
+			aktion = this.intern(EventColumn.AKTION);
+		}
+
+		// intern
+		final int[] codes = this.event.codes;
+		for (EventColumn c : COLUMNS) {
+			switch (c) {
+			case WARENGRUPPE2:
+			case WARENGRUPPE3:
+			case WARENGRUPPE4:
+			case WARENGRUPPE5:
+				// replace the second of two similar Warengruppen in
+				// consecutive rows by "-"
+				if (this.equal(c, COLUMNS[c.ordinal() - 1]))
+					codes[c.ordinal()] = this.dictionary.intern(c,
+							EMPTY_WARENGRUPPE, 0, 1);
+				else
+					codes[c.ordinal()] = this.intern(c);
+				break;
+			case AKTION:
+				codes[c.ordinal()] = aktion;
+				break;
+			case ANZAHL:
+				codes[c.ordinal()] = this.intern(c, anzahl);
+				break;
+			case PREISLAGE:
+				codes[c.ordinal()] = this.intern(c, preislage);
+				break;
+			default:
+				codes[c.ordinal()] = this.intern(c);
+			}
+		}
+		return true;
+	}
+
+	private int start(EventColumn column) {
+		return this.starts[column.ordinal()];
+	}
+
+	private int length(EventColumn column) {
+		return this.ends[column.ordinal()] - this.starts[column.ordinal()];
+	}
+
+	private int intern(EventColumn column) {
+		return this.dictionary.intern(column, this.buffer, this.start(column),
+				this.length(column));
+	}
+
+	/**
+	 * Interns the decimal representation of the given value, so equal numbers
+	 * have equal codes regardless of their representation in the file.
+	 */
+	private int intern(EventColumn column, int value) {
+		long v = value;
+		final boolean negative = v < 0;
+		if (negative)
+			v = -v;
+		int i = this.number.length;
+		do {
+			this.number[--i] = (byte) ('0' + v % 10);
+			v /= 10;
+		} while (v > 0);
+		if (negative)
+			this.number[--i] = '-';
+		return this.dictionary.intern(column, this.number, i,
+				this.number.length - i);
+	}
+
+	/**
+	 * @return true if the values of both columns are equal
+	 */
+	private boolean equal(EventColumn column1, EventColumn column2) {
+		final int length = this.length(column1);
+		if (length != this.length(column2))
+			return false;
+		final int start1 = this.start(column1);
+		final int start2 = this.start(column2);
+		for (int i = 0; i < length; i++)
+			if (this.buffer[start1 + i] != this.buffer[start2 + i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Parses the value of the given column like
+	 * {@link Integer#parseInt(String)}, "-" is parsed as -1.
+	 */
+	private int parseInt(EventColumn column) throws NumberFormatException {
+		final int start = this.start(column);
+		final int end = this.ends[column.ordinal()];
+		if (end - start == 1 && this.buffer[start] == '-')
+			return -1;
+
+		int i = start;
+		boolean negative = false;
+		if (i < end && (this.buffer[i] == '-' || this.buffer[i] == '+'))
+			negative = this.buffer[i++] == '-';
+		if (i == end)
+			throw new NumberFormatException();
+		long value = 0;
+		for (; i < end; i++) {
+			final int digit = this.buffer[i] - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException();
+			value = 10 * value + digit;
+			if (value > (long) Integer.MAX_VALUE + 1)
+				throw new NumberFormatException();
+		}
+		if (negative)
+			value = -value;
+		if (value > Integer.MAX_VALUE)
+			throw new NumberFormatException();
+		return (int) value;
+	}
+
+}
@@ -5,7 +5,7 @@ import dna.graph.generators.zalando.EventColumn.Aktionen;
 /**
  * An event of Zalando online shop.
  */
-public class Event {
+public class Event implements IEvent {
 
 	/** Columns / values of each line in event log are separated by this string. */
 	private final static String SEPERATOR = "	";
@@ -149,6 +149,7 @@ public class Event {
 	 * @return The value of given {@link EventColumn} for this {@link Event} as
 	 *         {@link String}.
 	 */
+	@Override
 	public String get(EventColumn column) {
 		switch (column) {
 		case SKU:
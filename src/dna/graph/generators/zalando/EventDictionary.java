@@ -0,0 +1,190 @@
+package dna.graph.generators.zalando;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.util.Config;
+import dna.util.Log;
+
+/**
+ * The dictionaries of all {@link EventColumn}s, i.e., the mapping of the
+ * values of each column to dense {@code int} codes used by
+ * {@link EncodedEvent}s. The codes of different columns are independent of
+ * each other.
+ * <p>
+ * In case ZALANDO_PERSIST_DICTIONARIES is set, the dictionaries are stored
+ * next to the events file (see {@link #forEvents(String)}) and reused by later
+ * runs, so the values seen before do not have to be interned again and keep
+ * their codes.
+ * </p>
+ */
+public class EventDictionary {
+
+	/** suffix of the file the dictionaries of an events file are stored in */
+	public static final String SUFFIX = ".dict";
+
+	private ValueDictionary[] dictionaries;
+
+	/** file to store the dictionaries in, null if they are not persisted */
+	private String filepath;
+
+	/** number of values in all dictionaries when they were last stored */
+	private int stored;
+
+	/**
+	 * Creates empty dictionaries that are not persisted.
+	 */
+	public EventDictionary() {
+		this.dictionaries = new ValueDictionary[EventColumn.values().length];
+		for (int i = 0; i < this.dictionaries.length; i++)
+			this.dictionaries[i] = new ValueDictionary();
+		this.filepath = null;
+		this.stored = 0;
+	}
+
+	/**
+	 * Returns the dictionaries to use for the given events file. In case
+	 * ZALANDO_PERSIST_DICTIONARIES is set, they are read from
+	 * <i>eventsFilepath</i>{@value #SUFFIX} if this file exists and are
+	 * stored there again by {@link #store()}.
+	 *
+	 * @param eventsFilepath
+	 *            The path of the Zalando log file.
+	 */
+	public static EventDictionary forEvents(String eventsFilepath) {
+		if (!Config.getBoolean("ZALANDO_PERSIST_DICTIONARIES"))
+			return new EventDictionary();
+
+		final String filepath = eventsFilepath + EventDictionary.SUFFIX;
+		EventDictionary d = null;
+		if (new File(filepath).exists()) {
+			try {
+				d = EventDictionary.read(filepath);
+			} catch (IOException e) {
+				Log.error("Failure while reading event dictionaries from "
+						+ filepath + ", values are interned again.");
+			}
+		}
+		if (d == null)
+			d = new EventDictionary();
+		d.filepath = filepath;
+		return d;
+	}
+
+	/**
+	 * Reads dictionaries written by {@link #write(String)}.
+	 */
+	public static EventDictionary read(String filepath) throws IOException {
+		final File file = new File(filepath);
+		final String dir = file.getParent() == null ? "" : file.getParent()
+				+ File.separator;
+		final BinaryReader r = BinaryReader.getReader(dir, file.getName());
+		if (r == null)
+			throw new FileNotFoundException("no event dictionaries in "
+					+ filepath);
+		final EventDictionary d = new EventDictionary();
+		try {
+			r.expectType(BinaryWriter.TYPE_EVENT_DICTIONARY);
+			final int columns = r.readInt();
+			if (columns != d.dictionaries.length)
+				throw new InvalidFormatException("expected dictionaries for "
+						+ d.dictionaries.length + " columns but found "
+						+ columns);
+			for (int i = 0; i < columns; i++)
+				d.dictionaries[i] = ValueDictionary.read(r);
+		} finally {
+			r.close();
+		}
+		d.stored = d.size();
+		return d;
+	}
+
+	/**
+	 * Writes the dictionaries of all columns to the given file.
+	 */
+	public void write(String filepath) throws IOException {
+		final File file = new File(filepath);
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+		final BinaryWriter w = new BinaryWriter(FileChannel.open(
+				Paths.get(filepath), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+				BinaryWriter.TYPE_EVENT_DICTIONARY);
+		try {
+			w.writeInt(this.dictionaries.length);
+			for (ValueDictionary dictionary : this.dictionaries)
+				dictionary.write(w);
+		} finally {
+			w.close();
+		}
+	}
+
+	/**
+	 * Stores the dictionaries in the file they have been read from by
+	 * {@link #forEvents(String)} in case values have been interned since they
+	 * were read or stored. Nothing happens if the dictionaries are not
+	 * persisted.
+	 */
+	public void store() {
+		if (this.filepath == null || this.size() == this.stored)
+			return;
+		try {
+			this.write(this.filepath);
+			this.stored = this.size();
+		} catch (IOException e) {
+			Log.error("Failure while writing event dictionaries to "
+					+ this.filepath + ".");
+		}
+	}
+
+	/**
+	 * @return code of the given value in the dictionary of the given column or
+	 *         -1 if the value has not been interned
+	 */
+	public int get(EventColumn column, byte[] b, int offset, int length) {
+		return this.dictionaries[column.ordinal()].get(b, offset, length);
+	}
+
+	/**
+	 * Interns the given value in the dictionary of the given column in case it
+	 * has not been interned before.
+	 *
+	 * @return code of the given value in the dictionary of the given column
+	 */
+	public int intern(EventColumn column, byte[] b, int offset, int length) {
+		return this.dictionaries[column.ordinal()].intern(b, offset, length);
+	}
+
+	/**
+	 * @return value of the given code in the dictionary of the given column
+	 */
+	public String getValue(EventColumn column, int code) {
+		return this.dictionaries[column.ordinal()].getValue(code);
+	}
+
+	/**
+	 * @return number of values in the dictionary of the given column
+	 */
+	public int size(EventColumn column) {
+		return this.dictionaries[column.ordinal()].size();
+	}
+
+	/**
+	 * @return number of values in all dictionaries
+	 */
+	public int size() {
+		int size = 0;
+		for (ValueDictionary dictionary : this.dictionaries)
+			size += dictionary.size();
+		return size;
+	}
+
+}
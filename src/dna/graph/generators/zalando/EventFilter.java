@@ -1,13 +1,13 @@
 package dna.graph.generators.zalando;
 
 /**
- * A filter for {@link Event}s.
+ * A filter for {@link Event}s and {@link EncodedEvent}s.
  * 
  * <h1>How to use</h1>
  * <p>
  * Define an default behavior with {@link #EventFilter(boolean)} and adjust it
- * with {@link #addExclusion(EventColumn, Object)}. Use {@link #passes(Event)}
- * to check if an {@link Event} matches the defined criteria.
+ * with {@link #addExclusion(EventColumn, Object)}. Use
+ * {@link #passes(IEvent)} to check if an event matches the defined criteria.
  * </p>
  */
 public class EventFilter {
@@ -65,10 +65,10 @@ public class EventFilter {
 	 * this column of the given event.
 	 * 
 	 * @param event
-	 *            The {@link Event} to check.
+	 *            The event to check.
 	 * @return True if given event passes the filter, else false.
 	 */
-	public boolean passes(Event event) {
+	public boolean passes(IEvent event) {
 		boolean exclusionsExist = exclusions.size() > 0;
 
 		boolean eventCoveredByExclusions = true;
@@ -1,9 +1,11 @@
 package dna.graph.generators.zalando;
 
+import java.util.Arrays;
+
 import dna.util.Log;
 
 /**
- * Maps the string values of {@link Event}s to {@code int}s.
+ * Maps the values of {@link EncodedEvent}s to {@code int}s.
  * 
  * <h1>About EventColumn Groups</h1>
  * <p>
@@ -12,14 +14,16 @@ import dna.util.Log;
  * creates groups, each containing a single {@link EventColumn}.
  * </p>
  * <p>
- * The value of an {@link EventColumn} group is built by concatenating
- * (<i>"a"</i> + <i>"b"</i> -> <i>"ab"</i>) the value of each
- * {@link EventColumn} in the group.
+ * The value of an {@link EventColumn} group is the tuple of the codes of the
+ * value of each {@link EventColumn} in the group. Groups with the same
+ * {@link EventColumn}s share their values, i.e. equal values of such groups
+ * are mapped to the same {@code int}. All {@link EncodedEvent}s must use the
+ * same {@link EventDictionary}.
  * </p>
  * 
  * <h1>About Mappings and Global Mappings</h1>
  * <p>
- * This class uses {@link Mapping}s for each {@link EventColumn} group.
+ * This class uses a single {@link Mapping} for all {@link EventColumn} groups.
  * Therefore each value of these groups for all {@link Event}s are mapped to
  * unique {@code int}s. The uniqueness holds for all mapped values of
  * all groups.
@@ -27,10 +31,23 @@ import dna.util.Log;
  */
 public class EventMappings {
 
-	private Mapping<String> mapping;
-	
+	private Mapping mapping;
+
 	private EventColumn[][] eventColumnGroups;
 
+	/** index of the first group with the same columns for each group */
+	private int[] signatures;
+
+	/** buffer for the value of a group: signature followed by the codes */
+	private int[] tuple;
+
+	/** the last mapped event and the mappings of its groups */
+	private EncodedEvent mappedEvent;
+
+	private long mappedLineNumber;
+
+	private int[] mapped;
+
 	/**
 	 * @param groups
 	 *            All columns that should be mapped must be in {@code groups}. A
@@ -38,9 +55,31 @@ public class EventMappings {
 	 *            element ({@code EventColumn[]}) in {@code groups}.
 	 */
 	public EventMappings(EventColumn[][] groups) {
-		this.mapping = new Mapping<String>();
+		this.mapping = new Mapping();
 
 		this.eventColumnGroups = groups;
+
+		this.signatures = new int[groups.length];
+		int length = 0;
+		for (int i = 0; i < groups.length; i++) {
+			this.signatures[i] = this.getSignature(groups[i]);
+			length = Math.max(length, groups[i].length);
+		}
+		this.tuple = new int[length + 1];
+
+		this.mappedEvent = null;
+		this.mapped = new int[groups.length];
+	}
+
+	/**
+	 * @return Index of the first group in {@link #eventColumnGroups} with the
+	 *         same {@link EventColumn}s as given group or -1 if there is none.
+	 */
+	private int getSignature(EventColumn[] eventColumnGroup) {
+		for (int i = 0; i < this.eventColumnGroups.length; i++)
+			if (Arrays.equals(this.eventColumnGroups[i], eventColumnGroup))
+				return i;
+		return -1;
 	}
 
 	/**
@@ -48,62 +87,67 @@ public class EventMappings {
 	 * <u>unique</u> {@code int} >= 0.
 	 * 
 	 * @param event
-	 *            The {@link Event} to map.
+	 *            The {@link EncodedEvent} to map.
 	 */
-	public void map(Event event) {
-		for (EventColumn[] eventColumnGroup : this.eventColumnGroups)
-			this.mapping.map(this
-					.eventColumnGroupValue(eventColumnGroup, event));
+	public void map(EncodedEvent event) {
+		for (int i = 0; i < this.eventColumnGroups.length; i++)
+			this.mapped[i] = this.mapping.map(this.tuple, this
+					.eventColumnGroupValue(this.signatures[i],
+							this.eventColumnGroups[i], event));
+
+		this.mappedEvent = event;
+		this.mappedLineNumber = event.getLineNumber();
 	}
 
 	/**
-	 * Returns the value of given {@link EventColumn} group for given
-	 * {@link Event} in the format <i>key1=value1,key2=value2,...</i> For
-	 * instance <i>SKU=ah67,MARKE=jx3sz7</i>
+	 * Writes the value of given {@link EventColumn} group for given
+	 * {@link EncodedEvent} into {@link #tuple}, i.e. the signature of the
+	 * group followed by the code of each {@link EventColumn} of the group.
 	 * 
-	 * @return Value of each {@link EventColumn} in given {@link EventColumn}
-	 *         group for given {@link Event} concatenated.
-	 * 
-	 * @see EventMappings_NeuOhnePrefix EventColumn groups
+	 * @return The length of the value.
 	 */
-	private String eventColumnGroupValue(EventColumn[] eventColumnGroup,
-			Event event) {
-		final StringBuffer sb = new StringBuffer();
-
-		for (EventColumn eventColumn : eventColumnGroup) {
-			sb.append(eventColumn);
-			sb.append("=");
-			sb.append(event.get(eventColumn));
-			sb.append(",");
-		}
-
-		return sb.substring(0, sb.length() - 1);
+	private int eventColumnGroupValue(int signature,
+			EventColumn[] eventColumnGroup, EncodedEvent event) {
+		this.tuple[0] = signature;
+		for (int i = 0; i < eventColumnGroup.length; i++)
+			this.tuple[i + 1] = event.getCode(eventColumnGroup[i]);
+		return eventColumnGroup.length + 1;
 	}
 
 	/**
 	 * @return The mapped value for given {@link EventColumn} of given
-	 *         {@link Event} or <i>-1</i> if any of the given parameters are not
-	 *         mapped.
+	 *         {@link EncodedEvent} or <i>-1</i> if any of the given parameters
+	 *         are not mapped.
 	 * 
-	 * @see EventMappings_NeuOhnePrefix Difference between mappings and global mappings
-	 * @see #map(Event) Mapping of Events
+	 * @see #map(EncodedEvent) Mapping of Events
 	 */
-	public int getMapping(EventColumn eventColumn, Event event) {
+	public int getMapping(EventColumn eventColumn, EncodedEvent event) {
 		return this.getMapping(new EventColumn[] { eventColumn }, event);
 	}
 
 	/**
 	 * @return The mapped value for given {@link EventColumn} group of given
-	 *         {@link Event} or <i>-1</i> if any of the given parameters are not
-	 *         mapped.
+	 *         {@link EncodedEvent} or <i>-1</i> if any of the given parameters
+	 *         are not mapped.
 	 * 
-	 * @see EventMappings_NeuOhnePrefix EventColumn groups, Difference between mappings and
-	 *      global mappings
-	 * @see #map(Event) Mapping of Events
+	 * @see #map(EncodedEvent) Mapping of Events
 	 */
-	public int getMapping(EventColumn[] eventColumnGroup, Event event) {
-		final int mapping = this.mapping.getMapping(this.eventColumnGroupValue(
-				eventColumnGroup, event));
+	public int getMapping(EventColumn[] eventColumnGroup, EncodedEvent event) {
+		int index = -1;
+		for (int i = 0; i < this.eventColumnGroups.length && index == -1; i++)
+			if (this.eventColumnGroups[i] == eventColumnGroup)
+				index = i;
+
+		// the mappings of the last mapped event are known already
+		if (index != -1 && event == this.mappedEvent
+				&& event.getLineNumber() == this.mappedLineNumber)
+			return this.mapped[index];
+
+		final int signature = index != -1 ? this.signatures[index] : this
+				.getSignature(eventColumnGroup);
+		final int mapping = signature == -1 ? -1 : this.mapping.getMapping(
+				this.tuple, this.eventColumnGroupValue(signature,
+						eventColumnGroup, event));
 		if (mapping == -1) {
 			Log.error("Given event is not mapped yet for given event columns.");
 			return -1;
@@ -0,0 +1,18 @@
+package dna.graph.generators.zalando;
+
+/**
+ * An event of Zalando online shop whose values can be accessed by
+ * {@link EventColumn}, e.g. to check it against an {@link EventFilter}.
+ * 
+ * @see Event
+ * @see EncodedEvent
+ */
+public interface IEvent {
+
+	/**
+	 * @return The value of given {@link EventColumn} for this event as
+	 *         {@link String}.
+	 */
+	public String get(EventColumn column);
+
+}
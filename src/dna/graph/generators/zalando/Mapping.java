@@ -1,86 +1,147 @@
 package dna.graph.generators.zalando;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 /**
- * Mapping of arbitrary values to <u>unique</u> {@code int}s >= 0.
- * 
- * @param <V>
- *            The values to be mapped.
+ * Mapping of tuples of {@code int}s to <u>unique</u> {@code int}s >= 0. The
+ * tuples are mapped in the order they are seen first.
+ * <p>
+ * The elements of all mapped tuples are stored back to back in a single
+ * array, the mappings are found via open addressing (linear probing) in an
+ * {@code int} table. So neither mapping a tuple nor looking up its mapping
+ * creates any object.
+ * </p>
  */
-class Mapping<V> {
+class Mapping {
 
-	private Map<V, Integer> map;
+	private static final int FREE = -1;
+
+	/** elements of all tuples, tuple i is stored in [offsets[i], offsets[i+1]) */
+	private int[] elements;
+
+	private int[] offsets;
+
+	private int[] hashes;
+
+	private int size;
+
+	/** mappings of the tuples, FREE for empty slots */
+	private int[] table;
 
 	/**
-	 * Creates an {@link Mapping} without mapped values.
+	 * Creates an {@link Mapping} without mapped tuples.
 	 */
 	Mapping() {
-		this.map = new HashMap<V, Integer>();
+		this.elements = new int[64];
+		this.offsets = new int[17];
+		this.hashes = new int[16];
+		this.size = 0;
+		this.table = new int[32];
+		Arrays.fill(this.table, FREE);
 	}
 
-	/**
-	 * @param value
-	 *            The value to check.
-	 * @return True if the given value is mapped, else false.
-	 */
-	boolean contains(V value) {
-		return this.map.containsKey(value);
+	private static int hash(int[] tuple, int length) {
+		int h = length;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + tuple[i];
+		}
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
 	}
 
-	/**
-	 * @param value
-	 *            The value for which the mapping should be returned.
-	 * @return The mapping of the given value or -1 if the value is not mapped.
-	 */
-	int getMapping(V value) {
-		if (this.contains(value))
-			return this.map.get(value);
-		else
-			return -1;
+	private int slot(int hash, int[] tuple, int length) {
+		int mask = this.table.length - 1;
+		int i = hash & mask;
+		while (this.table[i] != FREE) {
+			int mapping = this.table[i];
+			if (this.hashes[mapping] == hash
+					&& this.equals(mapping, tuple, length)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return i;
 	}
 
-	/**
-	 * Maps the given value to an <u>unique</u> {@code int}s >= 0. If the given
-	 * value was already mapped, it is not mapped to a new {@code int}. Two
-	 * values are mapped to the same {@link int}, if both are
-	 * {@link V#equals(Object)}.
-	 * 
-	 * @param value
-	 *            The value to map.
-	 */
-	void map(V value) {
-		if (!this.contains(value))
-			this.map.put(value, this.map.size());
+	private boolean equals(int mapping, int[] tuple, int length) {
+		int start = this.offsets[mapping];
+		if (this.offsets[mapping + 1] - start != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.elements[start + i] != tuple[i]) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
-	 * @return The number of mapped values.
+	 * @param tuple
+	 *            The tuple for which the mapping should be returned, i.e. the
+	 *            first {@code length} elements of the array.
+	 * @return The mapping of the given tuple or -1 if the tuple is not mapped.
 	 */
-	int size() {
-		return this.map.size();
+	int getMapping(int[] tuple, int length) {
+		return this.table[this.slot(hash(tuple, length), tuple, length)];
 	}
 
 	/**
-	 * Returns a string representation of this {@link Mapping}. E.g.:
-	 * <p>
-	 * value1 -> 1, value2 -> 2, value3 -> 3
-	 * </p>
-	 * 
-	 * @return A {@link String} with all mapped values and their corresponding
-	 *         mapped {@code int}s.
+	 * Maps the given tuple to an <u>unique</u> {@code int} >= 0. If the given
+	 * tuple was already mapped, it is not mapped to a new {@code int}. Two
+	 * tuples are mapped to the same {@code int}, if both have the same
+	 * elements.
+	 *
+	 * @param tuple
+	 *            The tuple to map, i.e. the first {@code length} elements of
+	 *            the array.
+	 * @return The mapping of the given tuple.
 	 */
-	@Override
-	public String toString() {
-		String s = "";
+	int map(int[] tuple, int length) {
+		int hash = hash(tuple, length);
+		int slot = this.slot(hash, tuple, length);
+		if (this.table[slot] != FREE) {
+			return this.table[slot];
+		}
 
-		for (Entry<V, Integer> mapping : this.map.entrySet())
-			s += mapping.getValue().toString() + " -> " + mapping.getValue();
+		if (this.size == this.hashes.length) {
+			this.hashes = Arrays.copyOf(this.hashes, 2 * this.size);
+			this.offsets = Arrays.copyOf(this.offsets, 2 * this.size + 1);
+		}
+		int start = this.offsets[this.size];
+		if (start + length > this.elements.length) {
+			this.elements = Arrays.copyOf(this.elements,
+					Math.max(start + length, 2 * this.elements.length));
+		}
+		System.arraycopy(tuple, 0, this.elements, start, length);
+		this.hashes[this.size] = hash;
+		this.offsets[this.size + 1] = start + length;
+		this.table[slot] = this.size++;
 
-		// remove ", " after the last value of the line
-		return s.substring(0, s.length() - 2);
+		if (2 * this.size > this.table.length) {
+			this.rehash(2 * this.table.length);
+		}
+		return this.size - 1;
+	}
+
+	private void rehash(int capacity) {
+		this.table = new int[capacity];
+		Arrays.fill(this.table, FREE);
+		int mask = capacity - 1;
+		for (int mapping = 0; mapping < this.size; mapping++) {
+			int i = this.hashes[mapping] & mask;
+			while (this.table[i] != FREE) {
+				i = (i + 1) & mask;
+			}
+			this.table[i] = mapping;
+		}
+	}
+
+	/**
+	 * @return The number of mapped tuples.
+	 */
+	int size() {
+		return this.size;
 	}
 
 }
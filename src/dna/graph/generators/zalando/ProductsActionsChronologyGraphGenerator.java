@@ -19,7 +19,7 @@ public class ProductsActionsChronologyGraphGenerator extends
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public ProductsActionsChronologyGraphGenerator(
 			ZalandoGraphDataStructure gds, long timestampInit,
@@ -40,7 +40,7 @@ public class ProductsActionsChronologyGraphGenerator extends
 	 *            The {@link Event} for which values the edges should be added.
 	 */
 	@Override
-	void addEdgesForColumns(Event event) {
+	void addEdgesForColumns(EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		nodeForEventIndex = this.mappings.getMapping(
 				this.columnGroupsToAddAsNodes[0], event);
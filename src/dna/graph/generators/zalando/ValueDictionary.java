@@ -0,0 +1,187 @@
+package dna.graph.generators.zalando;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+
+/**
+ * Dictionary of the values of a single {@link EventColumn}. Each distinct
+ * value (a sequence of bytes) is interned and mapped to a dense code >= 0 in
+ * the order the values are seen first.
+ * <p>
+ * The bytes of all values are stored back to back in a single array, the
+ * codes are found via open addressing (linear probing) in an {@code int}
+ * table. Hence, looking up a value neither creates a {@link String} nor any
+ * other object. The {@link String} of a code is only decoded (and cached)
+ * when it is requested via {@link #getValue(int)}.
+ * </p>
+ */
+class ValueDictionary {
+
+	private static final int FREE = -1;
+
+	/** bytes of all values, value i is stored in [offsets[i], offsets[i+1]) */
+	private byte[] bytes;
+
+	private int[] offsets;
+
+	private int[] hashes;
+
+	private int size;
+
+	/** codes of the values, FREE for empty slots */
+	private int[] table;
+
+	private String[] values;
+
+	ValueDictionary() {
+		this.bytes = new byte[256];
+		this.offsets = new int[17];
+		this.hashes = new int[16];
+		this.size = 0;
+		this.table = new int[32];
+		Arrays.fill(this.table, FREE);
+		this.values = new String[16];
+	}
+
+	private static int hash(byte[] b, int offset, int length) {
+		int h = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + b[i];
+		}
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private boolean equals(int code, byte[] b, int offset, int length) {
+		int start = this.offsets[code];
+		if (this.offsets[code + 1] - start != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.bytes[start + i] != b[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int slot(int hash, byte[] b, int offset, int length) {
+		int mask = this.table.length - 1;
+		int i = hash & mask;
+		while (this.table[i] != FREE) {
+			int code = this.table[i];
+			if (this.hashes[code] == hash
+					&& this.equals(code, b, offset, length)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * @return code of the given value or -1 if it has not been interned
+	 */
+	int get(byte[] b, int offset, int length) {
+		return this.table[this.slot(hash(b, offset, length), b, offset,
+				length)];
+	}
+
+	/**
+	 * Interns the given value in case it has not been interned before.
+	 *
+	 * @return code of the given value
+	 */
+	int intern(byte[] b, int offset, int length) {
+		int hash = hash(b, offset, length);
+		int slot = this.slot(hash, b, offset, length);
+		if (this.table[slot] != FREE) {
+			return this.table[slot];
+		}
+		int code = this.add(b, offset, length, hash);
+		this.table[slot] = code;
+		if (2 * this.size > this.table.length) {
+			this.rehash(2 * this.table.length);
+		}
+		return code;
+	}
+
+	private int add(byte[] b, int offset, int length, int hash) {
+		if (this.size == this.hashes.length) {
+			this.hashes = Arrays.copyOf(this.hashes, 2 * this.size);
+			this.offsets = Arrays.copyOf(this.offsets, 2 * this.size + 1);
+			this.values = Arrays.copyOf(this.values, 2 * this.size);
+		}
+		int start = this.offsets[this.size];
+		if (start + length > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes,
+					Math.max(start + length, 2 * this.bytes.length));
+		}
+		System.arraycopy(b, offset, this.bytes, start, length);
+		this.hashes[this.size] = hash;
+		this.offsets[this.size + 1] = start + length;
+		return this.size++;
+	}
+
+	private void rehash(int capacity) {
+		this.table = new int[capacity];
+		Arrays.fill(this.table, FREE);
+		int mask = capacity - 1;
+		for (int code = 0; code < this.size; code++) {
+			int i = this.hashes[code] & mask;
+			while (this.table[i] != FREE) {
+				i = (i + 1) & mask;
+			}
+			this.table[i] = code;
+		}
+	}
+
+	/**
+	 * @return the value of the given code
+	 */
+	String getValue(int code) {
+		if (this.values[code] == null) {
+			int start = this.offsets[code];
+			this.values[code] = new String(this.bytes, start,
+					this.offsets[code + 1] - start, StandardCharsets.UTF_8);
+		}
+		return this.values[code];
+	}
+
+	/**
+	 * @return number of interned values
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Writes the number of values, their end offsets and their bytes.
+	 */
+	void write(BinaryWriter w) throws IOException {
+		w.writeInts(Arrays.copyOfRange(this.offsets, 1, this.size + 1));
+		w.writeBytes(this.bytes, 0, this.offsets[this.size]);
+	}
+
+	/**
+	 * Reads a dictionary written by {@link #write(BinaryWriter)}. The codes
+	 * of all values are the same as in the written dictionary.
+	 */
+	static ValueDictionary read(BinaryReader r) throws IOException {
+		ValueDictionary d = new ValueDictionary();
+		int[] ends = r.readInts();
+		int length = ends.length == 0 ? 0 : ends[ends.length - 1];
+		byte[] bytes = new byte[length];
+		r.readBytes(bytes, 0, length);
+		int start = 0;
+		for (int end : ends) {
+			d.intern(bytes, start, end - start);
+			start = end;
+		}
+		return d;
+	}
+}
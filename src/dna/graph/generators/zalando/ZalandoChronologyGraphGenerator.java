@@ -37,7 +37,7 @@ class ZalandoChronologyGraphGenerator extends ZalandoGraphGenerator {
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 * @param columnsToAddAsNodes
 	 *            The {@link EventColumn}s of an event which values will be
 	 *            represented as nodes in the graph.
@@ -92,7 +92,7 @@ class ZalandoChronologyGraphGenerator extends ZalandoGraphGenerator {
 	 * @see #addEdge(Node, Node, Object)
 	 */
 	@Override
-	void addEdgesForColumns(Event event) {
+	void addEdgesForColumns(EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		for (EventColumn[] eventColumnGroup : this.columnGroupsToAddAsNodes) {
 			nodeForEventIndex = this.mappings.getMapping(eventColumnGroup,
@@ -39,7 +39,7 @@ class ZalandoEqualityGraphGenerator extends ZalandoGraphGenerator {
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 * @param columnsToAddAsNodes
 	 *            The {@link EventColumn}s of an event which values will be
 	 *            represented as nodes in the graph.
@@ -117,7 +117,7 @@ class ZalandoEqualityGraphGenerator extends ZalandoGraphGenerator {
 	 * @see #addBidirectionalEdge(Node, Node, int)
 	 */
 	@Override
-	void addEdgesForColumns(Event event) {
+	void addEdgesForColumns(EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		for (EventColumn[] eventColumnGroup : this.columnGroupsToAddAsNodes) {
 			nodeForEventIndex = this.mappings.getMapping(
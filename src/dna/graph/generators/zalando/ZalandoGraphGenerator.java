@@ -41,6 +41,13 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 	 */
 	EventMappings mappings;
 
+	/**
+	 * The dictionaries the values of the read {@link EncodedEvent}s are
+	 * interned into. Used for all {@link EncodedEventReader}s of this
+	 * generator so that {@link #mappings} stay valid.
+	 */
+	EventDictionary dictionary;
+
 	/**
 	 * The result of any {@link #generate()} call in any subclass of
 	 * {@linkZalandoGraphGenerator}.
@@ -70,7 +77,7 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 	 */
 	int timestep;
 
-	// fields for EventReader
+	// fields for EncodedEventReader
 
 	/**
 	 * The maximum number of events (i.e. lines of file) to read in. The actual
@@ -103,8 +110,9 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 	EventColumn[][] columnGroupsToCheckForEquality;
 	/**
 	 * Contains all indices for {@link Node}s added so far by
-	 * {@link #addNodesForColumns(Event)} to get all {@link Node}s to which an
-	 * edge should be added in {@link #addEdgesForColumns(Event)}.
+	 * {@link #addNodesForColumns(EncodedEvent)} to get all {@link Node}s to
+	 * which an edge should be added in
+	 * {@link #addEdgesForColumns(EncodedEvent)}.
 	 */
 	EdgeValuesForNodes nodesSortedByColumnGroupsToCheckForEquality;
 	/**
@@ -139,7 +147,7 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 	 *            file may have fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 * @param columnsToAddAsNodes
 	 *            The {@link EventColumn}s of an event which values will be
 	 *            represented as nodes in the graph.
@@ -190,6 +198,7 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 
 		this.maxNumberOfEvents = maxNumberOfEvents;
 		this.eventsFilepath = eventsFilepath;
+		this.dictionary = EventDictionary.forEvents(eventsFilepath);
 
 		this.nodesSortedByColumnGroupsToCheckForEquality = new EdgeValuesForNodes();
 		this.absoluteEdgeWeights = absoluteWeights;
@@ -292,20 +301,20 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 					Integer.valueOf(weight.toString()));
 	}
 
-	abstract void addEdgesForColumns(Event currentEvent);
+	abstract void addEdgesForColumns(EncodedEvent currentEvent);
 
 	/**
 	 * Adds the {@link Node}s for given {@link Event} to {@link #graph}.
 	 * <p>
 	 * Additionally groups added {@link Node}s into
 	 * {@link #nodesSortedByColumnGroupsToCheckForEquality} for
-	 * {@link #addEdgesForColumns(Event)}.
+	 * {@link #addEdgesForColumns(EncodedEvent)}.
 	 * </p>
 	 * 
 	 * @param event
 	 *            The {@link Event} which nodes should be added.
 	 */
-	private void addNodesForColumns(Event event) {
+	private void addNodesForColumns(EncodedEvent event) {
 		int globalMappingForEvent;
 		for (EventColumn[] eventColumnGroup : this.columnGroupsToAddAsNodes) {
 			globalMappingForEvent = this.mappings.getMapping(eventColumnGroup,
@@ -316,8 +325,8 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 
 			// Group recently added nodes by the value for
 			// columnGroupsToCheckForEquality of the given event. This
-			// simplifies adding edges in addEdgesForColumns(Event) between
-			// events (nodes) with equal values.
+			// simplifies adding edges in addEdgesForColumns(EncodedEvent)
+			// between events (nodes) with equal values.
 			for (EventColumn[] eventColumnGroup2 : this.columnGroupsToCheckForEquality)
 				this.nodesSortedByColumnGroupsToCheckForEquality.addNode(
 						this.mappings.getMapping(eventColumnGroup2, event),
@@ -471,9 +480,10 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 
 	@Override
 	public Graph generate() {
-		final EventReader reader = new EventReader(this.eventsFilepath);
+		final EncodedEventReader reader = new EncodedEventReader(
+				this.eventsFilepath, this.dictionary);
 
-		Event currentEvent;
+		EncodedEvent currentEvent;
 		for (int currentNumberOfEvents = 0; currentNumberOfEvents < this.maxNumberOfEvents; currentNumberOfEvents++) {
 			if ((currentEvent = reader.readNext()) == null) {
 				// no more events(although maxNumberOfEvents not reached
@@ -503,6 +513,9 @@ abstract class ZalandoGraphGenerator extends GraphGenerator {
 			this.addEdgesForColumns(currentEvent);
 		}
 
+		// maxNumberOfEvents reached, close reader (and store dictionaries)
+		reader.close();
+
 		return this.graph;
 	}
 
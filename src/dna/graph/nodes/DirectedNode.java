@@ -2,7 +2,9 @@ package dna.graph.nodes;
 
 import com.google.common.collect.Iterables;
 
+import dna.graph.Graph;
 import dna.graph.IElement;
+import dna.graph.datastructures.DIntArrayAdjacency;
 import dna.graph.datastructures.DataStructure.ListType;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.IDataStructure;
@@ -163,5 +165,37 @@ public class DirectedNode extends Node {
 		default:
 			break;
 		}
+		this.all = Iterables.unmodifiableIterable(Iterables.concat(in, out));
+	}
+
+	@Override
+	public IDataStructure setDataStructure(ListType type,
+			IDataStructure newDatastructure) {
+		IDataStructure old;
+		switch (type) {
+		case LocalNodeList:
+			old = this.neighbors;
+			this.neighbors = (INodeListDatastructure) newDatastructure;
+			return old;
+		case LocalInEdgeList:
+			old = this.in;
+			this.in = (IEdgeListDatastructure) newDatastructure;
+			break;
+		case LocalOutEdgeList:
+			old = this.out;
+			this.out = (IEdgeListDatastructure) newDatastructure;
+			break;
+		default:
+			return null;
+		}
+		this.all = Iterables.unmodifiableIterable(Iterables.concat(in, out));
+		return old;
+	}
+
+	@Override
+	public void bindLists(Graph g) {
+		DIntArrayAdjacency.bind(this.in, g, this);
+		DIntArrayAdjacency.bind(this.out, g, this);
+		DIntArrayAdjacency.bind(this.neighbors, g, this);
 	}
 }
@@ -1,6 +1,7 @@
 package dna.graph.nodes;
 
 import dna.graph.Element;
+import dna.graph.Graph;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.IDataStructure;
 import dna.graph.datastructures.DataStructure.ListType;
@@ -61,4 +62,20 @@ public abstract class Node extends Element implements INode {
 
 	public abstract void switchDataStructure(ListType type,
 			IDataStructure newDatastructure);
+
+	/**
+	 * Replaces the list of the given type by the given one without copying
+	 * any elements, i.e., the new list must already contain them.
+	 * 
+	 * @return the replaced list, null if this node has no list of this type
+	 */
+	public abstract IDataStructure setDataStructure(ListType type,
+			IDataStructure newDatastructure);
+
+	/**
+	 * Binds the local lists of this node to the graph it is added to. Lists
+	 * that store node indices only (DIntArrayAdjacency) look up the nodes of
+	 * their elements in this graph.
+	 */
+	public abstract void bindLists(Graph g);
 }
@@ -1,6 +1,8 @@
 package dna.graph.nodes;
 
+import dna.graph.Graph;
 import dna.graph.IElement;
+import dna.graph.datastructures.DIntArrayAdjacency;
 import dna.graph.datastructures.DataStructure.ListType;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.IDataStructure;
@@ -79,6 +81,21 @@ public class UndirectedNode extends Node {
 		default:
 			break;		
 		}
-	}	
+	}
+
+	@Override
+	public IDataStructure setDataStructure(ListType type,
+			IDataStructure newDatastructure) {
+		if (type != ListType.LocalEdgeList)
+			return null;
+		IDataStructure old = this.edges;
+		this.edges = (IEdgeListDatastructure) newDatastructure;
+		return old;
+	}
+
+	@Override
+	public void bindLists(Graph g) {
+		DIntArrayAdjacency.bind(this.edges, g, this);
+	}
 
 }
@@ -4,13 +4,17 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 
+import com.sun.media.sound.InvalidFormatException;
+
 import dna.graph.Graph;
 import dna.graph.edges.Edge;
 import dna.graph.nodes.Node;
 import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
 import dna.updates.update.EdgeAddition;
 import dna.updates.update.NodeAddition;
 import dna.updates.update.Update;
+import dna.updates.update.Update.UpdateType;
 
 /**
  * A batch reader to read in a written batch
@@ -24,6 +28,16 @@ public class BatchReader {
 		Reader reader = null;
 
 		try {
+			BinaryBatchReader binary = BinaryBatchReader.getReader(dir,
+					filename);
+			if (binary != null) {
+				try {
+					return binary.read(g);
+				} finally {
+					binary.close();
+				}
+			}
+
 			reader = new Reader(dir, filename);
 
 			reader.readKeyword(BatchWriter.fromKeyword);
@@ -32,10 +46,16 @@ public class BatchReader {
 			reader.readKeyword(BatchWriter.toKeyword);
 			long to = reader.readLong();
 
-			Batch b = new Batch(g.getGraphDatastructures(), from, to);
-
 			reader.readKeyword(BatchWriter.updatesKeyword);
 
+			if (CompactUpdates.isEnabled()
+					&& !g.getGraphDatastructures().createsWeightedNodes()
+					&& !g.getGraphDatastructures().createsWeightedEdges()) {
+				return readCompact(reader, g, from, to);
+			}
+
+			Batch b = new Batch(g.getGraphDatastructures(), from, to);
+
 			HashMap<Integer, Node> addedNodes = new HashMap<Integer, Node>();
 			HashSet<Edge> addedEdges = new HashSet<Edge>();
 
@@ -59,7 +79,8 @@ public class BatchReader {
 			return null;
 		} finally {
 			try {
-				reader.close();
+				if (reader != null)
+					reader.close();
 			} catch (IOException e) {
 				e.printStackTrace();
 				return null;
@@ -67,6 +88,72 @@ public class BatchReader {
 		}
 	}
 
+	/**
+	 * Reads the updates of an unweighted graph as compact updates. Each line
+	 * consists of the type of the update and one or two node indices
+	 * separated by any non-digit characters.
+	 */
+	private static Batch readCompact(Reader reader, Graph g, long from, long to)
+			throws IOException {
+		CompactUpdates updates = new CompactUpdates(g, 1024);
+		int[] indices = new int[2];
+		String line = null;
+		while ((line = reader.readString()) != null) {
+			int sep = line.indexOf(Update.TypeDelimiter);
+			if (sep < 0) {
+				throw new InvalidFormatException("invalid update: " + line);
+			}
+			UpdateType t = UpdateType.valueOf(line.substring(0, sep));
+			if (t == UpdateType.NW || t == UpdateType.EW) {
+				throw new InvalidFormatException("weight update in batch of "
+						+ "unweighted graph: " + line);
+			}
+			int count = parseIndices(line, sep + 1, indices);
+			if (count != (t == UpdateType.NA || t == UpdateType.NR ? 1 : 2)) {
+				throw new InvalidFormatException("invalid update: " + line);
+			}
+			switch (t) {
+			case NA:
+				updates.addNodeAddition(indices[0]);
+				break;
+			case NR:
+				updates.addNodeRemoval(indices[0]);
+				break;
+			case EA:
+				updates.addEdgeAddition(indices[0], indices[1]);
+				break;
+			case ER:
+				updates.addEdgeRemoval(indices[0], indices[1]);
+				break;
+			default:
+				break;
+			}
+		}
+		return new Batch(g.getGraphDatastructures(), from, to, updates);
+	}
+
+	/**
+	 * @return number of indices parsed from the line (at most two)
+	 */
+	private static int parseIndices(String line, int pos, int[] indices) {
+		int count = 0;
+		while (pos < line.length() && count < indices.length) {
+			char c = line.charAt(pos);
+			if (c < '0' || c > '9') {
+				pos++;
+				continue;
+			}
+			int value = 0;
+			while (pos < line.length() && (c = line.charAt(pos)) >= '0'
+					&& c <= '9') {
+				value = value * 10 + (c - '0');
+				pos++;
+			}
+			indices[count++] = value;
+		}
+		return count;
+	}
+
 	protected static Update parseLine(String line, Graph g,
 			HashMap<Integer, Node> addedNodes) {
 		return Update.fromString(g.getGraphDatastructures(), g, line,
@@ -75,6 +162,15 @@ public class BatchReader {
 
 	public static long[] readTimestamps(String dir, String filename)
 			throws IOException {
+		BinaryBatchReader binary = BinaryBatchReader.getReader(dir, filename);
+		if (binary != null) {
+			try {
+				return binary.readTimestamps();
+			} finally {
+				binary.close();
+			}
+		}
+
 		Reader reader = new Reader(dir, filename);
 
 		reader.readKeyword(BatchWriter.fromKeyword);
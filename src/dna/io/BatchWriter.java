@@ -12,6 +12,16 @@ public class BatchWriter {
 	public static final String updatesKeyword = "List of Updates";
 
 	public static boolean write(Batch b, String dir, String filename) {
+		if (BinaryBatchWriter.isEnabled()) {
+			try {
+				BinaryBatchWriter.write(b, dir, filename);
+				return true;
+			} catch (IOException e) {
+				e.printStackTrace();
+				return false;
+			}
+		}
+
 		Writer writer = null;
 		try {
 			writer = new Writer(dir, filename);
@@ -0,0 +1,378 @@
+package dna.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.weights.Double2dWeight;
+import dna.graph.weights.Double3dWeight;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.Int2dWeight;
+import dna.graph.weights.Int3dWeight;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Long2dWeight;
+import dna.graph.weights.Long3dWeight;
+import dna.graph.weights.LongWeight;
+import dna.graph.weights.Weight;
+import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
+import dna.updates.update.Update.UpdateType;
+
+/**
+ * Reader for files written by BinaryBatchWriter.<br>
+ *
+ * Batches are read one after the other via read(..). In case the file
+ * contains an index, seek(..) continues reading at the batch with the given
+ * from-timestamp. Batches are read into compact updates, which are
+ * materialized in case BATCH_COMPACT is not set.
+ */
+public class BinaryBatchReader {
+
+	private static final UpdateType[] types = UpdateType.values();
+
+	private BinaryReader reader;
+
+	private String path;
+
+	private byte[] records;
+
+	/** from, to and offset of each batch, null if the file has no index */
+	private long[][] index;
+
+	private BinaryBatchReader(BinaryReader reader, String path) {
+		this.reader = reader;
+		this.path = path;
+		this.records = new byte[1 << 16];
+		this.index = null;
+	}
+
+	/**
+	 * @return reader positioned before the first batch or null in case the
+	 *         file is not a binary batch file
+	 */
+	public static BinaryBatchReader getReader(String dir, String filename)
+			throws IOException {
+		BinaryReader r = BinaryReader.getReader(dir, filename);
+		if (r == null) {
+			return null;
+		}
+		r.expectType(BinaryWriter.TYPE_BATCHES);
+		return new BinaryBatchReader(r, dir + filename);
+	}
+
+	/**
+	 * @return true if another batch follows
+	 */
+	public boolean hasNext() throws IOException {
+		long position = this.reader.getPosition();
+		if (position >= this.reader.size()) {
+			return false;
+		}
+		byte block = this.reader.readByte();
+		this.reader.seek(position);
+		return block == BinaryBatchWriter.BLOCK_BATCH;
+	}
+
+	/**
+	 * @return from and to of the next batch without reading it
+	 */
+	public long[] readTimestamps() throws IOException {
+		long position = this.reader.getPosition();
+		this.expectBlock();
+		long from = this.reader.readLong();
+		long to = this.reader.readLong();
+		this.reader.seek(position);
+		return new long[] { from, to };
+	}
+
+	private void expectBlock() throws IOException {
+		byte block = this.reader.readByte();
+		if (block != BinaryBatchWriter.BLOCK_BATCH) {
+			throw new InvalidFormatException("expected batch in " + this.path
+					+ " but found block " + block);
+		}
+	}
+
+	/**
+	 * Reads the next batch, nodes and edges are resolved in the given graph.
+	 */
+	public Batch read(Graph g) throws IOException {
+		this.expectBlock();
+		long from = this.reader.readLong();
+		long to = this.reader.readLong();
+		int count = this.reader.readInt();
+		int length = this.reader.readInt();
+		if (count < 0 || length < 0) {
+			throw new InvalidFormatException("invalid batch header in "
+					+ this.path + " (" + count + " updates, " + length
+					+ " bytes)");
+		}
+		if (this.records.length < length) {
+			this.records = new byte[Math.max(length, this.records.length * 2)];
+		}
+		this.reader.readBytes(this.records, 0, length);
+
+		GraphDataStructure gds = g.getGraphDatastructures();
+		CompactUpdates updates = new CompactUpdates(g, count);
+		byte[] r = this.records;
+		int pos = 0;
+		for (int i = 0; i < count; i++) {
+			if (pos >= length) {
+				throw this.invalidRecord(i);
+			}
+			int type = r[pos++] & 0xFF;
+			if ((type & ~BinaryBatchWriter.WEIGHTED) >= types.length) {
+				throw this.invalidRecord(i);
+			}
+			UpdateType t = types[type & ~BinaryBatchWriter.WEIGHTED];
+			boolean edge = t == UpdateType.EA || t == UpdateType.ER
+					|| t == UpdateType.EW;
+
+			// varint node indices, at most 5 bytes each
+			int index1 = 0;
+			for (int shift = 0;; shift += 7) {
+				if (pos >= length || shift > 28) {
+					throw this.invalidRecord(i);
+				}
+				byte b = r[pos++];
+				index1 |= (b & 0x7F) << shift;
+				if (b >= 0)
+					break;
+			}
+			int index2 = 0;
+			if (edge) {
+				for (int shift = 0;; shift += 7) {
+					if (pos >= length || shift > 28) {
+						throw this.invalidRecord(i);
+					}
+					byte b = r[pos++];
+					index2 |= (b & 0x7F) << shift;
+					if (b >= 0)
+						break;
+				}
+			}
+			if (index1 < 0 || index2 < 0) {
+				throw this.invalidRecord(i);
+			}
+
+			Weight w = null;
+			if ((type & BinaryBatchWriter.WEIGHTED) != 0) {
+				if (pos >= length) {
+					throw this.invalidRecord(i);
+				}
+				int weightLength = r[pos++] & 0xFF;
+				Class<? extends Weight> weightType = edge ? gds
+						.getEdgeWeightType() : gds.getNodeWeightType();
+				int weightSize = getWeightSize(weightType);
+				if (pos + weightLength > length
+						|| (weightSize >= 0 && weightLength != weightSize)) {
+					throw this.invalidRecord(i);
+				}
+				w = readWeight(r, pos, weightLength, weightType, edge, gds);
+				pos += weightLength;
+			}
+
+			switch (t) {
+			case NA:
+				updates.addNodeAddition(index1, w);
+				break;
+			case NR:
+				updates.addNodeRemoval(index1);
+				break;
+			case NW:
+				updates.addNodeWeight(index1, w);
+				break;
+			case EA:
+				updates.addEdgeAddition(index1, index2, w);
+				break;
+			case ER:
+				updates.addEdgeRemoval(index1, index2);
+				break;
+			case EW:
+				updates.addEdgeWeight(index1, index2, w);
+				break;
+			}
+		}
+		if (pos != length) {
+			throw new InvalidFormatException("invalid batch records in "
+					+ this.path);
+		}
+
+		Batch b = new Batch(gds, from, to, updates);
+		if (!CompactUpdates.isEnabled()) {
+			b.materialize(g);
+		}
+		return b;
+	}
+
+	private InvalidFormatException invalidRecord(int i) {
+		return new InvalidFormatException("invalid record of update " + i
+				+ " in " + this.path);
+	}
+
+	/**
+	 * @return number of bytes written for a weight of the given type, -1 in
+	 *         case it is written as a string
+	 */
+	private static int getWeightSize(Class<? extends Weight> type) {
+		if (type == IntWeight.class) {
+			return 4;
+		} else if (type == LongWeight.class || type == DoubleWeight.class
+				|| type == Int2dWeight.class) {
+			return 8;
+		} else if (type == Int3dWeight.class) {
+			return 12;
+		} else if (type == Long2dWeight.class || type == Double2dWeight.class) {
+			return 16;
+		} else if (type == Long3dWeight.class || type == Double3dWeight.class) {
+			return 24;
+		}
+		return -1;
+	}
+
+	private static Weight readWeight(byte[] r, int pos, int length,
+			Class<? extends Weight> type, boolean edge, GraphDataStructure gds) {
+		if (type == IntWeight.class) {
+			return new IntWeight(getInt(r, pos));
+		} else if (type == LongWeight.class) {
+			return new LongWeight(getLong(r, pos));
+		} else if (type == DoubleWeight.class) {
+			return new DoubleWeight(getDouble(r, pos));
+		} else if (type == Int2dWeight.class) {
+			return new Int2dWeight(getInt(r, pos), getInt(r, pos + 4));
+		} else if (type == Long2dWeight.class) {
+			return new Long2dWeight(getLong(r, pos), getLong(r, pos + 8));
+		} else if (type == Double2dWeight.class) {
+			return new Double2dWeight(getDouble(r, pos), getDouble(r, pos + 8));
+		} else if (type == Int3dWeight.class) {
+			return new Int3dWeight(getInt(r, pos), getInt(r, pos + 4), getInt(
+					r, pos + 8));
+		} else if (type == Long3dWeight.class) {
+			return new Long3dWeight(getLong(r, pos), getLong(r, pos + 8),
+					getLong(r, pos + 16));
+		} else if (type == Double3dWeight.class) {
+			return new Double3dWeight(getDouble(r, pos), getDouble(r, pos + 8),
+					getDouble(r, pos + 16));
+		}
+		String str = new String(r, pos, length, StandardCharsets.UTF_8);
+		return edge ? gds.newEdgeWeight(str) : gds.newNodeWeight(str);
+	}
+
+	private static int getInt(byte[] r, int pos) {
+		return ((r[pos] & 0xFF) << 24) | ((r[pos + 1] & 0xFF) << 16)
+				| ((r[pos + 2] & 0xFF) << 8) | (r[pos + 3] & 0xFF);
+	}
+
+	private static long getLong(byte[] r, int pos) {
+		return ((long) getInt(r, pos) << 32) | (getInt(r, pos + 4) & 0xFFFFFFFFL);
+	}
+
+	private static double getDouble(byte[] r, int pos) {
+		return Double.longBitsToDouble(getLong(r, pos));
+	}
+
+	/*
+	 * INDEX
+	 */
+
+	/**
+	 * @return true if the file contains an index of its batches
+	 */
+	public boolean hasIndex() throws IOException {
+		return this.readIndex() != null;
+	}
+
+	/**
+	 * @return from, to and offset of each batch, null if the file has no
+	 *         index
+	 */
+	private long[][] readIndex() throws IOException {
+		if (this.index != null) {
+			return this.index;
+		}
+		long size = this.reader.size();
+		if (size < 12) {
+			return null;
+		}
+		long position = this.reader.getPosition();
+		try {
+			this.reader.seek(size - 12);
+			long indexOffset = this.reader.readLong();
+			if (this.reader.readInt() != BinaryBatchWriter.INDEX_MAGIC
+					|| indexOffset < 0 || indexOffset >= size - 12) {
+				return null;
+			}
+			this.reader.seek(indexOffset);
+			if (this.reader.readByte() != BinaryBatchWriter.BLOCK_INDEX) {
+				return null;
+			}
+			long[][] index = new long[this.reader.readInt()][];
+			for (int i = 0; i < index.length; i++) {
+				index[i] = new long[] { this.reader.readLong(),
+						this.reader.readLong(), this.reader.readLong() };
+			}
+			this.index = index;
+			return index;
+		} finally {
+			this.reader.seek(position);
+		}
+	}
+
+	/**
+	 * Continues reading at the first batch starting at the given timestamp.
+	 * Requires an index.
+	 *
+	 * @return false in case the file contains no such batch
+	 */
+	public boolean seek(long from) throws IOException {
+		long[][] index = this.readIndex();
+		if (index == null) {
+			throw new InvalidFormatException("no index in " + this.path);
+		}
+		int low = 0;
+		int high = index.length - 1;
+		boolean sorted = true;
+		for (int i = 1; i < index.length && sorted; i++) {
+			sorted = index[i - 1][0] <= index[i][0];
+		}
+		if (sorted) {
+			// binary search for the first batch starting at from
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (index[mid][0] < from) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			if (index.length > 0 && index[low][0] == from) {
+				this.reader.seek(index[low][2]);
+				return true;
+			}
+			return false;
+		}
+		for (long[] entry : index) {
+			if (entry[0] == from) {
+				this.reader.seek(entry[2]);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of batches in the file according to its index, -1 if
+	 *         there is no index
+	 */
+	public int getBatchCount() throws IOException {
+		long[][] index = this.readIndex();
+		return index == null ? -1 : index.length;
+	}
+
+	public void close() throws IOException {
+		this.reader.close();
+	}
+}
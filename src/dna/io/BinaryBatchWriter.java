@@ -0,0 +1,434 @@
+package dna.io;
+
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+import dna.graph.weights.Double2dWeight;
+import dna.graph.weights.Double3dWeight;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.IWeighted;
+import dna.graph.weights.Int2dWeight;
+import dna.graph.weights.Int3dWeight;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Long2dWeight;
+import dna.graph.weights.Long3dWeight;
+import dna.graph.weights.LongWeight;
+import dna.graph.weights.Weight;
+import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
+import dna.updates.update.EdgeUpdate;
+import dna.updates.update.EdgeWeight;
+import dna.updates.update.NodeUpdate;
+import dna.updates.update.NodeWeight;
+import dna.updates.update.Update;
+import dna.updates.update.Update.UpdateType;
+import dna.util.Config;
+import dna.util.IOUtils;
+
+/**
+ * Writer for the binary batch format, a file of type
+ * BinaryWriter.TYPE_BATCHES containing one or more batches.<br>
+ *
+ * Each batch is written as a block: BLOCK_BATCH, from, to, the number of
+ * updates and the length of the records in bytes, followed by one record per
+ * update. A record consists of the type of the update (the ordinal of its
+ * UpdateType, WEIGHTED is set in case a weight is given), the node index or
+ * the two node indices of an edge (as varints) and the weight (as a length
+ * byte followed by the raw bytes of the weight, see writeWeight(..)).<br>
+ *
+ * Optionally, the batches are followed by an index: BLOCK_INDEX, the number
+ * of batches, from, to and the offset of each batch, and finally the offset
+ * of the index and INDEX_MAGIC as the last 12 bytes of the file. It allows to
+ * find a batch by its timestamp without reading the file (see
+ * BinaryBatchReader.seek(..)).<br>
+ *
+ * BatchWriter writes single batches in this format in case
+ * BATCH_AS_BINARY is set, BatchReader recognizes them by their header.
+ * Batches written as text can be converted via convert(..).
+ */
+public class BinaryBatchWriter {
+
+	public static final byte BLOCK_BATCH = 1;
+
+	public static final byte BLOCK_INDEX = 2;
+
+	public static final int INDEX_MAGIC = 0x494E4458;
+
+	/** flag of the type of records that contain a weight */
+	public static final int WEIGHTED = 0x80;
+
+	/**
+	 * @return true if batches should be written in binary format
+	 *         (BATCH_AS_BINARY)
+	 */
+	public static boolean isEnabled() {
+		return Config.getBoolean("BATCH_AS_BINARY");
+	}
+
+	private BinaryWriter writer;
+
+	private boolean index;
+
+	private int batches;
+
+	private long[] from;
+
+	private long[] to;
+
+	private long[] offset;
+
+	private byte[] records;
+
+	private int length;
+
+	/**
+	 * @param index
+	 *            true if an index of all batches should be written on close()
+	 */
+	public BinaryBatchWriter(String dir, String filename, boolean index)
+			throws IOException {
+		this.writer = BinaryWriter.getWriter(dir, filename,
+				BinaryWriter.TYPE_BATCHES);
+		this.index = index;
+		this.batches = 0;
+		this.from = new long[16];
+		this.to = new long[16];
+		this.offset = new long[16];
+		this.records = new byte[1 << 16];
+		this.length = 0;
+	}
+
+	/**
+	 * Writes a file containing only the given batch (without index).
+	 */
+	public static void write(Batch b, String dir, String filename)
+			throws IOException {
+		BinaryBatchWriter w = new BinaryBatchWriter(dir, filename, false);
+		try {
+			w.append(b);
+		} finally {
+			w.close();
+		}
+	}
+
+	/**
+	 * Appends the batch to the file.
+	 */
+	public void append(Batch b) throws IOException {
+		this.length = 0;
+		int count = 0;
+		if (b.isCompact()) {
+			CompactUpdates c = b.getCompactUpdates();
+			for (int i = 0; i < c.size(); i++) {
+				UpdateType t = c.getType(i);
+				if (t == null) {
+					continue;
+				}
+				this.writeRecord(t, c.getIndex1(i), c.getIndex2(i),
+						c.getWeight(i));
+				count++;
+			}
+		} else {
+			for (Update u : b.getAllUpdates()) {
+				this.writeRecord(u);
+				count++;
+			}
+		}
+		this.appendBlock(b.getFrom(), b.getTo(), count);
+	}
+
+	private void appendBlock(long from, long to, int count) throws IOException {
+		if (this.batches == this.from.length) {
+			this.from = Arrays.copyOf(this.from, this.batches * 2);
+			this.to = Arrays.copyOf(this.to, this.batches * 2);
+			this.offset = Arrays.copyOf(this.offset, this.batches * 2);
+		}
+		this.from[this.batches] = from;
+		this.to[this.batches] = to;
+		this.offset[this.batches] = this.writer.getPosition();
+		this.batches++;
+
+		this.writer.writeByte(BLOCK_BATCH);
+		this.writer.writeLong(from);
+		this.writer.writeLong(to);
+		this.writer.writeInt(count);
+		this.writer.writeInt(this.length);
+		this.writer.writeBytes(this.records, 0, this.length);
+	}
+
+	private void writeRecord(Update u) throws IOException {
+		if (u instanceof NodeUpdate) {
+			Node n = (Node) ((NodeUpdate) u).getNode();
+			Weight w = null;
+			if (u instanceof NodeWeight) {
+				w = ((NodeWeight) u).getWeight();
+			} else if (u.getType() == UpdateType.NA && n instanceof IWeighted) {
+				w = ((IWeighted) n).getWeight();
+			}
+			this.writeRecord(u.getType(), n.getIndex(), 0, w);
+		} else if (u instanceof EdgeUpdate) {
+			Edge e = (Edge) ((EdgeUpdate) u).getEdge();
+			Weight w = null;
+			if (u instanceof EdgeWeight) {
+				w = ((EdgeWeight) u).getWeight();
+			} else if (u.getType() == UpdateType.EA && e instanceof IWeighted) {
+				w = ((IWeighted) e).getWeight();
+			}
+			this.writeRecord(u.getType(), e.getN1Index(), e.getN2Index(), w);
+		} else {
+			throw new InvalidFormatException("unsupported update: " + u);
+		}
+	}
+
+	private void writeRecord(UpdateType t, int index1, int index2, Weight w)
+			throws IOException {
+		this.ensure(1 + 5 + 5 + 1);
+		int type = t.ordinal();
+		if (w != null) {
+			type |= WEIGHTED;
+		}
+		this.records[this.length++] = (byte) type;
+		this.writeVarInt(index1);
+		if (t == UpdateType.EA || t == UpdateType.ER || t == UpdateType.EW) {
+			this.writeVarInt(index2);
+		}
+		if (w != null) {
+			int start = this.length;
+			// reserve a single byte for the length of all supported weights
+			this.length++;
+			writeWeight(w, this);
+			int weightLength = this.length - start - 1;
+			if (weightLength > 255) {
+				throw new InvalidFormatException("weight too long: " + w);
+			}
+			this.records[start] = (byte) weightLength;
+		}
+	}
+
+	private void ensure(int bytes) {
+		if (this.length + bytes > this.records.length) {
+			this.records = Arrays.copyOf(this.records, Math.max(
+					this.length + bytes, this.records.length * 2));
+		}
+	}
+
+	private void writeVarInt(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("negative node index " + value);
+		}
+		while ((value & ~0x7F) != 0) {
+			this.records[this.length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.records[this.length++] = (byte) value;
+	}
+
+	private void writeLong(long value) {
+		this.ensure(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			this.records[this.length++] = (byte) (value >>> shift);
+		}
+	}
+
+	/**
+	 * Writes the raw bytes of the weight: int, long and double values
+	 * (big-endian) for the numeric weight types and the UTF-8 encoded
+	 * asString() of all other weights.
+	 */
+	private static void writeWeight(Weight w, BinaryBatchWriter out)
+			throws IOException {
+		if (w instanceof IntWeight) {
+			out.writeInt(((IntWeight) w).getWeight());
+		} else if (w instanceof LongWeight) {
+			out.writeLong(((LongWeight) w).getWeight());
+		} else if (w instanceof DoubleWeight) {
+			out.writeDouble(((DoubleWeight) w).getWeight());
+		} else if (w instanceof Int2dWeight) {
+			out.writeInt(((Int2dWeight) w).getX());
+			out.writeInt(((Int2dWeight) w).getY());
+		} else if (w instanceof Long2dWeight) {
+			out.writeLong(((Long2dWeight) w).getX());
+			out.writeLong(((Long2dWeight) w).getY());
+		} else if (w instanceof Double2dWeight) {
+			out.writeDouble(((Double2dWeight) w).getX());
+			out.writeDouble(((Double2dWeight) w).getY());
+		} else if (w instanceof Int3dWeight) {
+			out.writeInt(((Int3dWeight) w).getX());
+			out.writeInt(((Int3dWeight) w).getY());
+			out.writeInt(((Int3dWeight) w).getZ());
+		} else if (w instanceof Long3dWeight) {
+			out.writeLong(((Long3dWeight) w).getX());
+			out.writeLong(((Long3dWeight) w).getY());
+			out.writeLong(((Long3dWeight) w).getZ());
+		} else if (w instanceof Double3dWeight) {
+			out.writeDouble(((Double3dWeight) w).getX());
+			out.writeDouble(((Double3dWeight) w).getY());
+			out.writeDouble(((Double3dWeight) w).getZ());
+		} else {
+			byte[] bytes = w.asString().getBytes("UTF-8");
+			out.ensure(bytes.length);
+			System.arraycopy(bytes, 0, out.records, out.length, bytes.length);
+			out.length += bytes.length;
+		}
+	}
+
+	private void writeInt(int value) {
+		this.ensure(4);
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			this.records[this.length++] = (byte) (value >>> shift);
+		}
+	}
+
+	private void writeDouble(double value) {
+		this.writeLong(Double.doubleToLongBits(value));
+	}
+
+	/**
+	 * Writes the index (if requested) and closes the file.
+	 */
+	public void close() throws IOException {
+		if (this.index) {
+			long indexOffset = this.writer.getPosition();
+			this.writer.writeByte(BLOCK_INDEX);
+			this.writer.writeInt(this.batches);
+			for (int i = 0; i < this.batches; i++) {
+				this.writer.writeLong(this.from[i]);
+				this.writer.writeLong(this.to[i]);
+				this.writer.writeLong(this.offset[i]);
+			}
+			this.writer.writeLong(indexOffset);
+			this.writer.writeInt(INDEX_MAGIC);
+		}
+		this.writer.close();
+	}
+
+	/*
+	 * CONVERSION
+	 */
+
+	/**
+	 * Converts all batches stored as text files in srcDir (filtered by the
+	 * optional filter) into a single binary file with index. The batches are
+	 * written in the order of their from-timestamp.
+	 *
+	 * @param gds
+	 *            data structure of the graph, used to parse weights
+	 * @return number of converted batches
+	 */
+	public static int convert(String srcDir, FilenameFilter filter,
+			GraphDataStructure gds, String dstDir, String dstFilename)
+			throws IOException {
+		String[] filenames = IOUtils.getFilenames(srcDir, filter);
+		final HashMap<String, Long> from = new HashMap<String, Long>();
+		for (String filename : filenames) {
+			from.put(filename, BatchReader.readTimestamps(srcDir, filename)[0]);
+		}
+		Arrays.sort(filenames, new Comparator<String>() {
+			@Override
+			public int compare(String o1, String o2) {
+				return Long.compare(from.get(o1), from.get(o2));
+			}
+		});
+		return BinaryBatchWriter.convert(srcDir, filenames, gds, dstDir,
+				dstFilename);
+	}
+
+	/**
+	 * Converts the given batches stored as text files into a single binary
+	 * file with index, in the given order. Lines are parsed without a graph,
+	 * i.e., the batches can be converted without replaying them.
+	 *
+	 * @return number of converted batches
+	 */
+	public static int convert(String srcDir, String[] filenames,
+			GraphDataStructure gds, String dstDir, String dstFilename)
+			throws IOException {
+		BinaryBatchWriter w = new BinaryBatchWriter(dstDir, dstFilename, true);
+		try {
+			for (String filename : filenames) {
+				w.convert(srcDir, filename, gds);
+			}
+		} finally {
+			w.close();
+		}
+		return filenames.length;
+	}
+
+	private void convert(String dir, String filename, GraphDataStructure gds)
+			throws IOException {
+		Reader reader = Reader.getReader(dir, filename);
+		try {
+			reader.readKeyword(BatchWriter.fromKeyword);
+			long from = reader.readLong();
+			reader.readKeyword(BatchWriter.toKeyword);
+			long to = reader.readLong();
+			reader.readKeyword(BatchWriter.updatesKeyword);
+
+			this.length = 0;
+			int count = 0;
+			int[] indices = new int[2];
+			String line = null;
+			while ((line = reader.readString()) != null) {
+				int sep = line.indexOf(Update.TypeDelimiter);
+				if (sep < 0) {
+					throw new InvalidFormatException("invalid update: " + line);
+				}
+				UpdateType t = UpdateType.valueOf(line.substring(0, sep));
+				String str = line.substring(sep + 1);
+				String weight = null;
+				String delimiter = t == UpdateType.NW || t == UpdateType.EW ? Update.WeightDelimiter
+						: Weight.WeightDelimiter;
+				int w = str.indexOf(delimiter);
+				if (w >= 0) {
+					weight = str.substring(w + delimiter.length());
+					str = str.substring(0, w);
+				}
+				int n = parseIndices(str, indices);
+				boolean edge = t == UpdateType.EA || t == UpdateType.ER
+						|| t == UpdateType.EW;
+				if (n != (edge ? 2 : 1)) {
+					throw new InvalidFormatException("invalid update: " + line);
+				}
+				Weight parsed = null;
+				if (weight != null) {
+					parsed = edge ? gds.newEdgeWeight(weight) : gds
+							.newNodeWeight(weight);
+				}
+				this.writeRecord(t, indices[0], indices[1], parsed);
+				count++;
+			}
+			this.appendBlock(from, to, count);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static int parseIndices(String str, int[] indices) {
+		int count = 0;
+		int pos = 0;
+		indices[1] = 0;
+		while (pos < str.length() && count < indices.length) {
+			char c = str.charAt(pos);
+			if (c < '0' || c > '9') {
+				pos++;
+				continue;
+			}
+			int value = 0;
+			while (pos < str.length() && (c = str.charAt(pos)) >= '0'
+					&& c <= '9') {
+				value = value * 10 + (c - '0');
+				pos++;
+			}
+			indices[count++] = value;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,228 @@
+package dna.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+
+import com.sun.media.sound.InvalidFormatException;
+
+/**
+ * Reader for files written by BinaryWriter.<br>
+ *
+ * getReader(..) checks the header of a file and returns null in case it is
+ * not in binary format, so that callers can fall back to reading it as text.
+ */
+public class BinaryReader {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private SeekableByteChannel channel;
+
+	private ByteBuffer buffer;
+
+	private byte type;
+
+	private BinaryReader(SeekableByteChannel channel) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * Returns a reader for the given file in case it has been written in
+	 * binary format. Like Reader.getReader(..), the file is read from the read
+	 * FileSystem in case it is set (see ZipReader).
+	 *
+	 * @return reader positioned after the header or null in case the file is
+	 *         not in binary format
+	 */
+	public static BinaryReader getReader(String dir, String filename)
+			throws IOException {
+		SeekableByteChannel channel;
+		try {
+			if (ZipReader.readFileSystem == null)
+				channel = FileChannel.open(Paths.get(dir + filename));
+			else
+				channel = Files.newByteChannel(ZipReader.readFileSystem
+						.getPath(dir + filename));
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(dir + filename);
+		}
+
+		BinaryReader r = new BinaryReader(channel);
+		if (!r.fill(6) || r.buffer.getInt() != BinaryWriter.MAGIC) {
+			r.close();
+			return null;
+		}
+		byte version = r.buffer.get();
+		if (version != BinaryWriter.VERSION) {
+			r.close();
+			throw new InvalidFormatException("unsupported version " + version
+					+ " of binary file " + dir + filename);
+		}
+		r.type = r.buffer.get();
+		return r;
+	}
+
+	/**
+	 * @return type of the data stored in the file (one of
+	 *         BinaryWriter.TYPE_*)
+	 */
+	public byte getType() {
+		return this.type;
+	}
+
+	/**
+	 * Checks that the file contains data of the expected type.
+	 */
+	public void expectType(byte type) throws IOException {
+		if (this.type != type) {
+			throw new InvalidFormatException("expected binary data of type "
+					+ type + " but found " + this.type);
+		}
+	}
+
+	/**
+	 * Reads from the channel until at least the given number of bytes is
+	 * available in the buffer.
+	 *
+	 * @return false in case the end of the file has been reached before
+	 */
+	private boolean fill(int bytes) throws IOException {
+		if (this.buffer.remaining() >= bytes)
+			return true;
+		this.buffer.compact();
+		while (this.buffer.position() < bytes) {
+			if (this.channel.read(this.buffer) < 0) {
+				this.buffer.flip();
+				return false;
+			}
+		}
+		this.buffer.flip();
+		return true;
+	}
+
+	private void require(int bytes) throws IOException {
+		if (!this.fill(bytes))
+			throw new InvalidFormatException("unexpected end of binary file");
+	}
+
+	public byte readByte() throws IOException {
+		this.require(1);
+		return this.buffer.get();
+	}
+
+	public int readInt() throws IOException {
+		this.require(4);
+		return this.buffer.getInt();
+	}
+
+	public long readLong() throws IOException {
+		this.require(8);
+		return this.buffer.getLong();
+	}
+
+	public double readDouble() throws IOException {
+		this.require(8);
+		return this.buffer.getDouble();
+	}
+
+	/**
+	 * Reads the given number of bytes (written by BinaryWriter.writeBytes(..))
+	 * into the array.
+	 */
+	public void readBytes(byte[] values, int offset, int length)
+			throws IOException {
+		int read = 0;
+		while (read < length) {
+			this.require(1);
+			int count = Math.min(length - read, this.buffer.remaining());
+			this.buffer.get(values, offset + read, count);
+			read += count;
+		}
+	}
+
+	/**
+	 * @return offset of the next value in the file
+	 */
+	public long getPosition() throws IOException {
+		return this.channel.position()
+				- this.buffer.remaining();
+	}
+
+	/**
+	 * Continues reading at the given offset of the file.
+	 */
+	public void seek(long position) throws IOException {
+		this.channel.position(position);
+		this.buffer.clear();
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * @return size of the file in bytes
+	 */
+	public long size() throws IOException {
+		return this.channel.size();
+	}
+
+	/**
+	 * Reads an array written by BinaryWriter.writeInts(..).
+	 */
+	public int[] readInts() throws IOException {
+		int[] values = new int[this.readInt()];
+		int read = 0;
+		while (read < values.length) {
+			this.require(4);
+			int count = Math.min(values.length - read,
+					this.buffer.remaining() / 4);
+			this.buffer.asIntBuffer().get(values, read, count);
+			this.buffer.position(this.buffer.position() + count * 4);
+			read += count;
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array written by BinaryWriter.writeLongs(..).
+	 */
+	public long[] readLongs() throws IOException {
+		long[] values = new long[this.readInt()];
+		int read = 0;
+		while (read < values.length) {
+			this.require(8);
+			int count = Math.min(values.length - read,
+					this.buffer.remaining() / 8);
+			this.buffer.asLongBuffer().get(values, read, count);
+			this.buffer.position(this.buffer.position() + count * 8);
+			read += count;
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array written by BinaryWriter.writeDoubles(..).
+	 */
+	public double[] readDoubles() throws IOException {
+		double[] values = new double[this.readInt()];
+		int read = 0;
+		while (read < values.length) {
+			this.require(8);
+			int count = Math.min(values.length - read,
+					this.buffer.remaining() / 8);
+			this.buffer.asDoubleBuffer().get(values, read, count);
+			this.buffer.position(this.buffer.position() + count * 8);
+			read += count;
+		}
+		return values;
+	}
+
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
@@ -0,0 +1,240 @@
+package dna.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import dna.util.Config;
+
+/**
+ * Writer for the binary output format of distributions, NodeValueLists and
+ * NodeNodeValueLists. Instead of one formatted number per line, values are
+ * written as fixed-width primitives (big-endian) via an NIO channel.<br>
+ *
+ * Each file starts with a small header: the magic number MAGIC, the format
+ * VERSION and a byte denoting the type of data stored in the file (one of the
+ * TYPE_* constants). It is followed by the type-specific scalars (e.g.,
+ * denominator or binsize) and arrays, each array prefixed by its length.<br>
+ *
+ * Binary files use the same names as the text files. They are recognized by
+ * their header when being read (see BinaryReader.getReader(..)), so the
+ * output of a series can be read regardless of the format it was written in.
+ * Data is written in binary format in case GENERATION_AS_BINARY is set.
+ */
+public class BinaryWriter {
+
+	public static final int MAGIC = 0x444E4142;
+
+	public static final byte VERSION = 1;
+
+	public static final byte TYPE_DISTRIBUTION = 1;
+	public static final byte TYPE_DISTRIBUTION_INT = 2;
+	public static final byte TYPE_DISTRIBUTION_LONG = 3;
+	public static final byte TYPE_DISTRIBUTION_DOUBLE = 4;
+	public static final byte TYPE_BINNED_DISTRIBUTION_INT = 5;
+	public static final byte TYPE_BINNED_DISTRIBUTION_LONG = 6;
+	public static final byte TYPE_BINNED_DISTRIBUTION_DOUBLE = 7;
+	public static final byte TYPE_NODE_VALUE_LIST = 8;
+	public static final byte TYPE_NODE_NODE_VALUE_LIST = 9;
+	public static final byte TYPE_BATCHES = 10;
+	public static final byte TYPE_EVENT_DICTIONARY = 11;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * @return true if data should be written in binary format
+	 *         (GENERATION_AS_BINARY)
+	 */
+	public static boolean isEnabled() {
+		return Config.getBoolean("GENERATION_AS_BINARY");
+	}
+
+	private WritableByteChannel channel;
+
+	private ByteBuffer buffer;
+
+	/** number of bytes written to the channel so far (excluding the buffer) */
+	private long flushed;
+
+	/**
+	 * Creates a writer for the given channel and writes the header.
+	 *
+	 * @param channel
+	 *            channel to write to
+	 * @param type
+	 *            type of the data (one of the TYPE_* constants)
+	 */
+	public BinaryWriter(WritableByteChannel channel, byte type)
+			throws IOException {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.flushed = 0;
+		this.writeInt(MAGIC);
+		this.writeByte(VERSION);
+		this.writeByte(type);
+	}
+
+	/**
+	 * Returns a writer for the given file. Like Writer.getWriter(..), the file
+	 * is written into the write FileSystem of the current thread in case it is
+	 * set (see ZipWriter) and to the default file system otherwise.
+	 */
+	public static BinaryWriter getWriter(String dir, String filename, byte type)
+			throws IOException {
+		StandardOpenOption[] options = { StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING };
+		FileSystem fs = ZipWriter.getWriteFileSystem();
+		if (fs == null) {
+			(new File(dir)).mkdirs();
+			return new BinaryWriter(FileChannel.open(
+					Paths.get(dir + filename), options), type);
+		}
+		Path innerDir = fs.getPath(dir);
+		if (!Files.exists(innerDir))
+			Files.createDirectories(innerDir);
+		return new BinaryWriter(Files.newByteChannel(
+				fs.getPath(dir + filename), options), type);
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (this.buffer.remaining() < bytes)
+			this.flush();
+	}
+
+	private void flush() throws IOException {
+		this.buffer.flip();
+		this.flushed += this.buffer.remaining();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	/**
+	 * @return number of bytes written so far, i.e., the offset of the next
+	 *         value in the file
+	 */
+	public long getPosition() {
+		return this.flushed + this.buffer.position();
+	}
+
+	public void writeByte(byte value) throws IOException {
+		this.ensure(1);
+		this.buffer.put(value);
+	}
+
+	public void writeInt(int value) throws IOException {
+		this.ensure(4);
+		this.buffer.putInt(value);
+	}
+
+	public void writeLong(long value) throws IOException {
+		this.ensure(8);
+		this.buffer.putLong(value);
+	}
+
+	public void writeDouble(double value) throws IOException {
+		this.ensure(8);
+		this.buffer.putDouble(value);
+	}
+
+	/**
+	 * Writes the given bytes without length.
+	 */
+	public void writeBytes(byte[] values, int offset, int length)
+			throws IOException {
+		int written = 0;
+		while (written < length) {
+			this.ensure(1);
+			int count = Math.min(length - written, this.buffer.remaining());
+			this.buffer.put(values, offset + written, count);
+			written += count;
+		}
+	}
+
+	/**
+	 * Writes the length of the array followed by all its elements.
+	 */
+	public void writeInts(int[] values) throws IOException {
+		this.writeInts(values, values.length);
+	}
+
+	/**
+	 * Writes the given length followed by the first length elements of the
+	 * array.
+	 */
+	public void writeInts(int[] values, int length) throws IOException {
+		this.writeInt(length);
+		int written = 0;
+		while (written < length) {
+			this.ensure(4);
+			int count = Math.min(length - written,
+					this.buffer.remaining() / 4);
+			this.buffer.asIntBuffer().put(values, written, count);
+			this.buffer.position(this.buffer.position() + count * 4);
+			written += count;
+		}
+	}
+
+	/**
+	 * Writes the length of the array followed by all its elements.
+	 */
+	public void writeLongs(long[] values) throws IOException {
+		this.writeLongs(values, values.length);
+	}
+
+	/**
+	 * Writes the given length followed by the first length elements of the
+	 * array.
+	 */
+	public void writeLongs(long[] values, int length) throws IOException {
+		this.writeInt(length);
+		int written = 0;
+		while (written < length) {
+			this.ensure(8);
+			int count = Math.min(length - written,
+					this.buffer.remaining() / 8);
+			this.buffer.asLongBuffer().put(values, written, count);
+			this.buffer.position(this.buffer.position() + count * 8);
+			written += count;
+		}
+	}
+
+	/**
+	 * Writes the length of the array followed by all its elements.
+	 */
+	public void writeDoubles(double[] values) throws IOException {
+		this.writeDoubles(values, values.length);
+	}
+
+	/**
+	 * Writes the given length followed by the first length elements of the
+	 * array.
+	 */
+	public void writeDoubles(double[] values, int length) throws IOException {
+		this.writeInt(length);
+		int written = 0;
+		while (written < length) {
+			this.ensure(8);
+			int count = Math.min(length - written,
+					this.buffer.remaining() / 8);
+			this.buffer.asDoubleBuffer().put(values, written, count);
+			this.buffer.position(this.buffer.position() + count * 8);
+			written += count;
+		}
+	}
+
+	public void close() throws IOException {
+		this.flush();
+		if (this.channel instanceof FileChannel && Writer.isSyncOnClose())
+			((FileChannel) this.channel).force(true);
+		this.channel.close();
+	}
+}
@@ -0,0 +1,460 @@
+package dna.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.nodes.Node;
+import dna.util.Config;
+
+/**
+ * Bulk loader for the lists of nodes and edges of graphs written by
+ * GraphWriter.<br>
+ *
+ * The file is memory-mapped and split into chunks at line boundaries. The
+ * chunks are parsed concurrently (GRAPH_READ_THREADS) into primitive arrays
+ * of node indices and index pairs, without creating a String for each line.
+ * Afterwards, the graph is built in a single pass over these arrays: nodes
+ * are looked up by index in an array instead of the graph and all instances
+ * are created via the constructors cached by the GraphDataStructure.<br>
+ *
+ * A line containing a single index denotes a node and a line containing two
+ * indices separated by the separator of the edge type (DirectedEdge.separator
+ * or UndirectedEdge.separator) denotes an edge. Apart from the keyword of the
+ * list of edges, which must separate nodes and edges, any other line is
+ * rejected like by GraphReader. Therefore, only graphs without node and edge
+ * weights can be read (see isApplicable(..)). Whether GraphReader uses this
+ * loader is configured via GRAPH_READ_BULK.
+ */
+public class BulkGraphReader {
+
+	/**
+	 * maximum size of a chunk, a MappedByteBuffer can hold at most 2^31-1
+	 * bytes
+	 */
+	private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+	/**
+	 * @return true if GraphReader should use the bulk loader (GRAPH_READ_BULK)
+	 */
+	public static boolean isEnabled() {
+		return Config.getBoolean("GRAPH_READ_BULK");
+	}
+
+	/**
+	 * @return true if graphs of the given data structure can be read by the
+	 *         bulk loader, i.e., neither nodes nor edges are weighted
+	 */
+	public static boolean isApplicable(GraphDataStructure ds) {
+		return !ds.createsWeightedNodes() && !ds.createsWeightedEdges();
+	}
+
+	/**
+	 * @return true if graphs written with the given data structure can be
+	 *         read by the bulk loader, i.e., the lists of the file contain no
+	 *         weights (even if the graph is read without weights)
+	 */
+	public static boolean isApplicable(String gdsString) {
+		return isApplicable(new GraphDataStructure(gdsString));
+	}
+
+	/**
+	 * @return number of threads configured via GRAPH_READ_THREADS, 0 refers to
+	 *         the number of available processors
+	 */
+	public static int getConfiguredParallelism() {
+		int threads = Config.getInt("GRAPH_READ_THREADS");
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		return threads;
+	}
+
+	/**
+	 * Reads all nodes and edges listed in the given graph file and adds them
+	 * to the graph.
+	 *
+	 * @param g
+	 *            graph (created from the header of the file)
+	 * @param ds
+	 *            data structure used to create nodes and edges
+	 * @param nodes
+	 *            number of nodes as stated in the header
+	 */
+	public static void readLists(String dir, String filename, Graph g,
+			GraphDataStructure ds, int nodes) throws IOException {
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(Paths.get(dir + filename),
+					StandardOpenOption.READ);
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(dir + filename);
+		}
+		try {
+			long start = findListStart(channel, dir + filename);
+			byte[] separator = (ds.createsDirected() ? DirectedEdge.separator
+					: UndirectedEdge.separator)
+					.getBytes(StandardCharsets.UTF_8);
+			Chunk[] chunks = parse(channel, start, separator,
+					getConfiguredParallelism());
+			validate(chunks, dir + filename);
+			build(g, ds, chunks, nodes);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * @return offset of the first line following the keyword of the nodes
+	 *         list
+	 */
+	private static long findListStart(FileChannel channel, String path)
+			throws IOException {
+		byte[] keyword = (Writer
+				.getKeywordAsLine(GraphWriter.nodesListKeyword) + "\n")
+				.getBytes(StandardCharsets.UTF_8);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+				0, Math.min(channel.size(), MAX_CHUNK_SIZE));
+		int limit = buffer.limit();
+		int pos = 0;
+		while (pos < limit) {
+			int i = 0;
+			while (i < keyword.length && pos + i < limit
+					&& buffer.get(pos + i) == keyword[i])
+				i++;
+			if (i == keyword.length)
+				return pos + i;
+			while (pos < limit && buffer.get(pos) != '\n')
+				pos++;
+			pos++;
+		}
+		throw new InvalidFormatException("Expected keyword '"
+				+ GraphWriter.nodesListKeyword + "' in " + path);
+	}
+
+	/**
+	 * @return offset of the beginning of the line following the given
+	 *         position (or the end of the file)
+	 */
+	private static long nextLineStart(FileChannel channel, long pos)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long size = channel.size();
+		while (pos < size) {
+			buffer.clear();
+			int read = channel.read(buffer, pos);
+			if (read < 0)
+				break;
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n')
+					return pos + i + 1;
+			}
+			pos += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Splits the file starting at the given offset into chunks and parses
+	 * them concurrently.
+	 *
+	 * @return parsed chunks in the order of the file
+	 */
+	private static Chunk[] parse(FileChannel channel, long start,
+			byte[] separator, int threads) throws IOException {
+		long size = channel.size();
+		long length = size - start;
+		int count = (int) Math.max(threads, (length + MAX_CHUNK_SIZE - 1)
+				/ MAX_CHUNK_SIZE);
+		count = (int) Math.max(1, Math.min(count, length / 4096));
+
+		List<Chunk> chunks = new ArrayList<Chunk>(count);
+		long from = start;
+		for (int i = 1; i <= count && from < size; i++) {
+			long to = i == count ? size : Math.max(from,
+					nextLineStart(channel, start + length * i / count - 1));
+			if (to > from)
+				chunks.add(new Chunk(channel, from, to, separator));
+			from = to;
+		}
+
+		if (chunks.size() == 1 || threads == 1) {
+			for (Chunk c : chunks)
+				c.call();
+			return chunks.toArray(new Chunk[chunks.size()]);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(Math.min(threads, chunks.size()));
+		try {
+			for (Future<Chunk> f : pool.invokeAll(chunks)) {
+				try {
+					f.get();
+				} catch (InterruptedException e) {
+					throw new IOException("reading graph was interrupted", e);
+				} catch (ExecutionException e) {
+					// the pool wraps checked exceptions of Callables
+					for (Throwable t = e.getCause(); t != null; t = t
+							.getCause()) {
+						if (t instanceof IOException)
+							throw (IOException) t;
+					}
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return chunks.toArray(new Chunk[chunks.size()]);
+	}
+
+	/**
+	 * Checks that the keyword of the list of edges occurs exactly once and
+	 * that all nodes are listed before and all edges after it.
+	 */
+	private static void validate(Chunk[] chunks, String path)
+			throws InvalidFormatException {
+		int keyword = -1;
+		for (int i = 0; i < chunks.length; i++) {
+			if (!chunks[i].edgesKeyword)
+				continue;
+			if (keyword >= 0)
+				throw new InvalidFormatException("Keyword '"
+						+ GraphWriter.edgesListKeyword + "' occurs twice in "
+						+ path);
+			keyword = i;
+		}
+		if (keyword < 0)
+			throw new InvalidFormatException("Expected keyword '"
+					+ GraphWriter.edgesListKeyword + "' in " + path);
+		for (int i = 0; i < chunks.length; i++) {
+			if ((i < keyword && chunks[i].edgeCount > 0)
+					|| (i > keyword && chunks[i].nodeCount > 0))
+				throw new InvalidFormatException("Nodes and edges are mixed in "
+						+ path);
+		}
+	}
+
+	/**
+	 * Adds all parsed nodes and then all parsed edges to the graph.
+	 */
+	private static void build(Graph g, GraphDataStructure ds, Chunk[] chunks,
+			int nodes) throws IOException {
+		int maxIndex = nodes - 1;
+		for (Chunk c : chunks)
+			maxIndex = Math.max(maxIndex, c.maxNodeIndex);
+		Node[] byIndex = new Node[maxIndex + 1];
+
+		for (Chunk c : chunks) {
+			for (int i = 0; i < c.nodeCount; i++) {
+				Node n = ds.newNodeInstance(c.nodes[i]);
+				g.addNode(n);
+				byIndex[c.nodes[i]] = n;
+			}
+			c.nodes = null;
+		}
+
+		for (Chunk c : chunks) {
+			for (int i = 0; i < 2 * c.edgeCount; i += 2) {
+				Node src = node(byIndex, c.edges[i]);
+				Node dst = node(byIndex, c.edges[i + 1]);
+				Edge e = ds.newEdgeInstance(src, dst);
+				g.addEdge(e);
+				e.connectToNodes();
+			}
+			c.edges = null;
+		}
+	}
+
+	private static Node node(Node[] byIndex, int index)
+			throws InvalidFormatException {
+		if (index >= byIndex.length || byIndex[index] == null)
+			throw new InvalidFormatException("edge refers to unknown node "
+					+ index);
+		return byIndex[index];
+	}
+
+	/**
+	 * Part of the lists of nodes and edges, starting and ending at line
+	 * boundaries.
+	 */
+	private static class Chunk implements Callable<Chunk> {
+		private FileChannel channel;
+
+		private long start;
+
+		private long end;
+
+		private int[] nodes;
+
+		private int nodeCount;
+
+		private int maxNodeIndex;
+
+		/** src and dst index of each edge */
+		private int[] edges;
+
+		private int edgeCount;
+
+		/** separator of the two indices of an edge */
+		private byte[] separator;
+
+		/** true if the keyword of the list of edges is part of this chunk */
+		private boolean edgesKeyword;
+
+		private Chunk(FileChannel channel, long start, long end,
+				byte[] separator) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.separator = separator;
+			this.nodes = new int[16];
+			this.nodeCount = 0;
+			this.maxNodeIndex = -1;
+			// assumes lines of about 10 bytes
+			this.edges = new int[(int) Math.min(Integer.MAX_VALUE - 8,
+					Math.max(32, (end - start) / 5))];
+			this.edgeCount = 0;
+		}
+
+		@Override
+		public Chunk call() throws IOException {
+			MappedByteBuffer buffer = this.channel.map(
+					FileChannel.MapMode.READ_ONLY, this.start, this.end
+							- this.start);
+			byte[] keyword = Writer.getKeywordAsLine(
+					GraphWriter.edgesListKeyword).getBytes(
+					StandardCharsets.UTF_8);
+			int limit = buffer.limit();
+			int pos = 0;
+			while (pos < limit) {
+				int line = pos;
+				if (!isDigit(buffer.get(pos))) {
+					// the only line of the lists without an index
+					if (this.edgesKeyword || this.edgeCount > 0
+							|| !matches(buffer, pos, keyword))
+						throw this.invalidLine(line);
+					pos = lineEnd(buffer, pos + keyword.length);
+					if (pos < 0)
+						throw this.invalidLine(line);
+					this.edgesKeyword = true;
+					continue;
+				}
+
+				// first index
+				long v1 = 0;
+				while (pos < limit && isDigit(buffer.get(pos))) {
+					v1 = v1 * 10 + (buffer.get(pos++) - '0');
+					if (v1 > Integer.MAX_VALUE)
+						throw new InvalidFormatException(
+								"node index out of range at offset "
+										+ (this.start + line));
+				}
+				int end = lineEnd(buffer, pos);
+				if (end >= 0) {
+					if (this.edgesKeyword || this.edgeCount > 0)
+						throw this.invalidLine(line);
+					this.addNode((int) v1);
+					pos = end;
+					continue;
+				}
+
+				// separator and second index
+				if (!matches(buffer, pos, this.separator)
+						|| pos + this.separator.length >= limit
+						|| !isDigit(buffer.get(pos + this.separator.length)))
+					throw this.invalidLine(line);
+				pos += this.separator.length;
+				long v2 = 0;
+				while (pos < limit && isDigit(buffer.get(pos))) {
+					v2 = v2 * 10 + (buffer.get(pos++) - '0');
+					if (v2 > Integer.MAX_VALUE)
+						throw new InvalidFormatException(
+								"node index out of range at offset "
+										+ (this.start + line));
+				}
+				pos = lineEnd(buffer, pos);
+				if (pos < 0)
+					throw this.invalidLine(line);
+				this.addEdge((int) v1, (int) v2);
+			}
+			this.channel = null;
+			return this;
+		}
+
+		private InvalidFormatException invalidLine(int pos) {
+			return new InvalidFormatException("invalid line at offset "
+					+ (this.start + pos));
+		}
+
+		private static boolean isDigit(byte b) {
+			return b >= '0' && b <= '9';
+		}
+
+		/**
+		 * @return true if the buffer contains the given bytes at the given
+		 *         position
+		 */
+		private static boolean matches(ByteBuffer buffer, int pos,
+				byte[] bytes) {
+			if (pos + bytes.length > buffer.limit())
+				return false;
+			for (int i = 0; i < bytes.length; i++) {
+				if (buffer.get(pos + i) != bytes[i])
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * @return position following the end of the line at the given
+		 *         position (\n, \r\n or the end of the chunk), -1 if the line
+		 *         does not end here
+		 */
+		private static int lineEnd(ByteBuffer buffer, int pos) {
+			int limit = buffer.limit();
+			if (pos == limit)
+				return pos;
+			if (buffer.get(pos) == '\n')
+				return pos + 1;
+			if (buffer.get(pos) == '\r' && pos + 1 < limit
+					&& buffer.get(pos + 1) == '\n')
+				return pos + 2;
+			return -1;
+		}
+
+		private void addNode(int index) {
+			if (this.nodeCount == this.nodes.length)
+				this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+			this.nodes[this.nodeCount++] = index;
+			this.maxNodeIndex = Math.max(this.maxNodeIndex, index);
+		}
+
+		private void addEdge(int src, int dst) {
+			if (2 * this.edgeCount + 1 >= this.edges.length)
+				this.edges = Arrays.copyOf(this.edges,
+						this.edges.length + (this.edges.length >> 1) + 2);
+			this.edges[2 * this.edgeCount] = src;
+			this.edges[2 * this.edgeCount + 1] = dst;
+			this.edgeCount++;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package dna.io;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import dna.graph.Graph;
@@ -13,40 +14,50 @@ public class EdgeListGraphReader {
 	public static Graph read(String dir, String filename, String separator,
 			GraphDataStructure gds) throws IOException {
 
+		// the file is read once, edges are stored as pairs of node indices
 		HashMap<String, Integer> mapping = new HashMap<String, Integer>();
 		int nodes = 0;
 		int edges = 0;
+		int[] pairs = new int[1024];
 		Reader reader = new Reader(dir, filename);
 		String line = null;
 		while ((line = reader.readString()) != null) {
 			String[] temp = line.split(separator);
-			if (!mapping.containsKey(temp[0])) {
-				mapping.put(temp[0], nodes++);
+			Integer src = mapping.get(temp[0]);
+			if (src == null) {
+				src = nodes++;
+				mapping.put(temp[0], src);
 			}
-			if (!mapping.containsKey(temp[1])) {
-				mapping.put(temp[1], nodes++);
+			Integer dst = mapping.get(temp[1]);
+			if (dst == null) {
+				dst = nodes++;
+				mapping.put(temp[1], dst);
 			}
+			if (2 * edges + 1 >= pairs.length)
+				pairs = Arrays.copyOf(pairs, pairs.length * 2);
+			pairs[2 * edges] = src;
+			pairs[2 * edges + 1] = dst;
 			edges++;
 		}
 		reader.close();
+		mapping = null;
 
 		Graph g = gds.newGraphInstance(filename, 0, nodes, edges);
+		Node[] byIndex = new Node[nodes];
 		for (int i = 0; i < nodes; i++) {
-			g.addNode(gds.newNodeInstance(i));
+			byIndex[i] = gds.newNodeInstance(i);
+			g.addNode(byIndex[i]);
 		}
 
-		reader = new Reader(dir, filename);
-		while ((line = reader.readString()) != null) {
-			String[] temp = line.split(separator);
-			Node src = g.getNode(mapping.get(temp[0]));
-			Node dst = g.getNode(mapping.get(temp[1]));
+		for (int i = 0; i < 2 * edges; i += 2) {
+			Node src = byIndex[pairs[i]];
+			Node dst = byIndex[pairs[i + 1]];
 			Edge e = gds.newEdgeInstance(src, dst);
 			g.addEdge(e);
 			src.addEdge(e);
 			dst.addEdge(e);
 		}
 
-		reader.close();
 		return g;
 	}
 
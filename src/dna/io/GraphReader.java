@@ -39,6 +39,13 @@ public class GraphReader {
 
 		Graph g = ds.newGraphInstance(name, timestamp, nodes, edges);
 
+		if (BulkGraphReader.isEnabled() && BulkGraphReader.isApplicable(ds)
+				&& BulkGraphReader.isApplicable(gdsString)) {
+			reader.close();
+			BulkGraphReader.readLists(dir, filename, g, ds, nodes);
+			return g;
+		}
+
 		reader.readKeyword(GraphWriter.nodesListKeyword);
 		String line = null;
 		while (!(line = reader.readString()).equals(Writer
@@ -0,0 +1,427 @@
+package dna.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.util.Config;
+
+/**
+ * Reader for text files that maps the whole file into memory
+ * (MappedByteBuffer) and parses numbers directly from the mapped bytes
+ * without creating a String for each line.<br>
+ *
+ * The file is read line by line: nextLine() moves to the beginning of the
+ * next line that is not a comment, the read methods parse the next field of
+ * the current line and skip the delimiter following it. Doubles are parsed
+ * directly in case their digits fit into 53 bits and their decimal exponent
+ * is at most 22 (the result is exact then), all other doubles are parsed via
+ * Double.parseDouble(..).<br>
+ *
+ * Memory mapping is only used for files of the default file system, i.e., it
+ * is disabled while reading from zip files (see ZipReader), and for files
+ * that fit into a single mapping (at most Integer.MAX_VALUE bytes). Whether
+ * it is used at all is configured via READ_MEMORY_MAPPED. The mapping is
+ * released by close() instead of waiting for the garbage collector so that
+ * reading many files does not hold their address space and the files can be
+ * deleted or overwritten afterwards (on Windows).
+ */
+public class MappedReader {
+
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** sun.misc.Unsafe and its invokeCleaner(ByteBuffer) (Java 9+) */
+	private static final Object UNSAFE;
+
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Java 7/8, the buffer's cleaner is used instead
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	/**
+	 * @return true if text files should be read via a MappedReader
+	 *         (READ_MEMORY_MAPPED and no read FileSystem set)
+	 */
+	public static boolean isEnabled() {
+		return ZipReader.readFileSystem == null
+				&& Config.getBoolean("READ_MEMORY_MAPPED");
+	}
+
+	/**
+	 * @return true if the given file should be read via a MappedReader, i.e.,
+	 *         reading memory mapped is enabled and the file is not too large
+	 *         to be mapped at once
+	 */
+	public static boolean isEnabled(String dir, String filename) {
+		return isEnabled()
+				&& new File(dir + filename).length() <= Integer.MAX_VALUE;
+	}
+
+	private MappedByteBuffer buffer;
+
+	private int limit;
+
+	private int pos;
+
+	private boolean inLine;
+
+	private byte[] commentPrefix;
+
+	public MappedReader(String dir, String filename) throws IOException {
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(Paths.get(dir + filename),
+					StandardOpenOption.READ);
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(dir + filename);
+		}
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("cannot map " + dir + filename + " ("
+						+ size + " bytes)");
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} finally {
+			channel.close();
+		}
+		this.limit = this.buffer.limit();
+		this.pos = 0;
+		this.inLine = false;
+		this.commentPrefix = Config.get("COMMENT_PREFIX").getBytes(
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Moves to the beginning of the next line that is not a comment.
+	 *
+	 * @return false in case the end of the file has been reached
+	 */
+	public boolean nextLine() {
+		if (this.inLine)
+			this.skipLine();
+		while (this.pos < this.limit && this.isComment())
+			this.skipLine();
+		this.inLine = this.pos < this.limit;
+		return this.inLine;
+	}
+
+	private void skipLine() {
+		while (this.pos < this.limit && this.buffer.get(this.pos) != '\n')
+			this.pos++;
+		if (this.pos < this.limit)
+			this.pos++;
+	}
+
+	private boolean isComment() {
+		if (this.commentPrefix.length == 0
+				|| this.pos + this.commentPrefix.length > this.limit)
+			return false;
+		for (int i = 0; i < this.commentPrefix.length; i++) {
+			if (this.buffer.get(this.pos + i) != this.commentPrefix[i])
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isLineEnd(int position) {
+		if (position >= this.limit)
+			return true;
+		byte b = this.buffer.get(position);
+		return b == '\n' || b == '\r';
+	}
+
+	/**
+	 * Skips the delimiter following a field (a single byte) unless the end of
+	 * the line has been reached.
+	 */
+	private void skipDelimiter() {
+		if (!this.isLineEnd(this.pos))
+			this.pos++;
+	}
+
+	private void requireField() throws InvalidFormatException {
+		if (!this.inLine || this.isLineEnd(this.pos))
+			throw new InvalidFormatException("expected field @ byte "
+					+ this.pos);
+	}
+
+	public int readInt() throws IOException {
+		long value = this.readLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw new NumberFormatException("int out of range: " + value);
+		return (int) value;
+	}
+
+	public long readLong() throws IOException {
+		this.requireField();
+		int start = this.pos;
+		boolean negative = false;
+		byte b = this.buffer.get(this.pos);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			this.pos++;
+		}
+		long value = 0;
+		int digits = 0;
+		while (this.pos < this.limit) {
+			b = this.buffer.get(this.pos);
+			if (b < '0' || b > '9')
+				break;
+			value = value * 10 + (b - '0');
+			digits++;
+			this.pos++;
+		}
+		if (digits == 0 || digits > 18
+				|| (!this.isLineEnd(this.pos) && !this.isDelimiter(this.pos)))
+			return Long.parseLong(this.fieldFrom(start));
+		this.skipDelimiter();
+		return negative ? -value : value;
+	}
+
+	public double readDouble() throws IOException {
+		this.requireField();
+		int start = this.pos;
+		boolean negative = false;
+		byte b = this.buffer.get(this.pos);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			this.pos++;
+		}
+
+		long mantissa = 0;
+		int significant = 0;
+		int exponent = 0;
+		boolean dot = false;
+		boolean digits = false;
+		while (this.pos < this.limit) {
+			b = this.buffer.get(this.pos);
+			if (b >= '0' && b <= '9') {
+				digits = true;
+				if (mantissa != 0 || b != '0')
+					significant++;
+				mantissa = mantissa * 10 + (b - '0');
+				if (dot)
+					exponent--;
+			} else if (b == '.' && !dot) {
+				dot = true;
+			} else {
+				break;
+			}
+			this.pos++;
+			if (significant > 18)
+				return Double.parseDouble(this.fieldFrom(start));
+		}
+		if (!digits)
+			return Double.parseDouble(this.fieldFrom(start));
+		if (this.pos < this.limit
+				&& (this.buffer.get(this.pos) == 'E' || this.buffer
+						.get(this.pos) == 'e')) {
+			this.pos++;
+			boolean negativeExp = false;
+			if (this.pos < this.limit
+					&& (this.buffer.get(this.pos) == '-' || this.buffer
+							.get(this.pos) == '+')) {
+				negativeExp = this.buffer.get(this.pos) == '-';
+				this.pos++;
+			}
+			int exp = 0;
+			int expDigits = 0;
+			while (this.pos < this.limit && expDigits < 4) {
+				b = this.buffer.get(this.pos);
+				if (b < '0' || b > '9')
+					break;
+				exp = exp * 10 + (b - '0');
+				expDigits++;
+				this.pos++;
+			}
+			if (expDigits == 0 || expDigits == 4)
+				return Double.parseDouble(this.fieldFrom(start));
+			exponent += negativeExp ? -exp : exp;
+		}
+		if (!this.isLineEnd(this.pos) && !this.isDelimiter(this.pos))
+			return Double.parseDouble(this.fieldFrom(start));
+
+		// mantissa and 10^|exponent| are exact, so a single multiplication
+		// or division yields the correctly rounded result
+		double value;
+		if (mantissa > (1L << 53))
+			return Double.parseDouble(this.fieldFrom(start));
+		else if (mantissa == 0)
+			value = 0;
+		else if (exponent >= 0 && exponent < POWERS_OF_TEN.length)
+			value = mantissa * POWERS_OF_TEN[exponent];
+		else if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		else
+			return Double.parseDouble(this.fieldFrom(start));
+		this.skipDelimiter();
+		return negative ? -value : value;
+	}
+
+	private boolean isDelimiter(int position) {
+		byte b = this.buffer.get(position);
+		return b == '\t' || b == ' ' || b == '=' || b == ';' || b == ',';
+	}
+
+	/**
+	 * Returns the field starting at the given position as String (up to the
+	 * next tab or the end of the line) and skips its delimiter.
+	 */
+	private String fieldFrom(int start) {
+		this.pos = start;
+		while (!this.isLineEnd(this.pos) && this.buffer.get(this.pos) != '\t')
+			this.pos++;
+		String field = this.string(start, this.pos);
+		this.skipDelimiter();
+		return field;
+	}
+
+	private String string(int from, int to) {
+		byte[] bytes = new byte[to - from];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = this.buffer.get(from + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the current line up to the given delimiter (or the end of the
+	 * line) and skips the delimiter, e.g., the name of a value stored as
+	 * name=value.
+	 */
+	public String readString(char delimiter) throws IOException {
+		this.requireField();
+		int start = this.pos;
+		while (!this.isLineEnd(this.pos)
+				&& this.buffer.get(this.pos) != delimiter)
+			this.pos++;
+		String s = this.string(start, this.pos);
+		this.skipDelimiter();
+		return s;
+	}
+
+	private void readIndex(int expected) throws IOException {
+		int start = this.pos;
+		int index = this.readInt();
+		if (index != expected) {
+			this.pos = start;
+			throw new InvalidFormatException("expected index " + expected
+					+ " but found " + index + " @ \"" + this.readLine() + "\"");
+		}
+	}
+
+	private String readLine() {
+		int start = this.pos;
+		while (!this.isLineEnd(this.pos))
+			this.pos++;
+		return this.string(start, this.pos);
+	}
+
+	/**
+	 * Reads all remaining lines of the format index DELIMITER value, where the
+	 * indices are 0, 1, 2, ...
+	 */
+	public int[] readIndexedInts() throws IOException {
+		int[] values = new int[16];
+		int index = 0;
+		while (this.nextLine()) {
+			this.readIndex(index);
+			if (index == values.length)
+				values = Arrays.copyOf(values, values.length * 2);
+			values[index++] = this.readInt();
+		}
+		return Arrays.copyOf(values, index);
+	}
+
+	/**
+	 * Reads all remaining lines of the format index DELIMITER value, where the
+	 * indices are 0, 1, 2, ...
+	 */
+	public long[] readIndexedLongs() throws IOException {
+		long[] values = new long[16];
+		int index = 0;
+		while (this.nextLine()) {
+			this.readIndex(index);
+			if (index == values.length)
+				values = Arrays.copyOf(values, values.length * 2);
+			values[index++] = this.readLong();
+		}
+		return Arrays.copyOf(values, index);
+	}
+
+	/**
+	 * Reads all remaining lines of the format index DELIMITER value, where the
+	 * indices are 0, 1, 2, ...
+	 */
+	public double[] readIndexedDoubles() throws IOException {
+		double[] values = new double[16];
+		int index = 0;
+		while (this.nextLine()) {
+			this.readIndex(index);
+			if (index == values.length)
+				values = Arrays.copyOf(values, values.length * 2);
+			values[index++] = this.readDouble();
+		}
+		return Arrays.copyOf(values, index);
+	}
+
+	/**
+	 * Releases the mapping of the file. The reader must not be used
+	 * afterwards.
+	 */
+	public void close() {
+		if (this.buffer == null)
+			return;
+		unmap(this.buffer);
+		this.buffer = null;
+	}
+
+	/**
+	 * Unmaps the given buffer via sun.misc.Unsafe.invokeCleaner (Java 9+) or
+	 * the cleaner of the buffer (Java 7/8). In case neither is accessible, the
+	 * mapping is released by the garbage collector.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				return;
+			}
+			Method getCleaner = buffer.getClass().getMethod("cleaner");
+			getCleaner.setAccessible(true);
+			Object cleaner = getCleaner.invoke(buffer);
+			if (cleaner != null)
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// left to the garbage collector
+		}
+	}
+}
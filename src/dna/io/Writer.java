@@ -2,8 +2,9 @@ package dna.io;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 
 import dna.util.Config;
 
@@ -14,7 +15,25 @@ import dna.util.Config;
  * 
  */
 public class Writer {
+	/**
+	 * Whether files written by the current thread to the default file system
+	 * are synced to the storage device when they are closed.
+	 */
+	private static ThreadLocal<Boolean> syncOnClose = new ThreadLocal<Boolean>();
+
+	public static boolean isSyncOnClose() {
+		return syncOnClose.get() != null;
+	}
+
+	public static void setSyncOnClose(boolean sync) {
+		if (sync)
+			syncOnClose.set(Boolean.TRUE);
+		else
+			syncOnClose.remove();
+	}
+
 	protected BufferedWriter writer;
+	private FileOutputStream out;
 	private boolean fileExistedBefore;
 
 	public Writer(String dir, String filename) throws IOException {
@@ -28,7 +47,8 @@ public class Writer {
 		File f = new File(dir + filename);
 		fileExistedBefore = f.exists();
 
-		this.writer = new BufferedWriter(new FileWriter(f, append));
+		this.out = new FileOutputStream(f, append);
+		this.writer = new BufferedWriter(new OutputStreamWriter(this.out));
 	}
 
 	public void write(String line) throws IOException {
@@ -69,6 +89,10 @@ public class Writer {
 	}
 
 	public void close() throws IOException {
+		if (this.out != null && Writer.isSyncOnClose()) {
+			this.writer.flush();
+			this.out.getFD().sync();
+		}
 		this.writer.close();
 	}
 
@@ -85,16 +109,16 @@ public class Writer {
 	}
 
 	/**
-	 * Returns either a Writer or a ZipWriter. Depends if the static
-	 * BatchData.fs FileSystem is set or not. If it is set, a ZipWriter for the
+	 * Returns either a Writer or a ZipWriter. Depends if the write FileSystem
+	 * of the current thread is set or not. If it is set, a ZipWriter for the
 	 * FileSystem will be returned.
 	 */
 	public static Writer getWriter(String dir, String filename)
 			throws IOException {
-		if (ZipWriter.writeFileSystem == null)
+		if (ZipWriter.getWriteFileSystem() == null)
 			return new Writer(dir, filename);
 		else
-			return new ZipWriter(ZipWriter.writeFileSystem, dir,
+			return new ZipWriter(ZipWriter.getWriteFileSystem(), dir,
 					filename);
 	}
 }
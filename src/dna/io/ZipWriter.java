@@ -29,7 +29,24 @@ import dna.util.Log;
 public class ZipWriter extends Writer {
 
 	private FileSystem zipFile;
-	public static FileSystem writeFileSystem;
+
+	/**
+	 * The FileSystem all writers obtained via Writer.getWriter(..) write into.
+	 * It is kept per thread so that runs which are generated concurrently
+	 * each write into their own zip file.
+	 */
+	private static ThreadLocal<FileSystem> writeFileSystem = new ThreadLocal<FileSystem>();
+
+	public static FileSystem getWriteFileSystem() {
+		return writeFileSystem.get();
+	}
+
+	public static void setWriteFileSystem(FileSystem fs) {
+		if (fs == null)
+			writeFileSystem.remove();
+		else
+			writeFileSystem.set(fs);
+	}
 
 	private static FileSystem getFileSystem(URI uri, Map<String, ?> env)
 			throws IOException {
@@ -0,0 +1,288 @@
+package dna.metrics.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import dna.graph.CSRGraph;
+import dna.util.Config;
+
+/**
+ * Reusable breadth-first search on a CSR snapshot of a graph.<br>
+ *
+ * All arrays are allocated once per instance. Instead of clearing the visited
+ * marks before each search, every node is stamped with the epoch of the
+ * search that visited it; reset() starts a new epoch in O(1).<br>
+ *
+ * Nodes are addressed by their position in the CSRGraph. In case weak is set,
+ * edges are followed in both directions (only relevant for directed graphs),
+ * otherwise only outgoing edges are followed.<br>
+ *
+ * countDistances(..) executes a search from every node and can split the
+ * sources across several threads (METRICS_BFS_THREADS), each using its own
+ * instance, and merges their results.
+ */
+public class BreadthFirstSearch {
+
+	private static ForkJoinPool pool;
+
+	private static synchronized ForkJoinPool getPool(int parallelism) {
+		if (pool == null || pool.getParallelism() != parallelism) {
+			if (pool != null)
+				pool.shutdown();
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+
+	/**
+	 * @return number of threads configured via METRICS_BFS_THREADS, 0 refers
+	 *         to the number of available processors
+	 */
+	public static int getConfiguredParallelism() {
+		int threads = Config.getInt("METRICS_BFS_THREADS");
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		return threads;
+	}
+
+	private CSRGraph csr;
+
+	private boolean weak;
+
+	private int[] stamp;
+
+	private int epoch;
+
+	private int[] dist;
+
+	private int[] queue;
+
+	private int visited;
+
+	public BreadthFirstSearch(CSRGraph csr, boolean weak) {
+		this.csr = csr;
+		this.weak = weak && csr.isDirected();
+		this.stamp = new int[csr.getNodeCount()];
+		this.epoch = 0;
+		this.dist = new int[csr.getNodeCount()];
+		this.queue = new int[csr.getNodeCount()];
+		this.visited = 0;
+	}
+
+	/**
+	 * Marks all nodes as unvisited.
+	 */
+	public void reset() {
+		if (this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.stamp, 0);
+			this.epoch = 0;
+		}
+		this.epoch++;
+		this.visited = 0;
+	}
+
+	/**
+	 * Marks all nodes as unvisited and visits all nodes reachable from the
+	 * source.
+	 *
+	 * @param source
+	 *            position of the source node
+	 * @return number of visited nodes (including the source)
+	 */
+	public int run(int source) {
+		this.reset();
+		return this.search(source, null);
+	}
+
+	/**
+	 * Marks all nodes as unvisited and visits all nodes reachable from the
+	 * source. For each visited node except the source, counts[d] is
+	 * incremented where d is its distance from the source.
+	 *
+	 * @param source
+	 *            position of the source node
+	 * @param counts
+	 *            array of at least getNodeCount() elements
+	 * @return number of visited nodes (including the source)
+	 */
+	public int run(int source, long[] counts) {
+		this.reset();
+		return this.search(source, counts);
+	}
+
+	/**
+	 * Visits all nodes reachable from the source that have not been visited
+	 * since the last reset(). The newly visited nodes are appended to the
+	 * visiting order.
+	 *
+	 * @param source
+	 *            position of the source node
+	 * @return number of nodes visited by this search (including the source),
+	 *         0 in case the source has already been visited
+	 */
+	public int search(int source) {
+		return this.search(source, null);
+	}
+
+	private int search(int source, long[] counts) {
+		if (this.stamp[source] == this.epoch)
+			return 0;
+
+		int[] offsets = this.csr.getOffsets();
+		int[] targets = this.csr.getTargets();
+		int[] inOffsets = this.csr.getInOffsets();
+		int[] inTargets = this.csr.getInTargets();
+
+		int head = this.visited;
+		int tail = this.visited;
+		this.stamp[source] = this.epoch;
+		this.dist[source] = 0;
+		this.queue[tail++] = source;
+
+		while (head < tail) {
+			int current = this.queue[head++];
+			int d = this.dist[current] + 1;
+			for (int k = offsets[current]; k < offsets[current + 1]; k++) {
+				int next = targets[k];
+				if (this.stamp[next] != this.epoch) {
+					this.stamp[next] = this.epoch;
+					this.dist[next] = d;
+					this.queue[tail++] = next;
+					if (counts != null)
+						counts[d]++;
+				}
+			}
+			if (this.weak) {
+				for (int k = inOffsets[current]; k < inOffsets[current + 1]; k++) {
+					int next = inTargets[k];
+					if (this.stamp[next] != this.epoch) {
+						this.stamp[next] = this.epoch;
+						this.dist[next] = d;
+						this.queue[tail++] = next;
+						if (counts != null)
+							counts[d]++;
+					}
+				}
+			}
+		}
+
+		int count = tail - this.visited;
+		this.visited = tail;
+		return count;
+	}
+
+	/**
+	 * @param position
+	 *            position of a node
+	 * @return true, if the node has been visited since the last reset()
+	 */
+	public boolean isVisited(int position) {
+		return this.stamp[position] == this.epoch;
+	}
+
+	/**
+	 * @param position
+	 *            position of a node
+	 * @return distance of the node from the source of the search that visited
+	 *         it, -1 in case it has not been visited since the last reset()
+	 */
+	public int getDistance(int position) {
+		if (this.stamp[position] != this.epoch)
+			return -1;
+		return this.dist[position];
+	}
+
+	/**
+	 * @return number of nodes visited since the last reset()
+	 */
+	public int getVisitedCount() {
+		return this.visited;
+	}
+
+	/**
+	 * @param i
+	 *            0..getVisitedCount()-1
+	 * @return position of the i-th node visited since the last reset()
+	 */
+	public int getVisited(int i) {
+		return this.queue[i];
+	}
+
+	/**
+	 * Executes a search from every node of the graph and counts the number of
+	 * shortest paths of each length (counts[d] is the number of pairs with
+	 * distance d).
+	 *
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 * @param weak
+	 *            follow edges in both directions
+	 * @param threads
+	 *            number of threads to split the sources across
+	 * @return counts of all path lengths, of length getNodeCount()
+	 */
+	public static long[] countDistances(CSRGraph csr, boolean weak,
+			int threads) {
+		int nodes = csr.getNodeCount();
+		if (threads <= 1 || nodes < 2) {
+			return new SourceRange(csr, weak, 0, nodes, nodes).compute();
+		}
+		SourceRange all = new SourceRange(csr, weak, 0, nodes, Math.max(1,
+				nodes / (4 * threads)));
+		return getPool(threads).invoke(all);
+	}
+
+	/**
+	 * Executes the searches from a range of sources, splitting it into
+	 * subranges until their size is below the threshold.
+	 */
+	private static class SourceRange extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+
+		private CSRGraph csr;
+
+		private boolean weak;
+
+		private int from;
+
+		private int to;
+
+		private int threshold;
+
+		public SourceRange(CSRGraph csr, boolean weak, int from, int to,
+				int threshold) {
+			this.csr = csr;
+			this.weak = weak;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (this.to - this.from <= this.threshold) {
+				long[] counts = new long[this.csr.getNodeCount()];
+				BreadthFirstSearch bfs = new BreadthFirstSearch(this.csr,
+						this.weak);
+				for (int source = this.from; source < this.to; source++) {
+					bfs.run(source, counts);
+				}
+				return counts;
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			SourceRange left = new SourceRange(this.csr, this.weak, this.from,
+					middle, this.threshold);
+			SourceRange right = new SourceRange(this.csr, this.weak, middle,
+					this.to, this.threshold);
+			left.fork();
+			long[] counts = right.compute();
+			long[] other = left.join();
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += other[i];
+			}
+			return counts;
+		}
+	}
+}
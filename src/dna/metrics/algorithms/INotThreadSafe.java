@@ -0,0 +1,13 @@
+package dna.metrics.algorithms;
+
+import dna.metrics.IMetric;
+
+/**
+ * Marks a metric that must not be executed concurrently with other metrics,
+ * e.g., because it modifies the graph or shares state with other instances.
+ * The MetricScheduler executes such metrics one after the other on the thread
+ * that generates the batch.
+ */
+public interface INotThreadSafe extends IMetric {
+
+}
@@ -0,0 +1,207 @@
+package dna.metrics.algorithms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.metrics.IMetric;
+import dna.profiler.Profiler;
+import dna.updates.batch.Batch;
+import dna.util.Config;
+import dna.util.Log;
+import dna.util.Rand;
+import dna.util.RandomStream;
+import dna.util.Timer;
+
+/**
+ * Executes the read-only phases of all metrics after a batch has been applied
+ * to the graph, i.e., applyAfterBatch(..) and recompute().<br>
+ *
+ * The phases of a single metric depend on each other and are always executed
+ * in that order. The metrics themselves are independent of each other and are
+ * executed concurrently on a fork/join pool. Metrics implementing
+ * INotThreadSafe are executed sequentially on the calling thread.<br>
+ *
+ * The runtime of each metric is recorded and can be obtained via getTimers().
+ * Each metric draws random numbers from its own stream derived from the
+ * stream of the calling thread (see Rand.derive(..)), so the results do not
+ * depend on the order or the threads the metrics are executed on.
+ */
+public class MetricScheduler {
+
+	private static ForkJoinPool pool;
+
+	private static synchronized ForkJoinPool getPool(int parallelism) {
+		if (pool == null || pool.getParallelism() != parallelism) {
+			if (pool != null)
+				pool.shutdown();
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+
+	/**
+	 * @return number of threads configured via GENERATION_METRIC_THREADS, 0
+	 *         refers to the number of available processors
+	 */
+	public static int getConfiguredParallelism() {
+		int threads = Config.getInt("GENERATION_METRIC_THREADS");
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		return threads;
+	}
+
+	private LinkedHashMap<IMetric, MetricTask> tasks;
+
+	private HashMap<String, Timer> timers;
+
+	private int parallelism;
+
+	public MetricScheduler(Algorithms algorithms) {
+		this(algorithms, MetricScheduler.getConfiguredParallelism());
+	}
+
+	public MetricScheduler(Algorithms algorithms, int parallelism) {
+		this.parallelism = parallelism;
+		this.tasks = new LinkedHashMap<IMetric, MetricTask>();
+		for (IAfterBatch m : algorithms.afterBatch) {
+			this.getTask(m).afterBatch = m;
+		}
+		for (IRecomputation m : algorithms.recomputation) {
+			this.getTask(m).recomputation = m;
+		}
+		this.timers = new HashMap<String, Timer>();
+	}
+
+	private MetricTask getTask(IMetric m) {
+		MetricTask t = this.tasks.get(m);
+		if (t == null) {
+			t = new MetricTask(m);
+			this.tasks.put(m, t);
+		}
+		return t;
+	}
+
+	/**
+	 * Executes applyAfterBatch(b) and recompute() of all metrics.
+	 *
+	 * @param g
+	 *            graph the batch has been applied to
+	 * @param b
+	 *            batch that has been applied
+	 */
+	public void execute(Graph g, Batch b) {
+		this.timers.clear();
+
+		ArrayList<MetricTask> concurrent = new ArrayList<MetricTask>();
+		ArrayList<MetricTask> sequential = new ArrayList<MetricTask>();
+		boolean parallel = this.isParallel();
+		RandomStream random = Rand.getStream();
+		for (MetricTask t : this.tasks.values()) {
+			// allow the task to be executed again for this batch
+			t.reinitialize();
+			t.timer = null;
+			t.batch = b;
+			t.gds = g == null ? null : g.getGraphDatastructures();
+			t.random = random.derive(t.metric.getDescription() + "@"
+					+ (b == null ? 0 : b.getTo()));
+			if (parallel && !(t.metric instanceof INotThreadSafe))
+				concurrent.add(t);
+			else
+				sequential.add(t);
+		}
+
+		if (concurrent.size() > 0) {
+			final MetricTask[] all = concurrent
+					.toArray(new MetricTask[concurrent.size()]);
+			getPool(this.parallelism).invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					RecursiveAction.invokeAll(all);
+				}
+			});
+		}
+		for (MetricTask t : sequential) {
+			t.compute();
+		}
+
+		for (MetricTask t : this.tasks.values()) {
+			t.batch = null;
+			if (t.timer != null)
+				this.timers.put(t.timer.getName(), t.timer);
+		}
+	}
+
+	/**
+	 * Metrics are only executed concurrently in case more than one thread is
+	 * configured, there are at least two metrics and the profiler is inactive
+	 * (it counts all accesses in global state).
+	 *
+	 * @return true if metrics are executed concurrently
+	 */
+	public boolean isParallel() {
+		return this.parallelism > 1 && this.tasks.size() > 1
+				&& !Profiler.isActive();
+	}
+
+	/**
+	 * @return the timers of all metrics executed by the last call of
+	 *         execute(..), keyed by metric name
+	 */
+	public HashMap<String, Timer> getTimers() {
+		return this.timers;
+	}
+
+	private static class MetricTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private IMetric metric;
+
+		private IAfterBatch afterBatch;
+
+		private IRecomputation recomputation;
+
+		private Batch batch;
+
+		private GraphDataStructure gds;
+
+		private RandomStream random;
+
+		private Timer timer;
+
+		public MetricTask(IMetric metric) {
+			this.metric = metric;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.gds != null)
+				GraphDataStructure.setCurrent(this.gds);
+			RandomStream previous = Rand.getStream();
+			Rand.setStream(this.random);
+			try {
+				Timer t = new Timer(this.metric.getName());
+				if (this.afterBatch != null
+						&& !this.afterBatch.applyAfterBatch(this.batch)) {
+					Log.error("could not apply after batch to metric "
+							+ this.metric.getDescription());
+				}
+				if (this.recomputation != null
+						&& !this.recomputation.recompute()) {
+					Log.error("could not recompute metric "
+							+ this.metric.getDescription());
+				}
+				t.end();
+				this.timer = t;
+			} finally {
+				Rand.setStream(previous);
+			}
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package dna.metrics.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Union-find (disjoint sets) of node indices based on int arrays, using path
+ * compression and union by size.<br>
+ *
+ * Each node index is mapped to an element of the forest. In addition to
+ * add(..) and union(..), nodes can be removed and a part of a set can be
+ * split off into a new set (split(..)): the elements of the affected nodes
+ * stay in the forest as dead elements, so that the paths of the remaining
+ * nodes are not broken, and the nodes get new elements. Dead elements are
+ * dropped once they make up more than half of the forest.<br>
+ *
+ * Sets are identified by an id that stays the same until the set is merged
+ * into another one (see getSet(..)). Ids are never reused.
+ */
+public class UnionFind {
+
+	/** element of each node index, -1 if the node is not contained */
+	private int[] element;
+
+	/** parent of each element, roots are their own parent */
+	private int[] parent;
+
+	/** number of (live) nodes in the set of each root */
+	private int[] size;
+
+	/** id of the set of each root */
+	private int[] id;
+
+	private int elements;
+
+	private int nodes;
+
+	private int sets;
+
+	private int nextId;
+
+	public UnionFind(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.element = new int[capacity];
+		Arrays.fill(this.element, -1);
+		this.parent = new int[capacity];
+		this.size = new int[capacity];
+		this.id = new int[capacity];
+		this.elements = 0;
+		this.nodes = 0;
+		this.sets = 0;
+		this.nextId = 0;
+	}
+
+	/**
+	 * @return number of sets
+	 */
+	public int getSetCount() {
+		return this.sets;
+	}
+
+	/**
+	 * @return number of contained nodes
+	 */
+	public int getNodeCount() {
+		return this.nodes;
+	}
+
+	public boolean contains(int node) {
+		return node < this.element.length && this.element[node] >= 0;
+	}
+
+	/**
+	 * Adds the node as singleton set.
+	 *
+	 * @return id of the new set
+	 */
+	public int add(int node) {
+		if (node >= this.element.length) {
+			int length = this.element.length;
+			this.element = Arrays.copyOf(this.element,
+					Math.max(node + 1, length + (length >> 1) + 1));
+			Arrays.fill(this.element, length, this.element.length, -1);
+		}
+		this.element[node] = this.newElement();
+		this.nodes++;
+		this.sets++;
+		return this.id[this.element[node]];
+	}
+
+	private int newElement() {
+		if (this.elements == this.parent.length) {
+			int length = this.parent.length + (this.parent.length >> 1) + 1;
+			this.parent = Arrays.copyOf(this.parent, length);
+			this.size = Arrays.copyOf(this.size, length);
+			this.id = Arrays.copyOf(this.id, length);
+		}
+		int e = this.elements++;
+		this.parent[e] = e;
+		this.size[e] = 1;
+		this.id[e] = this.nextId++;
+		return e;
+	}
+
+	private int root(int e) {
+		int r = e;
+		while (this.parent[r] != r)
+			r = this.parent[r];
+		while (this.parent[e] != r) {
+			int next = this.parent[e];
+			this.parent[e] = r;
+			e = next;
+		}
+		return r;
+	}
+
+	/**
+	 * @return id of the set containing the node
+	 */
+	public int getSet(int node) {
+		return this.id[this.root(this.element[node])];
+	}
+
+	/**
+	 * @return number of nodes in the set containing the node
+	 */
+	public int getSize(int node) {
+		return this.size[this.root(this.element[node])];
+	}
+
+	/**
+	 * Merges the sets containing the two nodes, the id of the larger set is
+	 * kept.
+	 *
+	 * @return id of the merged set
+	 */
+	public int union(int node1, int node2) {
+		int r1 = this.root(this.element[node1]);
+		int r2 = this.root(this.element[node2]);
+		if (r1 == r2)
+			return this.id[r1];
+		if (this.size[r1] < this.size[r2]) {
+			int temp = r1;
+			r1 = r2;
+			r2 = temp;
+		}
+		this.parent[r2] = r1;
+		this.size[r1] += this.size[r2];
+		this.sets--;
+		return this.id[r1];
+	}
+
+	/**
+	 * Removes the node from its set.
+	 *
+	 * @return id of the set that contained the node
+	 */
+	public int remove(int node) {
+		int r = this.root(this.element[node]);
+		this.element[node] = -1;
+		this.size[r]--;
+		this.nodes--;
+		if (this.size[r] == 0)
+			this.sets--;
+		int set = this.id[r];
+		this.compactIfSparse();
+		return set;
+	}
+
+	/**
+	 * Moves the given nodes from their set into a new one. All nodes must be
+	 * contained in the same set and must not make up the whole set.
+	 *
+	 * @param nodes
+	 *            indices of the nodes to move
+	 * @param count
+	 *            number of nodes to move (the first count entries)
+	 * @return id of the new set
+	 */
+	public int split(int[] nodes, int count) {
+		int r = this.root(this.element[nodes[0]]);
+		this.size[r] -= count;
+		int newRoot = this.newElement();
+		this.element[nodes[0]] = newRoot;
+		for (int i = 1; i < count; i++) {
+			int e = this.newElement();
+			this.parent[e] = newRoot;
+			this.element[nodes[i]] = e;
+		}
+		this.size[newRoot] = count;
+		this.sets++;
+		int set = this.id[newRoot];
+		this.compactIfSparse();
+		return set;
+	}
+
+	/**
+	 * Rebuilds the forest without dead elements in case they make up more
+	 * than half of it. Set ids are kept.
+	 */
+	private void compactIfSparse() {
+		if (this.elements <= 2 * this.nodes + 16)
+			return;
+		int[] rootOf = new int[this.element.length];
+		for (int n = 0; n < this.element.length; n++) {
+			if (this.element[n] >= 0)
+				rootOf[n] = this.root(this.element[n]);
+		}
+		int[] oldSize = this.size;
+		int[] oldId = this.id;
+		int[] newRoot = new int[this.elements];
+		Arrays.fill(newRoot, -1);
+		this.parent = new int[Math.max(this.nodes, 1)];
+		this.size = new int[this.parent.length];
+		this.id = new int[this.parent.length];
+		this.elements = 0;
+		for (int n = 0; n < this.element.length; n++) {
+			if (this.element[n] < 0)
+				continue;
+			int r = rootOf[n];
+			int e = this.elements++;
+			if (newRoot[r] < 0) {
+				newRoot[r] = e;
+				this.size[e] = oldSize[r];
+				this.id[e] = oldId[r];
+			}
+			this.parent[e] = newRoot[r];
+			this.element[n] = e;
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package dna.metrics.centrality;
 
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import dna.graph.Graph;
@@ -137,7 +137,7 @@ public abstract class BetweennessCentrality extends Metric implements IMetric {
 		}
 	}
 
-	protected int sumSPFromHM(HashMap<Node, Integer> spc, Node n) {
+	protected int sumSPFromHM(Map<Node, Integer> spc, Node n) {
 		int sum = 0;
 		for (Entry<Node, Integer> e : spc.entrySet()) {
 			if (!e.getKey().equals(n)) {
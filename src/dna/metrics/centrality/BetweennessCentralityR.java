@@ -1,11 +1,13 @@
 package dna.metrics.centrality;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Stack;
 
+import dna.graph.CSRGraph;
 import dna.graph.IElement;
 import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.UndirectedEdge;
@@ -32,6 +34,11 @@ public class BetweennessCentralityR extends BetweennessCentrality implements
 		this.bCSum = 0d;
 		this.sumShortestPaths = 0;
 
+		if (CSRGraph.isEnabled()) {
+			this.compute(this.g.getCSR());
+			return true;
+		}
+
 		Queue<Node> q = new LinkedList<Node>();
 		Stack<Node> s = new Stack<Node>();
 
@@ -126,4 +133,78 @@ public class BetweennessCentralityR extends BetweennessCentrality implements
 		return true;
 	}
 
+	/**
+	 * Computes the betweenness centrality of all nodes on the CSR snapshot of
+	 * the graph. Instead of storing the predecessors of each node, they are
+	 * determined in stage 3 as the incoming neighbors with a distance that is
+	 * smaller by one.
+	 * 
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 */
+	protected void compute(CSRGraph csr) {
+		int nodes = csr.getNodeCount();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] inOffsets = csr.getInOffsets();
+		int[] inTargets = csr.getInTargets();
+
+		int[] d = new int[nodes];
+		int[] spc = new int[nodes];
+		double[] sums = new double[nodes];
+		// nodes in the order they are visited, used as queue and stack
+		int[] order = new int[nodes];
+
+		for (int n = 0; n < nodes; n++) {
+			// stage ONE
+			Arrays.fill(d, Integer.MAX_VALUE);
+			Arrays.fill(spc, 0);
+			Arrays.fill(sums, 0d);
+			d[n] = 0;
+			spc[n] = 1;
+
+			// stage 2
+			order[0] = n;
+			int head = 0;
+			int tail = 1;
+			while (head < tail) {
+				int v = order[head++];
+				for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+					int w = targets[k];
+					if (d[w] == Integer.MAX_VALUE) {
+						order[tail++] = w;
+						d[w] = d[v] + 1;
+					}
+					if (d[w] == d[v] + 1) {
+						spc[w] += spc[v];
+					}
+				}
+			}
+
+			// stage 3
+			for (int i = tail - 1; i >= 0; i--) {
+				int w = order[i];
+				for (int k = inOffsets[w]; k < inOffsets[w + 1]; k++) {
+					int parent = inTargets[k];
+					if (d[parent] != Integer.MAX_VALUE
+							&& d[parent] + 1 == d[w]) {
+						sums[parent] += spc[parent] * (1 + sums[w]) / spc[w];
+					}
+				}
+				if (w != n) {
+					int index = csr.getNodeIndex(w);
+					this.bCC.setValue(index, this.bCC.getValue(index)
+							+ sums[w]);
+					this.bCSum += sums[w] - 3;
+				}
+			}
+
+			for (int t = 0; t < nodes; t++) {
+				if (t != n) {
+					this.sumShortestPaths += spc[t];
+				}
+			}
+		}
+	}
+
 }
@@ -4,8 +4,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.Set;
 import java.util.Stack;
 
 import dna.graph.IElement;
@@ -34,13 +36,58 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 	HashMap<Node, Long> visited;
 	long counter;
 
-	protected HashMap<Node, HashMap<Node, HashSet<Node>>> parents;
-	protected HashMap<Node, HashMap<Node, Integer>> distances;
-	protected HashMap<Node, HashMap<Node, Integer>> spcs;
-	protected HashMap<Node, HashMap<Node, Double>> accSums;
+	protected HashMap<Node, Map<Node, Set<Node>>> parents;
+	protected HashMap<Node, Map<Node, Integer>> distances;
+	protected HashMap<Node, Map<Node, Integer>> spcs;
+	protected HashMap<Node, Map<Node, Double>> accSums;
+
+	/**
+	 * Backend used to store the state of each root (distances, shortest path
+	 * counts, accumulated sums and parents of all nodes).<br>
+	 *
+	 * HASH stores them in HashMaps of boxed values, DENSE in arrays indexed by
+	 * node index (see DenseNodeState) which requires much less memory per
+	 * entry and avoids boxing. Both yield the same results.
+	 */
+	public static enum StateType {
+		HASH, DENSE
+	}
+
+	protected StateType stateType;
+
+	protected DenseNodeState dense;
 
 	public BetweennessCentralityU() {
+		this(StateType.HASH);
+	}
+
+	public BetweennessCentralityU(StateType stateType) {
 		super("BetweennessCentralityU");
+		this.stateType = stateType;
+	}
+
+	protected Map<Node, Set<Node>> newParentRow() {
+		if (this.dense != null)
+			return this.dense.newParentRow();
+		return new HashMap<Node, Set<Node>>();
+	}
+
+	protected Map<Node, Integer> newIntRow() {
+		if (this.dense != null)
+			return this.dense.newIntRow();
+		return new HashMap<Node, Integer>();
+	}
+
+	protected Map<Node, Integer> copyIntRow(Map<Node, Integer> row) {
+		if (this.dense != null)
+			return this.dense.copyIntRow(row);
+		return new HashMap<Node, Integer>(row);
+	}
+
+	protected Map<Node, Double> newDoubleRow() {
+		if (this.dense != null)
+			return this.dense.newDoubleRow();
+		return new HashMap<Node, Double>();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -57,6 +104,13 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 		this.distances = new HashMap<>();
 		this.spcs = new HashMap<>();
 		this.accSums = new HashMap<>();
+		this.dense = null;
+		if (this.stateType == StateType.DENSE) {
+			this.dense = new DenseNodeState(this.g.getMaxNodeIndex() + 1);
+			for (IElement ie : g.getNodes()) {
+				this.dense.add((Node) ie);
+			}
+		}
 
 		int length = 1000;
 		qALevel = new LinkedList[length];
@@ -79,10 +133,10 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 			// stage ONE
 			s.clear();
 			q.clear();
-			HashMap<Node, HashSet<Node>> p = new HashMap<Node, HashSet<Node>>();
-			HashMap<Node, Integer> d = new HashMap<Node, Integer>();
-			HashMap<Node, Integer> spc = new HashMap<Node, Integer>();
-			HashMap<Node, Double> sums = new HashMap<Node, Double>();
+			Map<Node, Set<Node>> p = this.newParentRow();
+			Map<Node, Integer> d = this.newIntRow();
+			Map<Node, Integer> spc = this.newIntRow();
+			Map<Node, Double> sums = this.newDoubleRow();
 
 			for (IElement ieE : g.getNodes()) {
 				Node t = (Node) ieE;
@@ -170,7 +224,7 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 			accSums.put(n, sums);
 		}
 
-		for (Entry<Node, HashMap<Node, Integer>> e : spcs.entrySet()) {
+		for (Entry<Node, Map<Node, Integer>> e : spcs.entrySet()) {
 			sumShortestPaths += sumSPFromHM(e.getValue(), e.getKey());
 		}
 		return true;
@@ -188,8 +242,8 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 			for (IElement iE : g.getNodes()) {
 				DirectedNode root = (DirectedNode) iE;
 
-				HashMap<Node, Integer> d = distances.get(root);
-				HashMap<Node, HashSet<Node>> p = parents.get(root);
+				Map<Node, Integer> d = distances.get(root);
+				Map<Node, Set<Node>> p = parents.get(root);
 
 				if (!p.get(dst).contains(src)
 						|| d.get(src).equals(Integer.MAX_VALUE)
@@ -215,8 +269,8 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 			for (IElement iE : g.getNodes()) {
 				UndirectedNode root = (UndirectedNode) iE;
 
-				HashMap<Node, Integer> d = distances.get(root);
-				HashMap<Node, HashSet<Node>> p = parents.get(root);
+				Map<Node, Integer> d = distances.get(root);
+				Map<Node, Set<Node>> p = parents.get(root);
 
 				// Find the above Tree Element
 				if (d.get(n1) > d.get(n2)) {
@@ -244,7 +298,7 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 		}
 
 		sumShortestPaths = 0; // reinit necessary!
-		for (Entry<Node, HashMap<Node, Integer>> e : spcs.entrySet()) {
+		for (Entry<Node, Map<Node, Integer>> e : spcs.entrySet()) {
 			sumShortestPaths += sumSPFromHM(e.getValue(), e.getKey());
 		}
 
@@ -255,18 +309,18 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 
 		counter++;
 
-		HashMap<Node, Integer> d = distances.get(root);
-		HashMap<Node, HashSet<Node>> p = parents.get(root);
-		HashMap<Node, Double> oldSums = accSums.get(root);
-		HashMap<Node, Integer> oldSpc = spcs.get(root);
+		Map<Node, Integer> d = distances.get(root);
+		Map<Node, Set<Node>> p = parents.get(root);
+		Map<Node, Double> oldSums = accSums.get(root);
+		Map<Node, Integer> oldSpc = spcs.get(root);
 
 		// Queues and data structure for tree change
 		HashSet<Node> uncertain = new HashSet<Node>();
 
 		// data structure for Updates
-		HashMap<Node, Integer> newSpc = new HashMap<Node, Integer>(oldSpc);
+		Map<Node, Integer> newSpc = this.copyIntRow(oldSpc);
 		HashMap<Node, Double> newASums = new HashMap<Node, Double>();
-		HashMap<Node, HashSet<Node>> newParents = new HashMap<Node, HashSet<Node>>();
+		HashMap<Node, Set<Node>> newParents = new HashMap<Node, Set<Node>>();
 
 		// set data structure for dst Node
 		qLevel[d.get(dst)].add(dst);
@@ -489,17 +543,17 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 	private boolean removeEdgeManyToMany(Node root, Node src, Node dst) {
 		counter++;
 
-		HashMap<Node, Integer> d = distances.get(root);
-		HashMap<Node, HashSet<Node>> p = parents.get(root);
-		HashMap<Node, Double> oldSums = accSums.get(root);
-		HashMap<Node, Integer> oldSpc = spcs.get(root);
+		Map<Node, Integer> d = distances.get(root);
+		Map<Node, Set<Node>> p = parents.get(root);
+		Map<Node, Double> oldSums = accSums.get(root);
+		Map<Node, Integer> oldSpc = spcs.get(root);
 
 		// Queue for BFS Search
 		Queue<Node> qBFS = new LinkedList<Node>();
 
 		// data structure for Updates
 		HashMap<Node, Integer> dP = new HashMap<Node, Integer>();
-		HashMap<Node, Integer> newSpc = new HashMap<Node, Integer>(oldSpc);
+		Map<Node, Integer> newSpc = this.copyIntRow(oldSpc);
 		HashMap<Node, Double> newASums = new HashMap<Node, Double>();
 
 		// setup changes for dst node
@@ -618,7 +672,7 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 
 			for (IElement iE : g.getNodes()) {
 				DirectedNode root = (DirectedNode) iE;
-				HashMap<Node, Integer> d = this.distances.get(root);
+				Map<Node, Integer> d = this.distances.get(root);
 
 				if (d.get(src).equals(Integer.MAX_VALUE)
 						|| d.get(src).equals(d.get(dst))
@@ -662,7 +716,7 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 			for (IElement iE : g.getNodes()) {
 				UndirectedNode root = (UndirectedNode) iE;
 
-				HashMap<Node, Integer> d = distances.get(root);
+				Map<Node, Integer> d = distances.get(root);
 
 				if (d.get(n1) > d.get(n2)) {
 					n2 = n1;
@@ -706,7 +760,7 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 		}
 
 		sumShortestPaths = 0; // reinit necessary!
-		for (Entry<Node, HashMap<Node, Integer>> e : spcs.entrySet()) {
+		for (Entry<Node, Map<Node, Integer>> e : spcs.entrySet()) {
 			sumShortestPaths += sumSPFromHM(e.getValue(), e.getKey());
 		}
 
@@ -717,18 +771,18 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 			DirectedNode dst) {
 		counter++;
 
-		HashMap<Node, Integer> d = distances.get(root);
-		HashMap<Node, HashSet<Node>> p = parents.get(root);
-		HashMap<Node, Double> oldSums = accSums.get(root);
-		HashMap<Node, Integer> oldSpc = spcs.get(root);
+		Map<Node, Integer> d = distances.get(root);
+		Map<Node, Set<Node>> p = parents.get(root);
+		Map<Node, Double> oldSums = accSums.get(root);
+		Map<Node, Integer> oldSpc = spcs.get(root);
 
 		// Data Structure for BFS Search
 		Queue<Node> qBFS = new LinkedList<Node>();
 
 		// data structure for Updates
-		HashMap<Node, Integer> newSpc = new HashMap<Node, Integer>(oldSpc);
+		Map<Node, Integer> newSpc = this.copyIntRow(oldSpc);
 		HashMap<Node, Double> newASums = new HashMap<Node, Double>();
-		HashMap<Node, HashSet<Node>> newParents = new HashMap<Node, HashSet<Node>>();
+		HashMap<Node, Set<Node>> newParents = new HashMap<Node, Set<Node>>();
 
 		// set Up data Structure for the lower node
 
@@ -863,16 +917,16 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 
 		counter++;
 
-		HashMap<Node, Integer> d = distances.get(root);
-		HashMap<Node, HashSet<Node>> p = parents.get(root);
-		HashMap<Node, Double> oldSums = accSums.get(root);
-		HashMap<Node, Integer> oldSpc = spcs.get(root);
+		Map<Node, Integer> d = distances.get(root);
+		Map<Node, Set<Node>> p = parents.get(root);
+		Map<Node, Double> oldSums = accSums.get(root);
+		Map<Node, Integer> oldSpc = spcs.get(root);
 
 		// Queue for the BFS search down the shortes Path tree
 		Queue<Node> qBFS = new LinkedList<Node>();
 
 		// data structure for Updates
-		HashMap<Node, Integer> newSpc = new HashMap<Node, Integer>(oldSpc);
+		Map<Node, Integer> newSpc = this.copyIntRow(oldSpc);
 		HashMap<Node, Double> newASums = new HashMap<Node, Double>();
 
 		// new TreeElement and the current Values for the Tree Position
@@ -949,18 +1003,18 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 
 		counter++;
 		// old values
-		HashMap<Node, Integer> d = distances.get(root);
-		HashMap<Node, HashSet<Node>> p = parents.get(root);
-		HashMap<Node, Double> oldSums = accSums.get(root);
-		HashMap<Node, Integer> oldSpc = spcs.get(root);
+		Map<Node, Integer> d = distances.get(root);
+		Map<Node, Set<Node>> p = parents.get(root);
+		Map<Node, Double> oldSums = accSums.get(root);
+		Map<Node, Integer> oldSpc = spcs.get(root);
 
 		// Data Structure for BFS Search
 		Queue<Node> qBFS = new LinkedList<Node>();
 
 		// data structure for Updates
-		HashMap<Node, Integer> newSpc = new HashMap<Node, Integer>(oldSpc);
+		Map<Node, Integer> newSpc = this.copyIntRow(oldSpc);
 		HashMap<Node, Double> newASums = new HashMap<Node, Double>();
-		HashMap<Node, HashSet<Node>> newParents = new HashMap<Node, HashSet<Node>>();
+		HashMap<Node, Set<Node>> newParents = new HashMap<Node, Set<Node>>();
 
 		// set Up data Structure for the lower node
 
@@ -1078,14 +1132,14 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 		counter++;
 
 		// old values
-		HashMap<Node, Integer> d = distances.get(root);
-		HashMap<Node, HashSet<Node>> p = parents.get(root);
-		HashMap<Node, Double> oldSums = accSums.get(root);
-		HashMap<Node, Integer> oldSpc = spcs.get(root);
+		Map<Node, Integer> d = distances.get(root);
+		Map<Node, Set<Node>> p = parents.get(root);
+		Map<Node, Double> oldSums = accSums.get(root);
+		Map<Node, Integer> oldSpc = spcs.get(root);
 
 		// data structure for Updates
 		HashMap<Node, Integer> dP = new HashMap<Node, Integer>();
-		HashMap<Node, Integer> newSpc = new HashMap<Node, Integer>(oldSpc);
+		Map<Node, Integer> newSpc = this.copyIntRow(oldSpc);
 		HashMap<Node, Double> newSums = new HashMap<Node, Double>();
 
 		// setup changes for dst node
@@ -1220,9 +1274,11 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 		this.accSums.remove(node);
 		this.parents.remove(node);
 		g.removeNode(node);
+		if (this.dense != null)
+			this.dense.remove(node);
 
 		sumShortestPaths = 0; // reinit necessary!
-		for (Entry<Node, HashMap<Node, Integer>> e : spcs.entrySet()) {
+		for (Entry<Node, Map<Node, Integer>> e : spcs.entrySet()) {
 			sumShortestPaths += sumSPFromHM(e.getValue(), e.getKey());
 		}
 
@@ -1233,10 +1289,12 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 	public boolean applyAfterUpdate(NodeAddition na) {
 
 		Node node = (Node) na.getNode();
-		HashMap<Node, HashSet<Node>> p = new HashMap<Node, HashSet<Node>>();
-		HashMap<Node, Integer> spc = new HashMap<Node, Integer>();
-		HashMap<Node, Integer> d = new HashMap<Node, Integer>();
-		HashMap<Node, Double> sums = new HashMap<Node, Double>();
+		if (this.dense != null)
+			this.dense.add(node);
+		Map<Node, Set<Node>> p = this.newParentRow();
+		Map<Node, Integer> spc = this.newIntRow();
+		Map<Node, Integer> d = this.newIntRow();
+		Map<Node, Double> sums = this.newDoubleRow();
 
 		for (IElement ieE : g.getNodes()) {
 			Node t = (Node) ieE;
@@ -1262,7 +1320,7 @@ public class BetweennessCentralityU extends BetweennessCentrality implements
 		visited.put(node, 0L);
 
 		sumShortestPaths = 0; // reinit necessary!
-		for (Entry<Node, HashMap<Node, Integer>> e : spcs.entrySet()) {
+		for (Entry<Node, Map<Node, Integer>> e : spcs.entrySet()) {
 			sumShortestPaths += sumSPFromHM(e.getValue(), e.getKey());
 		}
 
@@ -0,0 +1,360 @@
+package dna.metrics.centrality;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import dna.graph.nodes.Node;
+
+/**
+ * Dense per-root state for BetweennessCentralityU.<br>
+ *
+ * Instead of maps of boxed entries, each row (the distances, shortest path
+ * counts, accumulated sums or parents of all nodes with respect to a single
+ * root) is an array indexed by node index: int[] for distances and shortest
+ * path counts, double[] for accumulated sums and one int list per node for the
+ * parents. The rows are exposed as java.util.Map so that the update logic of
+ * BetweennessCentralityU works on both backends.<br>
+ *
+ * All rows share a registry of the nodes of the graph, which is used to map
+ * indices back to nodes when a row is iterated. The registry must be updated
+ * via add(Node) and remove(Node) when nodes are added or removed.
+ */
+public class DenseNodeState {
+
+	private Node[] nodes;
+
+	public DenseNodeState(int capacity) {
+		this.nodes = new Node[Math.max(capacity, 1)];
+	}
+
+	public void add(Node n) {
+		if (n.getIndex() >= this.nodes.length) {
+			this.nodes = Arrays.copyOf(this.nodes,
+					Math.max(n.getIndex() + 1, this.nodes.length * 2));
+		}
+		this.nodes[n.getIndex()] = n;
+	}
+
+	public void remove(Node n) {
+		if (n.getIndex() < this.nodes.length)
+			this.nodes[n.getIndex()] = null;
+	}
+
+	private static int grow(int length, int index) {
+		return Math.max(index + 1, length + (length >> 1) + 1);
+	}
+
+	/**
+	 * @return new empty row of int values (distances, shortest path counts)
+	 */
+	public Map<Node, Integer> newIntRow() {
+		return new IntRow(new int[this.nodes.length]);
+	}
+
+	/**
+	 * @param row
+	 *            row created by this state
+	 * @return copy of the given row
+	 */
+	public Map<Node, Integer> copyIntRow(Map<Node, Integer> row) {
+		IntRow r = (IntRow) row;
+		return new IntRow(Arrays.copyOf(r.values, r.values.length));
+	}
+
+	/**
+	 * @return new empty row of double values (accumulated sums)
+	 */
+	public Map<Node, Double> newDoubleRow() {
+		return new DoubleRow(new double[this.nodes.length]);
+	}
+
+	/**
+	 * @return new empty row of parent sets
+	 */
+	public Map<Node, Set<Node>> newParentRow() {
+		return new ParentRow(new int[this.nodes.length][]);
+	}
+
+	/**
+	 * Row of values indexed by node index. A node is contained in the row if
+	 * it is registered and a value has been stored for its index.
+	 */
+	private abstract class Row<V> extends AbstractMap<Node, V> {
+
+		protected abstract int length();
+
+		protected abstract V getAt(int index);
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof Node
+					&& ((Node) key).getIndex() < this.length();
+		}
+
+		@Override
+		public V get(Object key) {
+			int index = ((Node) key).getIndex();
+			if (index >= this.length())
+				return null;
+			return this.getAt(index);
+		}
+
+		@Override
+		public Set<Map.Entry<Node, V>> entrySet() {
+			return new AbstractSet<Map.Entry<Node, V>>() {
+				@Override
+				public Iterator<Map.Entry<Node, V>> iterator() {
+					return new Iterator<Map.Entry<Node, V>>() {
+						private int next = this.find(0);
+
+						private int find(int from) {
+							int max = Math.min(Row.this.length(),
+									DenseNodeState.this.nodes.length);
+							while (from < max
+									&& DenseNodeState.this.nodes[from] == null) {
+								from++;
+							}
+							return from < max ? from : -1;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return this.next >= 0;
+						}
+
+						@Override
+						public Map.Entry<Node, V> next() {
+							if (this.next < 0)
+								throw new NoSuchElementException();
+							int index = this.next;
+							this.next = this.find(index + 1);
+							return new AbstractMap.SimpleImmutableEntry<Node, V>(
+									DenseNodeState.this.nodes[index],
+									Row.this.getAt(index));
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					int size = 0;
+					for (Iterator<Map.Entry<Node, V>> iter = this.iterator(); iter
+							.hasNext(); iter.next()) {
+						size++;
+					}
+					return size;
+				}
+			};
+		}
+	}
+
+	private class IntRow extends Row<Integer> {
+		private int[] values;
+
+		private IntRow(int[] values) {
+			this.values = values;
+		}
+
+		@Override
+		protected int length() {
+			return this.values.length;
+		}
+
+		@Override
+		protected Integer getAt(int index) {
+			return this.values[index];
+		}
+
+		@Override
+		public Integer put(Node key, Integer value) {
+			int index = key.getIndex();
+			if (index >= this.values.length)
+				this.values = Arrays.copyOf(this.values,
+						grow(this.values.length, index));
+			this.values[index] = value;
+			return null;
+		}
+	}
+
+	private class DoubleRow extends Row<Double> {
+		private double[] values;
+
+		private DoubleRow(double[] values) {
+			this.values = values;
+		}
+
+		@Override
+		protected int length() {
+			return this.values.length;
+		}
+
+		@Override
+		protected Double getAt(int index) {
+			return this.values[index];
+		}
+
+		@Override
+		public Double put(Node key, Double value) {
+			int index = key.getIndex();
+			if (index >= this.values.length)
+				this.values = Arrays.copyOf(this.values,
+						grow(this.values.length, index));
+			this.values[index] = value;
+			return null;
+		}
+	}
+
+	/**
+	 * Row of parent sets. The parents of each node are stored as int list of
+	 * node indices (the first element holds the size), empty sets are null.
+	 */
+	private class ParentRow extends Row<Set<Node>> {
+		private int[][] lists;
+
+		private ParentRow(int[][] lists) {
+			this.lists = lists;
+		}
+
+		@Override
+		protected int length() {
+			return this.lists.length;
+		}
+
+		@Override
+		protected Set<Node> getAt(int index) {
+			return new ParentSet(this, index);
+		}
+
+		@Override
+		public Set<Node> put(Node key, Set<Node> value) {
+			int index = key.getIndex();
+			if (value instanceof ParentSet
+					&& ((ParentSet) value).row == this
+					&& ((ParentSet) value).index == index) {
+				return null;
+			}
+			if (index >= this.lists.length)
+				this.lists = Arrays.copyOf(this.lists,
+						grow(this.lists.length, index));
+			int[] list = null;
+			if (!value.isEmpty()) {
+				list = new int[value.size() + 1];
+				for (Node n : value) {
+					list[++list[0]] = n.getIndex();
+				}
+			}
+			this.lists[index] = list;
+			return null;
+		}
+	}
+
+	/**
+	 * Live view of the parents of a single node.
+	 */
+	private class ParentSet extends AbstractSet<Node> {
+		private ParentRow row;
+
+		private int index;
+
+		private ParentSet(ParentRow row, int index) {
+			this.row = row;
+			this.index = index;
+		}
+
+		private int[] list() {
+			return this.row.lists[this.index];
+		}
+
+		private int indexOf(int nodeIndex) {
+			int[] list = this.list();
+			if (list == null)
+				return -1;
+			for (int i = 1; i <= list[0]; i++) {
+				if (list[i] == nodeIndex)
+					return i;
+			}
+			return -1;
+		}
+
+		@Override
+		public int size() {
+			int[] list = this.list();
+			return list == null ? 0 : list[0];
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Node && this.indexOf(((Node) o).getIndex()) > 0;
+		}
+
+		@Override
+		public boolean add(Node n) {
+			if (this.indexOf(n.getIndex()) > 0)
+				return false;
+			int[] list = this.list();
+			if (list == null) {
+				list = new int[3];
+			} else if (list[0] + 1 == list.length) {
+				list = Arrays.copyOf(list, list.length * 2);
+			}
+			list[++list[0]] = n.getIndex();
+			this.row.lists[this.index] = list;
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Node))
+				return false;
+			int i = this.indexOf(((Node) o).getIndex());
+			if (i < 0)
+				return false;
+			int[] list = this.list();
+			list[i] = list[list[0]];
+			list[0]--;
+			if (list[0] == 0)
+				this.row.lists[this.index] = null;
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			this.row.lists[this.index] = null;
+		}
+
+		@Override
+		public Iterator<Node> iterator() {
+			return new Iterator<Node>() {
+				private int next = 1;
+
+				@Override
+				public boolean hasNext() {
+					int[] list = ParentSet.this.list();
+					return list != null && this.next <= list[0];
+				}
+
+				@Override
+				public Node next() {
+					if (!this.hasNext())
+						throw new NoSuchElementException();
+					return DenseNodeState.this.nodes[ParentSet.this.list()[this.next++]];
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package dna.metrics.clustering;
 
+import dna.graph.CSRGraph;
 import dna.graph.Graph;
 import dna.graph.IElement;
 import dna.graph.nodes.DirectedNode;
@@ -79,4 +80,68 @@ public abstract class DirectedClusteringCoefficient extends
 		return true;
 	}
 
+	/**
+	 * Computes the clustering coefficients on the CSR snapshot of the graph,
+	 * considering all nodes connected in both directions as neighbors.
+	 * 
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 * @return true, if the computation was successful
+	 */
+	protected boolean compute(CSRGraph csr) {
+		this.globalCC = 0;
+		this.averageCC = 0;
+		this.localCC = new NodeValueList("localCC",
+				this.g.getMaxNodeIndex() + 1);
+		this.triangleCount = 0;
+		this.potentialCount = 0;
+		this.nodeTriangleCount = ArrayUtils.init(g.getMaxNodeIndex() + 1,
+				Long.MIN_VALUE);
+		this.nodePotentialCount = ArrayUtils.init(g.getMaxNodeIndex() + 1,
+				Long.MIN_VALUE);
+
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] neighbors = new int[targets.length];
+
+		for (int n = 0; n < csr.getNodeCount(); n++) {
+			int index = csr.getNodeIndex(n);
+			// a self-loop does not make n its own neighbor
+			int count = ArrayUtils.remove(neighbors, 0,
+					csr.getMutualNeighbors(n, neighbors, 0), n);
+			long triangles = 0;
+			for (int i = 0; i < count; i++) {
+				int u = neighbors[i];
+				// edges from u to the other neighbors of n (without u itself
+				// in case u has a self-loop)
+				triangles += ArrayUtils.countIntersection(neighbors, 0, count,
+						targets, offsets[u], offsets[u + 1]);
+				if (csr.hasEdge(u, u)) {
+					triangles--;
+				}
+			}
+			this.nodeTriangleCount[index] = triangles;
+			this.nodePotentialCount[index] = (long) count * (count - 1);
+			this.triangleCount += this.nodeTriangleCount[index];
+			this.potentialCount += this.nodePotentialCount[index];
+			if (this.nodePotentialCount[index] == 0) {
+				this.localCC.setValue(index, 0);
+			} else {
+				this.localCC.setValue(index,
+						(double) this.nodeTriangleCount[index]
+								/ (double) this.nodePotentialCount[index]);
+			}
+		}
+
+		if (this.potentialCount == 0) {
+			this.globalCC = 0;
+		} else {
+			this.globalCC = (double) this.triangleCount
+					/ (double) this.potentialCount;
+		}
+		this.averageCC = ArrayUtils.avgIgnoreNaN(this.localCC.getValues());
+
+		return true;
+	}
+
 }
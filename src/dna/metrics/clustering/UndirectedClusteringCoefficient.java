@@ -1,5 +1,6 @@
 package dna.metrics.clustering;
 
+import dna.graph.CSRGraph;
 import dna.graph.Graph;
 import dna.graph.IElement;
 import dna.graph.edges.UndirectedEdge;
@@ -47,6 +48,57 @@ public abstract class UndirectedClusteringCoefficient extends
 		return false;
 	}
 
+	/**
+	 * Computes the clustering coefficients on the CSR snapshot of the graph.
+	 * For directed graphs, only nodes connected in both directions are
+	 * considered as neighbors (as done by compute()).
+	 * 
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 * @return true, if the computation was successful
+	 */
+	protected boolean compute(CSRGraph csr) {
+		this.globalCC = 0;
+		this.averageCC = 0;
+		this.localCC = new NodeValueList("localCC",
+				this.g.getMaxNodeIndex() + 1);
+		this.triangleCount = 0;
+		this.potentialCount = 0;
+		this.nodeTriangleCount = ArrayUtils.init(g.getMaxNodeIndex() + 1,
+				Long.MIN_VALUE);
+		this.nodePotentialCount = ArrayUtils.init(g.getMaxNodeIndex() + 1,
+				Long.MIN_VALUE);
+
+		// lists of all neighbors (nodes connected in both directions for
+		// directed graphs), a self-loop does not make a node its own neighbor
+		int[] offsets = new int[csr.getNodeCount() + 1];
+		int[] targets = new int[csr.getTargets().length];
+		for (int a = 0; a < csr.getNodeCount(); a++) {
+			offsets[a + 1] = offsets[a]
+					+ ArrayUtils.remove(targets, offsets[a],
+							csr.getMutualNeighbors(a, targets, offsets[a]), a);
+		}
+
+		for (int a = 0; a < csr.getNodeCount(); a++) {
+			int index = csr.getNodeIndex(a);
+			long degree = offsets[a + 1] - offsets[a];
+			long triangles = 0;
+			for (int k = offsets[a]; k < offsets[a + 1]; k++) {
+				int b = targets[k];
+				triangles += ArrayUtils.countIntersection(targets, offsets[a],
+						offsets[a + 1], targets, offsets[b], offsets[b + 1]);
+			}
+			this.nodeTriangleCount[index] = triangles / 2;
+			this.nodePotentialCount[index] = degree * (degree - 1) / 2;
+
+			this.update(index);
+		}
+
+		this.update();
+
+		return true;
+	}
+
 	private boolean computeUndirected() {
 
 		for (IElement aUncasted : g.getNodes()) {
@@ -57,10 +109,14 @@ public abstract class UndirectedClusteringCoefficient extends
 			for (IElement e1Uncasted : a.getEdges()) {
 				UndirectedEdge e1 = (UndirectedEdge) e1Uncasted;
 				UndirectedNode b = (UndirectedNode) e1.getDifferingNode(a);
+				if (b.equals(a)) {
+					// a self-loop does not make a its own neighbor
+					continue;
+				}
 				for (IElement e2Uncasted : a.getEdges()) {
 					UndirectedEdge e2 = (UndirectedEdge) e2Uncasted;
 					UndirectedNode c = (UndirectedNode) e2.getDifferingNode(a);
-					if (b.equals(c)) {
+					if (b.equals(c) || c.equals(a)) {
 						continue;
 					}
 					this.nodePotentialCount[a.getIndex()]++;
@@ -1,5 +1,6 @@
 package dna.metrics.clustering;
 
+import dna.graph.CSRGraph;
 import dna.metrics.algorithms.IRecomputation;
 
 public class UndirectedClusteringCoefficientR extends
@@ -11,6 +12,9 @@ public class UndirectedClusteringCoefficientR extends
 
 	@Override
 	public boolean recompute() {
+		if (CSRGraph.isEnabled()) {
+			return this.compute(this.g.getCSR());
+		}
 		return this.compute();
 	}
 
@@ -4,12 +4,14 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Queue;
 
+import dna.graph.CSRGraph;
 import dna.graph.Graph;
 import dna.graph.IElement;
 import dna.graph.edges.Edge;
 import dna.graph.nodes.Node;
 import dna.metrics.IMetric;
 import dna.metrics.Metric;
+import dna.metrics.algorithms.BreadthFirstSearch;
 import dna.series.data.Distribution;
 import dna.series.data.NodeNodeValueList;
 import dna.series.data.NodeValueList;
@@ -124,7 +126,7 @@ public abstract class WeakConnectivity extends Metric {
 		HashMap<Integer, Integer> check = new HashMap<>();
 		for (IElement node : g.getNodes()) {
 			Node n = (Node) node;
-			int id1 = this.nodeComponentMembership.get(n);
+			int id1 = this.lookUp(n);
 			int id2 = cc.lookUp(n);
 			int size1 = this.componentList.get(id1).getSize();
 			int size2 = cc.componentList.get(id2).getSize();
@@ -175,6 +177,49 @@ public abstract class WeakConnectivity extends Metric {
 		return true;
 	}
 
+	/**
+	 * Computes the weakly connected components on the CSR snapshot of the
+	 * graph. The components are numbered in the same order as by compute(),
+	 * parents are not recorded.
+	 * 
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 * @return true, if the computation was successful
+	 */
+	protected boolean compute(CSRGraph csr) {
+		this.nodeComponentMembership = new HashMap<Node, Integer>();
+		this.parents = new HashMap<Node, Node>();
+		this.visited = new boolean[this.g.getMaxNodeIndex() + 1];
+		this.componentList = new HashMap<Integer, WeakComponent>();
+		this.componentConnection = new HashMap<>();
+		this.counter = 0;
+
+		int[] membership = new int[csr.getNodeCount()];
+		BreadthFirstSearch bfs = new BreadthFirstSearch(csr, true);
+		bfs.reset();
+		for (int source = 0; source < csr.getNodeCount(); source++) {
+			int from = bfs.getVisitedCount();
+			int size = bfs.search(source);
+			if (size > 0) {
+				int comp = counter++;
+				WeakComponent root = new WeakComponent(comp);
+				root.setSize(size);
+				this.componentList.put(comp, root);
+				for (int i = from; i < from + size; i++) {
+					membership[bfs.getVisited(i)] = comp;
+				}
+			}
+		}
+
+		for (IElement ie : g.getNodes()) {
+			Node n = (Node) ie;
+			this.visited[n.getIndex()] = true;
+			this.nodeComponentMembership.put(n,
+					membership[csr.getPosition(n.getIndex())]);
+		}
+		return true;
+	}
+
 	protected void bfs(Node node) {
 		int comp = counter++;
 		Queue<Node> q = new LinkedList<Node>();
@@ -1,5 +1,6 @@
 package dna.metrics.connectivity;
 
+import dna.graph.CSRGraph;
 import dna.metrics.algorithms.IRecomputation;
 
 public class WeakConnectivityR extends WeakConnectivity implements
@@ -11,6 +12,9 @@ public class WeakConnectivityR extends WeakConnectivity implements
 
 	@Override
 	public boolean recompute() {
+		if (CSRGraph.isEnabled()) {
+			return this.compute(this.g.getCSR());
+		}
 		return this.compute();
 	}
 
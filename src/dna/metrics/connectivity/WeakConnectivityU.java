@@ -1,6 +1,9 @@
 package dna.metrics.connectivity;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -15,6 +18,7 @@ import dna.metrics.algorithms.IAfterEA;
 import dna.metrics.algorithms.IAfterER;
 import dna.metrics.algorithms.IAfterNA;
 import dna.metrics.algorithms.IAfterNR;
+import dna.metrics.algorithms.UnionFind;
 import dna.updates.update.EdgeAddition;
 import dna.updates.update.EdgeRemoval;
 import dna.updates.update.NodeAddition;
@@ -23,18 +27,125 @@ import dna.updates.update.NodeRemoval;
 public class WeakConnectivityU extends WeakConnectivity implements IAfterNA,
 		IAfterNR, IAfterEA, IAfterER {
 
+	/**
+	 * Backend used to track the components.<br>
+	 *
+	 * HASH maintains a spanning forest of each component in HashMaps of
+	 * nodes. UNION_FIND maintains the components in a UnionFind of node
+	 * indices and a set of the edges of a spanning forest: removing an edge
+	 * that is not part of the forest cannot split a component. In case a
+	 * forest edge is removed, both resulting trees are searched alternately
+	 * until the smaller one has been exhausted, which is then either
+	 * reconnected via a non-forest edge or split off into a new component.
+	 * Both yield the same components.
+	 */
+	public static enum StateType {
+		HASH, UNION_FIND
+	}
+
+	/** results of reconnect(..) */
+	private static final int SAME_TREE = 0;
+	private static final int MERGED = 1;
+	private static final int SPLIT = 2;
+
+	protected StateType stateType;
+
+	protected UnionFind uf;
+
+	protected HashSet<Edge> forest;
+
+	/** visited marks and visiting order of both sides of reconnect(..) */
+	private int[][] marks;
+	private Node[][] order;
+	private int epoch;
+
 	public WeakConnectivityU() {
+		this(StateType.HASH);
+	}
+
+	public WeakConnectivityU(StateType stateType) {
 		super("WeakConnectivityU");
+		this.stateType = stateType;
 	}
 
 	@Override
 	public boolean init() {
-		// TODO Auto-generated method stub
+		this.uf = null;
+		this.forest = null;
+		if (this.stateType == StateType.UNION_FIND) {
+			this.initUnionFind();
+			return true;
+		}
 		return this.compute();
 	}
 
+	/**
+	 * Computes the components via BFS, adding the edges of the BFS trees to
+	 * the forest. The component list is keyed by set id.
+	 */
+	private void initUnionFind() {
+		int max = this.g.getMaxNodeIndex() + 1;
+		this.uf = new UnionFind(max);
+		this.forest = new HashSet<Edge>();
+		this.componentList = new HashMap<Integer, WeakComponent>();
+		this.componentConnection = new HashMap<Integer, Integer>();
+		this.nodeComponentMembership = null;
+		this.parents = null;
+		this.visited = null;
+		this.marks = new int[2][max];
+		this.order = new Node[2][16];
+		this.epoch = 1;
+
+		for (IElement ie : this.g.getNodes()) {
+			this.uf.add(((Node) ie).getIndex());
+		}
+		for (IElement ie : this.g.getNodes()) {
+			Node n = (Node) ie;
+			if (this.marks[0][n.getIndex()] == this.epoch)
+				continue;
+			this.marks[0][n.getIndex()] = this.epoch;
+			this.order[0][0] = n;
+			int head = 0;
+			int tail = 1;
+			while (head < tail) {
+				Node current = this.order[0][head++];
+				for (IElement ie2 : current.getEdges()) {
+					Edge e = (Edge) ie2;
+					Node x = e.getDifferingNode(current);
+					if (this.marks[0][x.getIndex()] != this.epoch) {
+						this.marks[0][x.getIndex()] = this.epoch;
+						this.forest.add(e);
+						this.uf.union(current.getIndex(), x.getIndex());
+						if (tail == this.order[0].length)
+							this.order[0] = Arrays.copyOf(this.order[0],
+									tail * 2);
+						this.order[0][tail++] = x;
+					}
+				}
+			}
+			Arrays.fill(this.order[0], 0, tail, null);
+			int set = this.uf.getSet(n.getIndex());
+			WeakComponent c = new WeakComponent(set);
+			c.setSize(this.uf.getSize(n.getIndex()));
+			this.componentList.put(set, c);
+		}
+	}
+
+	@Override
+	protected int lookUp(Node n) {
+		if (this.uf != null)
+			return this.uf.getSet(n.getIndex());
+		return super.lookUp(n);
+	}
+
 	@Override
 	public boolean applyAfterUpdate(EdgeRemoval er) {
+		if (this.uf != null) {
+			Edge e = (Edge) er.getEdge();
+			if (this.forest.remove(e))
+				this.reconnect(e.getN1(), e.getN2());
+			return true;
+		}
 		Edge e = (Edge) er.getEdge();
 		Node n1;
 		Node n2;
@@ -63,6 +174,18 @@ public class WeakConnectivityU extends WeakConnectivity implements IAfterNA,
 	@Override
 	public boolean applyAfterUpdate(EdgeAddition ea) {
 		Edge e = (Edge) ea.getEdge();
+		if (this.uf != null) {
+			int s1 = this.uf.getSet(e.getN1Index());
+			int s2 = this.uf.getSet(e.getN2Index());
+			if (s1 != s2) {
+				int s = this.uf.union(e.getN1Index(), e.getN2Index());
+				this.forest.add(e);
+				this.componentList.remove(s == s1 ? s2 : s1);
+				this.componentList.get(s).setSize(
+						this.uf.getSize(e.getN1Index()));
+			}
+			return true;
+		}
 		Node n1;
 		Node n2;
 		if (DirectedNode.class.isAssignableFrom(this.g.getGraphDatastructures()
@@ -114,6 +237,39 @@ public class WeakConnectivityU extends WeakConnectivity implements IAfterNA,
 	@Override
 	public boolean applyAfterUpdate(NodeRemoval nr) {
 		Node n = (Node) nr.getNode();
+		if (this.uf != null) {
+			// the node still holds its edges, the trees of the forest that
+			// were connected via the node have to be reconnected
+			LinkedHashSet<Node> treeNeighbors = new LinkedHashSet<Node>();
+			for (IElement ie : n.getEdges()) {
+				Edge e = (Edge) ie;
+				if (this.forest.remove(e) && e.getDifferingNode(n) != n)
+					treeNeighbors.add(e.getDifferingNode(n));
+			}
+			int set = this.uf.remove(n.getIndex());
+			if (treeNeighbors.isEmpty()) {
+				this.componentList.remove(set);
+				return true;
+			}
+			this.componentList.get(set).decreaseSize(1);
+
+			// each tree neighbor is reconnected to the previous ones of the
+			// same component until it is in the same tree as one of them
+			Node[] nb = treeNeighbors.toArray(new Node[treeNeighbors.size()]);
+			for (int i = 1; i < nb.length; i++) {
+				for (int j = 0; j < i; j++) {
+					int result = MERGED;
+					while (result == MERGED
+							&& this.uf.getSet(nb[i].getIndex()) == this.uf
+									.getSet(nb[j].getIndex())) {
+						result = this.reconnect(nb[j], nb[i]);
+					}
+					if (result == SAME_TREE)
+						break;
+				}
+			}
+			return true;
+		}
 		g.addNode(n);
 		HashSet<Edge> bla = new HashSet<>();
 		for (IElement ie : n.getEdges()) {
@@ -134,6 +290,13 @@ public class WeakConnectivityU extends WeakConnectivity implements IAfterNA,
 	@Override
 	public boolean applyAfterUpdate(NodeAddition na) {
 		Node n = (Node) na.getNode();
+		if (this.uf != null) {
+			int set = this.uf.add(n.getIndex());
+			WeakComponent c = new WeakComponent(set);
+			c.setSize(1);
+			this.componentList.put(set, c);
+			return true;
+		}
 		counter++;
 		WeakComponent stn = new WeakComponent(counter);
 		stn.setSize(1);
@@ -142,6 +305,92 @@ public class WeakConnectivityU extends WeakConnectivity implements IAfterNA,
 		return true;
 	}
 
+	/**
+	 * Searches the trees of the forest containing the two nodes alternately,
+	 * always expanding the side that has visited fewer nodes, until both
+	 * sides meet or one side has been exhausted. In the latter case, the
+	 * exhausted tree is connected to another tree of its component via a
+	 * non-forest edge or, in case there is none, split off into a new
+	 * component.
+	 *
+	 * @return SAME_TREE, MERGED or SPLIT
+	 */
+	private int reconnect(Node n1, Node n2) {
+		int max = this.g.getMaxNodeIndex() + 1;
+		if (this.marks[0].length < max) {
+			this.marks[0] = Arrays.copyOf(this.marks[0], max);
+			this.marks[1] = Arrays.copyOf(this.marks[1], max);
+		}
+		if (this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.marks[0], 0);
+			Arrays.fill(this.marks[1], 0);
+			this.epoch = 0;
+		}
+		this.epoch++;
+
+		int[] head = new int[] { 0, 0 };
+		int[] tail = new int[] { 1, 1 };
+		this.order[0][0] = n1;
+		this.order[1][0] = n2;
+		this.marks[0][n1.getIndex()] = this.epoch;
+		this.marks[1][n2.getIndex()] = this.epoch;
+
+		int result = SPLIT;
+		int side = 0;
+		search: while (true) {
+			side = tail[0] <= tail[1] ? 0 : 1;
+			if (head[side] == tail[side])
+				break;
+			Node current = this.order[side][head[side]++];
+			for (IElement ie : current.getEdges()) {
+				Edge e = (Edge) ie;
+				if (!this.forest.contains(e))
+					continue;
+				Node x = e.getDifferingNode(current);
+				if (this.marks[1 - side][x.getIndex()] == this.epoch) {
+					result = SAME_TREE;
+					break search;
+				}
+				if (this.marks[side][x.getIndex()] != this.epoch) {
+					this.marks[side][x.getIndex()] = this.epoch;
+					if (tail[side] == this.order[side].length)
+						this.order[side] = Arrays.copyOf(this.order[side],
+								this.order[side].length * 2);
+					this.order[side][tail[side]++] = x;
+				}
+			}
+		}
+
+		// look for an edge leaving the exhausted tree
+		int count = tail[side];
+		for (int i = 0; result == SPLIT && i < count; i++) {
+			Node current = this.order[side][i];
+			for (IElement ie : current.getEdges()) {
+				Edge e = (Edge) ie;
+				if (this.marks[side][e.getDifferingNode(current).getIndex()] != this.epoch) {
+					this.forest.add(e);
+					result = MERGED;
+					break;
+				}
+			}
+		}
+
+		if (result == SPLIT) {
+			int[] indices = new int[count];
+			for (int i = 0; i < count; i++)
+				indices[i] = this.order[side][i].getIndex();
+			int old = this.uf.getSet(indices[0]);
+			int set = this.uf.split(indices, count);
+			this.componentList.get(old).decreaseSize(count);
+			WeakComponent c = new WeakComponent(set);
+			c.setSize(count);
+			this.componentList.put(set, c);
+		}
+		Arrays.fill(this.order[0], 0, tail[0], null);
+		Arrays.fill(this.order[1], 0, tail[1], null);
+		return result;
+	}
+
 	private void checkEdgeRemoval(Node n1, Node n2) {
 		boolean neighbourFound = false;
 		int degreeN1;
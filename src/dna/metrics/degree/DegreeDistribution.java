@@ -13,6 +13,7 @@ import dna.series.data.NodeValueList;
 import dna.series.data.Value;
 import dna.updates.batch.Batch;
 import dna.util.ArrayUtils;
+import dna.util.Config;
 import dna.util.parameters.Parameter;
 
 public abstract class DegreeDistribution extends Metric {
@@ -96,10 +97,12 @@ public abstract class DegreeDistribution extends Metric {
 	}
 
 	protected boolean compute() {
+		boolean sparse = Config.getBoolean("METRICS_DEGREE_DISTRIBUTION_SPARSE");
 		if (this.g.isDirected()) {
-			this.degree = new DistributionInt("DegreeDistribution");
-			this.inDegree = new DistributionInt("InDegreeDistribution");
-			this.outDegree = new DistributionInt("OutDegreeDistribution");
+			this.degree = new DistributionInt("DegreeDistribution", sparse);
+			this.inDegree = new DistributionInt("InDegreeDistribution", sparse);
+			this.outDegree = new DistributionInt("OutDegreeDistribution",
+					sparse);
 			for (IElement n_ : this.g.getNodes()) {
 				DirectedNode n = (DirectedNode) n_;
 				this.degree.incr(n.getDegree());
@@ -107,7 +110,7 @@ public abstract class DegreeDistribution extends Metric {
 				this.outDegree.incr(n.getOutDegree());
 			}
 		} else {
-			this.degree = new DistributionInt("DegreeDistribution");
+			this.degree = new DistributionInt("DegreeDistribution", sparse);
 			this.inDegree = null;
 			this.outDegree = null;
 			for (IElement n_ : this.g.getNodes()) {
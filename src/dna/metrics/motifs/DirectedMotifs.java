@@ -2,6 +2,7 @@ package dna.metrics.motifs;
 
 import java.util.HashSet;
 
+import dna.graph.CSRGraph;
 import dna.graph.Graph;
 import dna.graph.IElement;
 import dna.graph.edges.DirectedEdge;
@@ -123,6 +124,52 @@ public abstract class DirectedMotifs extends Metric {
 		return true;
 	}
 
+	/**
+	 * Counts the motifs on the CSR snapshot of the graph, equivalent to
+	 * compute().
+	 * 
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 * @return true, if the computation was successful
+	 */
+	protected boolean compute(CSRGraph csr) {
+		this.motifs = new DistributionLong("DirectedMotifs", new long[14], 0);
+
+		int[] connected = new int[csr.getTargets().length
+				+ csr.getInTargets().length];
+
+		for (int a = 0; a < csr.getNodeCount(); a++) {
+			int count = csr.getConnectedNodes(a, connected, 0);
+			int aIndex = csr.getNodeIndex(a);
+			for (int i = 0; i < count; i++) {
+				int b = connected[i];
+				int bIndex = csr.getNodeIndex(b);
+				boolean ab = csr.hasEdge(a, b);
+				boolean ba = csr.hasEdge(b, a);
+
+				for (int j = 0; j < count; j++) {
+					int c = connected[j];
+					int cIndex = csr.getNodeIndex(c);
+					boolean ac = csr.hasEdge(a, c);
+					boolean ca = csr.hasEdge(c, a);
+					boolean bc = csr.hasEdge(b, c);
+					boolean cb = csr.hasEdge(c, b);
+
+					if (!bc && !cb) {
+						if (bIndex < cIndex) {
+							this.incr(this.getType(ab, ba, ac, ca));
+						}
+					} else {
+						if (aIndex < bIndex && bIndex < cIndex) {
+							this.incr(this.getType(ab, ba, ac, ca, bc, cb));
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
 	public static int getIndex(DirectedMotifType type) {
 		switch (type) {
 		case DM01:
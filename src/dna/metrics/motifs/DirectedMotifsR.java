@@ -1,5 +1,6 @@
 package dna.metrics.motifs;
 
+import dna.graph.CSRGraph;
 import dna.metrics.algorithms.IRecomputation;
 
 public class DirectedMotifsR extends DirectedMotifs implements IRecomputation {
@@ -10,6 +11,9 @@ public class DirectedMotifsR extends DirectedMotifs implements IRecomputation {
 
 	@Override
 	public boolean recompute() {
+		if (CSRGraph.isEnabled()) {
+			return this.compute(this.g.getCSR());
+		}
 		return this.compute();
 	}
 
@@ -2,6 +2,7 @@ package dna.metrics.paths;
 
 import java.util.LinkedList;
 
+import dna.graph.CSRGraph;
 import dna.graph.Graph;
 import dna.graph.IElement;
 import dna.graph.edges.DirectedEdge;
@@ -10,6 +11,7 @@ import dna.graph.nodes.DirectedNode;
 import dna.graph.nodes.Node;
 import dna.graph.nodes.UndirectedNode;
 import dna.metrics.IMetric;
+import dna.metrics.algorithms.BreadthFirstSearch;
 import dna.updates.batch.Batch;
 
 public abstract class UnweightedAllPairsShortestPaths extends
@@ -73,4 +75,17 @@ public abstract class UnweightedAllPairsShortestPaths extends
 		}
 	}
 
+	/**
+	 * Computes the shortest paths from all nodes using BFS on the CSR snapshot
+	 * of the graph (outgoing edges in case of a directed graph). The sources
+	 * are split across METRICS_BFS_THREADS threads.
+	 * 
+	 * @param csr
+	 *            CSR snapshot of the graph
+	 */
+	protected void compute(CSRGraph csr) {
+		this.apsp.incr(BreadthFirstSearch.countDistances(csr, false,
+				BreadthFirstSearch.getConfiguredParallelism()));
+	}
+
 }
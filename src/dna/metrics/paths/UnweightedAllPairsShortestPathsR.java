@@ -1,5 +1,6 @@
 package dna.metrics.paths;
 
+import dna.graph.CSRGraph;
 import dna.graph.IElement;
 import dna.graph.nodes.Node;
 import dna.metrics.algorithms.IRecomputation;
@@ -15,6 +16,10 @@ public class UnweightedAllPairsShortestPathsR extends
 	@Override
 	public boolean recompute() {
 		this.apsp = new DistributionLong("APSP");
+		if (CSRGraph.isEnabled()) {
+			this.compute(this.g.getCSR());
+			return true;
+		}
 		for (IElement n_ : this.g.getNodes()) {
 			this.compute((Node) n_);
 		}
@@ -2,12 +2,14 @@ package dna.metrics.paths;
 
 import java.util.LinkedList;
 
+import dna.graph.CSRGraph;
 import dna.graph.IElement;
 import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.UndirectedEdge;
 import dna.graph.nodes.DirectedNode;
 import dna.graph.nodes.Node;
 import dna.graph.nodes.UndirectedNode;
+import dna.metrics.algorithms.BreadthFirstSearch;
 import dna.metrics.algorithms.IRecomputation;
 import dna.series.data.DistributionLong;
 
@@ -27,6 +29,17 @@ public class UnweightedSingleSourceShortestPathsR extends
 			return true;
 		}
 
+		if (CSRGraph.isEnabled()) {
+			CSRGraph csr = this.g.getCSR();
+			int source = csr.getPosition(this.sourceIndex);
+			if (source >= 0) {
+				long[] counts = new long[csr.getNodeCount()];
+				new BreadthFirstSearch(csr, false).run(source, counts);
+				this.sssp.incr(counts);
+			}
+			return true;
+		}
+
 		boolean[] seen = new boolean[this.g.getMaxNodeIndex() + 1];
 		int[] dist = new int[this.g.getMaxNodeIndex() + 1];
 		LinkedList<Node> queue = new LinkedList<Node>();
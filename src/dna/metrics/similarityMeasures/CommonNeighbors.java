@@ -0,0 +1,174 @@
+package dna.metrics.similarityMeasures;
+
+import java.util.Arrays;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.IWeighted;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Weight;
+
+/**
+ * Scratch buffers to determine the common neighbors of one node with all other
+ * nodes, i.e., all nodes that are reachable via two hops. For each such node,
+ * the number of common neighbors and the sum of the minimum edge weights to
+ * the common neighbors (weighted matching) are counted in primitive arrays
+ * indexed by node index. Only the touched entries are reset by
+ * {@link #collect(Node, boolean, boolean)} so that the buffers can be reused
+ * for all nodes of a graph and across updates.
+ */
+public class CommonNeighbors {
+
+	private int[] counts;
+
+	private double[] weights;
+
+	/** indices of the nodes with at least one common neighbor */
+	private int[] touched;
+
+	private int size;
+
+	public CommonNeighbors() {
+		this.counts = new int[16];
+		this.weights = new double[16];
+		this.touched = new int[16];
+		this.size = 0;
+	}
+
+	/**
+	 * Determines all nodes with an index not smaller than the one of node1
+	 * that have at least one common neighbor with node1 (including node1
+	 * itself in case it has neighbors).
+	 *
+	 * @param node1
+	 *            The node whose common neighbors are counted.
+	 * @param outgoing
+	 *            true to compare directed nodes by their outgoing neighbors,
+	 *            false for incoming neighbors. Ignored for undirected nodes.
+	 * @param weighted
+	 *            true to sum the minimum of both edge weights per common
+	 *            neighbor, false to only count common neighbors.
+	 */
+	public void collect(Node node1, boolean outgoing, boolean weighted) {
+		this.clear();
+		int index1 = node1.getIndex();
+		for (IElement e1 : getEdges(node1, outgoing)) {
+			Edge edge1 = (Edge) e1;
+			Node neighbor = edge1.getDifferingNode(node1);
+			double weight1 = weighted ? weight(edge1) : 1.0;
+			for (IElement e2 : getEdges(neighbor, !outgoing)) {
+				Edge edge2 = (Edge) e2;
+				Node node2 = edge2.getDifferingNode(neighbor);
+				if (node2.getIndex() < index1) {
+					continue;
+				}
+				this.add(node2.getIndex(),
+						weighted ? Math.min(weight1, weight(edge2)) : 1.0);
+			}
+		}
+	}
+
+	private void add(int index, double weight) {
+		if (index >= this.counts.length) {
+			int length = Math.max(index + 1, 2 * this.counts.length);
+			this.counts = Arrays.copyOf(this.counts, length);
+			this.weights = Arrays.copyOf(this.weights, length);
+		}
+		if (this.counts[index] == 0) {
+			if (this.size == this.touched.length) {
+				this.touched = Arrays.copyOf(this.touched, 2 * this.size);
+			}
+			this.touched[this.size++] = index;
+		}
+		this.counts[index]++;
+		this.weights[index] += weight;
+	}
+
+	private void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.counts[this.touched[i]] = 0;
+			this.weights[this.touched[i]] = 0;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * @return number of nodes with at least one common neighbor
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return index of the i-th node with at least one common neighbor
+	 */
+	public int getIndex(int i) {
+		return this.touched[i];
+	}
+
+	/**
+	 * @return number of common neighbors with the node of the given index
+	 */
+	public int getCount(int index) {
+		return this.counts[index];
+	}
+
+	/**
+	 * @return sum of the minimum edge weights to the common neighbors with the
+	 *         node of the given index
+	 */
+	public double getWeight(int index) {
+		return this.weights[index];
+	}
+
+	/**
+	 * Computes the number of neighbors (or sum of the edge weights to the
+	 * neighbors) of all nodes in the graph.
+	 *
+	 * @return amount of neighbors indexed by node index
+	 */
+	public static double[] getAmounts(Graph g, boolean outgoing,
+			boolean weighted) {
+		double[] amounts = new double[g.getMaxNodeIndex() + 1];
+		for (IElement n : g.getNodes()) {
+			Node node = (Node) n;
+			double amount = 0;
+			for (IElement e : getEdges(node, outgoing)) {
+				amount += weighted ? weight((Edge) e) : 1.0;
+			}
+			amounts[node.getIndex()] = amount;
+		}
+		return amounts;
+	}
+
+	/**
+	 * @return number of unordered pairs of nodes (including pairs of a node
+	 *         with itself)
+	 */
+	public static long getNumberOfPairs(Graph g) {
+		long n = g.getNodeCount();
+		return n * (n + 1) / 2;
+	}
+
+	private static Iterable<IElement> getEdges(Node node, boolean outgoing) {
+		if (node instanceof DirectedNode) {
+			return outgoing ? ((DirectedNode) node).getOutgoingEdges()
+					: ((DirectedNode) node).getIncomingEdges();
+		}
+		return node.getEdges();
+	}
+
+	private static double weight(Edge e) {
+		Weight w = ((IWeighted) e).getWeight();
+		if (w instanceof IntWeight)
+			return (double) ((IntWeight) w).getWeight();
+		else if (w instanceof DoubleWeight)
+			return ((DoubleWeight) w).getWeight();
+		else
+			return Double.NaN;
+	}
+}
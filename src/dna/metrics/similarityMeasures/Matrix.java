@@ -1,63 +1,99 @@
 package dna.metrics.similarityMeasures;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 import dna.graph.nodes.Node;
 
 /**
- * A two-dimensional matrix.
- * 
- * @param <Node>
- *            The keys of columns and rows (e.g. {@link Integer}).
- * @param <Double>
- *            The matrix entries (e.g. {@link Integer}).
+ * A sparse, symmetric two-dimensional matrix with node indices as keys of
+ * columns and rows. Only the lower triangle is stored: each row is an
+ * open-addressing map from column index to a primitive double value and rows
+ * are kept in an array indexed by the row's node index. Entries that have
+ * never been put are absent, i.e., {@link #get(Node, Node)} returns
+ * {@code null} for them.
  */
 public class Matrix {
 
-	// <ROW, <COLUMN, value>
-	private Map<Node, Map<Node, Double>> values;
+	/** marks a free slot in the keys of a row */
+	private static final int FREE = -1;
+
+	// rows[ROW] = <COLUMN, value> with COLUMN <= ROW
+	private Row[] rows;
+
+	private int size;
+
+	/** top-k lists to keep up to date with the entries, null if none */
+	private TopK topK;
+
+	/**
+	 * Visitor for all entries of a {@link Matrix}.
+	 */
+	public interface EntryVisitor {
+		/**
+		 * Is called once for each entry (row, column) with column <= row.
+		 */
+		public void visit(int row, int column, double value);
+	}
 
 	/**
 	 * Creates an empty {@link Matrix}.
 	 */
 	public Matrix() {
-		this.values = new HashMap<Node, Map<Node, Double>>();
+		this.rows = new Row[16];
+		this.size = 0;
 	}
 
+	/**
+	 * Compares the entries of both matrices, entries that are absent in one
+	 * of them are treated as 0.
+	 *
+	 * @param m
+	 *            The matrix to compare with.
+	 * @param faultTolerance
+	 *            The maximum difference of two entries to be considered equal.
+	 * @return true if all entries differ by at most faultTolerance.
+	 */
 	public boolean equals(Matrix m, double faultTolerance) {
-		boolean equals;
-		for (Node element1 : this.values.keySet()) {
-			for (Node element2 : this.values.keySet()) {
-				if ((this.values.get(element1).get(element2) == null && m.values
-						.get(element1).get(element2) == null)
-						|| (this.values.get(element1).get(element2) == null && m.values
-								.get(element1).get(element2) == 0.0)
-						|| ((Double) this.values.get(element1).get(element2) == 0.0 && m.values
-								.get(element1).get(element2) == null))
-					equals = true;
-				else
-					equals = (Math
-							.abs((m.values.get(element1).get(element2) - (Double) this.values
-									.get(element1).get(element2))) <= faultTolerance);
-				if (!equals) {
+		return this.isContainedIn(m, faultTolerance)
+				&& m.isContainedIn(this, faultTolerance);
+	}
+
+	/**
+	 * @return true if all entries of this matrix are also contained in the
+	 *         given one (or are 0 and absent there)
+	 */
+	private boolean isContainedIn(Matrix m, double faultTolerance) {
+		for (int row = 0; row < this.rows.length; row++) {
+			Row r = this.rows[row];
+			if (r == null) {
+				continue;
+			}
+			for (int i = 0; i < r.keys.length; i++) {
+				if (r.keys[i] == FREE) {
+					continue;
+				}
+				double other = m.get(row, r.keys[i], 0.0);
+				if (!(Math.abs(other - r.values[i]) <= faultTolerance)) {
 					return false;
 				}
 			}
 		}
 		return true;
-
 	}
 
 	@Override
 	public boolean equals(Object o) {
 		if (o != null && o instanceof Matrix)
-			return ((Matrix) o).values.equals(this.values);
+			return this.equals((Matrix) o, 0.0);
 
 		return false;
 	}
 
+	@Override
+	public int hashCode() {
+		return this.size;
+	}
+
 	/**
 	 * @param row
 	 *            The row of the matrix entry to return.
@@ -68,44 +104,92 @@ public class Matrix {
 	 *         exist.
 	 */
 	public Double get(Node row, Node column) {
-		// triangular matrix
-		if (row.getIndex() < column.getIndex()) {
-			Node tmp = row;
-			row = column;
-			column = tmp;
+		Row r = this.getRow(row.getIndex(), column.getIndex());
+		if (r == null) {
+			return null;
 		}
-		if (this.values.containsKey(row))
-			if (this.values.get(row).containsKey(column))
-				return this.values.get(row).get(column);
-
-		return null;
+		int slot = r.find(Math.min(row.getIndex(), column.getIndex()));
+		return slot < 0 ? null : r.values[slot];
 	}
 
 	/**
-	 * @param The
-	 *            string from which we get the index.
-	 * 
-	 * @return The Index of a Node
+	 * @param row
+	 *            The index of the row of the matrix entry to return.
+	 * @param column
+	 *            The index of the column of the matrix entry to return.
+	 * @param absent
+	 *            The value to return in case the entry does not exist.
+	 * @return The matrix entry at given row and column or absent if the entry
+	 *         doesn't exist.
 	 */
-	private int getNodeNumber(String positionString) {
-		String node = "";
-		int iPos = positionString.indexOf(' ');
-		node = positionString.substring(0, iPos).trim();
-		return Integer.parseInt(node);
+	public double get(int row, int column, double absent) {
+		Row r = this.getRow(row, column);
+		if (r == null) {
+			return absent;
+		}
+		int slot = r.find(Math.min(row, column));
+		return slot < 0 ? absent : r.values[slot];
+	}
 
+	/**
+	 * @return the row that stores the entry (row, column) or null if it does
+	 *         not exist
+	 */
+	private Row getRow(int row, int column) {
+		int index = Math.max(row, column);
+		return index < this.rows.length ? this.rows[index] : null;
 	}
 
+	/**
+	 * @return The sum of all entries of the given row (including the entries
+	 *         stored in the column of the triangular matrix).
+	 */
 	public double getRowSum(Node row) {
+		int index = row.getIndex();
 		double sum = 0.0;
-		for (Node node : this.values.keySet())
-			sum = get(row, node) == null ? sum : sum + get(row, node);
+		if (index < this.rows.length && this.rows[index] != null) {
+			sum += this.rows[index].sum();
+		}
+		for (int r = index + 1; r < this.rows.length; r++) {
+			sum += this.get(r, index, 0.0);
+		}
 		return sum;
 	}
 
+	/**
+	 * Computes the row sums (as returned by {@link #getRowSum(Node)}) of all
+	 * rows in a single pass over all entries.
+	 *
+	 * @param length
+	 *            The minimum length of the returned array, e.g., the maximum
+	 *            node index + 1.
+	 * @return The row sums indexed by the row's node index.
+	 */
+	public double[] getRowSums(int length) {
+		double[] sums = new double[Math.max(length, this.rows.length)];
+		for (int row = 0; row < this.rows.length; row++) {
+			Row r = this.rows[row];
+			if (r == null) {
+				continue;
+			}
+			for (int i = 0; i < r.keys.length; i++) {
+				int column = r.keys[i];
+				if (column == FREE) {
+					continue;
+				}
+				sums[row] += r.values[i];
+				if (column != row) {
+					sums[column] += r.values[i];
+				}
+			}
+		}
+		return sums;
+	}
+
 	/**
 	 * Inserts given value at given row and column(triangular matrix). If given
 	 * row or column does not exist yet, it will be created.
-	 * 
+	 *
 	 * @param row
 	 *            The row where to insert the given value.
 	 * @param column
@@ -114,100 +198,303 @@ public class Matrix {
 	 *            The value to insert.
 	 */
 	public void put(Node row, Node column, Double value) {
-		if (row.getIndex() < column.getIndex()) {
-			Node tmp = row;
-			row = column;
-			column = tmp;
-		}
+		this.put(row.getIndex(), column.getIndex(), (double) value);
+	}
 
-		if (this.values.containsKey(row))
-			this.values.get(row).put(column, value);
-		else {
-			final Map<Node, Double> newRow = new HashMap<Node, Double>();
-			newRow.put(column, value);
-			this.values.put(row, newRow);
+	/**
+	 * Inserts given value at given row and column (triangular matrix).
+	 *
+	 * @param row
+	 *            The index of the row where to insert the given value.
+	 * @param column
+	 *            The index of the column where to insert the given value.
+	 * @param value
+	 *            The value to insert.
+	 */
+	public void put(int row, int column, double value) {
+		int index = Math.max(row, column);
+		if (index >= this.rows.length) {
+			this.rows = Arrays.copyOf(this.rows,
+					Math.max(index + 1, this.rows.length * 2));
+		}
+		if (this.rows[index] == null) {
+			this.rows[index] = new Row();
 		}
+		if (this.rows[index].put(Math.min(row, column), value)) {
+			this.size++;
+		}
+		if (this.topK != null) {
+			this.topK.update(row, column, value);
+		}
+	}
+
+	/**
+	 * Adds the given value to the entry at given row and column, absent
+	 * entries are treated as 0.
+	 */
+	public void add(Node row, Node column, double value) {
+		this.put(row.getIndex(), column.getIndex(),
+				this.get(row.getIndex(), column.getIndex(), 0.0) + value);
 	}
 
 	/**
 	 * Removes a column with all its entries.
-	 * 
+	 *
 	 * @param column
 	 *            The column to remove.
 	 */
 	public void removeColumn(Node column) {
-		for (Node row : this.values.keySet())
-			this.values.get(row).remove(column);
+		int index = column.getIndex();
+		for (int r = index; r < this.rows.length; r++) {
+			if (this.rows[r] != null && this.rows[r].remove(index)) {
+				this.size--;
+				if (this.topK != null) {
+					this.topK.update(r, index, 0.0);
+				}
+			}
+		}
 	}
 
 	/**
 	 * Removes the entry at given row and column.
-	 * 
+	 *
 	 * @param row
 	 *            The row of the entry to remove.
 	 * @param column
 	 *            The column of the entry to remove.
 	 */
 	public void removeEntry(Node row, Node column) {
-		if (this.values.containsKey(row))
-			this.values.get(row).remove(column);
+		Row r = this.getRow(row.getIndex(), column.getIndex());
+		if (r != null
+				&& r.remove(Math.min(row.getIndex(), column.getIndex()))) {
+			this.size--;
+			if (this.topK != null) {
+				this.topK.update(row.getIndex(), column.getIndex(), 0.0);
+			}
+		}
 	}
 
 	/**
 	 * Removes a row with all its entries.
-	 * 
+	 *
 	 * @param row
 	 *            The row to remove.
 	 */
 	public void removeRow(Node row) {
-		this.values.remove(row);
+		int index = row.getIndex();
+		if (index < this.rows.length && this.rows[index] != null) {
+			Row r = this.rows[index];
+			this.size -= r.size;
+			this.rows[index] = null;
+			if (this.topK != null) {
+				for (int i = 0; i < r.keys.length; i++) {
+					if (r.keys[i] != FREE) {
+						this.topK.update(index, r.keys[i], 0.0);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calls the visitor for all entries of this (triangular) matrix.
+	 */
+	public void forEachEntry(EntryVisitor visitor) {
+		for (int row = 0; row < this.rows.length; row++) {
+			Row r = this.rows[row];
+			if (r == null) {
+				continue;
+			}
+			for (int i = 0; i < r.keys.length; i++) {
+				if (r.keys[i] != FREE) {
+					visitor.visit(row, r.keys[i], r.values[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps the given top-k lists up to date with all entries that are put
+	 * into or removed from this matrix. Entries already contained are not
+	 * added to the lists.
+	 */
+	public void setTopK(TopK topK) {
+		this.topK = topK;
+		if (topK != null) {
+			topK.setSource(this);
+		}
+	}
+
+	/**
+	 * @return The number of entries stored in this (triangular) matrix.
+	 */
+	public int size() {
+		return this.size;
 	}
 
 	/**
 	 * Returns a string representation of this {@link Matrix} for all current
 	 * nodes of the graph E.g.:
-	 * 
+	 *
 	 * <p>
-	 * 0|0:2, 0|1:0, 0|2:2, 0|3:0
+	 * 0|0:2
 	 * </p>
 	 * <p>
-	 * 1|0:0, 1|1:2, 1|2:0, 1|3:2
+	 * 1|1:2
 	 * </p>
 	 * <p>
-	 * 2|0:2, 2|1:0, 2|2:2, 2|3:0
+	 * 2|0:2, 2|2:2
 	 * </p>
 	 * <p>
-	 * 3|0:0, 3|1:2, 3|2:0, 3|3:2
+	 * 3|1:2, 3|3:2
 	 * </p>
-	 * 
-	 * 
+	 *
+	 *
 	 * @return The entries of this {@link Matrix}.
 	 */
 	@Override
 	public String toString() {
-		String oneRow = "";
-		String entry = "";
-		String output = "";
-		HashMap<Integer, String> rowS = new HashMap<Integer, String>();
-		HashMap<Integer, String> columnS;
+		StringBuilder output = new StringBuilder();
+		for (int row = 0; row < this.rows.length; row++) {
+			Row r = this.rows[row];
+			if (r == null || r.size == 0) {
+				continue;
+			}
+			int[] columns = new int[r.size];
+			int count = 0;
+			for (int i = 0; i < r.keys.length; i++) {
+				if (r.keys[i] != FREE) {
+					columns[count++] = r.keys[i];
+				}
+			}
+			Arrays.sort(columns);
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0) {
+					output.append(", ");
+				}
+				output.append(row + "|" + columns[i] + ":"
+						+ r.values[r.find(columns[i])]);
+			}
+			output.append(";\n");
+		}
+		return output.toString();
+	}
+
+	/**
+	 * A row of the matrix, i.e., an open-addressing hash map (linear probing)
+	 * from column index to value.
+	 */
+	private static class Row {
+
+		private int[] keys;
+
+		private double[] values;
 
-		for (Node row : this.values.keySet()) {
-			columnS = new HashMap<Integer, String>();
-			for (Node column : this.values.get(row).keySet()) {
-				entry = getNodeNumber(row.toString()) + "|"
-						+ getNodeNumber(column.toString()) + ":"
-						+ this.values.get(row).get(column).toString();
-				columnS.put(this.getNodeNumber(column.toString()), entry);
+		private int size;
+
+		private Row() {
+			this.keys = new int[4];
+			this.values = new double[4];
+			Arrays.fill(this.keys, FREE);
+			this.size = 0;
+		}
+
+		private int slot(int key) {
+			int h = key * 0x9E3779B9;
+			return (h ^ (h >>> 16)) & (this.keys.length - 1);
+		}
 
+		/**
+		 * @return slot of the given key or -1 if it is not contained
+		 */
+		private int find(int key) {
+			int mask = this.keys.length - 1;
+			for (int i = this.slot(key);; i = (i + 1) & mask) {
+				if (this.keys[i] == key) {
+					return i;
+				}
+				if (this.keys[i] == FREE) {
+					return -1;
+				}
 			}
-			oneRow = (columnS.values().toString().substring(0, columnS.values()
-					.toString().length() - 1)).substring(1);
-			rowS.put(this.getNodeNumber(row.toString()), oneRow);
 		}
-		for (Entry<Integer, String> element : rowS.entrySet()) {
-			output = output + element.getValue() + ";\n";
+
+		/**
+		 * @return true if the key has been added, false if its value has been
+		 *         replaced
+		 */
+		private boolean put(int key, double value) {
+			int mask = this.keys.length - 1;
+			int i = this.slot(key);
+			while (this.keys[i] != FREE) {
+				if (this.keys[i] == key) {
+					this.values[i] = value;
+					return false;
+				}
+				i = (i + 1) & mask;
+			}
+			this.keys[i] = key;
+			this.values[i] = value;
+			this.size++;
+			if (2 * this.size > this.keys.length) {
+				this.rehash(2 * this.keys.length);
+			}
+			return true;
+		}
+
+		/**
+		 * @return true if the key has been removed, false if it was not
+		 *         contained
+		 */
+		private boolean remove(int key) {
+			int i = this.find(key);
+			if (i < 0) {
+				return false;
+			}
+			// shift back the following entries of the probe sequence
+			int mask = this.keys.length - 1;
+			int j = i;
+			while (true) {
+				j = (j + 1) & mask;
+				if (this.keys[j] == FREE) {
+					break;
+				}
+				int home = this.slot(this.keys[j]);
+				if ((j > i && (home <= i || home > j))
+						|| (j < i && (home <= i && home > j))) {
+					this.keys[i] = this.keys[j];
+					this.values[i] = this.values[j];
+					i = j;
+				}
+			}
+			this.keys[i] = FREE;
+			this.size--;
+			return true;
+		}
+
+		private void rehash(int capacity) {
+			int[] oldKeys = this.keys;
+			double[] oldValues = this.values;
+			this.keys = new int[capacity];
+			this.values = new double[capacity];
+			Arrays.fill(this.keys, FREE);
+			this.size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != FREE) {
+					this.put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private double sum() {
+			double sum = 0.0;
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] != FREE) {
+					sum += this.values[i];
+				}
+			}
+			return sum;
 		}
-		return output;
 	}
 
 }
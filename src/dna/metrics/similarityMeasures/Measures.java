@@ -1,5 +1,6 @@
 package dna.metrics.similarityMeasures;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -20,6 +21,7 @@ import dna.graph.weights.IntWeight;
 import dna.graph.weights.Weight;
 import dna.metrics.IMetric;
 import dna.metrics.Metric;
+import dna.metrics.algorithms.IRecomputation;
 import dna.metrics.similarityMeasures.dice.Dice;
 import dna.metrics.similarityMeasures.jaccard.Jaccard;
 import dna.metrics.similarityMeasures.overlap.Overlap;
@@ -28,6 +30,7 @@ import dna.series.data.NodeNodeValueList;
 import dna.series.data.NodeValueList;
 import dna.series.data.Value;
 import dna.updates.batch.Batch;
+import dna.util.parameters.IntParameter;
 import dna.util.parameters.Parameter;
 import dna.util.parameters.StringParameter;
 
@@ -102,6 +105,17 @@ public abstract class Measures extends Metric implements IMetric {
 	protected BinnedDistributionLong binnedDistribution;
 	/** Average per Node Distribution */
 	protected BinnedDistributionLong binnedDistributionEveryNodeToOtherNodes;
+	/** Buffers to count common neighbors, reused for all nodes */
+	private CommonNeighbors commonNeighbors = new CommonNeighbors();
+	/**
+	 * Number of most similar nodes to output for each node, 0 to only output
+	 * distributions.
+	 */
+	protected int k;
+	/** The k most similar nodes of each node (top-k mode only) */
+	protected TopK topK;
+	/** Sums of the similarities per node if {@link #result} is not stored */
+	private double[] rowSums;
 
 	/**
 	 * Initializes {@link Measures}. Implicitly sets degree type for directed
@@ -131,18 +145,164 @@ public abstract class Measures extends Metric implements IMetric {
 	 */
 	public Measures(String name, DirectedDegreeType directedDegreeType,
 			EdgeWeightType edgeWeightType) {
-		super(name, IMetric.MetricType.exact, directedDegreeType
-				.StringParameter(), edgeWeightType.StringParameter());
+		this(name, directedDegreeType, edgeWeightType, 0);
+	}
+
+	/**
+	 * Initializes {@link Measures} in top-k mode.
+	 * 
+	 * @param name
+	 *            The name of the metric, e.g. <i>JaccardR</i> for the Jaccard
+	 *            Recomputation and <i>JaccardU</i> for the Jaccard Updates.
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node. Recomputations do not store the similarity of all pairs
+	 *            in this mode. 0 disables the top-k mode.
+	 */
+	public Measures(String name, DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super(name, IMetric.MetricType.exact, getParameters(
+				directedDegreeType, edgeWeightType, k));
 
 		this.directedDegreeType = directedDegreeType;
 		this.edgeWeightType = edgeWeightType;
+		this.k = k;
+	}
+
+	private static Parameter[] getParameters(
+			DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		if (k > 0)
+			return new Parameter[] { directedDegreeType.StringParameter(),
+					edgeWeightType.StringParameter(),
+					new IntParameter("topK", k) };
+		return new Parameter[] { directedDegreeType.StringParameter(),
+				edgeWeightType.StringParameter() };
+	}
+
+	/**
+	 * Creates the top-k lists (in top-k mode) and attaches them to
+	 * {@link #result}. Must be called whenever {@link #result} is replaced.
+	 */
+	protected void initTopK() {
+		this.rowSums = null;
+		if (this.k <= 0)
+			return;
+		this.topK = new TopK(this.k);
+		if (this.isStoringPairs())
+			this.result.setTopK(this.topK);
+	}
+
+	/**
+	 * The similarity of all pairs is stored in {@link #matching} and
+	 * {@link #result} except for recomputations in top-k mode, which only keep
+	 * the top-k lists.
+	 * 
+	 * @return true if all pairs are stored
+	 */
+	protected boolean isStoringPairs() {
+		return this.k <= 0 || !(this instanceof IRecomputation);
+	}
+
+	/**
+	 * @return The sums of the similarities of each node to all other nodes
+	 *         indexed by node index.
+	 */
+	protected double[] getRowSums() {
+		int length = this.g.getMaxNodeIndex() + 1;
+		if (this.rowSums == null)
+			return this.result.getRowSums(length);
+		return this.rowSums.length >= length ? this.rowSums : Arrays.copyOf(
+				this.rowSums, length);
+	}
+
+	/**
+	 * Compares the top-k lists in top-k mode and the complete results
+	 * otherwise.
+	 */
+	protected boolean resultEquals(Measures m) {
+		if (this.topK != null)
+			return this.topK.equals(m.topK, ACCEPTED_ERROR_FOR_EQUALITY);
+		return m.result.equals(this.result, ACCEPTED_ERROR_FOR_EQUALITY);
+	}
+
+	/**
+	 * Computes the matching and the similarity measure of all pairs of nodes
+	 * with at least one common neighbor. All other pairs have a similarity of
+	 * 0, they are not stored in {@link #matching} and {@link #result} but only
+	 * counted in the distribution. In case pairs are not stored at all (see
+	 * {@link #isStoringPairs()}), only the top-k lists and the sums per node
+	 * are computed.
+	 * 
+	 * @param weighted
+	 *            true to use the edge weights, false to count neighbors
+	 * @return true
+	 */
+	protected boolean computeSparse(boolean weighted) {
+		boolean outgoing = this.isOutgoingMeasure();
+		boolean storing = this.isStoringPairs();
+		double[] amounts = CommonNeighbors.getAmounts(this.g, outgoing,
+				weighted);
+		long zeros = CommonNeighbors.getNumberOfPairs(this.g);
+		if (!storing)
+			this.rowSums = new double[amounts.length];
+
+		for (IElement iElement1 : this.g.getNodes()) {
+			int index1 = ((Node) iElement1).getIndex();
+			this.commonNeighbors.collect((Node) iElement1, outgoing, weighted);
+			for (int i = 0; i < this.commonNeighbors.size(); i++) {
+				int index2 = this.commonNeighbors.getIndex(i);
+				double matching = weighted ? this.commonNeighbors
+						.getWeight(index2) : this.commonNeighbors
+						.getCount(index2);
+				double fraction = matching == 0 ? 0.0 : this.getFraction(
+						matching, amounts[index1], amounts[index2]);
+
+				if (storing) {
+					this.matching.put(index1, index2, matching);
+					this.result.put(index1, index2, fraction);
+				} else {
+					this.topK.update(index1, index2, fraction);
+					this.rowSums[index1] += fraction;
+					if (index1 != index2)
+						this.rowSums[index2] += fraction;
+				}
+				this.binnedDistribution.incr(fraction);
+				zeros--;
+			}
+		}
+		this.binnedDistribution.incr(new long[] { zeros });
+
+		return true;
 	}
 
+	/**
+	 * Computes the similarity measure of two nodes from their matching.
+	 * 
+	 * @param matching
+	 *            The (weighted) number of common neighbors, larger than 0.
+	 * @param amount1
+	 *            The (weighted) number of neighbors of the first node.
+	 * @param amount2
+	 *            The (weighted) number of neighbors of the second node.
+	 * @return The similarity measure of both nodes.
+	 */
+	protected abstract double getFraction(double matching, double amount1,
+			double amount2);
+
 	/**
 	 * Decreases the matching between the given nodes by 1.
 	 */
 	protected void decreaseMatching(Node node1, Node node2) {
-		this.matching.put(node1, node2, this.matching.get(node1, node2) - 1);
+		this.matching.add(node1, node2, -1);
 	}
 
 	/**
@@ -212,8 +372,8 @@ public abstract class Measures extends Metric implements IMetric {
 	 */
 	protected void decreaseMatchingWeighted(Node node1, Double value1,
 			Node node2, Double value2) {
-		double matchingG = this.matching.get(node1, node2)
-				- Math.min(value1, value2);
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0) - Math.min(value1, value2);
 		if (matchingG < 0.0 && Math.abs(matchingG) <= 1.0E-4 || matchingG > 0.0
 				&& matchingG < 1.0E-6) {
 			matchingG = 0.0;
@@ -253,6 +413,62 @@ public abstract class Measures extends Metric implements IMetric {
 		return sum;
 	}
 
+	/**
+	 * Computes the size of the union of the neighbors of two nodes without
+	 * creating the union.
+	 * 
+	 * @param neighbors1
+	 *            A {@link Set} includes the neighbors of the first node.
+	 * @param neighbors2
+	 *            A {@link Set} includes the neighbors of the second node.
+	 * @return The number of elements in the union of neighbors1 and
+	 *         neighbors2.
+	 */
+	protected int getUnionSizeUnweighted(HashSet<Node> neighbors1,
+			HashSet<Node> neighbors2) {
+		if (neighbors1 == null)
+			return neighbors2 == null ? 0 : neighbors2.size();
+		if (neighbors2 == null)
+			return neighbors1.size();
+
+		int size = neighbors2.size();
+		for (Node n : neighbors1)
+			if (!neighbors2.contains(n))
+				size++;
+		return size;
+	}
+
+	/**
+	 * Computes the sum of the union of the neighbors of two nodes (taking the
+	 * maximum frequency of neighbors contained in both) without creating the
+	 * union.
+	 * 
+	 * @param neighbors1
+	 *            A {@link Map} includes the neighbors of the first node with
+	 *            their frequency.
+	 * @param neighbors2
+	 *            A {@link Map} includes the neighbors of the second node with
+	 *            their frequency.
+	 * @return The sum of the values of the union of neighbors1 and neighbors2.
+	 */
+	protected double getUnionSumWeighted(HashMap<Node, Double> neighbors1,
+			HashMap<Node, Double> neighbors2) {
+		if (neighbors1 == null)
+			return neighbors2 == null ? 0 : getMapValueSum(neighbors2);
+		if (neighbors2 == null)
+			return getMapValueSum(neighbors1);
+
+		double sum = getMapValueSum(neighbors2);
+		for (Entry<Node, Double> e : neighbors1.entrySet()) {
+			Double value2 = neighbors2.get(e.getKey());
+			if (value2 == null)
+				sum += e.getValue();
+			else if (e.getValue() > value2)
+				sum += e.getValue() - value2;
+		}
+		return sum;
+	}
+
 	/**
 	 * Computes the intersection between the neighbors of two nodes.
 	 * 
@@ -488,8 +704,15 @@ public abstract class Measures extends Metric implements IMetric {
 		return new NodeNodeValueList[] {};
 	}
 
+	/**
+	 * In top-k mode, the k most similar nodes of each node are returned as
+	 * one list of node indices and one list of similarities per rank.
+	 */
 	@Override
 	public NodeValueList[] getNodeValueLists() {
+		if (this.topK != null)
+			return this.topK.getNodeValueLists("TopK",
+					this.g.getMaxNodeIndex() + 1);
 		return new NodeValueList[] {};
 	}
 
@@ -504,8 +727,7 @@ public abstract class Measures extends Metric implements IMetric {
 	 * Increases the matching between the given nodes by 1.
 	 */
 	protected void increaseMatching(Node node1, Node node2) {
-		Double matchingG = this.matching.get(node1, node2);
-		this.matching.put(node1, node2, matchingG == null ? 1 : matchingG + 1);
+		this.matching.add(node1, node2, 1);
 	}
 
 	/**
@@ -540,13 +762,7 @@ public abstract class Measures extends Metric implements IMetric {
 	 */
 	protected void increaseMatchingWeighted(Node node1, Double value1,
 			Node node2, Double value2) {
-		Double matchingG = this.matching.get(node1, node2);
-		this.matching.put(
-				node1,
-				node2,
-				matchingG == null ? Math.min(value1, value2) : matchingG
-						+ Math.min(value1, value2));
-
+		this.matching.add(node1, node2, Math.min(value1, value2));
 	}
 
 	@Override
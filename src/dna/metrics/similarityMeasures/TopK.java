@@ -0,0 +1,340 @@
+package dna.metrics.similarityMeasures;
+
+import java.util.Arrays;
+
+import dna.series.data.NodeValueList;
+
+/**
+ * Keeps the k partners with the largest (positive) value for each node, e.g.,
+ * the k most similar nodes. Each list is a bounded min-heap of size k stored in
+ * primitive arrays indexed by node index, i.e., the memory is O(n*k) instead of
+ * O(n^2) for a full matrix.
+ * <p>
+ * The lists are updated incrementally by {@link #update(int, int, double)}.
+ * Increasing values and values of new pairs are handled directly. In case a
+ * value in a full list decreases (or is removed), a better partner outside the
+ * list might exist. Such lists are marked as dirty and recomputed from the
+ * {@link Matrix} they are attached to (see {@link Matrix#setTopK(TopK)}) the
+ * next time the lists are read. Lists that are not full always contain all
+ * partners with a positive value.
+ * </p>
+ */
+public class TopK {
+
+	private final int k;
+
+	// heaps[NODE] = partner indices, heap ordered by values[NODE]
+	private int[][] indices;
+
+	private double[][] values;
+
+	private int[] sizes;
+
+	private boolean[] dirty;
+
+	private boolean anyDirty;
+
+	/** matrix to recompute dirty lists from, null if values are only added */
+	private Matrix source;
+
+	public TopK(int k) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be positive, was " + k);
+		}
+		this.k = k;
+		this.indices = new int[16][];
+		this.values = new double[16][];
+		this.sizes = new int[16];
+		this.dirty = new boolean[16];
+		this.anyDirty = false;
+	}
+
+	public int getK() {
+		return this.k;
+	}
+
+	void setSource(Matrix source) {
+		this.source = source;
+	}
+
+	/**
+	 * Sets the value of the pair (index1, index2) in the lists of both nodes.
+	 * Values <= 0 remove the pair from the lists, pairs of a node with itself
+	 * are ignored.
+	 */
+	public void update(int index1, int index2, double value) {
+		if (index1 == index2) {
+			return;
+		}
+		this.update(index1, index2, value, false);
+		this.update(index2, index1, value, false);
+	}
+
+	private void update(int node, int partner, double value, boolean rebuild) {
+		this.ensureCapacity(node);
+		if (this.dirty[node] && !rebuild) {
+			// will be recomputed from the source matrix anyway
+			return;
+		}
+		int size = this.sizes[node];
+		int pos = this.find(node, partner);
+		if (pos >= 0) {
+			double old = this.values[node][pos];
+			if (value <= 0) {
+				this.removeAt(node, pos);
+				if (size == this.k) {
+					this.markDirty(node);
+				}
+			} else if (value >= old) {
+				this.values[node][pos] = value;
+				this.siftDown(node, pos);
+			} else {
+				this.values[node][pos] = value;
+				this.siftUp(node, pos);
+				if (size == this.k) {
+					this.markDirty(node);
+				}
+			}
+		} else if (value > 0) {
+			if (size < this.k) {
+				if (this.indices[node] == null) {
+					this.indices[node] = new int[this.k];
+					this.values[node] = new double[this.k];
+				}
+				this.indices[node][size] = partner;
+				this.values[node][size] = value;
+				this.sizes[node]++;
+				this.siftUp(node, size);
+			} else if (value > this.values[node][0]) {
+				this.indices[node][0] = partner;
+				this.values[node][0] = value;
+				this.siftDown(node, 0);
+			}
+		}
+	}
+
+	private void markDirty(int node) {
+		if (this.source != null) {
+			this.dirty[node] = true;
+			this.anyDirty = true;
+		}
+	}
+
+	/**
+	 * Recomputes all dirty lists from the source matrix in a single pass over
+	 * its entries.
+	 */
+	public void refresh() {
+		if (!this.anyDirty) {
+			return;
+		}
+		for (int i = 0; i < this.sizes.length; i++) {
+			if (this.dirty[i]) {
+				this.sizes[i] = 0;
+			}
+		}
+		this.source.forEachEntry(new Matrix.EntryVisitor() {
+			@Override
+			public void visit(int row, int column, double value) {
+				if (row == column) {
+					return;
+				}
+				if (dirty[row]) {
+					update(row, column, value, true);
+				}
+				if (dirty[column]) {
+					update(column, row, value, true);
+				}
+			}
+		});
+		Arrays.fill(this.dirty, false);
+		this.anyDirty = false;
+	}
+
+	/**
+	 * @return number of partners in the list of the given node
+	 */
+	public int size(int node) {
+		this.refresh();
+		return node < this.sizes.length ? this.sizes[node] : 0;
+	}
+
+	/**
+	 * @return partner indices of the given node, sorted by decreasing value
+	 */
+	public int[] getIndices(int node) {
+		int[] order = this.getOrder(node);
+		int[] result = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = this.indices[node][order[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * @return values of the partners of the given node in decreasing order
+	 */
+	public double[] getValues(int node) {
+		int[] order = this.getOrder(node);
+		double[] result = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = this.values[node][order[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * @return heap positions of the list of the given node, sorted by
+	 *         decreasing value (insertion sort, k is small)
+	 */
+	private int[] getOrder(int node) {
+		int size = this.size(node);
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			int j = i;
+			while (j > 0
+					&& this.values[node][order[j - 1]] < this.values[node][i]) {
+				order[j] = order[j - 1];
+				j--;
+			}
+			order[j] = i;
+		}
+		return order;
+	}
+
+	/**
+	 * Creates 2*k lists, one for the partner index and one for the value of
+	 * each rank. Ranks a node has no partner for are set to
+	 * {@link NodeValueList#emptyValue}.
+	 *
+	 * @param name
+	 *            prefix of the names of the lists
+	 * @param length
+	 *            number of nodes in the lists, e.g., the maximum node index + 1
+	 */
+	public NodeValueList[] getNodeValueLists(String name, int length) {
+		this.refresh();
+		NodeValueList[] lists = new NodeValueList[2 * this.k];
+		for (int rank = 0; rank < this.k; rank++) {
+			lists[2 * rank] = new NodeValueList(name + (rank + 1) + "Index",
+					length);
+			lists[2 * rank + 1] = new NodeValueList(name + (rank + 1)
+					+ "Value", length);
+		}
+		for (int node = 0; node < Math.min(length, this.sizes.length); node++) {
+			int[] order = this.getOrder(node);
+			for (int rank = 0; rank < order.length; rank++) {
+				lists[2 * rank].setValue(node,
+						this.indices[node][order[rank]]);
+				lists[2 * rank + 1].setValue(node,
+						this.values[node][order[rank]]);
+			}
+		}
+		return lists;
+	}
+
+	/**
+	 * Compares the values of both lists rank by rank for each node. Partner
+	 * indices are not compared since partners with equal values can be
+	 * ordered (and cut off) arbitrarily.
+	 */
+	public boolean equals(TopK t, double faultTolerance) {
+		if (t == null || t.k != this.k) {
+			return false;
+		}
+		int length = Math.max(this.sizes.length, t.sizes.length);
+		for (int node = 0; node < length; node++) {
+			double[] values1 = node < this.sizes.length ? this.getValues(node)
+					: new double[0];
+			double[] values2 = node < t.sizes.length ? t.getValues(node)
+					: new double[0];
+			for (int i = 0; i < Math.max(values1.length, values2.length); i++) {
+				double v1 = i < values1.length ? values1[i] : 0.0;
+				double v2 = i < values2.length ? values2[i] : 0.0;
+				if (!(Math.abs(v1 - v2) <= faultTolerance)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private int find(int node, int partner) {
+		for (int i = 0; i < this.sizes[node]; i++) {
+			if (this.indices[node][i] == partner) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int node, int pos) {
+		int last = --this.sizes[node];
+		if (pos == last) {
+			return;
+		}
+		double removed = this.values[node][pos];
+		this.indices[node][pos] = this.indices[node][last];
+		this.values[node][pos] = this.values[node][last];
+		if (this.values[node][pos] < removed) {
+			this.siftUp(node, pos);
+		} else {
+			this.siftDown(node, pos);
+		}
+	}
+
+	private void siftUp(int node, int pos) {
+		int[] idx = this.indices[node];
+		double[] val = this.values[node];
+		while (pos > 0) {
+			int parent = (pos - 1) / 2;
+			if (val[parent] <= val[pos]) {
+				break;
+			}
+			this.swap(idx, val, pos, parent);
+			pos = parent;
+		}
+	}
+
+	private void siftDown(int node, int pos) {
+		int[] idx = this.indices[node];
+		double[] val = this.values[node];
+		int size = this.sizes[node];
+		while (true) {
+			int smallest = pos;
+			int left = 2 * pos + 1;
+			int right = left + 1;
+			if (left < size && val[left] < val[smallest]) {
+				smallest = left;
+			}
+			if (right < size && val[right] < val[smallest]) {
+				smallest = right;
+			}
+			if (smallest == pos) {
+				return;
+			}
+			this.swap(idx, val, pos, smallest);
+			pos = smallest;
+		}
+	}
+
+	private void swap(int[] idx, double[] val, int i, int j) {
+		int index = idx[i];
+		idx[i] = idx[j];
+		idx[j] = index;
+		double value = val[i];
+		val[i] = val[j];
+		val[j] = value;
+	}
+
+	private void ensureCapacity(int node) {
+		if (node < this.sizes.length) {
+			return;
+		}
+		int length = Math.max(node + 1, 2 * this.sizes.length);
+		this.indices = Arrays.copyOf(this.indices, length);
+		this.values = Arrays.copyOf(this.values, length);
+		this.sizes = Arrays.copyOf(this.sizes, length);
+		this.dirty = Arrays.copyOf(this.dirty, length);
+	}
+}
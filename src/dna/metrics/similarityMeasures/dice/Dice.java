@@ -60,6 +60,28 @@ public abstract class Dice extends Measures {
 		super(name, directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link Dice} in top-k mode.
+	 * 
+	 * @param name
+	 *            The name of the metric.
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public Dice(String name, DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super(name, directedDegreeType, edgeWeightType, k);
+	}
+
 	/**
 	 * Static computation of the dice similarity.
 	 * 
@@ -108,55 +130,13 @@ public abstract class Dice extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForDirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		HashSet<Node> neighbors1;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedUnweighted(node1);
-			// number of neighbors
-			amountOfNeighbors.put(node1, (double) neighbors1.size());
-
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// diceSimilarity is equal to equivalent calculated before
-					// (diceSimilarity(1,2) = diceSimilarity(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedUnweighted(node2);
-
-				HashSet<Node> intersection = getMatchingUnweighted(neighbors1,
-						neighbors2);
-
-				this.matching.put(node1, node2, (double) intersection.size());
-
-				double numerator = 2 * intersection.size();
-				double denominator = neighbors1.size() + neighbors2.size();
-				double fraction;
-				if (numerator == 0 || denominator == 0)
-					fraction = 0;
-				else
-					fraction = numerator / denominator;
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			DirectedNode node1 = (DirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					(double) this.getNeighborNodesDirectedUnweighted(node1).size());
 		}
 
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -164,45 +144,13 @@ public abstract class Dice extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForDirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedWeighted(node1);
-			amountOfNeighbors.put(node1, this.getMapValueSum(neighbors1));
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// diceSimilarity is equal to equivalent calculated before
-					// (diceSimilarity(1,2) = diceSimilarity(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedWeighted(node2);
-
-				double intersection = getMapValueSum(getMatchingWeighted(
-						neighbors1, neighbors2));
-
-				this.matching.put(node1, node2, intersection);
-
-				double fraction = getFractionDW(neighbors1, neighbors2);
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			DirectedNode node1 = (DirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					this.getMapValueSum(this.getNeighborNodesDirectedWeighted(node1)));
 		}
 
-		return true;
+		return this.computeSparse(true);
 	}
 
 	/**
@@ -210,53 +158,13 @@ public abstract class Dice extends Measures {
 	 * current snapshot.
 	 */
 	public boolean computeForUndirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedUnweighted(node1);
-			nodeIndex2 = 0;
-			amountOfNeighbors.put(node1, (double) neighbors1.size());
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// diceSimilarity is equal to equivalent calculated before
-					// (diceSimilarity(1,2) = diceSimilarity(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedUnweighted(node2);
-
-				HashSet<Node> intersection = getIntersection(neighbors1,
-						neighbors2);
-
-				this.matching.put(node1, node2, (double) intersection.size());
-
-				double numerator = 2 * intersection.size();
-				double denominator = neighbors1.size() + neighbors2.size();
-				double fraction;
-				if (numerator == 0 || denominator == 0)
-					fraction = 0;
-				else
-					fraction = numerator / denominator;
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			UndirectedNode node1 = (UndirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					(double) this.getNeighborNodesUndirectedUnweighted(node1).size());
 		}
 
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -264,55 +172,26 @@ public abstract class Dice extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForUndirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedWeighted(node1);
-			this.amountOfNeighbors.put(node1, this.getMapValueSum(this
-					.getNeighborNodesUndirectedWeighted(node1)));
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// dice is equal to equivalent calculated before
-					// (diceSimilarity(1,2) = diceSimilarity(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedWeighted(node2);
-
-				// intersection
-				double sum = getMapValueSum(getMatchingWeighted(neighbors1,
-						neighbors2));
-
-				this.matching.put(node1, node2, sum);
-
-				double fraction = getFractionUW(neighbors1, neighbors2);
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			UndirectedNode node1 = (UndirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					this.getMapValueSum(this.getNeighborNodesUndirectedWeighted(node1)));
 		}
 
-		return true;
+		return this.computeSparse(true);
+	}
+
+	@Override
+	protected double getFraction(double matching, double amount1,
+			double amount2) {
+		double denominator = amount1 + amount2;
+		return denominator == 0 ? 0.0 : 2 * matching / denominator;
 	}
 
 	@Override
 	public boolean equals(IMetric m) {
 		return this.isComparableTo(m)
-				&& ((Dice) m).result.equals(this.result,
-						ACCEPTED_ERROR_FOR_EQUALITY);
+				&& this.resultEquals((Dice) m);
 	}
 
 	@Override
@@ -322,9 +201,10 @@ public abstract class Dice extends Measures {
 				"BinnedDistributionEveryNodeToOtherNodes", 0.01, new long[] {},
 				0);
 
+		double[] rowSums = this.getRowSums();
 		for (IElement iterable_element : this.g.getNodes()) {
 
-			double index = this.result.getRowSum((Node) iterable_element)
+			double index = rowSums[((Node) iterable_element).getIndex()]
 					/ this.g.getNodeCount();
 			this.binnedDistributionEveryNodeToOtherNodes.incr(index);
 		}
@@ -335,68 +215,9 @@ public abstract class Dice extends Measures {
 				this.binnedDistributionEveryNodeToOtherNodes };
 	}
 
-	/**
-	 * Computes the dice similarity of two nodes <i>n</i>, <i>m</i> for an
-	 * directed weighted graph. The dice similarity is defined as the number of
-	 * elements in the intersection of <i>neighbors(n)</i> and
-	 * <i>neighbors(m)</i> multiplied by 2 and divided by elements of
-	 * <i>neighbors(n)</i> + elements of <i>neighbors(m)</i>.
-	 * 
-	 * @param neighbors1
-	 *            The neighbors of {@link Node}1.
-	 * 
-	 * @param neighbors2
-	 *            The neighbors of {@link Node}2.
-	 * 
-	 * @return The dice similarity of the two {@link Node}s.
-	 */
-	private double getFractionDW(HashMap<Node, Double> neighbors1,
-			HashMap<Node, Double> neighbors2) {
-		double intersection = getMapValueSum(getMatchingWeighted(neighbors1,
-				neighbors2));
-		double numerator = 2 * intersection;
-		double denominator = getMapValueSum(neighbors1)
-				+ getMapValueSum(neighbors2);
-		double fraction;
-		if (numerator == 0 || denominator == 0)
-			fraction = 0;
-		else
-			fraction = numerator / denominator;
-		return fraction;
-	}
-
-	/**
-	 * Computes the dice similarity of two nodes <i>n</i>, <i>m</i> for an
-	 * undirected weighted graph. The dice similarity is defined as the number
-	 * of elements in the intersection of <i>neighbors(n)</i> and
-	 * <i>neighbors(m)</i> multiplied by 2 and divided by elements of
-	 * <i>neighbors(n)</i> + elements of <i>neighbors(m)</i>.
-	 * 
-	 * @param neighbors1
-	 *            The neighbors of {@link Node}1.
-	 * 
-	 * @param neighbors2
-	 *            The neighbors of {@link Node}2.
-	 * 
-	 * @return The dice similarity of the two {@link Node}s.
-	 */
-	private double getFractionUW(HashMap<Node, Double> neighbors1,
-			HashMap<Node, Double> neighbors2) {
-		double intersection = getMapValueSum(getMatchingWeighted(neighbors1,
-				neighbors2));
-		double numerator = 2 * intersection;
-		double denominator = getMapValueSum(neighbors1)
-				+ getMapValueSum(neighbors2);
-		double fraction;
-		if (numerator == 0 || denominator == 0)
-			fraction = 0;
-		else
-			fraction = numerator / denominator;
-		return fraction;
-	}
-
 	public void init_() {
 		this.result = new Matrix();
+		this.initTopK();
 		this.amountOfNeighbors = new HashMap<Node, Double>();
 		this.matching = new Matrix();
 		this.binnedDistribution = new BinnedDistributionLong(
@@ -412,11 +233,13 @@ public abstract class Dice extends Measures {
 				&& m instanceof Dice
 				&& ((Dice) m).directedDegreeType
 						.equals(this.directedDegreeType)
-				&& ((Dice) m).edgeWeightType.equals(this.edgeWeightType);
+				&& ((Dice) m).edgeWeightType.equals(this.edgeWeightType)
+				&& ((Dice) m).k == this.k;
 	}
 
 	public void reset_() {
 		this.result = new Matrix();
+		this.initTopK();
 		this.amountOfNeighbors = new HashMap<Node, Double>();
 		this.matching = new Matrix();
 		this.binnedDistribution = new BinnedDistributionLong(
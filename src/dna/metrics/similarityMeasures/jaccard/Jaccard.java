@@ -67,6 +67,28 @@ public abstract class Jaccard extends Measures {
 		super(name, directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link Jaccard} in top-k mode.
+	 * 
+	 * @param name
+	 *            The name of the metric.
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public Jaccard(String name, DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super(name, directedDegreeType, edgeWeightType, k);
+	}
+
 	/**
 	 * Static computation of the jaccard similarity.
 	 * 
@@ -116,55 +138,13 @@ public abstract class Jaccard extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForDirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedUnweighted(node1);
-			this.neighborNodesUnweighted.put(node1, neighbors1);
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// jaccardSimilarity is equal to equivalent calculated
-					// before (jaccardSimilarity(1,2) =jaccardSimilarity(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedUnweighted(node2);
-
-				HashSet<Node> intersection = this.getMatchingUnweighted(
-						neighbors1, neighbors2);
-
-				this.matching.put(node1, node2, (double) intersection.size());
-				this.matching.put(node2, node1, (double) intersection.size());
-
-				HashSet<Node> union = this.getUnionUnweighted(neighbors1,
-						neighbors2);
-
-				double fraction;
-				if (intersection.size() == 0 || union.size() == 0)
-					fraction = 0;
-				else
-					fraction = ((double) intersection.size() / (double) union
-							.size());
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			DirectedNode node1 = (DirectedNode) iElement1;
+			this.neighborNodesUnweighted.put(node1,
+					this.getNeighborNodesDirectedUnweighted(node1));
 		}
 
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -172,52 +152,13 @@ public abstract class Jaccard extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForDirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedWeighted(node1);
-			this.neighborNodesWeighted.put(node1, neighbors1);
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// jaccard is equal to equivalent calculated before
-					// (jaccardSimilarity(1,2) = jaccardSimilarity(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedWeighted(node2);
-
-				double numerator = getMapValueSum(getMatchingWeighted(
-						neighbors1, neighbors2));
-				double denominator = getMapValueSum(getUnionWeighted(
-						neighbors1, neighbors2));
-				double fraction;
-				if (numerator == 0 || denominator == 0)
-					fraction = 0.0;
-				else
-					fraction = numerator / denominator;
-
-				this.matching.put(node1, node2, numerator);
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			DirectedNode node1 = (DirectedNode) iElement1;
+			this.neighborNodesWeighted.put(node1,
+					this.getNeighborNodesDirectedWeighted(node1));
 		}
 
-		return true;
+		return this.computeSparse(true);
 	}
 
 	/**
@@ -225,56 +166,13 @@ public abstract class Jaccard extends Measures {
 	 * current snapshot.
 	 */
 	public boolean computeForUndirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedUnweighted(node1);
-			this.neighborNodesUnweighted.put(node1, neighbors1);
-
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// jaccardSimilarity is equal to equivalent calculated
-					// before (jaccardSimilarity(1,2) = jaccardSimilarity(2,1))
-
-					nodeIndex2++;
-					continue;
-				}
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedUnweighted(node2);
-
-				HashSet<Node> intersection = this.getIntersection(neighbors1,
-						neighbors2);
-
-				this.matching.put(node1, node2, (double) intersection.size());
-
-				HashSet<Node> union = this.getUnionUnweighted(neighbors1,
-						neighbors2);
-
-				double fraction;
-				if (intersection.size() == 0 || union.size() == 0)
-					fraction = 0;
-				else
-					fraction = ((double) intersection.size() / (double) union
-							.size());
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			UndirectedNode node1 = (UndirectedNode) iElement1;
+			this.neighborNodesUnweighted.put(node1,
+					this.getNeighborNodesUndirectedUnweighted(node1));
 		}
 
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -282,61 +180,27 @@ public abstract class Jaccard extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForUndirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedWeighted(node1);
-			this.neighborNodesWeighted.put(node1, neighbors1);
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// jaccardSimilarity is equal to equivalent calculated
-					// before (jaccardSimilarity(1,2) = jaccardSimilarity(2,1))
-
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedWeighted(node2);
-
-				double intersection = getMapValueSum(getMatchingWeighted(
-						neighbors1, neighbors2));
-				// # union
-				double denominator = getMapValueSum(getUnionWeighted(
-						neighbors1, neighbors2));
-
-				double fraction;
-				if (intersection == 0 || denominator == 0)
-					fraction = 0.0;
-				else
-					fraction = intersection / denominator;
-
-				this.matching.put(node1, node2, intersection);
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			UndirectedNode node1 = (UndirectedNode) iElement1;
+			this.neighborNodesWeighted.put(node1,
+					this.getNeighborNodesUndirectedWeighted(node1));
 		}
 
-		return true;
+		return this.computeSparse(true);
+	}
+
+	@Override
+	protected double getFraction(double matching, double amount1,
+			double amount2) {
+		// union = neighbors1 + neighbors2 - intersection
+		double denominator = amount1 + amount2 - matching;
+		return denominator == 0 ? 0.0 : matching / denominator;
 	}
 
 	@Override
 	public boolean equals(IMetric m) {
 		return this.isComparableTo(m)
-				&& ((Jaccard) m).result.equals(this.result,
-						ACCEPTED_ERROR_FOR_EQUALITY);
+				&& this.resultEquals((Jaccard) m);
 	}
 
 	@Override
@@ -345,9 +209,10 @@ public abstract class Jaccard extends Measures {
 				"BinnedDistributionEveryNodeToOtherNodes", 0.01, new long[] {},
 				0);
 
+		double[] rowSums = this.getRowSums();
 		for (IElement iterable_element : this.g.getNodes()) {
 
-			double index = this.result.getRowSum((Node) iterable_element)
+			double index = rowSums[((Node) iterable_element).getIndex()]
 					/ this.g.getNodeCount();
 			this.binnedDistributionEveryNodeToOtherNodes.incr(index);
 		}
@@ -421,6 +286,7 @@ public abstract class Jaccard extends Measures {
 
 	public void init_() {
 		this.result = new Matrix();
+		this.initTopK();
 		this.matching = new Matrix();
 		if (this.edgeWeightType.equals(EdgeWeightType.USE_WEIGHTS))
 			// directed weighted
@@ -451,11 +317,13 @@ public abstract class Jaccard extends Measures {
 				&& m instanceof Jaccard
 				&& ((Jaccard) m).directedDegreeType
 						.equals(this.directedDegreeType)
-				&& ((Jaccard) m).edgeWeightType.equals(this.edgeWeightType);
+				&& ((Jaccard) m).edgeWeightType.equals(this.edgeWeightType)
+				&& ((Jaccard) m).k == this.k;
 	}
 
 	public void reset_() {
 		this.result = new Matrix();
+		this.initTopK();
 		this.matching = new Matrix();
 		if (this.edgeWeightType.equals(EdgeWeightType.USE_WEIGHTS))
 			// directedWeighted
@@ -33,6 +33,26 @@ public class JaccardR extends Jaccard implements IRecomputation {
 		super("JaccardR", directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link JaccardR} in top-k mode.
+	 * 
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public JaccardR(DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super("JaccardR", directedDegreeType, edgeWeightType, k);
+	}
+
 	@Override
 	public boolean recompute() {
 		reset_();
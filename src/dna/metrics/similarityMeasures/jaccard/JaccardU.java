@@ -59,6 +59,26 @@ public class JaccardU extends Jaccard implements IBeforeUpdates, IAfterUpdates,
 		super("JaccardU", directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link JaccardU} in top-k mode.
+	 * 
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public JaccardU(DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super("JaccardU", directedDegreeType, edgeWeightType, k);
+	}
+
 	/**
 	 * Add the Src node of the new {@link DirectedEdge} to the neighbors
 	 * {@link Map} entry of the Dst node.
@@ -924,21 +944,19 @@ public class JaccardU extends Jaccard implements IBeforeUpdates, IAfterUpdates,
 	 * Updates the jaccard similarity measure for unweighted graphs.
 	 */
 	private void updateUnweighted(Node node1, Node node2) {
-		HashSet<Node> denominator = this.getUnionUnweighted(
+		int denominator = this.getUnionSizeUnweighted(
 				this.neighborNodesUnweighted.get(node1),
 				this.neighborNodesUnweighted.get(node2));
 		double newJaccard;
-		Double matchingG = this.matching.get(node1, node2);
-		if (matchingG == null || matchingG == 0 || denominator.size() == 0)
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0);
+		if (matchingG == 0 || denominator == 0)
 			newJaccard = 0;
 		else
-			newJaccard = matchingG / (double) denominator.size();
+			newJaccard = matchingG / (double) denominator;
 
-		Double jaccardG = this.result.get(node1, node2);
-		if (jaccardG == null)
-			this.binnedDistribution.decr(0.0);
-		else
-			this.binnedDistribution.decr(jaccardG);
+		this.binnedDistribution.decr(this.result.get(node1.getIndex(),
+				node2.getIndex(), 0.0));
 		this.result.put(node1, node2, newJaccard);
 		this.binnedDistribution.incr(newJaccard);
 
@@ -948,26 +966,22 @@ public class JaccardU extends Jaccard implements IBeforeUpdates, IAfterUpdates,
 	 * Updates the jaccard similarity measure for weighted graphs.
 	 */
 	private void updateWeighted(Node node1, Node node2) {
-		HashMap<Node, Double> denominator = this.getUnionWeighted(
+		double denominator = this.getUnionSumWeighted(
 				this.neighborNodesWeighted.get(node1),
 				this.neighborNodesWeighted.get(node2));
 		double newJaccard;
-		if (this.matching.get(node1, node2) == null
-				|| this.matching.get(node1, node2) == 0
-				|| denominator.size() == 0)
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0);
+		if (matchingG == 0 || denominator == 0)
 			newJaccard = 0;
 		else
-			newJaccard = this.matching.get(node1, node2)
-					/ (double) getMapValueSum(denominator);
+			newJaccard = matchingG / denominator;
 
 		if (newJaccard < 0.0 && Math.abs(newJaccard) <= 1.0E-4) {
 			newJaccard = 0.0;
 		}
-		Double jaccardG = this.result.get(node1, node2);
-		if (jaccardG == null)
-			this.binnedDistribution.decr(0.0);
-		else
-			this.binnedDistribution.decr(jaccardG);
+		this.binnedDistribution.decr(this.result.get(node1.getIndex(),
+				node2.getIndex(), 0.0));
 		this.result.put(node1, node2, newJaccard);
 		this.binnedDistribution.incr(newJaccard);
 	}
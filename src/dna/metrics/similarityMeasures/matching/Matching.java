@@ -1,5 +1,6 @@
 package dna.metrics.similarityMeasures.matching;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -19,13 +20,17 @@ import dna.graph.weights.IntWeight;
 import dna.graph.weights.Weight;
 import dna.metrics.IMetric;
 import dna.metrics.Metric;
+import dna.metrics.algorithms.IRecomputation;
+import dna.metrics.similarityMeasures.CommonNeighbors;
 import dna.metrics.similarityMeasures.Matrix;
+import dna.metrics.similarityMeasures.TopK;
 import dna.series.data.BinnedDistributionLong;
 import dna.series.data.Distribution;
 import dna.series.data.NodeNodeValueList;
 import dna.series.data.NodeValueList;
 import dna.series.data.Value;
 import dna.updates.batch.Batch;
+import dna.util.parameters.IntParameter;
 import dna.util.parameters.Parameter;
 import dna.util.parameters.StringParameter;
 
@@ -109,6 +114,21 @@ public abstract class Matching extends Metric implements IMetric {
 
 	protected BinnedDistributionLong matchingD;
 
+	/** Buffers to count common neighbors, reused for all nodes */
+	private CommonNeighbors commonNeighbors = new CommonNeighbors();
+
+	/**
+	 * Number of nodes with the largest matching to output for each node, 0 to
+	 * only output distributions.
+	 */
+	protected int k;
+
+	/** The k nodes with the largest matching of each node (top-k mode only) */
+	protected TopK topK;
+
+	/** Sums of the matchings per node if {@link #matching} is not stored */
+	private double[] rowSums;
+
 	/**
 	 * Initializes {@link Matching}. Implicitly sets degree type for directed
 	 * graphs to outdegree ang ignore weights.
@@ -138,11 +158,71 @@ public abstract class Matching extends Metric implements IMetric {
 	 */
 	public Matching(String name, DirectedDegreeType directedDegreeType,
 			EdgeWeightType edgeWeightType) {
-		super(name, IMetric.MetricType.exact, directedDegreeType
-				.StringParameter(), edgeWeightType.StringParameter());
+		this(name, directedDegreeType, edgeWeightType, 0);
+	}
+
+	/**
+	 * Initializes {@link Matching} in top-k mode.
+	 * 
+	 * @param name
+	 *            The name of the metric.
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of nodes with the largest matching to keep and
+	 *            output for each node. Recomputations do not store the
+	 *            matching of all pairs in this mode. 0 disables the top-k
+	 *            mode.
+	 */
+	public Matching(String name, DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super(name, IMetric.MetricType.exact, getParameters(
+				directedDegreeType, edgeWeightType, k));
 
 		this.directedDegreeType = directedDegreeType;
 		this.edgeWeightType = edgeWeightType;
+		this.k = k;
+	}
+
+	private static Parameter[] getParameters(
+			DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		if (k > 0)
+			return new Parameter[] { directedDegreeType.StringParameter(),
+					edgeWeightType.StringParameter(),
+					new IntParameter("topK", k) };
+		return new Parameter[] { directedDegreeType.StringParameter(),
+				edgeWeightType.StringParameter() };
+	}
+
+	/**
+	 * Creates the top-k lists (in top-k mode) and attaches them to
+	 * {@link #matching}. Must be called whenever {@link #matching} is
+	 * replaced.
+	 */
+	private void initTopK() {
+		this.rowSums = null;
+		if (this.k <= 0)
+			return;
+		this.topK = new TopK(this.k);
+		if (this.isStoringPairs())
+			this.matching.setTopK(this.topK);
+	}
+
+	/**
+	 * The matching of all pairs is stored in {@link #matching} except for
+	 * recomputations in top-k mode, which only keep the top-k lists.
+	 * 
+	 * @return true if all pairs are stored
+	 */
+	protected boolean isStoringPairs() {
+		return this.k <= 0 || !(this instanceof IRecomputation);
 	}
 
 	/**
@@ -193,42 +273,7 @@ public abstract class Matching extends Metric implements IMetric {
 	 * Computing for graphs with directed edges based only on current snapshot.
 	 */
 	private boolean computeForDirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-		// indices for both for-loops to save some time with using matching(1,2)
-		// = matching(2,1)
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedUnweighted(node1);
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// matching is equal to equivalent calculated before
-					// (matching(1,2) = matching(2,1))
-
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedUnweighted(node2);
-
-				// intersection
-				neighbors2.retainAll(neighbors1);
-				this.matching.put(node1, node2, (double) neighbors2.size());
-				this.matchingD.incr((double) neighbors2.size());
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
-		}
-
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -236,44 +281,7 @@ public abstract class Matching extends Metric implements IMetric {
 	 * snapshot.
 	 */
 	private boolean computeForDirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-		// indices for both for-loops to save some time with using matching(1,2)
-		// = matching(2,1)
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedWeighted(node1);
-
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// matching is equal to equivalent calculated before
-					// (matching(1,2) = matching(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedWeighted(node2);
-
-				// #intersection
-				double sum = getMapValueSum(getMatching(neighbors1, neighbors2));
-
-				this.matching.put(node1, node2, sum);
-				this.matchingD.incr(sum);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
-		}
-
-		return true;
+		return this.computeSparse(true);
 	}
 
 	/**
@@ -281,40 +289,7 @@ public abstract class Matching extends Metric implements IMetric {
 	 * snapshot.
 	 */
 	private boolean computeForUndirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-
-		// indices for both for-loops to save some time with using matching(1,2)
-		// = matching(2,1)
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedUnweighted(node1);
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// matching is equal to equivalent calculated before
-					// (matching(1,2) = matching(2,1))
-					nodeIndex2++;
-					continue;
-				}
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedUnweighted(node2);
-
-				// intersection
-				neighbors2.retainAll(neighbors1);
-				this.matching.put(node1, node2, (double) neighbors2.size());
-				this.matchingD.incr((double) neighbors2.size());
-				nodeIndex2++;
-			}
-			nodeIndex1++;
-		}
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -322,51 +297,58 @@ public abstract class Matching extends Metric implements IMetric {
 	 * snapshot.
 	 */
 	private boolean computeForUndirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-		// indices for both for-loops to save some time with using matching(1,2)
-		// = matching(2,1)
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedWeighted(node1);
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// matching is equal to equivalent calculated before
-					// (matching(1,2) = matching(2,1))
-
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedWeighted(node2);
-
-				// intersection
-				double sum = getMapValueSum(getMatching(neighbors1, neighbors2));
-
-				this.matching.put(node1, node2, sum);
-				this.matchingD.incr(sum);
+		return this.computeSparse(true);
+	}
 
-				nodeIndex2++;
+	/**
+	 * Computes the matching of all pairs of nodes with at least one common
+	 * neighbor. All other pairs have a matching of 0, they are not stored in
+	 * {@link #matching} but only counted in the distribution. In case pairs are
+	 * not stored at all (see {@link #isStoringPairs()}), only the top-k lists
+	 * and the sums per node are computed.
+	 */
+	private boolean computeSparse(boolean weighted) {
+		boolean outgoing = this.isOutgoingMatching();
+		boolean storing = this.isStoringPairs();
+		long zeros = CommonNeighbors.getNumberOfPairs(this.g);
+		if (!storing)
+			this.rowSums = new double[this.g.getMaxNodeIndex() + 1];
+
+		for (IElement iElement1 : this.g.getNodes()) {
+			int index1 = ((Node) iElement1).getIndex();
+			this.commonNeighbors.collect((Node) iElement1, outgoing, weighted);
+			for (int i = 0; i < this.commonNeighbors.size(); i++) {
+				int index2 = this.commonNeighbors.getIndex(i);
+				double value = weighted ? this.commonNeighbors
+						.getWeight(index2) : this.commonNeighbors
+						.getCount(index2);
+
+				if (storing) {
+					this.matching.put(index1, index2, value);
+				} else {
+					this.topK.update(index1, index2, value);
+					this.rowSums[index1] += value;
+					if (index1 != index2)
+						this.rowSums[index2] += value;
+				}
+				this.matchingD.incr(value);
+				zeros--;
 			}
-
-			nodeIndex1++;
 		}
+		this.matchingD.incr(new long[] { zeros });
 
 		return true;
 	}
 
 	@Override
 	public boolean equals(IMetric m) {
-		return this.isComparableTo(m)
-				&& ((Matching) m).matching.equals(this.matching,
-						ACCEPTED_ERROR_FOR_EQUALITY);
+		if (!this.isComparableTo(m))
+			return false;
+		if (this.topK != null)
+			return this.topK.equals(((Matching) m).topK,
+					ACCEPTED_ERROR_FOR_EQUALITY);
+		return ((Matching) m).matching.equals(this.matching,
+				ACCEPTED_ERROR_FOR_EQUALITY);
 	}
 
 	@Override
@@ -374,9 +356,13 @@ public abstract class Matching extends Metric implements IMetric {
 		this.binnedDistributionEveryNodeToOtherNodes = new BinnedDistributionLong(
 				"BinnedDistributionEveryNodeToOtherNodes", 1, new long[] {}, 0);
 
+		int length = this.g.getMaxNodeIndex() + 1;
+		double[] rowSums = this.rowSums == null ? this.matching
+				.getRowSums(length) : Arrays.copyOf(this.rowSums,
+				Math.max(length, this.rowSums.length));
 		for (IElement iterable_element : this.g.getNodes()) {
 
-			double index = this.matching.getRowSum((Node) iterable_element)
+			double index = rowSums[((Node) iterable_element).getIndex()]
 					/ this.g.getNodeCount();
 			this.binnedDistributionEveryNodeToOtherNodes.incr(index);
 		}
@@ -387,74 +373,6 @@ public abstract class Matching extends Metric implements IMetric {
 				this.binnedDistributionEveryNodeToOtherNodes };
 	}
 
-	/**
-	 * Sums the values of a Map.
-	 * 
-	 * @param neighbors
-	 *            A {@link Map} containing the neighbors with their frequency.
-	 * @return The sums of values.
-	 */
-	private double getMapValueSum(HashMap<Node, Double> neighbors) {
-		double sum = 0;
-		for (Entry<Node, Double> e : neighbors.entrySet())
-			sum = sum + e.getValue();
-		return sum;
-	}
-
-	/**
-	 * Computes the intersection between the neighbors of two nodes of an
-	 * directed weighted graph.
-	 * 
-	 * @param neighbors1
-	 *            A {@link Map} includes the neighbors of the first node with
-	 *            their frequency.
-	 * @param neighbors2
-	 *            A {@link Map} includes the neighbors of the second node with
-	 *            their frequency.
-	 * @return A {@link Map} containing the intersection of neighbors1 and
-	 *         neighbors2.
-	 */
-	private HashMap<Node, Double> getMatching(HashMap<Node, Double> neighbors1,
-			HashMap<Node, Double> neighbors2) {
-		final HashMap<Node, Double> neighbors = new HashMap<Node, Double>();
-		for (Entry<Node, Double> e : neighbors1.entrySet()) {
-			if (neighbors2.containsKey(e.getKey())) {
-				if (neighbors2.get(e.getKey()) <= e.getValue()) {
-					neighbors.put(e.getKey(), neighbors2.get(e.getKey()));
-				} else {
-					neighbors.put(e.getKey(), e.getValue());
-				}
-			}
-		}
-		return neighbors;
-	}
-
-	/**
-	 * Get neighbors of a node for an directed unweighted graph.
-	 * 
-	 * @param node
-	 *            The {@link Node} which neighbors are wanted.
-	 * @return A {@link Map} containing all neighbors of given node with their
-	 *         frequency.
-	 */
-	private HashSet<Node> getNeighborNodesDirectedUnweighted(DirectedNode node) {
-		final HashSet<Node> neighbors = new HashSet<Node>();
-
-		DirectedEdge edge;
-		if (isOutgoingMatching())
-			for (IElement iEdge : node.getOutgoingEdges()) {
-				edge = (DirectedEdge) iEdge;
-				neighbors.add(edge.getDst());
-			}
-		else
-			for (IElement iEdge : node.getIncomingEdges()) {
-				edge = (DirectedEdge) iEdge;
-				neighbors.add(edge.getSrc());
-			}
-
-		return neighbors;
-	}
-
 	/**
 	 * Get neighbors of a node for an directed weighted graph.
 	 * 
@@ -538,8 +456,15 @@ public abstract class Matching extends Metric implements IMetric {
 		return new NodeNodeValueList[] {};
 	}
 
+	/**
+	 * In top-k mode, the k nodes with the largest matching of each node are
+	 * returned as one list of node indices and one list of matchings per rank.
+	 */
 	@Override
 	public NodeValueList[] getNodeValueLists() {
+		if (this.topK != null)
+			return this.topK.getNodeValueLists("TopK",
+					this.g.getMaxNodeIndex() + 1);
 		return new NodeValueList[] {};
 	}
 
@@ -551,6 +476,7 @@ public abstract class Matching extends Metric implements IMetric {
 
 	public void init_() {
 		this.matching = new Matrix();
+		this.initTopK();
 		this.matchingD = new BinnedDistributionLong("MatchingD", 1,
 				new long[] {}, 0);
 		this.binnedDistributionEveryNodeToOtherNodes = new BinnedDistributionLong(
@@ -573,7 +499,8 @@ public abstract class Matching extends Metric implements IMetric {
 				&& m instanceof Matching
 				&& ((Matching) m).directedDegreeType
 						.equals(this.directedDegreeType)
-				&& ((Matching) m).edgeWeightType.equals(this.edgeWeightType);
+				&& ((Matching) m).edgeWeightType.equals(this.edgeWeightType)
+				&& ((Matching) m).k == this.k;
 	}
 
 	/**
@@ -589,6 +516,7 @@ public abstract class Matching extends Metric implements IMetric {
 
 	public void reset_() {
 		this.matching = new Matrix();
+		this.initTopK();
 		this.matchingD = new BinnedDistributionLong("MatchingD", 1,
 				new long[] {}, 0);
 		this.binnedDistributionEveryNodeToOtherNodes = new BinnedDistributionLong(
@@ -59,6 +59,26 @@ public class MatchingU extends Matching implements IBeforeUpdates,
 		super("MatchingU", directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link MatchingU} in top-k mode.
+	 * 
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public MatchingU(DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super("MatchingU", directedDegreeType, edgeWeightType, k);
+	}
+
 	/**
 	 * Called after the update is applied to the graph.
 	 * 
@@ -619,9 +639,11 @@ public class MatchingU extends Matching implements IBeforeUpdates,
 	 * Decreases the matching between the given nodes by 1.
 	 */
 	private void decreaseMatchingUnweighted(Node node1, Node node2) {
-		this.matchingD.decr(this.matching.get(node1, node2));
-		this.matching.put(node1, node2, this.matching.get(node1, node2) - 1);
-		this.matchingD.incr(this.matching.get(node1, node2));
+		double value = this.matching.get(node1.getIndex(), node2.getIndex(),
+				0.0);
+		this.matchingD.decr(value);
+		this.matching.put(node1.getIndex(), node2.getIndex(), value - 1);
+		this.matchingD.incr(value - 1);
 	}
 
 	/**
@@ -645,13 +667,14 @@ public class MatchingU extends Matching implements IBeforeUpdates,
 	private void decreaseMatchingWeighted(Node node1, Double value1,
 			Node node2, Double value2) {
 
-		this.matchingD.decr(this.matching.get(node1, node2));
-		double value = this.matching.get(node1, node2)
-				- Math.min(value1, value2);
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0);
+		this.matchingD.decr(matchingG);
+		double value = matchingG - Math.min(value1, value2);
 		if ((value < 0.0) && (Math.abs(value) <= 1.0E-4))
 			value = 0.0;
-		this.matching.put(node1, node2, value);
-		this.matchingD.incr(this.matching.get(node1, node2));
+		this.matching.put(node1.getIndex(), node2.getIndex(), value);
+		this.matchingD.incr(value);
 	}
 
 	/**
@@ -746,13 +769,11 @@ public class MatchingU extends Matching implements IBeforeUpdates,
 	 * Increases the matching between the given nodes by 1.
 	 */
 	private void increaseMatchingUnweighted(Node node1, Node node2) {
-		Double matchingG = this.matching.get(node1, node2);
-		if (matchingG == null)
-			this.matchingD.decr(0.0);
-		else
-			this.matchingD.decr(matchingG);
-		this.matching.put(node1, node2, matchingG == null ? 1 : matchingG + 1);
-		this.matchingD.incr(this.matching.get(node1, node2));
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0);
+		this.matchingD.decr(matchingG);
+		this.matching.put(node1.getIndex(), node2.getIndex(), matchingG + 1);
+		this.matchingD.incr(matchingG + 1);
 	}
 
 	/**
@@ -774,19 +795,16 @@ public class MatchingU extends Matching implements IBeforeUpdates,
 	 */
 	private void increaseMatchingWeighted(Node node1, Double value1,
 			Node node2, Double value2) {
-		Double matchingG = this.matching.get(node1, node2);
-		if (matchingG == null)
-			this.matchingD.decr(0.0);
-		else
-			this.matchingD.decr(matchingG);
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0);
+		this.matchingD.decr(matchingG);
 
-		double value = matchingG == null ? Math.min(value1, value2) : matchingG
-				+ Math.min(value1, value2);
+		double value = matchingG + Math.min(value1, value2);
 		if ((value < 0.0) && (Math.abs(value) <= 1.0E-4))
 			value = 0.0;
-		this.matching.put(node1, node2, value);
+		this.matching.put(node1.getIndex(), node2.getIndex(), value);
 
-		this.matchingD.incr(this.matching.get(node1, node2));
+		this.matchingD.incr(value);
 	}
 
 	@Override
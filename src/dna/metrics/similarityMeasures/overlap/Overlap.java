@@ -59,6 +59,28 @@ public abstract class Overlap extends Measures {
 		super(name, directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link Overlap} in top-k mode.
+	 * 
+	 * @param name
+	 *            The name of the metric.
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public Overlap(String name, DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super(name, directedDegreeType, edgeWeightType, k);
+	}
+
 	/**
 	 * Static computation of the overlap similarity.
 	 * 
@@ -107,54 +129,13 @@ public abstract class Overlap extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForDirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedUnweighted(node1);
-			this.amountOfNeighbors.put(node1, (double) neighbors1.size());
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// overlap is equal to equivalent calculated before
-					// (overlap(1,2) = overlap(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedUnweighted(node2);
-
-				HashSet<Node> intersection = getMatchingUnweighted(neighbors1,
-						neighbors2);
-
-				this.matching.put(node1, node2, (double) intersection.size());
-
-				double numerator = intersection.size();
-				double denominator = Math.min(neighbors1.size(),
-						neighbors2.size());
-				double fraction;
-				if (numerator == 0 || denominator == 0)
-					fraction = 0;
-				else
-					fraction = numerator / denominator;
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			DirectedNode node1 = (DirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					(double) this.getNeighborNodesDirectedUnweighted(node1).size());
 		}
 
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -162,54 +143,13 @@ public abstract class Overlap extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForDirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		DirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (DirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesDirectedWeighted(node1);
-			amountOfNeighbors.put(node1, this.getMapValueSum(this
-					.getNeighborNodesDirectedWeighted(node1)));
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// (overlap(1,2) = overlap(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (DirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesDirectedWeighted(node2);
-
-				// numerator and denominator of the fraction
-				// #intersection
-				double numerator = getMapValueSum(getMatchingWeighted(
-						neighbors1, neighbors2));
-				double denominator = getMinWeighted(neighbors1, neighbors2);
-
-				double fraction;
-				if (numerator == 0 || denominator == 0)
-					fraction = 0.0;
-				else
-					fraction = numerator / denominator;
-
-				this.matching.put(node1, node2, numerator);
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			DirectedNode node1 = (DirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					this.getMapValueSum(this.getNeighborNodesDirectedWeighted(node1)));
 		}
 
-		return true;
+		return this.computeSparse(true);
 	}
 
 	/**
@@ -217,55 +157,13 @@ public abstract class Overlap extends Measures {
 	 * current snapshot.
 	 */
 	public boolean computeForUndirectedUnweightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashSet<Node> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedUnweighted(node1);
-			this.amountOfNeighbors.put(node1, (double) neighbors1.size());
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// overlap is equal to equivalent calculated before
-					// (overlap(1,2) = overlap(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedUnweighted(node2);
-
-				// numerator and denominator of the fraction
-				HashSet<Node> intersection = this.getIntersection(neighbors1,
-						neighbors2);
-
-				this.matching.put(node1, node2, (double) intersection.size());
-
-				int min = Math.min(neighbors1.size(), neighbors2.size());
-
-				double fraction;
-				if (intersection.size() == 0 || min == 0)
-					fraction = 0.0;
-				else
-					fraction = (double) intersection.size() / (double) min;
-
-				this.result.put(node1, node2, fraction);
-
-				this.binnedDistribution.incr(fraction);
-
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			UndirectedNode node1 = (UndirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					(double) this.getNeighborNodesUndirectedUnweighted(node1).size());
 		}
 
-		return true;
+		return this.computeSparse(false);
 	}
 
 	/**
@@ -273,60 +171,26 @@ public abstract class Overlap extends Measures {
 	 * snapshot.
 	 */
 	public boolean computeForUndirectedWeightedGraph() {
-		final Iterable<IElement> nodesOfGraph = this.g.getNodes();
-
-		UndirectedNode node1, node2;
-		// neighbors for node1, node2:
-		HashMap<Node, Double> neighbors1, neighbors2;
-
-		int nodeIndex1 = 0, nodeIndex2;
-
-		for (IElement iElement1 : nodesOfGraph) {
-			node1 = (UndirectedNode) iElement1;
-			neighbors1 = this.getNeighborNodesUndirectedWeighted(node1);
-			amountOfNeighbors.put(node1, this.getMapValueSum(this
-					.getNeighborNodesUndirectedWeighted(node1)));
-			nodeIndex2 = 0;
-			for (IElement iElement2 : nodesOfGraph) {
-				if (nodeIndex2 < nodeIndex1) {
-					// overlap is equal to equivalent calculated before
-					// (overlap(1,2) = overlap(2,1))
-					nodeIndex2++;
-					continue;
-				}
-
-				node2 = (UndirectedNode) iElement2;
-				neighbors2 = this.getNeighborNodesUndirectedWeighted(node2);
-
-				// numerator and denominator of the fraction
-				// #intersection
-				double numerator = getMapValueSum(getMatchingWeighted(
-						neighbors1, neighbors2));
-				double denominator = getMinWeighted(neighbors1, neighbors2);
-				double fraction;
-				if (numerator == 0 || denominator == 0)
-					fraction = 0.0;
-				else
-					fraction = numerator / denominator;
-
-				this.matching.put(node1, node2, numerator);
-
-				this.result.put(node1, node2, fraction);
-				this.binnedDistribution.incr(fraction);
-				nodeIndex2++;
-			}
-
-			nodeIndex1++;
+		for (IElement iElement1 : this.g.getNodes()) {
+			UndirectedNode node1 = (UndirectedNode) iElement1;
+			this.amountOfNeighbors.put(node1,
+					this.getMapValueSum(this.getNeighborNodesUndirectedWeighted(node1)));
 		}
 
-		return true;
+		return this.computeSparse(true);
+	}
+
+	@Override
+	protected double getFraction(double matching, double amount1,
+			double amount2) {
+		double denominator = Math.min(amount1, amount2);
+		return denominator == 0 ? 0.0 : matching / denominator;
 	}
 
 	@Override
 	public boolean equals(IMetric m) {
 		return this.isComparableTo(m)
-				&& ((Overlap) m).result.equals(this.result,
-						ACCEPTED_ERROR_FOR_EQUALITY);
+				&& this.resultEquals((Overlap) m);
 	}
 
 	@Override
@@ -335,9 +199,10 @@ public abstract class Overlap extends Measures {
 				"BinnedDistributionEveryNodeToOtherNodes", 0.01, new long[] {},
 				0);
 
+		double[] rowSums = this.getRowSums();
 		for (IElement iterable_element : this.g.getNodes()) {
 
-			double index = this.result.getRowSum((Node) iterable_element)
+			double index = rowSums[((Node) iterable_element).getIndex()]
 					/ this.g.getNodeCount();
 			this.binnedDistributionEveryNodeToOtherNodes.incr(index);
 		}
@@ -348,19 +213,9 @@ public abstract class Overlap extends Measures {
 				this.binnedDistributionEveryNodeToOtherNodes };
 	}
 
-	/**
-	 * Computes the minimum of two {@link Map}'s
-	 */
-	private Double getMinWeighted(HashMap<Node, Double> neighbors1,
-			HashMap<Node, Double> neighbors2) {
-		if (getMapValueSum(neighbors1) <= getMapValueSum(neighbors2))
-			return getMapValueSum(neighbors1);
-		else
-			return getMapValueSum(neighbors2);
-	}
-
 	public void init_() {
 		this.result = new Matrix();
+		this.initTopK();
 		this.amountOfNeighbors = new HashMap<Node, Double>();
 		this.matching = new Matrix();
 		this.binnedDistribution = new BinnedDistributionLong(
@@ -376,11 +231,13 @@ public abstract class Overlap extends Measures {
 				&& m instanceof Overlap
 				&& ((Overlap) m).directedDegreeType
 						.equals(this.directedDegreeType)
-				&& ((Overlap) m).edgeWeightType.equals(this.edgeWeightType);
+				&& ((Overlap) m).edgeWeightType.equals(this.edgeWeightType)
+				&& ((Overlap) m).k == this.k;
 	}
 
 	public void reset_() {
 		this.result = new Matrix();
+		this.initTopK();
 		this.amountOfNeighbors = new HashMap<Node, Double>();
 		this.matching = new Matrix();
 		this.binnedDistribution = new BinnedDistributionLong(
@@ -57,6 +57,26 @@ public class OverlapU extends Overlap implements IBeforeUpdates, IAfterUpdates,
 		super("OverlapU", directedDegreeType, edgeWeightType);
 	}
 
+	/**
+	 * Initializes {@link OverlapU} in top-k mode.
+	 * 
+	 * @param directedDegreeType
+	 *            <i>in</i> or <i>out</i>, determining whether to use in- or
+	 *            outdegree for directed graphs. Will be ignored for undirected
+	 *            graphs.
+	 * @param edgeWeightType
+	 *            <i>weighted</i> or <i>unweighted</i>, determining whether to
+	 *            use edge weights in weighted graphs or not. Will be ignored
+	 *            for unweighted graphs.
+	 * @param k
+	 *            The number of most similar nodes to keep and output for each
+	 *            node, 0 to disable the top-k mode.
+	 */
+	public OverlapU(DirectedDegreeType directedDegreeType,
+			EdgeWeightType edgeWeightType, int k) {
+		super("OverlapU", directedDegreeType, edgeWeightType, k);
+	}
+
 	/**
 	 * Called after the update is applied to the graph.
 	 * 
@@ -896,22 +916,18 @@ public class OverlapU extends Overlap implements IBeforeUpdates, IAfterUpdates,
 	 */
 	@Override
 	protected void update(Node node1, Node node2) {
+		double matchingG = this.matching.get(node1.getIndex(),
+				node2.getIndex(), 0.0);
 		double fraction;
-		if (this.matching.get(node1, node2) == null
-				|| this.matching.get(node1, node2) == 0
-				|| Math.min(this.amountOfNeighbors.get(node1),
-						this.amountOfNeighbors.get(node2)) == 0)
+		if (matchingG == 0)
 			fraction = 0;
 		else
-			fraction = (this.matching.get(node1, node2))
-					/ Math.min(this.amountOfNeighbors.get(node1),
-							this.amountOfNeighbors.get(node2));
+			fraction = this.getFraction(matchingG,
+					this.amountOfNeighbors.get(node1),
+					this.amountOfNeighbors.get(node2));
 
-		Double overlapG = this.result.get(node1, node2);
-		if (overlapG == null)
-			this.binnedDistribution.decr(0.0);
-		else
-			this.binnedDistribution.decr(overlapG);
+		this.binnedDistribution.decr(this.result.get(node1.getIndex(),
+				node2.getIndex(), 0.0));
 		this.result.put(node1, node2, fraction);
 		this.binnedDistribution.incr(fraction);
 	}
@@ -9,11 +9,13 @@ import dna.graph.Graph;
 import dna.graph.datastructures.DataStructure;
 import dna.graph.datastructures.DataStructure.AccessType;
 import dna.graph.datastructures.DataStructure.ListType;
+import dna.graph.datastructures.DataStructureMigration;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.IDataStructure;
 import dna.profiler.ProfilerMeasurementData.ProfilerDataType;
 import dna.profiler.datatypes.ComparableEntry;
 import dna.profiler.datatypes.ComparableEntryMap;
+import dna.profiler.datatypes.benchmarkresults.BenchmarkingResultsMap;
 import dna.util.Config;
 import dna.util.Log;
 
@@ -31,6 +33,22 @@ public class HotSwap {
 	private static int hotswapWindowSize = Config.getInt("HOTSWAP_WINDOWSIZE");
 	private static int maxNumberOfSwaps = Config
 			.getInt("HOTSWAP_MAXNUMBER_OF_SWAPS");
+	private static boolean backgroundMigration = Config
+			.getBoolean("HOTSWAP_BACKGROUND_MIGRATION");
+
+	/**
+	 * Migration running in the background (if any) and the estimated number
+	 * of elements it copies
+	 */
+	private static DataStructureMigration migration = null;
+	private static double migrationElements;
+
+	/**
+	 * Measured costs (in ns, like the runtime benchmarks) per copied element
+	 * of all swaps done so far, used as swapping costs once available
+	 */
+	private static double migrationCosts = 0;
+	private static double migratedElements = 0;
 
 	/**
 	 * Three variables for storing the accesses onto underlying lists
@@ -41,6 +59,10 @@ public class HotSwap {
 	private static int currAccessListIndex = 0;
 
 	public static void reset() {
+		if (migration != null) {
+			migration.cancel();
+			migration = null;
+		}
 		slidingWindow = new HotSwapMap();
 		accessList = new ProfileEntry[maxAccessListSize];
 		firstSwitch = null;
@@ -114,16 +136,63 @@ public class HotSwap {
 		GraphDataStructure gds = g.getGraphDatastructures();
 		Log.info("        Old DS: " + gds.getStorageDataStructures(true));
 		Log.info("        New DS: " + newGDS.getStorageDataStructures(true));
+		double elements = getNumberOfElementsToMigrate(gds, newGDS);
+
+		if (backgroundMigration) {
+			migration = gds.startMigration(newGDS, g);
+			migrationElements = elements;
+			if (migration != null) {
+				Log.info("        Started migration in the background");
+			}
+			return;
+		}
+
+		long start = System.nanoTime();
 		DataStructure.disableContainsOnAddition();
 		gds.switchDatastructures(newGDS, g);
 		DataStructure.enableContainsOnAddition();
+		addMigrationCosts(System.nanoTime() - start, elements);
 
+		swapDone(newGDS);
+	}
+
+	/**
+	 * Installs the migration running in the background in case it has
+	 * finished.
+	 */
+	private static void tryFinishMigration() {
+		if (!migration.isFinished()) {
+			Log.info("     Migration of data structures is still running");
+			return;
+		}
+		if (migration.install()) {
+			Log.info("     Installed migrated data structures (built in "
+					+ (migration.getBuildDuration() / 1000000)
+					+ " ms in the background, paused for "
+					+ (migration.getPauseDuration() / 1000000)
+					+ " ms, replayed " + migration.getLoggedUpdates()
+					+ " updates)");
+			addMigrationCosts(migration.getDuration(), migrationElements);
+			swapDone(migration.getNewGraphDataStructure());
+		}
+		migration = null;
+	}
+
+	private static void swapDone(GraphDataStructure newGDS) {
 		if (firstSwitch == null) {
 			firstSwitch = newGDS.getStorageDataStructures();
 		}
 		swapsDone++;
 	}
 
+	private static void addMigrationCosts(long duration, double elements) {
+		if (elements <= 0) {
+			return;
+		}
+		migrationCosts += duration;
+		migratedElements += elements;
+	}
+
 	public static int getAmortizationCounter() {
 		/**
 		 * How many batches should we look into the future to see whether the
@@ -147,6 +216,16 @@ public class HotSwap {
 
 		ComparableEntryMap swappingCosts = ProfilerMeasurementData
 				.getMap(ProfilerDataType.RuntimeBenchmark);
+		if (migratedElements > 0) {
+			/**
+			 * Use the costs measured during the previous swaps instead
+			 */
+			((BenchmarkingResultsMap) swappingCosts).put(migrationCosts
+					/ migratedElements
+					* getNumberOfElementsToMigrate(currentGDS, recGDS));
+			return swappingCosts;
+		}
+
 		for (ListType lt : ListType.values()) {
 			if (recGDS.getListClass(lt) == currentGDS.getListClass(lt)) {
 				continue;
@@ -169,7 +248,24 @@ public class HotSwap {
 		return swappingCosts;
 	}
 
+	private static double getNumberOfElementsToMigrate(
+			GraphDataStructure currentGDS, GraphDataStructure recGDS) {
+		double res = 0;
+		for (ListType lt : ListType.values()) {
+			if (recGDS.getListClass(lt) != currentGDS.getListClass(lt)) {
+				res += Profiler.getNumberOfGeneratedLists(lt)
+						* Profiler.getMeanSize(lt);
+			}
+		}
+		return res;
+	}
+
 	public static void trySwap(Graph g) {
+		if (migration != null) {
+			tryFinishMigration();
+			return;
+		}
+
 		if (manualSwitching != null) {
 			EnumMap<ListType, Class<? extends IDataStructure>> listTypes = manualSwitching
 					.get(lastFinishedBatch);
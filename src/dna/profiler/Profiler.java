@@ -55,6 +55,8 @@ public class Profiler {
 	private static EnumMap<DataStructure.ListType, Integer> listSizeCounter;
 
 	private static boolean active = Config.getBoolean("PROFILER_ACTIVATED");
+	private static ProfilerCounters counters = new ProfilerCounters(
+			Config.getInt("PROFILER_SAMPLING_INTERVAL"));
 	private static boolean inInitialBatch = false;
 	private static Graph graph;
 	private static GraphDataStructure gds;
@@ -83,6 +85,8 @@ public class Profiler {
 
 	public static void reset() {
 		active = Config.getBoolean("PROFILER_ACTIVATED");
+		counters = new ProfilerCounters(
+				Config.getInt("PROFILER_SAMPLING_INTERVAL"));
 
 		singleBatchCalls = new HashMap<>();
 		singleRunCalls = new HashMap<>();
@@ -115,6 +119,7 @@ public class Profiler {
 	public static void startRun(int newRun) {
 		run = newRun;
 		singleRunCalls = new HashMap<>();
+		drainCounters();
 
 		generatedListsCounter = new EnumMap<DataStructure.ListType, Integer>(
 				DataStructure.ListType.class);
@@ -128,6 +133,7 @@ public class Profiler {
 	}
 
 	public static void startBatch() {
+		drainCounters();
 		singleBatchCalls = new HashMap<>();
 	}
 
@@ -616,18 +622,46 @@ public class Profiler {
 		if (!active)
 			return;
 
-		ProfileEntry innerMap = entryForKey(singleBatchCalls, mapKey, false);
-		innerMap.increase(lt, a, 1);
+		counters.record(mapKey, lt, a);
+	}
+
+	/**
+	 * Adds the accesses recorded by the counters since the last call to the
+	 * entries of the current batch and updates the list statistics.
+	 */
+	private static void drainCounters() {
+		for (ProfilerCounters.Slot slot : counters.getSlots()) {
+			long[][] counts = slot.drain();
+			ProfileEntry innerMap = null;
+			for (ListType lt : ListType.values()) {
+				for (AccessType a : AccessType.values()) {
+					int count = (int) counts[lt.ordinal()][a.ordinal()];
+					if (count == 0)
+						continue;
+					if (innerMap == null)
+						innerMap = entryForKey(singleBatchCalls,
+								slot.getCallSite(), false);
+					innerMap.increase(lt, a, count);
+					countList(lt, a, count);
+				}
+			}
+		}
+	}
+
+	private static void countList(ListType lt, AccessType a, int count) {
+		if (generatedListsCounter == null)
+			return;
 
 		switch (a) {
 		case Init:
-			generatedListsCounter.put(lt, generatedListsCounter.get(lt) + 1);
+			generatedListsCounter.put(lt, generatedListsCounter.get(lt)
+					+ count);
 			break;
 		case Add:
-			listSizeCounter.put(lt, listSizeCounter.get(lt) + 1);
+			listSizeCounter.put(lt, listSizeCounter.get(lt) + count);
 			break;
 		case RemoveSuccess:
-			listSizeCounter.put(lt, listSizeCounter.get(lt) - 1);
+			listSizeCounter.put(lt, listSizeCounter.get(lt) - count);
 			break;
 		case GetSuccess:
 		case GetFailure:
@@ -652,6 +686,7 @@ public class Profiler {
 	}
 
 	public static int getCount(String mapKey, ListType lt, AccessType at) {
+		drainCounters();
 		return getCount(singleBatchCalls, mapKey, lt, at);
 	}
 
@@ -954,6 +989,7 @@ public class Profiler {
 		String batchDir = Dir.getBatchDataDir(seriesDir, run, batchTimestamp);
 		String runDataDir = Dir.getRunDataDir(seriesDir, run);
 
+		drainCounters();
 		singleRunCalls = merge(singleRunCalls, singleBatchCalls);
 		pointerForMemoryAggregation = singleRunCalls;
 
@@ -1154,6 +1190,7 @@ public class Profiler {
 	}
 
 	public static int getNumberOfGeneratedLists(ListType lt) {
+		drainCounters();
 		return generatedListsCounter.get(lt);
 	}
 
@@ -0,0 +1,145 @@
+package dna.profiler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import dna.graph.datastructures.DataStructure.AccessType;
+import dna.graph.datastructures.DataStructure.ListType;
+
+/**
+ * Counters for the data structure accesses recorded by the profiler.<br>
+ *
+ * For each call site (metric, batch generator, update type, ...), a slot is
+ * registered the first time it is counted. A slot holds one counter per
+ * (ListType, AccessType) which is striped by thread so that concurrent
+ * accesses do not contend on the same cell. The slot of the last call site is
+ * cached, so that consecutive accesses from the same call site do not require
+ * a lookup.<br>
+ *
+ * In case the sampling interval k is larger than 1, only every k-th access of
+ * each counter is recorded and counted k times. The position of the first
+ * sampled access is chosen uniformly at random from 1..k, so the scaled count
+ * is an unbiased estimate of the real number of accesses (the error per
+ * counter is less than k).
+ */
+public class ProfilerCounters {
+
+	private static final int accessTypes = AccessType.values().length;
+
+	private static final int cellsPerStripe = ListType.values().length
+			* accessTypes;
+
+	private final int interval;
+
+	private final int stripeMask;
+
+	private final Random rand;
+
+	private final ConcurrentHashMap<String, Slot> slots;
+
+	private volatile Slot last;
+
+	/**
+	 * @param interval
+	 *            record every interval-th access (1 to count all accesses)
+	 */
+	public ProfilerCounters(int interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("sampling interval must be > 0");
+		}
+		this.interval = interval;
+		int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime()
+				.availableProcessors() - 1)) << 1;
+		this.stripeMask = stripes - 1;
+		this.rand = new Random();
+		this.slots = new ConcurrentHashMap<>();
+		this.last = null;
+	}
+
+	public int getInterval() {
+		return this.interval;
+	}
+
+	public void record(String callSite, ListType lt, AccessType at) {
+		Slot s = this.last;
+		if (s == null
+				|| (s.callSite != callSite && !s.callSite.equals(callSite))) {
+			s = this.register(callSite);
+			this.last = s;
+		}
+		s.record(lt.ordinal() * accessTypes + at.ordinal());
+	}
+
+	private Slot register(String callSite) {
+		Slot s = this.slots.get(callSite);
+		if (s == null) {
+			s = new Slot(callSite);
+			Slot existing = this.slots.putIfAbsent(callSite, s);
+			if (existing != null) {
+				s = existing;
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * @return all slots registered so far
+	 */
+	public Collection<Slot> getSlots() {
+		return new ArrayList<Slot>(this.slots.values());
+	}
+
+	public class Slot {
+		private final String callSite;
+
+		private final AtomicLongArray counts;
+
+		/** accesses until the next one is recorded, per stripe and counter */
+		private final int[] countdown;
+
+		private Slot(String callSite) {
+			this.callSite = callSite;
+			int cells = (stripeMask + 1) * cellsPerStripe;
+			this.counts = new AtomicLongArray(cells);
+			this.countdown = new int[cells];
+			synchronized (rand) {
+				for (int i = 0; i < cells; i++) {
+					this.countdown[i] = 1 + rand.nextInt(interval);
+				}
+			}
+		}
+
+		public String getCallSite() {
+			return this.callSite;
+		}
+
+		private void record(int cell) {
+			int i = ((int) Thread.currentThread().getId() & stripeMask)
+					* cellsPerStripe + cell;
+			if (--this.countdown[i] > 0) {
+				return;
+			}
+			this.countdown[i] = interval;
+			this.counts.getAndAdd(i, interval);
+		}
+
+		/**
+		 * Returns the (scaled) number of accesses counted since the last call
+		 * and resets the counters.
+		 *
+		 * @return number of accesses indexed by ListType and AccessType
+		 */
+		public long[][] drain() {
+			long[][] res = new long[ListType.values().length][accessTypes];
+			for (int i = 0; i < this.counts.length(); i++) {
+				int cell = i % cellsPerStripe;
+				res[cell / accessTypes][cell % accessTypes] += this.counts
+						.getAndSet(i, 0);
+			}
+			return res;
+		}
+	}
+}
@@ -34,6 +34,9 @@ public class BenchmarkingVisitor extends AbstractOutput {
 	public static final String rawExtension = ".rawdata";
 	public static final String aggregationFile = "aggregation" + rawExtension;
 
+	public static final String runtimeKeyPrefix = "RUNTIMEBENCHMARK";
+	public static final String memoryKeyPrefix = "MEMORYBENCHMARK";
+
 	private BenchmarkingConf conf;
 
 	public BenchmarkingVisitor(BenchmarkingConf benchmarkingConf) {
@@ -84,51 +87,72 @@ public class BenchmarkingVisitor extends AbstractOutput {
 							+ ": " + methRes.mean(meter) + ", per Element: "
 							+ perElement;
 					resultList.add(resString);
-					try {
-						Collection<Double> results = methRes
-								.getResultSet(meter);
-
-						Collection<Double> listWithoutMaxN = skipMaxElements(
-								results, BenchmarkingConf.elementsToSkip);
-
-						Collection<Double> resultsNormalized = new ArrayList<Double>(
-								results.size() - 1);
-						for (Double singleRes : listWithoutMaxN) {
-							resultsNormalized.add(singleRes / operationSize);
-						}
-
-						String keyForEntry = "";
-						switch (meter.getClass().getSimpleName()) {
-						case "MemMeter":
-							keyForEntry = "MEMORYBENCHMARK";
-							break;
-						case "TimeMeter":
-							keyForEntry = "RUNTIMEBENCHMARK";
-							break;
-						default:
-							throw new RuntimeException("Got unknown meter "
-									+ meter.getClass().getSimpleName());
-						}
-						keyForEntry += "_" + clazz.getSimpleName() + "_"
-								+ methodName;
-						keyForEntry = keyForEntry.toUpperCase();
-
-						BenchmarkingResult entry = this
-								.getResultEntry(keyForEntry);
-						resultsNormalized = entry.addToMap(inputSize,
-								resultsNormalized);
-						collectedMeasurementData.put(keyForEntry, entry);
-
-						writeResultForGnuplot(meter, clazz.getSimpleName(),
-								methodName, inputSize, resultsNormalized);
-					} catch (IOException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
+
+					Collection<Double> results = methRes.getResultSet(meter);
+
+					Collection<Double> listWithoutMaxN = skipMaxElements(
+							results, BenchmarkingConf.elementsToSkip);
+
+					Collection<Double> resultsNormalized = new ArrayList<Double>(
+							results.size() - 1);
+					for (Double singleRes : listWithoutMaxN) {
+						resultsNormalized.add(singleRes / operationSize);
 					}
+
+					String keyPrefix = "";
+					switch (meter.getClass().getSimpleName()) {
+					case "MemMeter":
+						keyPrefix = memoryKeyPrefix;
+						break;
+					case "TimeMeter":
+						keyPrefix = runtimeKeyPrefix;
+						break;
+					default:
+						throw new RuntimeException("Got unknown meter "
+								+ meter.getClass().getSimpleName());
+					}
+					addResult(keyPrefix, meter.getName(), meter.getUnit(),
+							clazz.getSimpleName(), methodName, inputSize,
+							resultsNormalized);
 				}
 			}
 		}
 		Collections.sort(resultList);
+		writeResults();
+	}
+
+	/**
+	 * Adds the results (per element) of a single operation on the given data
+	 * structure and input size, e.g., Add_Node on DArray. They are written
+	 * by writeResults().
+	 * 
+	 * @param keyPrefix
+	 *            runtimeKeyPrefix or memoryKeyPrefix
+	 */
+	public void addResult(String keyPrefix, String meterName,
+			String meterUnit, String ds, String methodName, int inputSize,
+			Collection<Double> resultsNormalized) {
+		String keyForEntry = (keyPrefix + "_" + ds + "_" + methodName)
+				.toUpperCase();
+
+		BenchmarkingResult entry = this.getResultEntry(keyForEntry);
+		resultsNormalized = entry.addToMap(inputSize, resultsNormalized);
+		collectedMeasurementData.put(keyForEntry, entry);
+
+		try {
+			writeResultForGnuplot(meterName, meterUnit, ds, methodName,
+					inputSize, resultsNormalized);
+		} catch (IOException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes all collected results to the profiler data folder and closes
+	 * the gnuplot files.
+	 */
+	public void writeResults() {
 		try {
 			writeEntriesToProfilerFiles();
 		} catch (IOException e2) {
@@ -204,10 +228,10 @@ public class BenchmarkingVisitor extends AbstractOutput {
 	}
 
 	private void writeGnuplotHeaderSingle(Writer w, String dirName,
-			String fileName, String operation, AbstractMeter meter, String ds)
-			throws IOException {
-		writeGnuplotHeaderCommon(w, dirName, fileName, meter.getUnit());
-		w.writeln("set title \"Benchmarking " + meter.getName() + " on " + ds
+			String fileName, String operation, String meterName,
+			String meterUnit, String ds) throws IOException {
+		writeGnuplotHeaderCommon(w, dirName, fileName, meterUnit);
+		w.writeln("set title \"Benchmarking " + meterName + " on " + ds
 				+ " " + operation + "\"");
 		w.writeln("plot '"
 				+ dirName
@@ -217,10 +241,10 @@ public class BenchmarkingVisitor extends AbstractOutput {
 				+ ds + "' with errorbars linetype 1");
 	}
 
-	private void writeResultForGnuplot(AbstractMeter meter, String ds,
-			String operation, int size, Collection<Double> values)
+	private void writeResultForGnuplot(String meterName, String meterUnit,
+			String ds, String operation, int size, Collection<Double> values)
 			throws IOException {
-		String dirName = outputDir + "/" + meter.getName() + "/";
+		String dirName = outputDir + "/" + meterName + "/";
 
 		// Write data for *single* plot
 		String fileName = ds + "_" + operation;
@@ -228,7 +252,8 @@ public class BenchmarkingVisitor extends AbstractOutput {
 		Writer w = fileWriters.get(dirName + fileName + extension);
 		if (w == null) {
 			w = new Writer(dirName, fileName + extension);
-			writeGnuplotHeaderSingle(w, dirName, fileName, operation, meter, ds);
+			writeGnuplotHeaderSingle(w, dirName, fileName, operation,
+					meterName, meterUnit, ds);
 			fileWriters.put(dirName + fileName + extension, w);
 		}
 
@@ -256,7 +281,7 @@ public class BenchmarkingVisitor extends AbstractOutput {
 				w = new Writer(dirName, aggregationFile, true);
 				fileWriters.put(dirName + aggregationFile, w);
 			}
-			w.writeln(operation + ";" + meter.getUnit() + ";" + fileName
+			w.writeln(operation + ";" + meterUnit + ";" + fileName
 					+ rawExtension);
 		}
 		lastWrittenOp.put(dirName + operation + extension, operation);
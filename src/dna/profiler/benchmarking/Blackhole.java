@@ -0,0 +1,51 @@
+package dna.profiler.benchmarking;
+
+/**
+ * Sink for the results of benchmarked operations. Consuming a value prevents
+ * the JIT compiler from removing the operation that computed it as dead
+ * code. The comparisons against volatile fields can never succeed but cannot
+ * be folded by the compiler either.
+ */
+public final class Blackhole {
+	private volatile boolean bool1 = true;
+	private volatile boolean bool2 = false;
+
+	private volatile int int1 = 1;
+	private volatile int int2 = 2;
+
+	private volatile long long1 = 1;
+	private volatile long long2 = 2;
+
+	private volatile double double1 = 1;
+	private volatile double double2 = 2;
+
+	private volatile Object obj1 = new Object();
+
+	/** only set in the (impossible) case that a consumed value matches */
+	public Object leaked;
+
+	public void consume(boolean value) {
+		if (value == this.bool1 & value == this.bool2)
+			this.leaked = value;
+	}
+
+	public void consume(int value) {
+		if (value == this.int1 & value == this.int2)
+			this.leaked = value;
+	}
+
+	public void consume(long value) {
+		if (value == this.long1 & value == this.long2)
+			this.leaked = value;
+	}
+
+	public void consume(double value) {
+		if (value == this.double1 & value == this.double2)
+			this.leaked = value;
+	}
+
+	public void consume(Object value) {
+		if (value == this.obj1)
+			this.leaked = value;
+	}
+}
@@ -0,0 +1,432 @@
+package dna.profiler.benchmarking;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import dna.graph.ClassPointers;
+import dna.graph.IElement;
+import dna.graph.datastructures.DArray;
+import dna.graph.datastructures.DataStructure;
+import dna.graph.datastructures.DataStructure.ListType;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.datastructures.IDataStructure;
+import dna.graph.datastructures.IEdgeListDatastructure;
+import dna.graph.datastructures.IEdgeListDatastructureReadable;
+import dna.graph.datastructures.INodeListDatastructure;
+import dna.graph.datastructures.INodeListDatastructureReadable;
+import dna.graph.datastructures.IReadable;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.util.Config;
+import dna.util.Rand;
+
+/**
+ * Benchmarks the operations of data structures (Init, Add, ContainsSuccess,
+ * ContainsFailure, GetSuccess, GetFailure, Random, RemoveSuccess,
+ * RemoveFailure, Size, and Iterator on nodes and edges) for all
+ * BENCHMARKING_INPUTSIZES using the MicroBenchmarkRunner. It replaces the
+ * Perfidix-based BenchmarkingExperiments: the benchmarked code is warmed up
+ * before measuring, lists are not rebuilt but reverted after each invocation,
+ * and all results are consumed by a Blackhole.<br>
+ *
+ * Runtime and allocated bytes per operation are stored as
+ * RUNTIMEBENCHMARK_* and MEMORYBENCHMARK_* entries via the
+ * BenchmarkingVisitor, i.e., in the format read by ProfilerMeasurementData
+ * (BenchmarkingResult). Each data structure should be benchmarked in a
+ * separate JVM (see runBenchmark.sh) so that the JIT compiler's profile is
+ * not polluted by the other implementations.
+ */
+public class DataStructureBenchmarks {
+
+	private Class<? extends IDataStructure> dsClass;
+
+	private BenchmarkingConf conf;
+
+	private MicroBenchmarkRunner runner;
+
+	private BenchmarkingVisitor visitor;
+
+	private Node[] nodes;
+
+	private Edge[] edges;
+
+	private GraphDataStructure gds;
+
+	private int size;
+
+	private int operations;
+
+	private INodeListDatastructure nodeList;
+
+	private IEdgeListDatastructure edgeList;
+
+	/** indices of elements in the lists */
+	private int[] randomInList;
+
+	/** node indices not in the node list */
+	private int[] randomIDsNotInList;
+
+	private Node[] randomNodesNotInList;
+
+	private Edge[] randomEdgesNotInList;
+
+	public DataStructureBenchmarks(Class<? extends IDataStructure> dsClass,
+			BenchmarkingConf conf, MicroBenchmarkRunner runner,
+			BenchmarkingVisitor visitor) {
+		this.dsClass = dsClass;
+		this.conf = conf;
+		this.runner = runner;
+		this.visitor = visitor;
+
+		Config.overwrite("GRAPHDATASTRUCTURE_OVERRIDE_CHECKS", "true");
+		DataStructure.disableContainsOnAddition();
+
+		// nodes and edges (i -> i+1) used to fill the lists
+		int max = BenchmarkingExperiments.getMax(conf.getInputSizes())
+				+ conf.getMaxOperationSize();
+		EnumMap<ListType, Class<? extends IDataStructure>> list = GraphDataStructure
+				.getList(ListType.GlobalEdgeList, DArray.class,
+						ListType.GlobalNodeList, DArray.class);
+		GraphDataStructure gds = new GraphDataStructure(list,
+				DirectedNode.class, DirectedEdge.class);
+		this.nodes = new Node[max + 1];
+		this.edges = new Edge[max];
+		this.nodes[0] = gds.newNodeInstance(0);
+		for (int i = 0; i < max; i++) {
+			this.nodes[i + 1] = gds.newNodeInstance(i + 1);
+			this.edges[i] = gds.newEdgeInstance(this.nodes[i],
+					this.nodes[i + 1]);
+		}
+	}
+
+	/**
+	 * Benchmarks all supported operations for all input sizes.
+	 */
+	public void run() {
+		for (int size : this.conf.getInputSizes()) {
+			this.setUp(size);
+			for (MicroBenchmark b : this.getBenchmarks()) {
+				try {
+					MicroBenchmarkRunner.Result res = this.runner.run(b);
+					System.out.println(this.dsClass.getSimpleName() + "_" + res
+							+ ", size " + String.format("%5d", size));
+					this.visitor.addResult(
+							BenchmarkingVisitor.runtimeKeyPrefix, "TimeMeter",
+							"ns", this.dsClass.getSimpleName(), b.getName(),
+							size, res.getTimes());
+					if (this.runner.measuresAllocations()) {
+						this.visitor.addResult(
+								BenchmarkingVisitor.memoryKeyPrefix,
+								"MemMeter", "B", this.dsClass.getSimpleName(),
+								b.getName(), size, res.getAllocations());
+					}
+				} catch (RuntimeException e) {
+					System.err.println("Benchmark " + b.getName() + " failed for "
+							+ this.dsClass.getSimpleName() + " and input size "
+							+ size + ": " + e);
+				}
+			}
+		}
+	}
+
+	private void setUp(int size) {
+		EnumMap<ListType, Class<? extends IDataStructure>> list = GraphDataStructure
+				.getList(ListType.GlobalEdgeList, this.dsClass,
+						ListType.GlobalNodeList, this.dsClass);
+		this.gds = new GraphDataStructure(list, DirectedNode.class,
+				DirectedEdge.class);
+		this.size = size;
+		this.operations = Math.max(1, this.conf.getOperationSize(size));
+
+		this.nodeList = null;
+		if (INodeListDatastructure.class.isAssignableFrom(this.dsClass)) {
+			this.nodeList = (INodeListDatastructure) this.gds
+					.newList(ListType.GlobalNodeList);
+			for (int i = 0; i < size; i++)
+				this.nodeList.add(this.nodes[i]);
+		}
+		this.edgeList = null;
+		if (IEdgeListDatastructure.class.isAssignableFrom(this.dsClass)) {
+			this.edgeList = (IEdgeListDatastructure) this.gds
+					.newList(ListType.GlobalEdgeList);
+			for (int i = 0; i < size; i++)
+				this.edgeList.add(this.edges[i]);
+		}
+
+		this.randomInList = new int[this.operations];
+		this.randomIDsNotInList = new int[this.operations];
+		this.randomNodesNotInList = new Node[this.operations];
+		this.randomEdgesNotInList = new Edge[this.operations];
+		HashSet<Integer> in = new HashSet<Integer>();
+		HashSet<Integer> notIn = new HashSet<Integer>();
+		for (int i = 0; i < this.operations; i++) {
+			int rand;
+			do {
+				rand = Rand.rand.nextInt(size);
+			} while (!in.add(rand));
+			this.randomInList[i] = rand;
+
+			do {
+				rand = Rand.rand.nextInt(Integer.MAX_VALUE);
+			} while (rand < this.nodes.length || !notIn.add(rand));
+			this.randomIDsNotInList[i] = rand;
+			this.randomNodesNotInList[i] = this.gds.newNodeInstance(rand);
+
+			// loops are never contained in the edge list
+			this.randomEdgesNotInList[i] = this.gds.newEdgeInstance(
+					this.nodes[i], this.nodes[i]);
+		}
+	}
+
+	private ArrayList<MicroBenchmark> getBenchmarks() {
+		ArrayList<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+		benchmarks.add(new MicroBenchmark("Init") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(gds.newList(nodeList != null ? ListType.GlobalNodeList
+							: ListType.GlobalEdgeList));
+			}
+
+			@Override
+			public int getOperations() {
+				return operations;
+			}
+		});
+		if (this.nodeList != null)
+			this.addNodeBenchmarks(benchmarks);
+		if (this.edgeList != null)
+			this.addEdgeBenchmarks(benchmarks);
+		return benchmarks;
+	}
+
+	private void addNodeBenchmarks(ArrayList<MicroBenchmark> benchmarks) {
+		final INodeListDatastructure list = this.nodeList;
+		final INodeListDatastructureReadable readable = IReadable.class
+				.isAssignableFrom(this.dsClass) ? (INodeListDatastructureReadable) list
+				: null;
+
+		benchmarks.add(new ListBenchmark("Add_Node") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.add(nodes[size + i]));
+			}
+
+			@Override
+			public void tearDown() {
+				for (int i = 0; i < operations; i++)
+					list.remove(nodes[size + i]);
+			}
+		});
+		benchmarks.add(new ListBenchmark("ContainsSuccess_Node") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.contains(nodes[randomInList[i]]));
+			}
+		});
+		benchmarks.add(new ListBenchmark("ContainsFailure_Node") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.contains(nodes[size + i]));
+			}
+		});
+		if (readable != null) {
+			benchmarks.add(new ListBenchmark("GetSuccess_Node") {
+				@Override
+				public void run(Blackhole bh) {
+					for (int i = 0; i < operations; i++)
+						bh.consume(readable.get(randomInList[i]));
+				}
+			});
+			benchmarks.add(new ListBenchmark("GetFailure_Node") {
+				@Override
+				public void run(Blackhole bh) {
+					for (int i = 0; i < operations; i++)
+						bh.consume(readable.get(randomIDsNotInList[i]));
+				}
+			});
+			benchmarks.add(new ListBenchmark("Random_Node") {
+				@Override
+				public void run(Blackhole bh) {
+					for (int i = 0; i < operations; i++)
+						bh.consume(readable.getRandom());
+				}
+			});
+		}
+		benchmarks.add(new ListBenchmark("RemoveSuccess_Node") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.remove(nodes[randomInList[i]]));
+			}
+
+			@Override
+			public void tearDown() {
+				for (int i = 0; i < operations; i++)
+					list.add(nodes[randomInList[i]]);
+			}
+		});
+		benchmarks.add(new ListBenchmark("RemoveFailure_Node") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.remove(randomNodesNotInList[i]));
+			}
+		});
+		this.addCommonBenchmarks(benchmarks, list, "Node");
+	}
+
+	private void addEdgeBenchmarks(ArrayList<MicroBenchmark> benchmarks) {
+		final IEdgeListDatastructure list = this.edgeList;
+		final IEdgeListDatastructureReadable readable = IReadable.class
+				.isAssignableFrom(this.dsClass) ? (IEdgeListDatastructureReadable) list
+				: null;
+
+		benchmarks.add(new ListBenchmark("Add_Edge") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.add(edges[size + i]));
+			}
+
+			@Override
+			public void tearDown() {
+				for (int i = 0; i < operations; i++)
+					list.remove(edges[size + i]);
+			}
+		});
+		benchmarks.add(new ListBenchmark("ContainsSuccess_Edge") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.contains(edges[randomInList[i]]));
+			}
+		});
+		benchmarks.add(new ListBenchmark("ContainsFailure_Edge") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.contains(randomEdgesNotInList[i]));
+			}
+		});
+		if (readable != null) {
+			benchmarks.add(new ListBenchmark("GetSuccess_Edge") {
+				@Override
+				public void run(Blackhole bh) {
+					for (int i = 0; i < operations; i++) {
+						Edge e = edges[randomInList[i]];
+						bh.consume(readable.get(e.getN1Index(), e.getN2Index()));
+					}
+				}
+			});
+			benchmarks.add(new ListBenchmark("GetFailure_Edge") {
+				@Override
+				public void run(Blackhole bh) {
+					for (int i = 0; i < operations; i++) {
+						Edge e = randomEdgesNotInList[i];
+						bh.consume(readable.get(e.getN1Index(), e.getN2Index()));
+					}
+				}
+			});
+			benchmarks.add(new ListBenchmark("Random_Edge") {
+				@Override
+				public void run(Blackhole bh) {
+					for (int i = 0; i < operations; i++)
+						bh.consume(readable.getRandom());
+				}
+			});
+		}
+		benchmarks.add(new ListBenchmark("RemoveSuccess_Edge") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.remove(edges[randomInList[i]]));
+			}
+
+			@Override
+			public void tearDown() {
+				for (int i = 0; i < operations; i++)
+					list.add(edges[randomInList[i]]);
+			}
+		});
+		benchmarks.add(new ListBenchmark("RemoveFailure_Edge") {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.remove(randomEdgesNotInList[i]));
+			}
+		});
+		this.addCommonBenchmarks(benchmarks, list, "Edge");
+	}
+
+	private void addCommonBenchmarks(ArrayList<MicroBenchmark> benchmarks,
+			final IDataStructure list, String type) {
+		benchmarks.add(new ListBenchmark("Size_" + type) {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++)
+					bh.consume(list.size());
+			}
+		});
+		benchmarks.add(new ListBenchmark("Iterator_" + type) {
+			@Override
+			public void run(Blackhole bh) {
+				for (int i = 0; i < operations; i++) {
+					Iterator<IElement> it = list.iterator();
+					while (it.hasNext())
+						bh.consume(it.next());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Benchmark executing the configured number of operations on a list.
+	 */
+	private abstract class ListBenchmark extends MicroBenchmark {
+		public ListBenchmark(String name) {
+			super(name);
+		}
+
+		@Override
+		public int getOperations() {
+			return operations;
+		}
+	}
+
+	/**
+	 * Benchmarks the given data structures (all of ClassPointers if none are
+	 * given) and writes the results.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) throws ClassNotFoundException {
+		long startTime = System.currentTimeMillis();
+
+		ArrayList<Class<? extends IDataStructure>> classes = new ArrayList<Class<? extends IDataStructure>>();
+		if (args.length == 0) {
+			for (Class<?> c : ClassPointers.dataStructures)
+				classes.add((Class<? extends IDataStructure>) c);
+		}
+		for (String arg : args)
+			classes.add((Class<? extends IDataStructure>) Class.forName(arg));
+
+		BenchmarkingConf conf = new BenchmarkingConf();
+		MicroBenchmarkRunner runner = new MicroBenchmarkRunner();
+		BenchmarkingVisitor visitor = new BenchmarkingVisitor(conf);
+		for (Class<? extends IDataStructure> c : classes)
+			new DataStructureBenchmarks(c, conf, runner, visitor).run();
+		visitor.writeResults();
+
+		long totalSeconds = (System.currentTimeMillis() - startTime) / 1000;
+		System.out.println("Benchmarking " + classes.size()
+				+ " data structures took " + (totalSeconds / 60) + " minutes "
+				+ (totalSeconds % 60) + " seconds");
+	}
+}
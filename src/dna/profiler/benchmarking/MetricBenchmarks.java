@@ -0,0 +1,403 @@
+package dna.profiler.benchmarking;
+
+import java.util.ArrayList;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.edges.Edge;
+import dna.graph.generators.GraphGenerator;
+import dna.graph.generators.canonical.CliqueGraph;
+import dna.graph.generators.canonical.RingGraph;
+import dna.graph.generators.evolvingNetworks.BarabasiAlbertGraph;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.nodes.Node;
+import dna.metrics.IMetric;
+import dna.metrics.algorithms.Algorithms;
+import dna.metrics.algorithms.IAfterEA;
+import dna.metrics.algorithms.IAfterER;
+import dna.metrics.algorithms.IBeforeEA;
+import dna.metrics.algorithms.IBeforeER;
+import dna.metrics.algorithms.IDynamicAlgorithm;
+import dna.metrics.algorithms.IRecomputation;
+import dna.updates.update.EdgeAddition;
+import dna.updates.update.EdgeRemoval;
+import dna.util.Config;
+import dna.util.Log;
+import dna.util.Rand;
+
+/**
+ * Benchmarks metrics on graphs created by RandomGraph, BarabasiAlbertGraph,
+ * CliqueGraph, and RingGraph for all BENCHMARKING_METRIC_GRAPHSIZES using
+ * the MicroBenchmarkRunner:<br>
+ * - for dynamic algorithms (U), the latency of a single edge addition (EA)
+ * and edge removal (ER), i.e., its before and after update handlers and its
+ * application to the graph,<br>
+ * - for recomputations (R), the time to recompute the metric after a batch
+ * of BENCHMARKING_METRIC_UPDATES edge additions (Recompute).<br>
+ *
+ * The cost of applying the updates to the graph alone is benchmarked as
+ * metric "Graph", i.e., the latency of an update handler is the difference
+ * to this baseline. Applied updates are reverted (through the handlers)
+ * after each invocation so that all invocations work on the same graph. On
+ * graphs that are too dense to add edges (cliques), edges are removed before
+ * they are added.<br>
+ *
+ * Besides printing them, runtime and allocated bytes are stored as
+ * RUNTIMEMETRICBENCHMARK_* and MEMORYMETRICBENCHMARK_* entries (per metric,
+ * keyed by generator and update type) via the BenchmarkingVisitor.
+ */
+public class MetricBenchmarks {
+
+	public static final String runtimeKeyPrefix = "RUNTIMEMETRICBENCHMARK";
+	public static final String memoryKeyPrefix = "MEMORYMETRICBENCHMARK";
+
+	private MicroBenchmarkRunner runner;
+
+	private BenchmarkingVisitor visitor;
+
+	private int updates;
+
+	private Graph g;
+
+	private Algorithms algorithms;
+
+	public MetricBenchmarks(MicroBenchmarkRunner runner,
+			BenchmarkingVisitor visitor) {
+		this.runner = runner;
+		this.visitor = visitor;
+		this.updates = Config.getInt("BENCHMARKING_METRIC_UPDATES");
+	}
+
+	/**
+	 * @return graph generators for graphs with the given number of nodes, all
+	 *         but the ring (and the clique with fewer nodes) have about
+	 *         nodes * degree / 2 edges
+	 */
+	public static GraphGenerator[] getGraphGenerators(GraphDataStructure gds,
+			int nodes, int degree) {
+		int edgesPerNode = Math.max(1, degree / 2);
+		int startNodes = 2 * edgesPerNode + 1;
+		int cliqueNodes = Math.min(nodes,
+				(int) Math.ceil(Math.sqrt((double) nodes * degree)));
+		return new GraphGenerator[] {
+				new RandomGraph(gds, nodes, nodes * degree / 2),
+				new BarabasiAlbertGraph(gds, startNodes, startNodes
+						* edgesPerNode / 2, Math.max(0, nodes - startNodes),
+						edgesPerNode), new CliqueGraph(gds, cliqueNodes),
+				new RingGraph(gds, nodes) };
+	}
+
+	/**
+	 * Benchmarks the given metrics (a new instance is created for each
+	 * graph) on all graphs of the configured sizes.
+	 */
+	public void run(ArrayList<Class<? extends IMetric>> metrics)
+			throws ReflectiveOperationException {
+		int degree = Config.getInt("BENCHMARKING_METRIC_DEGREE");
+		for (String size : Config.get("BENCHMARKING_METRIC_GRAPHSIZES")
+				.split(";")) {
+			int nodes = Integer.parseInt(size);
+			for (boolean directed : new boolean[] { false, true }) {
+				GraphDataStructure gds = directed ? GDS.directed() : GDS
+						.undirected();
+				for (GraphGenerator gg : getGraphGenerators(gds, nodes, degree)) {
+					String graph = gg.getClass().getSimpleName()
+							+ (directed ? "Directed" : "Undirected");
+					this.benchmark(null, gg, graph, nodes);
+					for (Class<? extends IMetric> c : metrics) {
+						this.benchmark(c.newInstance(), gg, graph, nodes);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Benchmarks a single metric (null for the graph alone) on a new graph
+	 * generated by the given generator.
+	 */
+	private void benchmark(IMetric m, GraphGenerator gg, String graph,
+			int nodes) {
+		this.g = gg.generate();
+		if (m != null) {
+			if (!m.isApplicable(this.g)) {
+				return;
+			}
+			m.setGraph(this.g);
+			boolean success = m instanceof IDynamicAlgorithm ? ((IDynamicAlgorithm) m)
+					.init() : ((IRecomputation) m).recompute();
+			if (!success) {
+				Log.error("could not initialize metric " + m.getDescription());
+				return;
+			}
+		}
+		this.algorithms = new Algorithms(m == null ? new IMetric[0]
+				: new IMetric[] { m });
+		String name = m == null ? "Graph" : m.getClass().getSimpleName();
+
+		ArrayList<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+		if (m == null || m instanceof IDynamicAlgorithm) {
+			if (m == null || this.algorithms.beforeUpdateEA.length > 0
+					|| this.algorithms.afterUpdateEA.length > 0) {
+				benchmarks.add(new EdgeAdditions());
+			}
+			if (m == null || this.algorithms.beforeUpdateER.length > 0
+					|| this.algorithms.afterUpdateER.length > 0) {
+				benchmarks.add(new EdgeRemovals());
+			}
+		}
+		if (m instanceof IRecomputation) {
+			benchmarks.add(new Recomputation((IRecomputation) m));
+		}
+
+		for (MicroBenchmark b : benchmarks) {
+			try {
+				MicroBenchmarkRunner.Result res = this.runner.run(b);
+				System.out.println(name + "_" + graph + "_" + res + ", nodes "
+						+ String.format("%5d", nodes));
+				this.visitor.addResult(runtimeKeyPrefix, "MetricTimeMeter",
+						"ns", name, graph + "_" + b.getName(), nodes,
+						res.getTimes());
+				if (this.runner.measuresAllocations()) {
+					this.visitor.addResult(memoryKeyPrefix, "MetricMemMeter",
+							"B", name, graph + "_" + b.getName(), nodes,
+							res.getAllocations());
+				}
+			} catch (RuntimeException e) {
+				System.err.println("Benchmark " + b.getName() + " failed for "
+						+ name + " on " + graph + ": " + e);
+			}
+		}
+	}
+
+	/*
+	 * UPDATES
+	 */
+
+	private boolean apply(EdgeAddition u) {
+		boolean success = true;
+		for (IBeforeEA m : this.algorithms.beforeUpdateEA)
+			success &= m.applyBeforeUpdate(u);
+		success &= u.apply(this.g);
+		for (IAfterEA m : this.algorithms.afterUpdateEA)
+			success &= m.applyAfterUpdate(u);
+		return success;
+	}
+
+	private boolean apply(EdgeRemoval u) {
+		boolean success = true;
+		for (IBeforeER m : this.algorithms.beforeUpdateER)
+			success &= m.applyBeforeUpdate(u);
+		success &= u.apply(this.g);
+		for (IAfterER m : this.algorithms.afterUpdateER)
+			success &= m.applyAfterUpdate(u);
+		return success;
+	}
+
+	/**
+	 * @return edges between random nodes that are neither contained in the
+	 *         graph nor loops, null in case the graph is too dense (e.g., a
+	 *         clique)
+	 */
+	private Edge[] getRandomNewEdges(int count) {
+		GraphDataStructure gds = this.g.getGraphDatastructures();
+		Edge[] edges = new Edge[count];
+		int i = 0;
+		int tries = 0;
+		while (i < count && tries++ < 100 * count) {
+			Node n1 = this.g.getRandomNode();
+			Node n2 = this.g.getRandomNode();
+			if (n1 == n2 || this.g.containsEdge(n1, n2))
+				continue;
+			Edge e = gds.newEdgeInstance(n1, n2);
+			boolean duplicate = false;
+			for (int j = 0; j < i && !duplicate; j++)
+				duplicate = edges[j].equals(e);
+			if (!duplicate)
+				edges[i++] = e;
+		}
+		return i < count ? null : edges;
+	}
+
+	/**
+	 * @return distinct random edges of the graph
+	 */
+	private Edge[] getRandomEdges(int count) {
+		if (this.g.getEdgeCount() < count)
+			throw new IllegalStateException("graph " + this.g.getName()
+					+ " has less than " + count + " edges");
+		Edge[] edges = new Edge[count];
+		int i = 0;
+		while (i < count) {
+			Edge e = this.g.getRandomEdge();
+			boolean duplicate = false;
+			for (int j = 0; j < i && !duplicate; j++)
+				duplicate = edges[j] == e;
+			if (!duplicate)
+				edges[i++] = e;
+		}
+		return edges;
+	}
+
+	/**
+	 * Adds random edges, they are removed afterwards. In case the graph is
+	 * too dense, random edges are removed before and added again.
+	 */
+	private class EdgeAdditions extends MicroBenchmark {
+		private EdgeAddition[] additions;
+
+		private boolean removedBefore;
+
+		public EdgeAdditions() {
+			super("EA");
+		}
+
+		@Override
+		public void setUp() {
+			Edge[] edges = getRandomNewEdges(updates);
+			this.removedBefore = edges == null;
+			if (this.removedBefore) {
+				edges = getRandomEdges(updates);
+				for (Edge e : edges)
+					apply(new EdgeRemoval(e));
+			}
+			this.additions = new EdgeAddition[edges.length];
+			for (int i = 0; i < edges.length; i++)
+				this.additions[i] = new EdgeAddition(edges[i]);
+		}
+
+		@Override
+		public void run(Blackhole bh) {
+			for (EdgeAddition u : this.additions)
+				bh.consume(apply(u));
+		}
+
+		@Override
+		public void tearDown() {
+			if (this.removedBefore)
+				return;
+			for (int i = this.additions.length - 1; i >= 0; i--)
+				apply(new EdgeRemoval(this.additions[i].getEdge()));
+		}
+
+		@Override
+		public int getOperations() {
+			return updates;
+		}
+	}
+
+	/**
+	 * Removes random edges, they are added again afterwards.
+	 */
+	private class EdgeRemovals extends MicroBenchmark {
+		private EdgeRemoval[] removals;
+
+		public EdgeRemovals() {
+			super("ER");
+		}
+
+		@Override
+		public void setUp() {
+			Edge[] edges = getRandomEdges(updates);
+			this.removals = new EdgeRemoval[edges.length];
+			for (int i = 0; i < edges.length; i++)
+				this.removals[i] = new EdgeRemoval(edges[i]);
+		}
+
+		@Override
+		public void run(Blackhole bh) {
+			for (EdgeRemoval u : this.removals)
+				bh.consume(apply(u));
+		}
+
+		@Override
+		public void tearDown() {
+			for (int i = this.removals.length - 1; i >= 0; i--)
+				apply(new EdgeAddition(this.removals[i].getEdge()));
+		}
+
+		@Override
+		public int getOperations() {
+			return updates;
+		}
+	}
+
+	/**
+	 * Recomputes the metric after adding random edges (or removing them in
+	 * case the graph is too dense), the changes are reverted afterwards.
+	 */
+	private class Recomputation extends MicroBenchmark {
+		private IRecomputation metric;
+
+		private Edge[] edges;
+
+		private boolean removed;
+
+		public Recomputation(IRecomputation metric) {
+			super("Recompute");
+			this.metric = metric;
+		}
+
+		@Override
+		public void setUp() {
+			this.edges = getRandomNewEdges(updates);
+			this.removed = this.edges == null;
+			if (this.removed) {
+				this.edges = getRandomEdges(updates);
+				for (Edge e : this.edges)
+					new EdgeRemoval(e).apply(g);
+			} else {
+				for (Edge e : this.edges)
+					new EdgeAddition(e).apply(g);
+			}
+		}
+
+		@Override
+		public void run(Blackhole bh) {
+			bh.consume(this.metric.recompute());
+		}
+
+		@Override
+		public void tearDown() {
+			for (Edge e : this.edges) {
+				if (this.removed)
+					new EdgeAddition(e).apply(g);
+				else
+					new EdgeRemoval(e).apply(g);
+			}
+		}
+
+		@Override
+		public int getOperations() {
+			return 1;
+		}
+	}
+
+	/**
+	 * Benchmarks the given metrics (a default set of U and R metrics if none
+	 * are given) and writes the results.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) throws ReflectiveOperationException {
+		ArrayList<Class<? extends IMetric>> metrics = new ArrayList<Class<? extends IMetric>>();
+		String[] names = args.length > 0 ? args : new String[] {
+				"dna.metrics.degree.DegreeDistributionU",
+				"dna.metrics.degree.DegreeDistributionR",
+				"dna.metrics.clustering.UndirectedClusteringCoefficientU",
+				"dna.metrics.clustering.UndirectedClusteringCoefficientR",
+				"dna.metrics.clustering.DirectedClusteringCoefficientU",
+				"dna.metrics.clustering.DirectedClusteringCoefficientR",
+				"dna.metrics.motifs.DirectedMotifsU",
+				"dna.metrics.motifs.DirectedMotifsR",
+				"dna.metrics.connectivity.WeakConnectivityU",
+				"dna.metrics.connectivity.WeakConnectivityR" };
+		for (String name : names)
+			metrics.add((Class<? extends IMetric>) Class.forName(name));
+
+		Rand.init(0);
+		BenchmarkingVisitor visitor = new BenchmarkingVisitor(null);
+		new MetricBenchmarks(new MicroBenchmarkRunner(), visitor).run(metrics);
+		visitor.writeResults();
+	}
+}
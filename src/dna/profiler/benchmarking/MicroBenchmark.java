@@ -0,0 +1,43 @@
+package dna.profiler.benchmarking;
+
+/**
+ * A single benchmarked operation, executed by MicroBenchmarkRunner. Each
+ * invocation consists of an untimed call to setUp(), a timed call to
+ * run(..), which executes getOperations() operations and passes their
+ * results to the Blackhole, and an untimed call to tearDown().
+ */
+public abstract class MicroBenchmark {
+
+	private String name;
+
+	public MicroBenchmark(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Prepares the next invocation. Not timed.
+	 */
+	public void setUp() {
+	}
+
+	/**
+	 * Reverts the changes of the invocation, e.g., removes added elements.
+	 * Not timed.
+	 */
+	public void tearDown() {
+	}
+
+	/**
+	 * Executes the benchmarked operations. Timed.
+	 */
+	public abstract void run(Blackhole bh);
+
+	/**
+	 * @return number of operations executed by a single call to run(..)
+	 */
+	public abstract int getOperations();
+}
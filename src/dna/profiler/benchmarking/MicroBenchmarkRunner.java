@@ -0,0 +1,192 @@
+package dna.profiler.benchmarking;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import dna.util.Config;
+
+/**
+ * Runs MicroBenchmarks: a number of warm-up iterations whose results are
+ * discarded (to let the JIT compiler optimize the benchmarked code) followed
+ * by the measured iterations. Each iteration consists of a fixed number of
+ * invocations, only run(..) is timed (see MicroBenchmark). Garbage is
+ * collected before each iteration.<br>
+ *
+ * Besides the runtime, the bytes allocated by the benchmarking thread during
+ * run(..) are measured in case the JVM supports it
+ * (com.sun.management.ThreadMXBean). Both are reported per operation.<br>
+ *
+ * The numbers of iterations and invocations are configured via
+ * BENCHMARKING_WARMUP_ITERATIONS, BENCHMARKING_RUNS and
+ * BENCHMARKING_INVOCATIONS.
+ */
+public class MicroBenchmarkRunner {
+
+	private int warmupIterations;
+
+	private int iterations;
+
+	private int invocations;
+
+	private Blackhole bh;
+
+	private com.sun.management.ThreadMXBean threads;
+
+	/** bytes allocated by two consecutive calls of allocatedBytes() */
+	private long allocationOverhead;
+
+	public MicroBenchmarkRunner() {
+		this(Config.getInt("BENCHMARKING_WARMUP_ITERATIONS"), Config
+				.getInt("BENCHMARKING_RUNS"), Config
+				.getInt("BENCHMARKING_INVOCATIONS"));
+	}
+
+	public MicroBenchmarkRunner(int warmupIterations, int iterations,
+			int invocations) {
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.invocations = invocations;
+		this.bh = new Blackhole();
+
+		this.threads = null;
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			this.threads = (com.sun.management.ThreadMXBean) ManagementFactory
+					.getThreadMXBean();
+			if (!this.threads.isThreadAllocatedMemorySupported()) {
+				this.threads = null;
+			} else {
+				this.threads.setThreadAllocatedMemoryEnabled(true);
+			}
+		}
+
+		this.allocationOverhead = Long.MAX_VALUE;
+		for (int i = 0; i < 100; i++) {
+			long before = this.allocatedBytes();
+			long after = this.allocatedBytes();
+			this.allocationOverhead = Math.min(this.allocationOverhead, after
+					- before);
+		}
+	}
+
+	/**
+	 * @return true if the allocated bytes are measured
+	 */
+	public boolean measuresAllocations() {
+		return this.threads != null;
+	}
+
+	private long allocatedBytes() {
+		if (this.threads == null)
+			return 0;
+		return this.threads.getThreadAllocatedBytes(Thread.currentThread()
+				.getId());
+	}
+
+	public Result run(MicroBenchmark b) {
+		for (int i = 0; i < this.warmupIterations; i++) {
+			this.iteration(b);
+		}
+
+		Result res = new Result(b.getName());
+		double operations = (double) this.invocations * b.getOperations();
+		for (int i = 0; i < this.iterations; i++) {
+			long[] measured = this.iteration(b);
+			res.times.add(measured[0] / operations);
+			if (this.measuresAllocations())
+				res.allocations.add(measured[1] / operations);
+		}
+		return res;
+	}
+
+	/**
+	 * @return nanoseconds and bytes allocated by all invocations
+	 */
+	private long[] iteration(MicroBenchmark b) {
+		System.gc();
+		long time = 0;
+		long allocated = 0;
+		for (int i = 0; i < this.invocations; i++) {
+			b.setUp();
+			long allocatedStart = this.allocatedBytes();
+			long start = System.nanoTime();
+			b.run(this.bh);
+			long end = System.nanoTime();
+			long allocatedEnd = this.allocatedBytes();
+			b.tearDown();
+			time += end - start;
+			allocated += Math.max(0, allocatedEnd - allocatedStart
+					- this.allocationOverhead);
+		}
+		return new long[] { time, allocated };
+	}
+
+	/**
+	 * Runtime (in ns) and allocated bytes per operation of each measured
+	 * iteration.
+	 */
+	public static class Result {
+		private String name;
+
+		private ArrayList<Double> times;
+
+		private ArrayList<Double> allocations;
+
+		public Result(String name) {
+			this.name = name;
+			this.times = new ArrayList<Double>();
+			this.allocations = new ArrayList<Double>();
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Collection<Double> getTimes() {
+			return this.times;
+		}
+
+		/**
+		 * @return allocated bytes per operation, empty in case they are not
+		 *         measured
+		 */
+		public Collection<Double> getAllocations() {
+			return this.allocations;
+		}
+
+		public double getMeanTime() {
+			return mean(this.times);
+		}
+
+		public double getMeanAllocation() {
+			return mean(this.allocations);
+		}
+
+		/**
+		 * @return allocation rate (in MB/s) while running the benchmarked
+		 *         code
+		 */
+		public double getAllocationRate() {
+			return this.getMeanAllocation() / this.getMeanTime() * 1e9
+					/ (1 << 20);
+		}
+
+		private static double mean(Collection<Double> values) {
+			if (values.isEmpty())
+				return Double.NaN;
+			double sum = 0;
+			for (double v : values)
+				sum += v;
+			return sum / values.size();
+		}
+
+		public String toString() {
+			return this.name + ": " + String.format("%.2f", this.getMeanTime())
+					+ " ns/op, "
+					+ String.format("%.2f", this.getMeanAllocation())
+					+ " B/op, "
+					+ String.format("%.2f", this.getAllocationRate())
+					+ " MB/s";
+		}
+	}
+}
@@ -211,8 +211,8 @@ public class Aggregation {
 
 			// create agg filesystem
 			if (zippedRuns) {
-				ZipWriter.writeFileSystem = ZipWriter
-						.createAggregationFileSystem(dir);
+				ZipWriter.setWriteFileSystem(ZipWriter
+						.createAggregationFileSystem(dir));
 				aggdir = Dir.delimiter;
 			}
 
@@ -224,8 +224,8 @@ public class Aggregation {
 
 			// close agg filesystem
 			if (zippedRuns) {
-				ZipWriter.writeFileSystem.close();
-				ZipWriter.writeFileSystem = null;
+				ZipWriter.getWriteFileSystem().close();
+				ZipWriter.setWriteFileSystem(null);
 			}
 
 			// overwrite tempbatch
@@ -913,8 +913,8 @@ public class Aggregation {
 					aGeneralRuntimes, aMetricRuntimes, aMetrics);
 
 			if (zippedRuns) {
-				ZipWriter.writeFileSystem = ZipWriter
-						.createAggregationFileSystem(dir);
+				ZipWriter.setWriteFileSystem(ZipWriter
+						.createAggregationFileSystem(dir));
 				aggdir = Dir.delimiter;
 			}
 
@@ -925,8 +925,8 @@ public class Aggregation {
 				tempBatch.write(Dir.getBatchDataDir(aggdir, timestamp));
 
 			if (zippedRuns) {
-				ZipWriter.writeFileSystem.close();
-				ZipWriter.writeFileSystem = null;
+				ZipWriter.getWriteFileSystem().close();
+				ZipWriter.setWriteFileSystem(null);
 			}
 
 			// overwrite tempbatch
@@ -0,0 +1,156 @@
+package dna.series;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystem;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import dna.io.Writer;
+import dna.io.ZipWriter;
+import dna.util.Config;
+
+/**
+ * Writes the data of batches in a separate thread while the following
+ * batches are generated (write-behind).<br>
+ *
+ * Write tasks are handed over via a bounded queue of size
+ * GENERATION_ASYNC_WRITE_QUEUE: in case the writer falls behind, submit(..)
+ * blocks until there is space in the queue again (backpressure). Since the
+ * data of metrics is modified while the next batch is computed, only copies
+ * of it must be submitted (see BatchData.copy()).<br>
+ *
+ * Each task is executed with the write FileSystem (see ZipWriter) that was
+ * set in the submitting thread, so zipped runs are written into the right
+ * file. close() blocks until all submitted tasks have been executed and must
+ * be called before such a FileSystem is closed. Files written to the default
+ * file system are synced to the storage device when they are closed (see
+ * Writer.setSyncOnClose(..)), so all of them are durable once close()
+ * returns. In case a task fails, all following tasks are skipped and the
+ * exception is rethrown (wrapped in an IOException) by the next call of
+ * submit(..) or close().
+ */
+public class AsyncBatchDataWriter {
+
+	/**
+	 * @return size of the queue for asynchronous writes configured via
+	 *         GENERATION_ASYNC_WRITE_QUEUE, 0 denotes synchronous writes
+	 */
+	public static int getConfiguredQueueSize() {
+		return Config.getInt("GENERATION_ASYNC_WRITE_QUEUE");
+	}
+
+	/**
+	 * Task writing the data of a single batch.
+	 */
+	public static interface WriteTask {
+		public void write() throws IOException;
+	}
+
+	private static class Entry {
+		private WriteTask task;
+
+		private FileSystem fs;
+
+		private Entry(WriteTask task, FileSystem fs) {
+			this.task = task;
+			this.fs = fs;
+		}
+	}
+
+	private ArrayBlockingQueue<Entry> queue;
+
+	private Thread thread;
+
+	private volatile Throwable error;
+
+	private boolean closed;
+
+	public AsyncBatchDataWriter(String name, int queueSize) {
+		this.queue = new ArrayBlockingQueue<Entry>(queueSize);
+		this.error = null;
+		this.closed = false;
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				AsyncBatchDataWriter.this.process();
+			}
+		}, name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	private void process() {
+		while (true) {
+			Entry e;
+			try {
+				e = this.queue.take();
+			} catch (InterruptedException ex) {
+				return;
+			}
+			if (e.task == null)
+				return;
+
+			ZipWriter.setWriteFileSystem(e.fs);
+			Writer.setSyncOnClose(e.fs == null);
+			try {
+				if (this.error == null)
+					e.task.write();
+			} catch (Throwable t) {
+				if (this.error == null)
+					this.error = t;
+			} finally {
+				ZipWriter.setWriteFileSystem(null);
+				Writer.setSyncOnClose(false);
+			}
+		}
+	}
+
+	private void checkError() throws IOException {
+		if (this.error != null)
+			throw new IOException("writing batch data failed", this.error);
+	}
+
+	/**
+	 * Adds the task to the queue, blocks in case the queue is full.
+	 */
+	public void submit(WriteTask task) throws IOException {
+		this.checkError();
+		if (this.closed)
+			throw new IllegalStateException("writer has already been closed");
+		try {
+			this.queue.put(new Entry(task, ZipWriter.getWriteFileSystem()));
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException(
+					"interrupted while waiting for the writer");
+		}
+	}
+
+	/**
+	 * Executes all submitted tasks, i.e., writes and syncs their files, and
+	 * stops the writer thread.
+	 */
+	public void close() throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				this.queue.put(new Entry(null, null));
+				this.thread.join();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException(
+						"interrupted while waiting for the writer");
+			}
+		}
+		this.checkError();
+	}
+
+	/**
+	 * Stops the writer thread without executing the remaining tasks, e.g., in
+	 * case the generation failed. Has no effect after close().
+	 */
+	public void shutdown() {
+		if (!this.closed) {
+			this.closed = true;
+			this.thread.interrupt();
+		}
+	}
+}
@@ -26,6 +26,16 @@ public class Series {
 		eachBatch, eachRun, eachSeries, never
 	};
 
+	/**
+	 * Creates the series a single run is generated with when runs are
+	 * executed in parallel. Each returned series must have its own graph
+	 * generator, batch generator and metric instances and use the same
+	 * directory and name as the original series.
+	 */
+	public static interface RunSeriesFactory {
+		public Series newRunSeries(int run);
+	}
+
 	public Series(GraphGenerator gg, BatchGenerator bg, IMetric[] metrics,
 			String dir, String name) {
 		this.graphGenerator = gg;
@@ -191,4 +201,58 @@ public class Series {
 	public int getGcOccurence() {
 		return this.gcOccurence;
 	}
+
+	private int parallelRuns = Config.getInt("GENERATION_PARALLEL_RUNS");
+
+	private RunSeriesFactory runSeriesFactory;
+
+	public int getParallelRuns() {
+		return this.parallelRuns;
+	}
+
+	/**
+	 * Sets the number of runs that are generated concurrently. A value > 1
+	 * requires a RunSeriesFactory to be set.
+	 * 
+	 * @param parallelRuns
+	 *            maximum number of runs generated at the same time
+	 */
+	public void setParallelRuns(int parallelRuns) {
+		this.parallelRuns = parallelRuns;
+	}
+
+	public RunSeriesFactory getRunSeriesFactory() {
+		return this.runSeriesFactory;
+	}
+
+	public void setRunSeriesFactory(RunSeriesFactory runSeriesFactory) {
+		this.runSeriesFactory = runSeriesFactory;
+	}
+
+	/**
+	 * Creates a copy of this series for the given run using the
+	 * RunSeriesFactory. Random seed settings and gc settings are taken over
+	 * from this series.
+	 * 
+	 * @param run
+	 *            index of the run the copy is created for
+	 * @return series to generate the given run with
+	 */
+	public Series cloneForRun(int run) {
+		Series s = this.runSeriesFactory.newRunSeries(run);
+		if (s == this) {
+			throw new IllegalStateException(
+					"RunSeriesFactory must not return the original series");
+		}
+		if (!this.dir.equals(s.getDir())) {
+			throw new IllegalStateException("series for run " + run
+					+ " writes to " + s.getDir() + " instead of " + this.dir);
+		}
+		s.setRandomSeedType(this.randomSeedType);
+		s.setRandomSeedReset(this.randomSeedReset);
+		s.setSeed(this.seed);
+		s.setCallGC(this.callGC);
+		s.setParallelRuns(1);
+		return s;
+	}
 }
@@ -2,14 +2,20 @@ package dna.series;
 
 import java.io.File;
 import java.io.IOException;
-
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dna.graph.Graph;
 import dna.io.ZipWriter;
 import dna.io.filesystem.Dir;
 import dna.io.filesystem.Files;
 import dna.metrics.IMetric;
 import dna.metrics.MetricNotApplicableException;
 import dna.metrics.algorithms.Algorithms;
-import dna.metrics.algorithms.IAfterBatch;
 import dna.metrics.algorithms.IAfterEA;
 import dna.metrics.algorithms.IAfterER;
 import dna.metrics.algorithms.IAfterEW;
@@ -25,6 +31,8 @@ import dna.metrics.algorithms.IBeforeNR;
 import dna.metrics.algorithms.IBeforeNW;
 import dna.metrics.algorithms.IDynamicAlgorithm;
 import dna.metrics.algorithms.IRecomputation;
+import dna.metrics.algorithms.MetricScheduler;
+import dna.profiler.Profiler;
 import dna.series.Series.RandomSeedReset;
 import dna.series.aggdata.AggregatedSeries;
 import dna.series.data.BatchData;
@@ -33,15 +41,20 @@ import dna.series.data.Value;
 import dna.updates.batch.Batch;
 import dna.updates.batch.BatchSanitization;
 import dna.updates.batch.BatchSanitizationStats;
+import dna.updates.batch.CompactUpdates;
 import dna.updates.update.EdgeAddition;
 import dna.updates.update.EdgeRemoval;
 import dna.updates.update.EdgeWeight;
 import dna.updates.update.NodeAddition;
 import dna.updates.update.NodeRemoval;
 import dna.updates.update.NodeWeight;
+import dna.updates.update.Update.UpdateType;
 import dna.util.Config;
 import dna.util.Log;
 import dna.util.Memory;
+import dna.util.Rand;
+import dna.util.RandomStream;
+import dna.util.instrumentation.Instrumentation;
 
 public class SeriesGeneration {
 
@@ -122,15 +135,20 @@ public class SeriesGeneration {
 		}
 
 		// generate all runs
-		for (int r = 0; r < runs; r++) {
-			// reset rand per batch / run
-			if (series.getRandomSeedReset() == RandomSeedReset.eachRun) {
-				series.resetRand();
-			}
+		if (SeriesGeneration.canGenerateRunsInParallel(series, runs)) {
+			SeriesGeneration.generateRunsInParallel(series, runs, batches,
+					compare, write, batchGenerationTime);
+		} else {
+			for (int r = 0; r < runs; r++) {
+				// reset rand per batch / run
+				if (series.getRandomSeedReset() == RandomSeedReset.eachRun) {
+					series.resetRand();
+				}
 
-			// generate runW
-			SeriesGeneration.generateRun(series, r, batches, compare, write,
-					batchGenerationTime);
+				// generate runW
+				SeriesGeneration.generateRun(series, r, batches, compare,
+						write, batchGenerationTime);
+			}
 		}
 
 		// read series data structure for aggregation
@@ -157,6 +175,107 @@ public class SeriesGeneration {
 		return sd;
 	}
 
+	/**
+	 * Checks if the runs of the given series can be generated in parallel
+	 * without changing the generated data. This requires a RunSeriesFactory,
+	 * a random seed that does not continue from one run to the next and the
+	 * profiler to be disabled (as it keeps its state globally).
+	 */
+	private static boolean canGenerateRunsInParallel(Series series, int runs) {
+		if (series.getParallelRuns() <= 1 || runs <= 1)
+			return false;
+		if (series.getRunSeriesFactory() == null) {
+			Log.warn("no RunSeriesFactory set, generating runs sequentially");
+			return false;
+		}
+		if (series.getRandomSeedReset() == RandomSeedReset.eachSeries
+				|| series.getRandomSeedReset() == RandomSeedReset.never) {
+			Log.warn("random seed reset " + series.getRandomSeedReset()
+					+ " shares the random sequence between runs, "
+					+ "generating runs sequentially");
+			return false;
+		}
+		if (Profiler.isActive()) {
+			Log.warn("profiler is active, generating runs sequentially");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Generates all runs of a series on a pool of series.getParallelRuns()
+	 * threads. Each run is generated using its own copy of the series (see
+	 * Series.cloneForRun) so that graph, generators, metrics and random
+	 * sequence are not shared between runs.
+	 * 
+	 * @param series
+	 *            Series for which the runs will be generated
+	 * @param runs
+	 *            Amount of runs to be generated
+	 * @param batches
+	 *            Amount of batches that will be generated
+	 * @param compare
+	 *            Flag that decides whether metrics will be automatically
+	 *            compared or not
+	 * @param write
+	 *            Flag that decides whether data will be written on the
+	 *            filesystem or not
+	 * @param batchGenerationTime
+	 *            Long variable representing the artificial generation-time for
+	 *            each batch. Used to simulate a live system.
+	 * @throws IOException
+	 * @throws MetricNotApplicableException
+	 */
+	private static void generateRunsInParallel(final Series series, int runs,
+			final int batches, final boolean compare, final boolean write,
+			final long batchGenerationTime) throws IOException,
+			MetricNotApplicableException {
+		int threads = Math.min(series.getParallelRuns(), runs);
+		Log.info("generating " + runs + " runs using " + threads + " threads");
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>(runs);
+		for (int r = 0; r < runs; r++) {
+			final Series runSeries = series.cloneForRun(r);
+			final int run = r;
+			futures.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					// reset rand per run (on the thread generating the run)
+					if (runSeries.getRandomSeedReset() == RandomSeedReset.eachRun) {
+						runSeries.resetRand();
+					}
+					SeriesGeneration.generateRun(runSeries, run, batches,
+							compare, write, batchGenerationTime);
+					return null;
+				}
+			}));
+		}
+		pool.shutdown();
+
+		try {
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while generating runs", e);
+		} catch (ExecutionException e) {
+			pool.shutdownNow();
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof MetricNotApplicableException)
+				throw (MetricNotApplicableException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+
 	/**
 	 * Generates seperated runs for a series. Parameters 'from' and 'to' mark
 	 * the range. Example: generateRuns(5, 8) -> generates run.5, run.6,
@@ -243,8 +362,8 @@ public class SeriesGeneration {
 
 		// if zipped run, establish filesystem now
 		if (zippedRuns)
-			ZipWriter.writeFileSystem = ZipWriter.createRunFileSystem(
-					series.getDir(), run);
+			ZipWriter.setWriteFileSystem(ZipWriter.createRunFileSystem(
+					series.getDir(), run));
 
 		// reset batch generator
 		series.getBatchGenerator().reset();
@@ -257,31 +376,48 @@ public class SeriesGeneration {
 		// generate initial data
 		BatchData initialData = SeriesGeneration.generateInitialData(series,
 				algorithms);
+		Instrumentation.batchFinished(series, run, initialData);
 		if (compare) {
 			SeriesGeneration.compareMetrics(series);
 		}
-		if (write) {
-			if (!zippedBatches) {
-				String tempDir;
-				if (zippedRuns)
-					tempDir = Dir.getBatchDataDir(Dir.delimiter,
-							initialData.getTimestamp());
-				else
-					tempDir = Dir.getBatchDataDir(series.getDir(), run,
-							initialData.getTimestamp());
-				initialData.write(tempDir);
-			} else {
-				try {
-					initialData.writeSingleFile(
-							Dir.getRunDataDir(series.getDir(), run),
-							initialData.getTimestamp(),
-							Config.get("SUFFIX_ZIP_FILE"), Dir.delimiter);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+		// writes batch data asynchronously in case a queue size is set
+		AsyncBatchDataWriter writer = null;
+		if (write && AsyncBatchDataWriter.getConfiguredQueueSize() > 0)
+			writer = new AsyncBatchDataWriter("BatchDataWriter-run" + run,
+					AsyncBatchDataWriter.getConfiguredQueueSize());
+
+		try {
+			if (write) {
+				SeriesGeneration.writeBatchData(series, run, initialData,
+						zippedBatches, zippedRuns, 0, writer);
 			}
+
+			SeriesGeneration.generateBatches(series, algorithms, run,
+					batches, compare, write, batchGenerationTime,
+					zippedBatches, zippedRuns, writer);
+
+			// wait for all batches to be written before closing the zip
+			if (writer != null)
+				writer.close();
+		} finally {
+			if (writer != null)
+				writer.shutdown();
 		}
 
+		// if zipped run, close filesystem
+		if (zippedRuns) {
+			ZipWriter.getWriteFileSystem().close();
+			ZipWriter.setWriteFileSystem(null);
+		}
+
+		Instrumentation.flushNow();
+	}
+
+	private static void generateBatches(Series series, Algorithms algorithms,
+			int run, int batches, boolean compare, boolean write,
+			long batchGenerationTime, boolean zippedBatches,
+			boolean zippedRuns, AsyncBatchDataWriter writer)
+			throws IOException, MetricNotApplicableException {
 		// garbage collection counter
 		int gcCounter = 1;
 
@@ -304,6 +440,7 @@ public class SeriesGeneration {
 
 			BatchData batchData = SeriesGeneration.generateNextBatch(series,
 					algorithms);
+			Instrumentation.batchFinished(series, run, batchData);
 
 			if (compare) {
 				SeriesGeneration.compareMetrics(series);
@@ -311,19 +448,66 @@ public class SeriesGeneration {
 			if (write) {
 				if (batchGenerationTime > 0) {
 					// generation simulation
+					long deadline = batchGenerationStart + batchGenerationTime;
+					SeriesGeneration.writeBatchData(series, run, batchData,
+							zippedBatches, zippedRuns, deadline, writer);
+
+					// live display simulation
+					long waitTime = deadline - System.currentTimeMillis();
+					if (waitTime > 0) {
+						try {
+							Thread.sleep(waitTime);
+						} catch (InterruptedException e) {
+							e.printStackTrace();
+						}
+					}
+				} else {
+					// no generation simulation
+					SeriesGeneration.writeBatchData(series, run, batchData,
+							zippedBatches, zippedRuns, 0, writer);
+				}
+			}
+
+			// call garbage collection
+			if (series.isCallGC() && i == series.getGcOccurence() * gcCounter) {
+				System.gc();
+				gcCounter++;
+			}
+		}
+	}
+
+	/**
+	 * Writes the data of a batch, either directly or via the given
+	 * asynchronous writer (using a copy of the data, since the metrics keep
+	 * modifying it).
+	 * 
+	 * @param deadline
+	 *            in case it is positive, the data is written to a temporary
+	 *            directory which is renamed not before the given time (live
+	 *            display simulation)
+	 */
+	private static void writeBatchData(final Series series, final int run,
+			BatchData batchData, final boolean zippedBatches,
+			final boolean zippedRuns, final long deadline,
+			AsyncBatchDataWriter writer) throws IOException {
+		final BatchData data = writer == null ? batchData : batchData.copy();
+		AsyncBatchDataWriter.WriteTask task = new AsyncBatchDataWriter.WriteTask() {
+			@Override
+			public void write() throws IOException {
+				if (deadline > 0) {
 					String actualDir;
 					String dirTemp;
 
 					if (zippedBatches) {
 						String nonZipDir = Dir.getBatchDataDir(series.getDir(),
-								run, batchData.getTimestamp());
+								run, data.getTimestamp());
 						actualDir = nonZipDir.substring(0,
 								nonZipDir.length() - 1)
 								+ Config.get("SUFFIX_ZIP_FILE");
 						dirTemp = actualDir + Dir.tempSuffix;
 					} else {
 						actualDir = Dir.getBatchDataDir(series.getDir(), run,
-								batchData.getTimestamp());
+								data.getTimestamp());
 						dirTemp = actualDir
 								.substring(0, actualDir.length() - 1)
 								+ Dir.tempSuffix + Dir.delimiter;
@@ -331,7 +515,7 @@ public class SeriesGeneration {
 
 					if (zippedRuns)
 						dirTemp = Dir.getBatchDataDir(Dir.delimiter,
-								batchData.getTimestamp());
+								data.getTimestamp());
 
 					// rename directory
 					File srcDir = new File(dirTemp);
@@ -342,17 +526,17 @@ public class SeriesGeneration {
 
 					// write
 					if (zippedBatches)
-						batchData.writeSingleFile(
+						data.writeSingleFile(
 								Dir.getRunDataDir(series.getDir(), run),
-								batchData.getTimestamp(),
+								data.getTimestamp(),
 								Config.get("SUFFIX_ZIP_FILE") + Dir.tempSuffix,
 								Dir.delimiter);
 					else
-						batchData.write(dirTemp);
+						data.write(dirTemp);
 
-					// live display simulation
-					long waitTime = batchGenerationTime
-							- (System.currentTimeMillis() - batchGenerationStart);
+					// the batch is visible not before the end of its
+					// simulated generation time
+					long waitTime = deadline - System.currentTimeMillis();
 					if (waitTime > 0) {
 						try {
 							Thread.sleep(waitTime);
@@ -365,37 +549,28 @@ public class SeriesGeneration {
 					if (srcDir.exists())
 						srcDir.renameTo(dstDir);
 				} else {
-					// no generation simulation
 					if (zippedBatches)
-						batchData.writeSingleFile(
+						data.writeSingleFile(
 								Dir.getRunDataDir(series.getDir(), run),
-								batchData.getTimestamp(),
+								data.getTimestamp(),
 								Config.get("SUFFIX_ZIP_FILE"), Dir.delimiter);
 					else {
 						String tempDir;
 						if (zippedRuns)
 							tempDir = Dir.getBatchDataDir(Dir.delimiter,
-									batchData.getTimestamp());
+									data.getTimestamp());
 						else
 							tempDir = Dir.getBatchDataDir(series.getDir(), run,
-									batchData.getTimestamp());
-						batchData.write(tempDir);
+									data.getTimestamp());
+						data.write(tempDir);
 					}
 				}
 			}
-
-			// call garbage collection
-			if (series.isCallGC() && i == series.getGcOccurence() * gcCounter) {
-				System.gc();
-				gcCounter++;
-			}
-		}
-
-		// if zipped run, close filesystem
-		if (zippedRuns) {
-			ZipWriter.writeFileSystem.close();
-			ZipWriter.writeFileSystem = null;
-		}
+		};
+		if (writer == null)
+			task.write();
+		else
+			writer.submit(task);
 	}
 
 	private static boolean compareMetrics(Series series) {
@@ -445,25 +620,36 @@ public class SeriesGeneration {
 	private static BatchData computeInitialMetrics(Series series,
 			BatchData initialData, Algorithms algorithms)
 			throws MetricNotApplicableException {
-		// initial computation of all metrics
-		for (IMetric m : series.getMetrics()) {
-			if (!m.isApplicable(series.getGraph())) {
-				throw new MetricNotApplicableException(m, series.getGraph());
-			}
-			boolean success = false;
-			if (m instanceof IDynamicAlgorithm) {
-				success = ((IDynamicAlgorithm) m).init();
-			} else if (m instanceof IRecomputation) {
-				success = ((IRecomputation) m).recompute();
-			} else {
-				Log.error("unknown metric type: " + m.getClass());
-			}
-			if (success) {
-				initialData.getMetrics().add(m.getData());
-			} else {
-				Log.error("could not create initial data for metric "
-						+ m.getDescription());
+		// metrics draw from their own stream so that the numbers drawn by the
+		// generators do not depend on the metrics of the series
+		RandomStream generatorStream = Rand.getStream();
+		Rand.setStream(generatorStream.derive("metrics@"
+				+ series.getGraph().getTimestamp()));
+
+		try {
+			// initial computation of all metrics
+			for (IMetric m : series.getMetrics()) {
+				if (!m.isApplicable(series.getGraph())) {
+					throw new MetricNotApplicableException(m,
+							series.getGraph());
+				}
+				boolean success = false;
+				if (m instanceof IDynamicAlgorithm) {
+					success = ((IDynamicAlgorithm) m).init();
+				} else if (m instanceof IRecomputation) {
+					success = ((IRecomputation) m).recompute();
+				} else {
+					Log.error("unknown metric type: " + m.getClass());
+				}
+				if (success) {
+					initialData.getMetrics().add(m.getData());
+				} else {
+					Log.error("could not create initial data for metric "
+							+ m.getDescription());
+				}
 			}
+		} finally {
+			Rand.setStream(generatorStream);
 		}
 		return initialData;
 	}
@@ -528,65 +714,85 @@ public class SeriesGeneration {
 		Batch b = series.getBatchGenerator().generate(series.getGraph());
 		Log.info("    " + b.toString());
 
-		// check applicability to batch
-		for (IMetric m : series.getMetrics()) {
-			if (!m.isApplicable(b)) {
-				throw new MetricNotApplicableException(m, b);
-			}
+		if (b.isCompact()
+				&& (algorithms.beforeBatch.length > 0 || algorithms.afterBatch.length > 0)) {
+			// metrics processing the whole batch require the update objects
+			b.materialize();
 		}
 
-		// apply before batch
-		for (IBeforeBatch m : algorithms.beforeBatch) {
-			m.applyBeforeBatch(b);
-		}
+		// metrics draw from their own stream (see computeInitialMetrics)
+		RandomStream generatorStream = Rand.getStream();
+		Rand.setStream(generatorStream.derive("metrics@" + b.getTo()));
+
+		BatchSanitizationStats sanitizationStats;
+		int removedNodes, removedEdges, addedNodes, addedEdges;
+		int updatedNodeWeights, updatedEdgeWeights;
+		try {
+			// check applicability to batch
+			for (IMetric m : series.getMetrics()) {
+				if (!m.isApplicable(b)) {
+					throw new MetricNotApplicableException(m, b);
+				}
+			}
 
-		BatchSanitizationStats sanitizationStats = BatchSanitization
-				.sanitize(b);
-		if (sanitizationStats.getTotal() > 0) {
-			Log.info("      " + sanitizationStats);
-			Log.info("      => " + b.toString());
-		}
+			// apply before batch
+			for (IBeforeBatch m : algorithms.beforeBatch) {
+				m.applyBeforeBatch(b);
+			}
 
-		int removedNodes = SeriesGeneration.applyNRs(series, algorithms,
-				b.getNodeRemovals());
-		int removedEdges = SeriesGeneration.applyERs(series, algorithms,
-				b.getEdgeRemovals());
-
-		int addedNodes = SeriesGeneration.applyNAs(series, algorithms,
-				b.getNodeAdditions());
-		int addedEdges = SeriesGeneration.applyEAs(series, algorithms,
-				b.getEdgeAdditions());
-
-		int updatedNodeWeights = SeriesGeneration.applyNWs(series, algorithms,
-				b.getNodeWeights());
-		int updatedEdgeWeights = SeriesGeneration.applyEWs(series, algorithms,
-				b.getEdgeWeights());
-
-		// int removedNodes = SeriesGeneration.applyUpdates(series,
-		// b.getNodeRemovals(), beforeUpdate, afterUpdate);
-		// int removedEdges = SeriesGeneration.applyUpdates(series,
-		// b.getEdgeRemovals(), beforeUpdate, afterUpdate);
-		//
-		// int addedNodes = SeriesGeneration.applyUpdates(series,
-		// b.getNodeAdditions(), beforeUpdate, afterUpdate);
-		// int addedEdges = SeriesGeneration.applyUpdates(series,
-		// b.getEdgeAdditions(), beforeUpdate, afterUpdate);
-		//
-		// int updatedNodeWeights = SeriesGeneration.applyUpdates(series,
-		// b.getNodeWeights(), beforeUpdate, afterUpdate);
-		// int updatedEdgeWeights = SeriesGeneration.applyUpdates(series,
-		// b.getEdgeWeights(), beforeUpdate, afterUpdate);
-
-		series.getGraph().setTimestamp(b.getTo());
-
-		// apply after batch
-		for (IAfterBatch m : algorithms.afterBatch) {
-			m.applyAfterBatch(b);
-		}
+			sanitizationStats = BatchSanitization.sanitize(b);
+			if (sanitizationStats.getTotal() > 0) {
+				Log.info("      " + sanitizationStats);
+				Log.info("      => " + b.toString());
+			}
 
-		// compute
-		for (IRecomputation m : algorithms.recomputation) {
-			m.recompute();
+			// updates of compact batches are created one at a time while
+			// applying
+			CompactUpdates c = b.getCompactUpdates();
+			Graph g = series.getGraph();
+
+			removedNodes = SeriesGeneration.applyNRs(series, algorithms,
+					c == null ? b.getNodeRemovals() : c
+							.<NodeRemoval> getUpdates(UpdateType.NR, g));
+			removedEdges = SeriesGeneration.applyERs(series, algorithms,
+					c == null ? b.getEdgeRemovals() : c
+							.<EdgeRemoval> getUpdates(UpdateType.ER, g));
+
+			addedNodes = SeriesGeneration.applyNAs(series, algorithms,
+					c == null ? b.getNodeAdditions() : c
+							.<NodeAddition> getUpdates(UpdateType.NA, g));
+			addedEdges = SeriesGeneration.applyEAs(series, algorithms,
+					c == null ? b.getEdgeAdditions() : c
+							.<EdgeAddition> getUpdates(UpdateType.EA, g));
+
+			updatedNodeWeights = SeriesGeneration.applyNWs(series,
+					algorithms, c == null ? b.getNodeWeights() : c
+							.<NodeWeight> getUpdates(UpdateType.NW, g));
+			updatedEdgeWeights = SeriesGeneration.applyEWs(series,
+					algorithms, c == null ? b.getEdgeWeights() : c
+							.<EdgeWeight> getUpdates(UpdateType.EW, g));
+
+			// int removedNodes = SeriesGeneration.applyUpdates(series,
+			// b.getNodeRemovals(), beforeUpdate, afterUpdate);
+			// int removedEdges = SeriesGeneration.applyUpdates(series,
+			// b.getEdgeRemovals(), beforeUpdate, afterUpdate);
+			//
+			// int addedNodes = SeriesGeneration.applyUpdates(series,
+			// b.getNodeAdditions(), beforeUpdate, afterUpdate);
+			// int addedEdges = SeriesGeneration.applyUpdates(series,
+			// b.getEdgeAdditions(), beforeUpdate, afterUpdate);
+			//
+			// int updatedNodeWeights = SeriesGeneration.applyUpdates(series,
+			// b.getNodeWeights(), beforeUpdate, afterUpdate);
+			// int updatedEdgeWeights = SeriesGeneration.applyUpdates(series,
+			// b.getEdgeWeights(), beforeUpdate, afterUpdate);
+
+			series.getGraph().setTimestamp(b.getTo());
+
+			// apply after batch & compute
+			new MetricScheduler(algorithms).execute(series.getGraph(), b);
+		} finally {
+			Rand.setStream(generatorStream);
 		}
 
 		BatchData batchData = new BatchData(b, sanitizationStats, 5, 5,
@@ -41,8 +41,8 @@ public class AggregatedSeries {
 		boolean zippedBatches = false;
 		if (Config.get("GENERATION_AS_ZIP").equals("runs")) {
 			zippedRuns = true;
-			ZipWriter.writeFileSystem = ZipWriter
-					.createAggregationFileSystem(dir);
+			ZipWriter.setWriteFileSystem(ZipWriter
+					.createAggregationFileSystem(dir));
 		}
 		if (Config.get("GENERATION_AS_ZIP").equals("batches"))
 			zippedBatches = true;
@@ -59,8 +59,8 @@ public class AggregatedSeries {
 				this.getBatches()[i].write(tempDir);
 		}
 		if (zippedRuns) {
-			ZipWriter.writeFileSystem.close();
-			ZipWriter.writeFileSystem = null;
+			ZipWriter.getWriteFileSystem().close();
+			ZipWriter.setWriteFileSystem(null);
 		}
 	}
 
@@ -103,6 +103,19 @@ public class BatchData implements IBatch {
 		return this.metrics;
 	}
 
+	/**
+	 * @return copy of this BatchData including copies of all metric data (see
+	 *         MetricData.copy())
+	 */
+	public BatchData copy() {
+		MetricDataList metrics = new MetricDataList(this.metrics.size());
+		for (MetricData m : this.metrics.getList()) {
+			metrics.add(m.copy());
+		}
+		return new BatchData(this.timestamp, this.stats, this.generalRuntimes,
+				this.metricRuntimes, metrics);
+	}
+
 	public void write(String dir) throws IOException {
 		Log.debug("writing BatchData for " + this.timestamp + " to " + dir);
 		this.stats.write(dir,
@@ -270,11 +283,11 @@ public class BatchData implements IBatch {
 	/** Writes the whole batch in a single zip file **/
 	public void writeSingleFile(String fsDir, long timestamp, String suffix,
 			String dir) throws IOException {
-		ZipWriter.writeFileSystem = ZipWriter.createBatchFileSystem(
-				fsDir, suffix, timestamp);
+		ZipWriter.setWriteFileSystem(ZipWriter.createBatchFileSystem(
+				fsDir, suffix, timestamp));
 		this.write(dir);
-		ZipWriter.writeFileSystem.close();
-		ZipWriter.writeFileSystem = null;
+		ZipWriter.getWriteFileSystem().close();
+		ZipWriter.setWriteFileSystem(null);
 	}
 
 	/** Reads the whole batch from a single zip file **/
@@ -5,6 +5,9 @@ import java.util.ArrayList;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.Config;
@@ -55,6 +58,16 @@ public class BinnedDistributionDouble extends DistributionDouble {
 		return this.binsize;
 	}
 
+	/**
+	 * @return copy of this distribution including a copy of its values
+	 */
+	@Override
+	public BinnedDistributionDouble copy() {
+		double[] values = this.getDoubleValues();
+		return new BinnedDistributionDouble(this.getName(), this.binsize,
+				values == null ? null : values.clone());
+	}
+
 	/**
 	 * Increments a value of the distribution. Note: Also increments the
 	 * denominator!
@@ -103,7 +116,7 @@ public class BinnedDistributionDouble extends DistributionDouble {
 	 */
 	public double get(double index) {
 		int mappedIndex = (int) Math.floor((index * (1 / this.binsize)));
-		return (super.getDoubleValues()[mappedIndex]);
+		return super.getValue(mappedIndex);
 	}
 
 	// IO Methods
@@ -121,6 +134,15 @@ public class BinnedDistributionDouble extends DistributionDouble {
 			throw new NullPointerException("no values for distribution \""
 					+ this.getName() + "\" set to be written to " + dir);
 		}
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_BINNED_DISTRIBUTION_DOUBLE);
+			w.writeDouble(this.binsize);
+			w.writeDoubles(values);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		w.writeln(this.binsize); // write binsize in first line
@@ -149,6 +171,24 @@ public class BinnedDistributionDouble extends DistributionDouble {
 		if (!readValues) {
 			return new BinnedDistributionDouble(name, 1, null);
 		}
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_BINNED_DISTRIBUTION_DOUBLE);
+			double binsize = b.readDouble();
+			double[] values = b.readDoubles();
+			b.close();
+			return new BinnedDistributionDouble(name, binsize, values);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			m.nextLine();
+			double binsize = m.readDouble();
+			double[] values = m.readIndexedDoubles();
+			m.close();
+			return new BinnedDistributionDouble(name, binsize, values);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Double> list = new ArrayList<Double>();
 		String line = null;
@@ -5,6 +5,9 @@ import java.util.ArrayList;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.Config;
@@ -56,6 +59,16 @@ public class BinnedDistributionInt extends DistributionInt {
 		return this.binsize;
 	}
 
+	/**
+	 * @return copy of this distribution including a copy of its values
+	 */
+	@Override
+	public BinnedDistributionInt copy() {
+		int[] values = this.getIntValues();
+		return new BinnedDistributionInt(this.getName(), this.binsize,
+				values == null ? null : values.clone(), this.getDenominator());
+	}
+
 	/**
 	 * Increments a value of the distribution. Note: Also increments the
 	 * denominator!
@@ -104,7 +117,7 @@ public class BinnedDistributionInt extends DistributionInt {
 	 */
 	public int get(double index) {
 		int mappedIndex = (int) Math.floor((index * (1 / this.binsize)));
-		return (super.getIntValues()[mappedIndex]);
+		return super.getValue(mappedIndex);
 	}
 
 	// IO Methods
@@ -122,6 +135,16 @@ public class BinnedDistributionInt extends DistributionInt {
 			throw new NullPointerException("no values for distribution \""
 					+ this.getName() + "\" set to be written to " + dir);
 		}
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_BINNED_DISTRIBUTION_INT);
+			w.writeInt(this.getDenominator());
+			w.writeDouble(this.binsize);
+			w.writeInts(values);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		w.writeln(this.getDenominator()); // write denominator in first line
@@ -151,6 +174,29 @@ public class BinnedDistributionInt extends DistributionInt {
 		if (!readValues) {
 			return new BinnedDistributionInt(name, 1, null, 0);
 		}
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_BINNED_DISTRIBUTION_INT);
+			int denominator = b.readInt();
+			double binsize = b.readDouble();
+			int[] values = b.readInts();
+			b.close();
+			return new BinnedDistributionInt(name, binsize, values,
+					denominator);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			m.nextLine();
+			int denominator = m.readInt();
+			m.nextLine();
+			double binsize = m.readDouble();
+			int[] values = m.readIndexedInts();
+			m.close();
+			return new BinnedDistributionInt(name, binsize, values,
+					denominator);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Integer> list = new ArrayList<Integer>();
 		String line = null;
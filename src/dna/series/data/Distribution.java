@@ -5,6 +5,9 @@ import java.util.ArrayList;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.Config;
@@ -39,6 +42,28 @@ public class Distribution extends Data {
 		return this.values;
 	}
 
+	/**
+	 * @return copy of this distribution including a copy of its values
+	 */
+	public Distribution copy() {
+		return new Distribution(this.getName(), this.values == null ? null : this.values.clone());
+	}
+
+	/**
+	 * Growth policy for the value arrays of distributions: the capacity is (at
+	 * least) doubled so that a distribution whose maximum index grows one at a
+	 * time is copied O(log n) instead of O(n) times.
+	 * 
+	 * @param capacity
+	 *            current capacity of the value array
+	 * @param length
+	 *            minimum length required
+	 * @return new capacity of the value array
+	 */
+	protected static int getNewCapacity(int capacity, int length) {
+		return Math.max(length, Math.max(8, 2 * capacity));
+	}
+
 	// IO Methods
 	/**
 	 * @param dir
@@ -53,6 +78,14 @@ public class Distribution extends Data {
 			throw new NullPointerException("no values for distribution \""
 					+ this.getName() + "\" set to be written to " + dir);
 		}
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_DISTRIBUTION);
+			w.writeDoubles(this.values);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		for (int i = 0; i < this.values.length; i++) {
@@ -93,6 +126,21 @@ public class Distribution extends Data {
 		if (!readValues) {
 			return new Distribution(name, null);
 		}
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_DISTRIBUTION);
+			double[] values = b.readDoubles();
+			b.close();
+			return new Distribution(name, values);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			double[] values = m.readIndexedDoubles();
+			m.close();
+			return new Distribution(name, values);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Double> list = new ArrayList<Double>();
 		String line = null;
@@ -2,9 +2,13 @@ package dna.series.data;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.ArrayUtils;
@@ -20,7 +24,10 @@ import dna.util.Config;
 public class DistributionDouble extends Distribution {
 
 	// member variables
+	/** values, might be larger than the logical length (capacity) */
 	private double[] values;
+	/** logical length of the distribution */
+	private int length;
 
 	// values for comparison
 	private double comparedSum;
@@ -36,17 +43,20 @@ public class DistributionDouble extends Distribution {
 	public DistributionDouble(String name) {
 		super(name);
 		this.values = new double[0];
+		this.length = 0;
 	}
 
 	public DistributionDouble(String name, double[] values) {
 		super(name);
 		this.values = values;
+		this.length = values == null ? 0 : values.length;
 	}
 
 	public DistributionDouble(String name, double[] values, double sum,
 			double min, double max, double med, double avg) {
 		super(name);
 		this.values = values;
+		this.length = values == null ? 0 : values.length;
 		this.comparedSum = sum;
 		this.comparedMin = min;
 		this.comparedMax = max;
@@ -60,11 +70,63 @@ public class DistributionDouble extends Distribution {
 	}
 
 	// get methods
+	/**
+	 * @return values of the distribution (of the logical length). In case the
+	 *         value array has spare capacity (e.g., after truncate()), this is
+	 *         a new array on every call.
+	 */
 	public double[] getDoubleValues() {
+		if (this.values != null && this.values.length != this.length) {
+			return Arrays.copyOf(this.values, this.length);
+		}
 		return this.values;
 	}
 
+	/**
+	 * @return value with the given index, without copying the values (see
+	 *         getDoubleValues())
+	 */
+	public double getValue(int index) {
+		if (index >= this.length) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return this.values[index];
+	}
+
+	/**
+	 * @return number of values of the distribution, i.e., largest index + 1
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Ensures that the logical length is at least the given one, growing the
+	 * value array geometrically.
+	 */
+	private void ensureLength(int length) {
+		if (length <= this.length) {
+			return;
+		}
+		if (length > this.values.length) {
+			this.values = Arrays.copyOf(this.values,
+					getNewCapacity(this.values.length, length));
+		}
+		this.length = length;
+	}
+
+	/**
+	 * @return copy of this distribution including a copy of its values
+	 */
+	@Override
+	public DistributionDouble copy() {
+		double[] values = this.getDoubleValues();
+		return new DistributionDouble(this.getName(), values == null ? null
+				: values.clone());
+	}
+
 	public int getMin() {
+		double[] values = this.getDoubleValues();
 		int y = 0;
 		while (values[y] < 0) {
 			y++;
@@ -74,7 +136,7 @@ public class DistributionDouble extends Distribution {
 	}
 
 	public int getMax() {
-		return values.length - 1;
+		return this.length - 1;
 	}
 
 	public double getComparedSum() {
@@ -104,7 +166,10 @@ public class DistributionDouble extends Distribution {
 	 *            Index of the value that will be incremented.
 	 */
 	public void incr(int index) {
-		this.values = ArrayUtils.incr(this.values, index);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		this.values[index]++;
 	}
 
 	/**
@@ -114,7 +179,10 @@ public class DistributionDouble extends Distribution {
 	 *            Index of the value that will be decremented.
 	 */
 	public void decr(int index) {
-		this.values = ArrayUtils.decr(this.values, index);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		this.values[index]--;
 	}
 
 	/**
@@ -125,7 +193,11 @@ public class DistributionDouble extends Distribution {
 	 *            Index of the value that will be decremented.
 	 */
 	public void truncate() {
-		this.values = ArrayUtils.truncate(this.values, 0);
+		// only the logical length is lowered, the capacity is kept for
+		// further increments (-0.0 is reset so that it stays zeroed)
+		while (this.length > 0 && this.values[this.length - 1] == 0) {
+			this.values[--this.length] = 0;
+		}
 	}
 
 	/**
@@ -138,7 +210,10 @@ public class DistributionDouble extends Distribution {
 	 *            Value the integer will be set to.
 	 */
 	public void set(int index, double value) {
-		this.values = ArrayUtils.set(this.values, index, value, 0);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		this.values[index] = value;
 	}
 
 	// IO Methods
@@ -151,14 +226,25 @@ public class DistributionDouble extends Distribution {
 	 *            String representing the desired filename for the Distribution.
 	 */
 	public void write(String dir, String filename) throws IOException {
-		if (this.values == null) {
+		// the value array is written up to the logical length, without
+		// trimming it
+		double[] values = this.values;
+		if (values == null) {
 			throw new NullPointerException("no values for distribution \""
 					+ this.getName() + "\" set to be written to " + dir);
 		}
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_DISTRIBUTION_DOUBLE);
+			w.writeDoubles(values, this.length);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
-		for (int i = 0; i < this.values.length; i++) {
-			w.writeln(i + Config.get("DISTRIBUTION_DELIMITER") + this.values[i]);
+		for (int i = 0; i < this.length; i++) {
+			w.writeln(i + Config.get("DISTRIBUTION_DELIMITER") + values[i]);
 		}
 		w.close();
 	}
@@ -181,6 +267,21 @@ public class DistributionDouble extends Distribution {
 		if (!readValues) {
 			return new DistributionDouble(name, null);
 		}
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_DISTRIBUTION_DOUBLE);
+			double[] values = b.readDoubles();
+			b.close();
+			return new DistributionDouble(name, values);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			double[] values = m.readIndexedDoubles();
+			m.close();
+			return new DistributionDouble(name, values);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Double> list = new ArrayList<Double>();
 		String line = null;
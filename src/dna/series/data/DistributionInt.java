@@ -2,9 +2,13 @@ package dna.series.data;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.ArrayUtils;
@@ -22,7 +26,12 @@ import dna.util.Config;
 public class DistributionInt extends Distribution {
 
 	// class variables
+	/** values, might be larger than the logical length (capacity) */
 	private int[] values;
+	/** logical length of the distribution */
+	private int length;
+	/** values in sparse mode (values is null then) */
+	private SparseCounts sparse;
 	private int denominator;
 
 	// values for comparison
@@ -36,12 +45,32 @@ public class DistributionInt extends Distribution {
 	public DistributionInt(String name, int[] values, int denominator) {
 		super(name);
 		this.values = values;
+		this.length = values == null ? 0 : values.length;
 		this.denominator = denominator;
 	}
 
 	public DistributionInt(String name) {
+		this(name, false);
+	}
+
+	/**
+	 * Creates an empty distribution.
+	 * 
+	 * @param name
+	 *            name of the distribution
+	 * @param sparse
+	 *            true to store the values in a hash map instead of an array,
+	 *            e.g., for heavy-tailed degree distributions with few distinct
+	 *            but large degrees
+	 */
+	public DistributionInt(String name, boolean sparse) {
 		super(name);
-		this.values = new int[0];
+		if (sparse) {
+			this.sparse = new SparseCounts();
+		} else {
+			this.values = new int[0];
+		}
+		this.length = 0;
 		this.denominator = 0;
 	}
 
@@ -49,6 +78,7 @@ public class DistributionInt extends Distribution {
 			int min, int max, int med, double avg) {
 		super(name);
 		this.values = values;
+		this.length = values == null ? 0 : values.length;
 		this.denominator = denominator;
 		this.comparedSum = sum;
 		this.comparedMin = min;
@@ -63,14 +93,78 @@ public class DistributionInt extends Distribution {
 	}
 
 	// get methods
+	/**
+	 * @return values of the distribution (of the logical length). In sparse
+	 *         mode and in case the value array has spare capacity (e.g., after
+	 *         truncate()), this is a new array on every call.
+	 */
 	public int[] getIntValues() {
+		if (this.sparse != null) {
+			return this.sparse.toIntArray(this.length);
+		}
+		if (this.values != null && this.values.length != this.length) {
+			return Arrays.copyOf(this.values, this.length);
+		}
 		return this.values;
 	}
 
+	/**
+	 * @return value with the given index, without copying the values (see
+	 *         getIntValues())
+	 */
+	public int getValue(int index) {
+		if (index >= this.length) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		if (this.sparse != null) {
+			return (int) this.sparse.get(index);
+		}
+		return this.values[index];
+	}
+
+	/**
+	 * @return number of values of the distribution, i.e., largest index + 1
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return true if the values are stored in a hash map instead of an array
+	 */
+	public boolean isSparse() {
+		return this.sparse != null;
+	}
+
+	/**
+	 * Ensures that the logical length is at least the given one, growing the
+	 * value array geometrically.
+	 */
+	private void ensureLength(int length) {
+		if (length <= this.length) {
+			return;
+		}
+		if (this.sparse == null && length > this.values.length) {
+			this.values = Arrays.copyOf(this.values,
+					getNewCapacity(this.values.length, length));
+		}
+		this.length = length;
+	}
+
 	public int getDenominator() {
 		return this.denominator;
 	}
 
+	/**
+	 * @return copy of this distribution including a copy of its values
+	 */
+	@Override
+	public DistributionInt copy() {
+		int[] values = this.getIntValues();
+		return new DistributionInt(this.getName(), values == null ? null
+				: values.clone(), this.denominator);
+	}
+
 	public void setDenominator(int denominator) {
 		this.denominator = denominator;
 	}
@@ -92,6 +186,7 @@ public class DistributionInt extends Distribution {
 	}
 
 	public int getMin() {
+		int[] values = this.getIntValues();
 		int y = 0;
 		if (values.length == 0) {
 			return -1;
@@ -106,7 +201,7 @@ public class DistributionInt extends Distribution {
 	}
 
 	public int getMax() {
-		return values.length - 1;
+		return this.length - 1;
 	}
 
 	public int getComparedSum() {
@@ -133,7 +228,15 @@ public class DistributionInt extends Distribution {
 	 * Recalculates the denominator value.
 	 */
 	public void updateDenominator() {
-		this.denominator = ArrayUtils.sum(this.values);
+		if (this.sparse != null) {
+			this.denominator = ArrayUtils.sum(this.getIntValues());
+			return;
+		}
+		int denominator = 0;
+		for (int i = 0; i < this.length; i++) {
+			denominator += this.values[i];
+		}
+		this.denominator = denominator;
 	}
 
 	/**
@@ -144,7 +247,14 @@ public class DistributionInt extends Distribution {
 	 *            Index of the value that will be incremented.
 	 */
 	public void incr(int index) {
-		this.values = ArrayUtils.incr(this.values, index);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		if (this.sparse != null) {
+			this.sparse.add(index, 1);
+		} else {
+			this.values[index]++;
+		}
 		this.denominator++;
 	}
 
@@ -156,7 +266,14 @@ public class DistributionInt extends Distribution {
 	 *            Index of the value that will be decremented.
 	 */
 	public void decr(int index) {
-		this.values = ArrayUtils.decr(this.values, index);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		if (this.sparse != null) {
+			this.sparse.add(index, -1);
+		} else {
+			this.values[index]--;
+		}
 		this.denominator--;
 	}
 
@@ -168,7 +285,16 @@ public class DistributionInt extends Distribution {
 	 *            Index of the value that will be decremented.
 	 */
 	public void truncate() {
-		this.values = ArrayUtils.truncate(this.values, 0);
+		if (this.sparse != null) {
+			this.length = this.sparse.getTruncatedLength();
+			this.sparse.truncate(this.length);
+			return;
+		}
+		// only the logical length is lowered, the capacity is kept for
+		// further increments
+		while (this.length > 0 && this.values[this.length - 1] == 0) {
+			this.length--;
+		}
 	}
 
 	/**
@@ -181,7 +307,14 @@ public class DistributionInt extends Distribution {
 	 *            Value the integer will be set to.
 	 */
 	public void set(int index, int value) {
-		this.values = ArrayUtils.set(this.values, index, value, 0);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		if (this.sparse != null) {
+			this.sparse.set(index, value);
+		} else {
+			this.values[index] = value;
+		}
 	}
 
 	// IO Methods
@@ -194,16 +327,28 @@ public class DistributionInt extends Distribution {
 	 *            String representing the desired filename for the Distribution.
 	 */
 	public void write(String dir, String filename) throws IOException {
-		if (this.values == null) {
+		// the value array is written up to the logical length, without
+		// trimming it
+		int[] values = this.sparse != null ? this.getIntValues() : this.values;
+		if (values == null) {
 			throw new NullPointerException("no values for distribution \""
 					+ this.getName() + "\" set to be written to " + dir);
 		}
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_DISTRIBUTION_INT);
+			w.writeInt(this.denominator);
+			w.writeInts(values, this.length);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		w.writeln(this.denominator); // write denominator in first line
 
-		for (int i = 0; i < this.values.length; i++) {
-			w.writeln(i + Config.get("DISTRIBUTION_DELIMITER") + this.values[i]);
+		for (int i = 0; i < this.length; i++) {
+			w.writeln(i + Config.get("DISTRIBUTION_DELIMITER") + values[i]);
 		}
 		w.close();
 	}
@@ -226,6 +371,24 @@ public class DistributionInt extends Distribution {
 		if (!readValues) {
 			return new DistributionInt(name, null, 0);
 		}
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_DISTRIBUTION_INT);
+			int denominator = b.readInt();
+			int[] values = b.readInts();
+			b.close();
+			return new DistributionInt(name, values, denominator);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			m.nextLine();
+			int denominator = m.readInt();
+			int[] values = m.readIndexedInts();
+			m.close();
+			return new DistributionInt(name, values, denominator);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Integer> list = new ArrayList<Integer>();
 		String line = null;
@@ -266,9 +429,10 @@ public class DistributionInt extends Distribution {
 	}
 
 	public double computeAverage() {
+		int[] values = this.getIntValues();
 		double avg = 0;
-		for (int i = 0; i < this.values.length; i++) {
-			avg += i * this.values[i];
+		for (int i = 0; i < values.length; i++) {
+			avg += i * values[i];
 		}
 		return avg / this.denominator;
 	}
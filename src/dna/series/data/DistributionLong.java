@@ -2,9 +2,13 @@ package dna.series.data;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.ArrayUtils;
@@ -22,7 +26,12 @@ import dna.util.Config;
 public class DistributionLong extends Distribution {
 
 	// class variables
+	/** values, might be larger than the logical length (capacity) */
 	private long[] values;
+	/** logical length of the distribution */
+	private int length;
+	/** values in sparse mode (values is null then) */
+	private SparseCounts sparse;
 	private long denominator;
 
 	// values for comparison
@@ -36,12 +45,32 @@ public class DistributionLong extends Distribution {
 	public DistributionLong(String name, long[] values, long denominator) {
 		super(name);
 		this.values = values;
+		this.length = values == null ? 0 : values.length;
 		this.denominator = denominator;
 	}
 
 	public DistributionLong(String name) {
+		this(name, false);
+	}
+
+	/**
+	 * Creates an empty distribution.
+	 * 
+	 * @param name
+	 *            name of the distribution
+	 * @param sparse
+	 *            true to store the values in a hash map instead of an array,
+	 *            e.g., for heavy-tailed distributions with few distinct but
+	 *            large indices
+	 */
+	public DistributionLong(String name, boolean sparse) {
 		super(name);
-		this.values = new long[0];
+		if (sparse) {
+			this.sparse = new SparseCounts();
+		} else {
+			this.values = new long[0];
+		}
+		this.length = 0;
 		this.denominator = 0;
 	}
 
@@ -49,6 +78,7 @@ public class DistributionLong extends Distribution {
 			long sum, long min, long max, long med, double avg) {
 		super(name);
 		this.values = values;
+		this.length = values == null ? 0 : values.length;
 		this.denominator = denominator;
 		this.comparedSum = sum;
 		this.comparedMin = min;
@@ -63,19 +93,84 @@ public class DistributionLong extends Distribution {
 	}
 
 	// get methods
+	/**
+	 * @return values of the distribution (of the logical length). In sparse
+	 *         mode and in case the value array has spare capacity (e.g., after
+	 *         truncate()), this is a new array on every call.
+	 */
 	public long[] getLongValues() {
+		if (this.sparse != null) {
+			return this.sparse.toLongArray(this.length);
+		}
+		if (this.values != null && this.values.length != this.length) {
+			return Arrays.copyOf(this.values, this.length);
+		}
 		return this.values;
 	}
 
+	/**
+	 * @return value with the given index, without copying the values (see
+	 *         getLongValues())
+	 */
+	public long getValue(int index) {
+		if (index >= this.length) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		if (this.sparse != null) {
+			return this.sparse.get(index);
+		}
+		return this.values[index];
+	}
+
+	/**
+	 * @return number of values of the distribution, i.e., largest index + 1
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return true if the values are stored in a hash map instead of an array
+	 */
+	public boolean isSparse() {
+		return this.sparse != null;
+	}
+
+	/**
+	 * Ensures that the logical length is at least the given one, growing the
+	 * value array geometrically.
+	 */
+	private void ensureLength(int length) {
+		if (length <= this.length) {
+			return;
+		}
+		if (this.sparse == null && length > this.values.length) {
+			this.values = Arrays.copyOf(this.values,
+					getNewCapacity(this.values.length, length));
+		}
+		this.length = length;
+	}
+
 	public long getDenominator() {
 		return this.denominator;
 	}
 
+	/**
+	 * @return copy of this distribution including a copy of its values
+	 */
+	@Override
+	public DistributionLong copy() {
+		long[] values = this.getLongValues();
+		return new DistributionLong(this.getName(),
+				values == null ? null : values.clone(), this.denominator);
+	}
+
 	public void setDenominator(long denominator) {
 		this.denominator = denominator;
 	}
 
 	public long getMin() {
+		long[] values = this.getLongValues();
 		int y = 0;
 		while (values[y] < 0) {
 			y++;
@@ -85,7 +180,7 @@ public class DistributionLong extends Distribution {
 	}
 
 	public long getMax() {
-		return (long) values.length - 1;
+		return (long) this.length - 1;
 	}
 
 	public long getComparedSum() {
@@ -112,7 +207,15 @@ public class DistributionLong extends Distribution {
 	 * Recalculates the denominator value.
 	 */
 	public void updateDenominator() {
-		this.denominator = ArrayUtils.sum(this.values);
+		if (this.sparse != null) {
+			this.denominator = ArrayUtils.sum(this.getLongValues());
+			return;
+		}
+		long denominator = 0;
+		for (int i = 0; i < this.length; i++) {
+			denominator += this.values[i];
+		}
+		this.denominator = denominator;
 	}
 
 	/**
@@ -123,10 +226,43 @@ public class DistributionLong extends Distribution {
 	 *            Index of the value that will be incremented.
 	 */
 	public void incr(int index) {
-		this.values = ArrayUtils.incr(this.values, index);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		if (this.sparse != null) {
+			this.sparse.add(index, 1);
+		} else {
+			this.values[index]++;
+		}
 		this.denominator++;
 	}
 
+	/**
+	 * Increments all values of the distribution by the given counts, i.e.,
+	 * value i is incremented by counts[i]. Note: Also increments the
+	 * denominator by the sum of all counts!
+	 * 
+	 * @param counts
+	 *            counts to add to the values of the distribution
+	 */
+	public void incr(long[] counts) {
+		int length = counts.length;
+		while (length > 0 && counts[length - 1] == 0) {
+			length--;
+		}
+		this.ensureLength(length);
+		for (int i = 0; i < length; i++) {
+			if (this.sparse != null) {
+				if (counts[i] != 0) {
+					this.sparse.add(i, counts[i]);
+				}
+			} else {
+				this.values[i] += counts[i];
+			}
+			this.denominator += counts[i];
+		}
+	}
+
 	/**
 	 * Decrements a value of the distribution. Note: Also decrements the
 	 * denominator!
@@ -135,7 +271,14 @@ public class DistributionLong extends Distribution {
 	 *            Index of the value that will be decremented.
 	 */
 	public void decr(int index) {
-		this.values = ArrayUtils.decr(this.values, index);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		if (this.sparse != null) {
+			this.sparse.add(index, -1);
+		} else {
+			this.values[index]--;
+		}
 		this.denominator--;
 	}
 
@@ -147,7 +290,16 @@ public class DistributionLong extends Distribution {
 	 *            Index of the value that will be decremented.
 	 */
 	public void truncate() {
-		this.values = ArrayUtils.truncate(this.values, 0);
+		if (this.sparse != null) {
+			this.length = this.sparse.getTruncatedLength();
+			this.sparse.truncate(this.length);
+			return;
+		}
+		// only the logical length is lowered, the capacity is kept for
+		// further increments
+		while (this.length > 0 && this.values[this.length - 1] == 0) {
+			this.length--;
+		}
 	}
 
 	/**
@@ -160,7 +312,14 @@ public class DistributionLong extends Distribution {
 	 *            Value the integer will be set to.
 	 */
 	public void set(int index, long value) {
-		this.values = ArrayUtils.set(this.values, index, value, 0);
+		if (index >= this.length) {
+			this.ensureLength(index + 1);
+		}
+		if (this.sparse != null) {
+			this.sparse.set(index, value);
+		} else {
+			this.values[index] = value;
+		}
 	}
 
 	// IO Methods
@@ -173,16 +332,28 @@ public class DistributionLong extends Distribution {
 	 *            String representing the desired filename for the Distribution.
 	 */
 	public void write(String dir, String filename) throws IOException {
-		if (this.values == null) {
+		// the value array is written up to the logical length, without
+		// trimming it
+		long[] values = this.sparse != null ? this.getLongValues() : this.values;
+		if (values == null) {
 			throw new NullPointerException("no values for distribution \""
 					+ this.getName() + "\" set to be written to " + dir);
 		}
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_DISTRIBUTION_LONG);
+			w.writeLong(this.denominator);
+			w.writeLongs(values, this.length);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		w.writeln(this.denominator); // write denominator in first line
 
-		for (int i = 0; i < this.values.length; i++) {
-			w.writeln(i + Config.get("DISTRIBUTION_DELIMITER") + this.values[i]);
+		for (int i = 0; i < this.length; i++) {
+			w.writeln(i + Config.get("DISTRIBUTION_DELIMITER") + values[i]);
 		}
 		w.close();
 	}
@@ -205,6 +376,24 @@ public class DistributionLong extends Distribution {
 		if (!readValues) {
 			return new DistributionLong(name, null, 0);
 		}
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_DISTRIBUTION_LONG);
+			long denominator = b.readLong();
+			long[] values = b.readLongs();
+			b.close();
+			return new DistributionLong(name, values, denominator);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			m.nextLine();
+			long denominator = m.readLong();
+			long[] values = m.readIndexedLongs();
+			m.close();
+			return new DistributionLong(name, values, denominator);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Long> list = new ArrayList<Long>();
 		String line = null;
@@ -245,9 +434,10 @@ public class DistributionLong extends Distribution {
 	}
 
 	public double computeAverage() {
+		long[] values = this.getLongValues();
 		double avg = 0;
-		for (int i = 0; i < this.values.length; i++) {
-			avg += i * this.values[i];
+		for (int i = 0; i < values.length; i++) {
+			avg += i * values[i];
 		}
 		return avg / this.denominator;
 	}
@@ -180,6 +180,34 @@ public class MetricData implements ListItem {
 		return this.distributions;
 	}
 
+	/**
+	 * @return copy of this MetricData including copies of all distributions,
+	 *         nodevaluelists and nodenodevaluelists, e.g., to write it while
+	 *         the metric keeps modifying the original ones
+	 */
+	public MetricData copy() {
+		DistributionList distributions = new DistributionList(
+				this.distributions.size());
+		for (Distribution d : this.distributions.getList()) {
+			distributions.add(d.copy());
+		}
+		NodeValueListList nodevalues = new NodeValueListList(
+				this.nodevalues.size());
+		for (NodeValueList n : this.nodevalues.getList()) {
+			nodevalues.add(n.copy());
+		}
+		NodeNodeValueListList nodenodevalues = null;
+		if (this.nodenodevalues != null) {
+			nodenodevalues = new NodeNodeValueListList(
+					this.nodenodevalues.size());
+			for (NodeNodeValueList n : this.nodenodevalues.getList()) {
+				nodenodevalues.add(n.copy());
+			}
+		}
+		return new MetricData(this.name, this.type, this.values,
+				distributions, nodevalues, nodenodevalues);
+	}
+
 	public void write(String dir) throws IOException {
 		if (Config.getBoolean("GENERATION_WRITE_VALUES")) {
 			if (this.values.size() > 0)
@@ -5,6 +5,8 @@ import java.util.ArrayList;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.ArrayUtils;
@@ -53,6 +55,19 @@ public class NodeNodeValueList extends Data {
 		return this.values;
 	}
 
+	/**
+	 * @return copy of this list including a copy of its values
+	 */
+	public NodeNodeValueList copy() {
+		if (this.values == null)
+			return new NodeNodeValueList(this.getName(), null);
+		double[][] values = new double[this.values.length][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = this.values[i].clone();
+		}
+		return new NodeNodeValueList(this.getName(), values);
+	}
+
 	/** Returns the node values of the node with the given index. **/
 	public double[] getValuesByIndex(int index) {
 		try {
@@ -319,6 +334,17 @@ public class NodeNodeValueList extends Data {
 					+ super.getName() + "\" set to be written to " + dir);
 		}
 
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_NODE_NODE_VALUE_LIST);
+			w.writeInt(this.values.length);
+			for (int i = 0; i < this.values.length; i++) {
+				w.writeDoubles(this.values[i]);
+			}
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		for (int i = 0; i < this.values.length; i++) {
@@ -351,6 +377,17 @@ public class NodeNodeValueList extends Data {
 			return new NodeNodeValueList(name, null);
 		}
 
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_NODE_NODE_VALUE_LIST);
+			double[][] values = new double[b.readInt()][];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = b.readDoubles();
+			}
+			b.close();
+			return new NodeNodeValueList(name, values);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<double[]> list = new ArrayList<double[]>();
 		String line = null;
@@ -5,6 +5,9 @@ import java.util.ArrayList;
 
 import com.sun.media.sound.InvalidFormatException;
 
+import dna.io.BinaryReader;
+import dna.io.BinaryWriter;
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.util.ArrayUtils;
@@ -46,6 +49,13 @@ public class NodeValueList extends Data {
 		return this.values;
 	}
 
+	/**
+	 * @return copy of this list including a copy of its values
+	 */
+	public NodeValueList copy() {
+		return new NodeValueList(this.getName(), this.values == null ? null : this.values.clone());
+	}
+
 	public void setValue(int index, double value) {
 		this.values = ArrayUtils.set(this.values, index, value,
 				NodeValueList.emptyValue);
@@ -87,6 +97,14 @@ public class NodeValueList extends Data {
 					+ super.getName() + "\" set to be written to " + dir);
 		}
 
+		if (BinaryWriter.isEnabled()) {
+			BinaryWriter w = BinaryWriter.getWriter(dir, filename,
+					BinaryWriter.TYPE_NODE_VALUE_LIST);
+			w.writeDoubles(this.values);
+			w.close();
+			return;
+		}
+
 		Writer w = Writer.getWriter(dir, filename);
 
 		for (int i = 0; i < this.values.length; i++) {
@@ -115,6 +133,21 @@ public class NodeValueList extends Data {
 			return new NodeValueList(name, null);
 		}
 
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b != null) {
+			b.expectType(BinaryWriter.TYPE_NODE_VALUE_LIST);
+			double[] values = b.readDoubles();
+			b.close();
+			return new NodeValueList(name, values);
+		}
+
+		if (MappedReader.isEnabled(dir, filename)) {
+			MappedReader m = new MappedReader(dir, filename);
+			double[] values = m.readIndexedDoubles();
+			m.close();
+			return new NodeValueList(name, values);
+		}
+
 		Reader r = Reader.getReader(dir, filename);
 		ArrayList<Double> list = new ArrayList<Double>();
 		String line = null;
@@ -0,0 +1,135 @@
+package dna.series.data;
+
+import java.util.Arrays;
+
+/**
+ * Hash-backed storage of the values of a distribution, i.e., an
+ * open-addressing map (linear probing) from index to a long value. Indices that
+ * have never been set have the value 0. This is used by the sparse mode of
+ * {@link DistributionInt} and {@link DistributionLong} for distributions with
+ * few distinct but large indices, e.g., heavy-tailed degree distributions.
+ */
+class SparseCounts {
+
+	private static final int FREE = -1;
+
+	private int[] keys;
+
+	private long[] values;
+
+	private int size;
+
+	SparseCounts() {
+		this.keys = new int[16];
+		this.values = new long[16];
+		Arrays.fill(this.keys, FREE);
+		this.size = 0;
+	}
+
+	private int slot(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (this.keys.length - 1);
+	}
+
+	long get(int index) {
+		int mask = this.keys.length - 1;
+		for (int i = this.slot(index);; i = (i + 1) & mask) {
+			if (this.keys[i] == index) {
+				return this.values[i];
+			}
+			if (this.keys[i] == FREE) {
+				return 0;
+			}
+		}
+	}
+
+	void add(int index, long delta) {
+		if (index < 0) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		int mask = this.keys.length - 1;
+		int i = this.slot(index);
+		while (this.keys[i] != FREE) {
+			if (this.keys[i] == index) {
+				this.values[i] += delta;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = index;
+		this.values[i] = delta;
+		this.size++;
+		if (2 * this.size > this.keys.length) {
+			this.rehash(2 * this.keys.length);
+		}
+	}
+
+	void set(int index, long value) {
+		this.add(index, value - this.get(index));
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = this.keys;
+		long[] oldValues = this.values;
+		this.keys = new int[capacity];
+		this.values = new long[capacity];
+		Arrays.fill(this.keys, FREE);
+		this.size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				this.add(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return largest index with a value != 0 plus 1, i.e., the length of the
+	 *         values without trailing 0s
+	 */
+	int getTruncatedLength() {
+		int length = 0;
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != FREE && this.values[i] != 0
+					&& this.keys[i] >= length) {
+				length = this.keys[i] + 1;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Removes all indices >= length.
+	 */
+	void truncate(int length) {
+		boolean removed = false;
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != FREE && this.keys[i] >= length) {
+				this.keys[i] = FREE;
+				removed = true;
+			}
+		}
+		if (removed) {
+			this.rehash(this.keys.length);
+		}
+	}
+
+	long[] toLongArray(int length) {
+		long[] array = new long[length];
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != FREE && this.keys[i] < length) {
+				array[this.keys[i]] = this.values[i];
+			}
+		}
+		return array;
+	}
+
+	int[] toIntArray(int length) {
+		int[] array = new int[length];
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != FREE && this.keys[i] < length) {
+				array[this.keys[i]] = (int) this.values[i];
+			}
+		}
+		return array;
+	}
+}
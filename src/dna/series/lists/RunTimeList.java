@@ -2,6 +2,7 @@ package dna.series.lists;
 
 import java.io.IOException;
 
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.series.data.RunTime;
@@ -29,6 +30,15 @@ public class RunTimeList extends List<RunTime> {
 		if(!readValues)
 			return new RunTimeList();
 		RunTimeList list = new RunTimeList();
+		if (MappedReader.isEnabled(dir, name)) {
+			MappedReader m = new MappedReader(dir, name);
+			while (m.nextLine()) {
+				list.add(new RunTime(m.readString('='), m.readDouble()));
+			}
+			m.close();
+			return list;
+		}
+
 		Reader r = Reader.getReader(dir, name);
 
 		String line = null;
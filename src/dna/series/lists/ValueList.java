@@ -3,6 +3,7 @@ package dna.series.lists;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import dna.io.MappedReader;
 import dna.io.Reader;
 import dna.io.Writer;
 import dna.series.data.Value;
@@ -34,6 +35,15 @@ public class ValueList extends List<Value> {
 
 		// try to read values, if no file exists = no values, return empty list
 		try {
+			if (MappedReader.isEnabled(dir, filename)) {
+				MappedReader m = new MappedReader(dir, filename);
+				while (m.nextLine()) {
+					list.add(new Value(m.readString('='), m.readDouble()));
+				}
+				m.close();
+				return list;
+			}
+
 			Reader r = Reader.getReader(dir, filename);
 
 			String line = null;
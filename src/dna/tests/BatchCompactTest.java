@@ -0,0 +1,188 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.generators.random.RandomGraph;
+import dna.io.BatchReader;
+import dna.io.BatchWriter;
+import dna.metrics.IMetric;
+import dna.metrics.MetricNotApplicableException;
+import dna.metrics.algorithms.Algorithms;
+import dna.metrics.clustering.UndirectedClusteringCoefficientB;
+import dna.metrics.clustering.UndirectedClusteringCoefficientU;
+import dna.metrics.connectivity.WeakConnectivityB;
+import dna.metrics.connectivity.WeakConnectivityU;
+import dna.metrics.degree.DegreeDistributionU;
+import dna.series.Series;
+import dna.series.SeriesGeneration;
+import dna.series.SeriesStats;
+import dna.series.data.BatchData;
+import dna.series.data.Value;
+import dna.updates.batch.Batch;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Config;
+import dna.util.Rand;
+
+/**
+ * Generates, reads and applies the same random batches in their compact form
+ * and with update sets (BATCH_COMPACT) and checks that the batches, the
+ * resulting graphs, the batch statistics and the metrics are equal.
+ */
+@RunWith(Parameterized.class)
+public class BatchCompactTest {
+
+	private static final String COMPACT = "BATCH_COMPACT";
+
+	private static final int BATCHES = 15;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private boolean directed;
+
+	private boolean batchMetrics;
+
+	public BatchCompactTest(boolean directed, boolean batchMetrics) {
+		this.directed = directed;
+		this.batchMetrics = batchMetrics;
+	}
+
+	@Parameterized.Parameters(name = "directed={0} batchMetrics={1}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] { { true, false }, { true, true },
+				{ false, false }, { false, true } });
+	}
+
+	@After
+	public void resetConfig() {
+		Config.reset(COMPACT);
+	}
+
+	private GraphDataStructure gds() {
+		return this.directed ? GDS.directed() : GDS.undirected();
+	}
+
+	private IMetric[] metrics() {
+		if (this.batchMetrics) {
+			// batches are materialized for IBeforeBatch and IAfterBatch
+			return this.directed ? new IMetric[] { new DegreeDistributionU(),
+					new WeakConnectivityB() } : new IMetric[] {
+					new DegreeDistributionU(), new WeakConnectivityB(),
+					new UndirectedClusteringCoefficientB() };
+		}
+		return new IMetric[] { new DegreeDistributionU(),
+				new WeakConnectivityU(), new UndirectedClusteringCoefficientU() };
+	}
+
+	private Series series(long seed, IMetric[] metrics) {
+		// the batch metrics only support edge additions
+		Rand.init(seed);
+		return new Series(new RandomGraph(this.gds(), 200, 1000),
+				this.batchMetrics ? new RandomBatch(0, 0, 100, 0)
+						: new RandomBatch(20, 40, 100, 100), metrics, null,
+				"BatchCompactTest");
+	}
+
+	private BatchData next(Series s, Algorithms algorithms, long seed,
+			boolean compact) throws MetricNotApplicableException {
+		Config.overwrite(COMPACT, Boolean.toString(compact));
+		Rand.init(seed);
+		return SeriesGeneration.generateNextBatch(s, algorithms);
+	}
+
+	private static void assertEqualValues(BatchData expected, BatchData actual) {
+		assertEquals(expected.getValues().size(), actual.getValues().size());
+		for (Value v : expected.getValues().getList()) {
+			if (v.getName().equals(SeriesStats.memory)) {
+				continue;
+			}
+			assertEquals(v.getName(), v.getValue(), actual.getValues()
+					.get(v.getName()).getValue(), 0);
+		}
+	}
+
+	@Test
+	public void seriesEqualWithAndWithoutCompact()
+			throws MetricNotApplicableException {
+		for (long seed = 0; seed < 3; seed++) {
+			IMetric[] metricsC = this.metrics();
+			IMetric[] metricsS = this.metrics();
+			Series compact = this.series(seed, metricsC);
+			Series sets = this.series(seed, metricsS);
+			Algorithms algorithmsC = new Algorithms(metricsC);
+			Algorithms algorithmsS = new Algorithms(metricsS);
+
+			Rand.init(seed);
+			SeriesGeneration.generateInitialData(compact, algorithmsC);
+			Rand.init(seed);
+			SeriesGeneration.generateInitialData(sets, algorithmsS);
+			assertTrue(compact.getGraph().equals(sets.getGraph()));
+
+			for (int i = 0; i < BATCHES; i++) {
+				long batchSeed = seed * BATCHES + i;
+
+				// the generated batches are equal
+				Config.overwrite(COMPACT, "true");
+				Rand.init(batchSeed);
+				Batch bC = compact.getBatchGenerator().generate(
+						compact.getGraph());
+				assertTrue(bC.isCompact());
+				Config.overwrite(COMPACT, "false");
+				Rand.init(batchSeed);
+				Batch bS = sets.getBatchGenerator().generate(sets.getGraph());
+				assertFalse(bS.isCompact());
+				assertTrue(bC.equals(bS));
+
+				// applying them results in equal graphs and metrics
+				BatchData dataC = this.next(compact, algorithmsC, batchSeed,
+						true);
+				BatchData dataS = this.next(sets, algorithmsS, batchSeed, false);
+				assertEqualValues(dataS, dataC);
+				assertTrue(compact.getGraph().equals(sets.getGraph()));
+				for (int j = 0; j < metricsC.length; j++) {
+					assertTrue(metricsC[j].getName(),
+							metricsC[j].equals(metricsS[j]));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void readCompactEqualsSets() throws IOException {
+		String dir = this.folder.getRoot().getPath() + "/";
+		for (long seed = 0; seed < 3; seed++) {
+			Rand.init(seed);
+			Graph g = new RandomGraph(this.gds(), 200, 1000).generate();
+			Config.overwrite(COMPACT, "false");
+			Batch b = new RandomBatch(20, 40, 100, 100).generate(g);
+			assertTrue(BatchWriter.write(b, dir, "batch_" + seed));
+
+			Config.overwrite(COMPACT, "true");
+			Batch compact = BatchReader.read(dir, "batch_" + seed, g);
+			assertTrue(compact.isCompact());
+			Config.overwrite(COMPACT, "false");
+			Batch sets = BatchReader.read(dir, "batch_" + seed, g);
+			assertFalse(sets.isCompact());
+
+			assertTrue(compact.equals(b));
+			assertTrue(sets.equals(b));
+			assertEquals(b.getSize(), compact.getSize());
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Weight.WeightSelection;
+import dna.updates.batch.Batch;
+import dna.updates.batch.BatchSanitization;
+import dna.updates.batch.BatchSanitization.SanitizationType;
+import dna.updates.batch.BatchSanitizationStats;
+import dna.updates.generators.BatchGenerator;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Config;
+import dna.util.Rand;
+
+/**
+ * Sanitizes the same random batches with the SETS and the INDICES type of
+ * sanitization and checks that both delete the same updates, for batches in
+ * their compact form and with update sets.
+ */
+@RunWith(Parameterized.class)
+public class BatchSanitizationTest {
+
+	private static final String COMPACT = "BATCH_COMPACT";
+
+	private static final int GRAPHS = 5;
+
+	private static final int BATCHES = 10;
+
+	private boolean directed;
+
+	private boolean weighted;
+
+	private boolean compact;
+
+	public BatchSanitizationTest(boolean directed, boolean weighted,
+			boolean compact) {
+		this.directed = directed;
+		this.weighted = weighted;
+		this.compact = compact;
+	}
+
+	@Parameterized.Parameters(name = "directed={0} weighted={1} compact={2}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] { { true, false, false },
+				{ true, false, true }, { true, true, false },
+				{ true, true, true }, { false, false, false },
+				{ false, false, true }, { false, true, false },
+				{ false, true, true } });
+	}
+
+	@After
+	public void resetConfig() {
+		Config.reset(COMPACT);
+	}
+
+	private GraphDataStructure gds() {
+		if (!this.weighted) {
+			return this.directed ? GDS.directed() : GDS.undirected();
+		}
+		return this.directed ? GDS.directedVE(IntWeight.class,
+				WeightSelection.RandPos100, IntWeight.class,
+				WeightSelection.RandPos100) : GDS.undirectedVE(IntWeight.class,
+				WeightSelection.RandPos100, IntWeight.class,
+				WeightSelection.RandPos100);
+	}
+
+	private BatchGenerator bg() {
+		// many node removals so that edge updates often point to a removed
+		// node
+		if (!this.weighted) {
+			return new RandomBatch(20, 40, 100, 100);
+		}
+		return new RandomBatch(20, 40, 40, WeightSelection.RandPos100, 100,
+				100, 60, WeightSelection.RandPos100);
+	}
+
+	private static void assertEqualStats(BatchSanitizationStats expected,
+			BatchSanitizationStats actual) {
+		assertEquals(expected.getDeletedNodeAdditions(),
+				actual.getDeletedNodeAdditions());
+		assertEquals(expected.getDeletedNodeRemovals(),
+				actual.getDeletedNodeRemovals());
+		assertEquals(expected.getDeletedNodeWeights(),
+				actual.getDeletedNodeWeights());
+		assertEquals(expected.getDeletedEdgeAdditions(),
+				actual.getDeletedEdgeAdditions());
+		assertEquals(expected.getDeletedEdgeRemovals(),
+				actual.getDeletedEdgeRemovals());
+		assertEquals(expected.getDeletedEdgeWeights(),
+				actual.getDeletedEdgeWeights());
+	}
+
+	@Test
+	public void setsEqualIndices() {
+		Config.overwrite(COMPACT, Boolean.toString(this.compact));
+		BatchGenerator bg = this.bg();
+		int deletedEdgeRemovals = 0;
+		int deletedEdgeAdditions = 0;
+		int deletedNodeWeights = 0;
+		int deletedEdgeWeights = 0;
+		for (long seed = 0; seed < GRAPHS; seed++) {
+			Rand.init(seed);
+			Graph g = new RandomGraph(this.gds(), 200, 1000).generate();
+			for (int i = 0; i < BATCHES; i++) {
+				long batchSeed = seed * BATCHES + i;
+
+				Rand.init(batchSeed);
+				Batch sets = bg.generate(g);
+				assertEquals(this.compact && !this.weighted, sets.isCompact());
+				BatchSanitizationStats setsStats = BatchSanitization.sanitize(
+						sets, SanitizationType.SETS);
+
+				Rand.init(batchSeed);
+				Batch indices = bg.generate(g);
+				BatchSanitizationStats indicesStats = BatchSanitization
+						.sanitize(indices, SanitizationType.INDICES);
+
+				assertEqualStats(setsStats, indicesStats);
+				assertTrue(sets.equals(indices));
+				assertEquals(sets.getSize(), indices.getSize());
+
+				deletedEdgeRemovals += setsStats.getDeletedEdgeRemovals();
+				deletedEdgeAdditions += setsStats.getDeletedEdgeAdditions();
+				deletedNodeWeights += setsStats.getDeletedNodeWeights();
+				deletedEdgeWeights += setsStats.getDeletedEdgeWeights();
+			}
+		}
+		// the batches must exercise all cases of the sanitization
+		assertTrue(deletedEdgeRemovals > 0);
+		assertTrue(deletedEdgeAdditions > 0);
+		if (this.weighted) {
+			assertTrue(deletedNodeWeights > 0);
+			assertTrue(deletedEdgeWeights > 0);
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Weight.WeightSelection;
+import dna.io.BatchReader;
+import dna.io.BatchWriter;
+import dna.io.BinaryBatchReader;
+import dna.io.BinaryBatchWriter;
+import dna.updates.batch.Batch;
+import dna.updates.batch.BatchSanitization;
+import dna.updates.generators.BatchGenerator;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Config;
+import dna.util.Rand;
+
+/**
+ * Writes random batches as text and in the binary format and checks that
+ * reading them (sequentially, via seek(..) and after convert(..)) results in
+ * the batches that were written.
+ */
+@RunWith(Parameterized.class)
+public class BinaryBatchTest {
+
+	private static final String COMPACT = "BATCH_COMPACT";
+
+	private static final String BINARY = "BATCH_AS_BINARY";
+
+	private static final int BATCHES = 6;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private boolean directed;
+
+	private boolean weighted;
+
+	private boolean compact;
+
+	public BinaryBatchTest(boolean directed, boolean weighted, boolean compact) {
+		this.directed = directed;
+		this.weighted = weighted;
+		this.compact = compact;
+	}
+
+	@Parameterized.Parameters(name = "directed={0} weighted={1} compact={2}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] { { true, false, false },
+				{ true, false, true }, { true, true, false },
+				{ true, true, true }, { false, false, false },
+				{ false, false, true }, { false, true, false },
+				{ false, true, true } });
+	}
+
+	@After
+	public void resetConfig() {
+		Config.reset(COMPACT);
+		Config.reset(BINARY);
+	}
+
+	private GraphDataStructure gds() {
+		if (!this.weighted) {
+			return this.directed ? GDS.directed() : GDS.undirected();
+		}
+		return this.directed ? GDS.directedVE(IntWeight.class,
+				WeightSelection.RandPos100, DoubleWeight.class,
+				WeightSelection.Rand) : GDS.undirectedVE(IntWeight.class,
+				WeightSelection.RandPos100, DoubleWeight.class,
+				WeightSelection.Rand);
+	}
+
+	private BatchGenerator bg() {
+		if (!this.weighted) {
+			return new RandomBatch(10, 10, 50, 50);
+		}
+		return new RandomBatch(10, 10, 20, WeightSelection.RandPos100, 50, 50,
+				20, WeightSelection.Rand);
+	}
+
+	private Graph graph(long seed) {
+		Rand.init(seed);
+		return new RandomGraph(this.gds(), 100, 400).generate();
+	}
+
+	private String dir(String name) throws IOException {
+		return this.folder.newFolder(name).getPath() + File.separator;
+	}
+
+	/**
+	 * Generates and applies BATCHES sanitized batches (with update sets) to
+	 * the graph.
+	 */
+	private ArrayList<Batch> generate(Graph g) {
+		Config.overwrite(COMPACT, "false");
+		BatchGenerator bg = this.bg();
+		ArrayList<Batch> batches = new ArrayList<Batch>(BATCHES);
+		for (int i = 0; i < BATCHES; i++) {
+			Batch b = bg.generate(g);
+			BatchSanitization.sanitize(b);
+			assertTrue(b.apply(g));
+			batches.add(b);
+		}
+		return batches;
+	}
+
+	@Test
+	public void textAndBinaryEqual() throws IOException {
+		String dir = this.dir("batches");
+		for (long seed = 0; seed < 3; seed++) {
+			Graph g = this.graph(seed);
+			Config.overwrite(COMPACT, "false");
+			Batch b = this.bg().generate(g);
+
+			Config.overwrite(BINARY, "false");
+			assertTrue(BatchWriter.write(b, dir, "text_" + seed));
+			Config.overwrite(BINARY, "true");
+			assertTrue(BatchWriter.write(b, dir, "binary_" + seed));
+			assertTrue(BinaryBatchReader.getReader(dir, "text_" + seed) == null);
+
+			Config.overwrite(COMPACT, Boolean.toString(this.compact));
+			Batch text = BatchReader.read(dir, "text_" + seed, g);
+			Batch binary = BatchReader.read(dir, "binary_" + seed, g);
+			assertEquals(this.compact, binary.isCompact());
+			assertEquals(b.getFrom(), binary.getFrom());
+			assertEquals(b.getTo(), binary.getTo());
+			assertEquals(b.getSize(), binary.getSize());
+			assertTrue(text.equals(b));
+			assertTrue(binary.equals(b));
+			assertTrue(binary.equals(text));
+		}
+	}
+
+	@Test
+	public void readSeekAndConvert() throws IOException {
+		String textDir = this.dir("text");
+		String dir = this.dir("binary");
+		Graph g = this.graph(0);
+		ArrayList<Batch> batches = this.generate(g);
+
+		// all batches in a single binary file, the text files are named in
+		// reverse order of their timestamps
+		Config.overwrite(BINARY, "false");
+		BinaryBatchWriter w = new BinaryBatchWriter(dir, "appended", true);
+		for (int i = 0; i < batches.size(); i++) {
+			w.append(batches.get(i));
+			assertTrue(BatchWriter.write(batches.get(i), textDir, "batch_"
+					+ (BATCHES - i)));
+		}
+		w.close();
+		assertEquals(BATCHES, BinaryBatchWriter.convert(textDir,
+				new FilenameFilter() {
+					@Override
+					public boolean accept(File dir, String name) {
+						return name.startsWith("batch_");
+					}
+				}, g.getGraphDatastructures(), dir, "converted"));
+
+		Config.overwrite(COMPACT, Boolean.toString(this.compact));
+		for (String filename : new String[] { "appended", "converted" }) {
+			Graph replay = this.graph(0);
+			BinaryBatchReader reader = BinaryBatchReader.getReader(dir,
+					filename);
+			assertTrue(reader.hasIndex());
+			assertEquals(BATCHES, reader.getBatchCount());
+			for (Batch expected : batches) {
+				// seek(..) in a second reader finds the same batch
+				BinaryBatchReader seeking = BinaryBatchReader.getReader(dir,
+						filename);
+				assertFalse(seeking.seek(expected.getFrom() + BATCHES));
+				assertTrue(seeking.seek(expected.getFrom()));
+				assertTrue(seeking.read(replay).equals(expected));
+				seeking.close();
+
+				assertTrue(reader.hasNext());
+				assertEquals(expected.getFrom(), reader.readTimestamps()[0]);
+				Batch b = reader.read(replay);
+				assertEquals(this.compact, b.isCompact());
+				assertTrue(b.equals(expected));
+				assertTrue(b.apply(replay));
+			}
+			assertFalse(reader.hasNext());
+			reader.close();
+			assertTrue(replay.equals(g));
+		}
+	}
+
+	@Test(expected = InvalidFormatException.class)
+	public void malformedVarint() throws IOException {
+		String dir = this.dir("malformed");
+		// without weights, the records end with a varint, with more than 128k
+		// bytes of records, they fill the buffer of the reader
+		Rand.init(0);
+		Graph g = new RandomGraph(GDS.directed(), 1000, 0).generate();
+		Config.overwrite(COMPACT, "false");
+		Batch b = new RandomBatch(0, 0, 30000, 0).generate(g);
+		BinaryBatchWriter.write(b, dir, "batch");
+
+		// set the continuation bit of the last byte of the records, i.e., the
+		// varint of the second node index ends after the records
+		RandomAccessFile f = new RandomAccessFile(dir + "batch", "rw");
+		try {
+			f.seek(f.length() - 1);
+			int last = f.read();
+			f.seek(f.length() - 1);
+			f.write(last | 0x80);
+		} finally {
+			f.close();
+		}
+
+		BinaryBatchReader reader = BinaryBatchReader.getReader(dir, "batch");
+		try {
+			reader.read(g);
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import com.sun.media.sound.InvalidFormatException;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Weight.WeightSelection;
+import dna.io.BulkGraphReader;
+import dna.io.GraphReader;
+import dna.io.GraphWriter;
+import dna.io.Writer;
+import dna.util.Config;
+import dna.util.Rand;
+
+/**
+ * Writes random graphs via GraphWriter and checks that reading them with and
+ * without the bulk loader (GRAPH_READ_BULK) results in the same nodes and
+ * edges. Graphs with weights are read by GraphReader in both cases, also if
+ * they are read without weights. The bulk loader must reject malformed lines
+ * instead of guessing separators.
+ */
+@RunWith(Parameterized.class)
+public class BulkGraphReaderTest {
+
+	private static final String BULK = "GRAPH_READ_BULK";
+
+	private static final String THREADS = "GRAPH_READ_THREADS";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String type;
+
+	private String dir;
+
+	public BulkGraphReaderTest(String type) {
+		this.type = type;
+	}
+
+	@Parameterized.Parameters(name = "{0}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] { { "directed" },
+				{ "undirected" }, { "directedV" }, { "undirectedV" },
+				{ "directedE" }, { "undirectedE" } });
+	}
+
+	@Before
+	public void init() throws IOException {
+		// files of about 100kB are split into several chunks
+		Config.overwrite(THREADS, "4");
+		this.dir = this.folder.newFolder().getPath() + File.separator;
+	}
+
+	@After
+	public void resetConfig() {
+		Config.reset(BULK);
+		Config.reset(THREADS);
+	}
+
+	private boolean isDirected() {
+		return this.type.startsWith("directed");
+	}
+
+	private boolean isWeighted() {
+		return this.type.endsWith("V") || this.type.endsWith("E");
+	}
+
+	private GraphDataStructure gds() {
+		switch (this.type) {
+		case "directedV":
+			return GDS.directedV(IntWeight.class, WeightSelection.RandPos100);
+		case "undirectedV":
+			return GDS.undirectedV(DoubleWeight.class, WeightSelection.Rand);
+		case "directedE":
+			return GDS.directedE(IntWeight.class, WeightSelection.RandPos100);
+		case "undirectedE":
+			return GDS.undirectedE(DoubleWeight.class, WeightSelection.Rand);
+		default:
+			return this.isDirected() ? GDS.directed() : GDS.undirected();
+		}
+	}
+
+	private Graph write(String filename) {
+		Rand.init(0);
+		Graph g = new RandomGraph(this.gds(), 2000, 8000).generate();
+		assertTrue(GraphWriter.write(g, this.dir, filename));
+		return g;
+	}
+
+	private Graph read(String filename, GraphDataStructure ds, boolean bulk)
+			throws IOException {
+		Config.overwrite(BULK, Boolean.toString(bulk));
+		return GraphReader.read(this.dir, filename, ds);
+	}
+
+	private static HashSet<String> asStrings(Iterable<IElement> elements) {
+		HashSet<String> set = new HashSet<String>();
+		for (IElement e : elements) {
+			assertTrue(set.add(e.asString()));
+		}
+		return set;
+	}
+
+	private static void assertEqualLists(Graph expected, Graph actual) {
+		assertEquals(expected.getNodeCount(), actual.getNodeCount());
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+		assertEquals(asStrings(expected.getNodes()),
+				asStrings(actual.getNodes()));
+		assertEquals(asStrings(expected.getEdges()),
+				asStrings(actual.getEdges()));
+	}
+
+	@Test
+	public void bulkEqualsText() throws IOException {
+		Graph g = this.write("graph");
+		Graph text = this.read("graph", null, false);
+		Graph bulk = this.read("graph", null, true);
+		assertEqualLists(g, text);
+		assertEqualLists(g, bulk);
+		assertEquals(!this.isWeighted(),
+				BulkGraphReader.isApplicable(bulk.getGraphDatastructures()));
+	}
+
+	@Test
+	public void weightedFileReadUnweighted() throws IOException {
+		assumeTrue(this.isWeighted());
+		Graph g = this.write("graph");
+		GraphDataStructure ds = this.isDirected() ? GDS.directed() : GDS
+				.undirected();
+		Graph text = this.read("graph", ds, false);
+		Graph bulk = this.read("graph", ds, true);
+		assertEquals(g.getNodeCount(), text.getNodeCount());
+		assertEquals(g.getEdgeCount(), text.getEdgeCount());
+		assertEqualLists(text, bulk);
+	}
+
+	/**
+	 * Replaces the line at the given index of the written file (relative to
+	 * the given keyword) by the given lines and checks that the bulk loader
+	 * rejects the file.
+	 */
+	private void assertRejected(String keyword, int offset, String... lines)
+			throws IOException {
+		String filename = "malformed";
+		this.write(filename);
+		List<String> file = new ArrayList<String>(Files.readAllLines(
+				Paths.get(this.dir + filename), StandardCharsets.UTF_8));
+		int index = file.indexOf(Writer.getKeywordAsLine(keyword)) + offset;
+		file.remove(index);
+		file.addAll(index, Arrays.asList(lines));
+		Files.write(Paths.get(this.dir + filename), file,
+				StandardCharsets.UTF_8);
+
+		try {
+			this.read(filename, null, true);
+			throw new AssertionError("bulk loader accepted "
+					+ Arrays.toString(lines));
+		} catch (InvalidFormatException e) {
+		}
+	}
+
+	@Test
+	public void rejectsMalformedLines() throws IOException {
+		assumeFalse(this.isWeighted());
+		String sep = this.isDirected() ? DirectedEdge.separator
+				: UndirectedEdge.separator;
+		String nodes = GraphWriter.nodesListKeyword;
+		String edges = GraphWriter.edgesListKeyword;
+		String edgesLine = Writer.getKeywordAsLine(edges);
+
+		// separators other than the one of the edge type
+		this.assertRejected(edges, 10, "1 2");
+		this.assertRejected(edges, 10, "1 x 2");
+		this.assertRejected(edges, 10, "1" + sep + sep + "2");
+		this.assertRejected(edges, 10, "1"
+				+ (this.isDirected() ? UndirectedEdge.separator
+						: DirectedEdge.separator) + "2");
+		// incomplete lines and trailing characters
+		this.assertRejected(edges, 10, "1" + sep);
+		this.assertRejected(edges, 10, "1" + sep + "2 3");
+		this.assertRejected(nodes, 10, "1x");
+		this.assertRejected(nodes, 10, "");
+		// nodes and edges must be separated by the keyword
+		this.assertRejected(nodes, 10, "1" + sep + "2");
+		this.assertRejected(edges, 10, "1");
+		this.assertRejected(edges, 0);
+		this.assertRejected(edges, 10, edgesLine);
+		this.assertRejected(edges, 0, "# List of edges");
+	}
+}
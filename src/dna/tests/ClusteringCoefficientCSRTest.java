@@ -0,0 +1,120 @@
+package dna.tests;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.edges.Edge;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.nodes.Node;
+import dna.metrics.algorithms.IRecomputation;
+import dna.metrics.clustering.ClusteringCoefficient;
+import dna.metrics.clustering.DirectedClusteringCoefficientR;
+import dna.metrics.clustering.UndirectedClusteringCoefficientR;
+import dna.util.Config;
+import dna.util.Rand;
+
+/**
+ * Compares the clustering coefficients computed on the CSR snapshot of a
+ * graph to the ones computed on its node and edge lists. Self-loops must not
+ * change the result of either computation.
+ */
+@RunWith(Parameterized.class)
+public class ClusteringCoefficientCSRTest {
+
+	private static final String CSR = "METRICS_CSR_SNAPSHOT";
+
+	private boolean directed;
+
+	private Class<? extends ClusteringCoefficient> metricType;
+
+	public ClusteringCoefficientCSRTest(boolean directed,
+			Class<? extends ClusteringCoefficient> metricType) {
+		this.directed = directed;
+		this.metricType = metricType;
+	}
+
+	@Parameterized.Parameters(name = "directed={0} {1}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] {
+				{ true, DirectedClusteringCoefficientR.class },
+				{ true, UndirectedClusteringCoefficientR.class },
+				{ false, UndirectedClusteringCoefficientR.class } });
+	}
+
+	@After
+	public void resetConfig() {
+		Config.reset(CSR);
+	}
+
+	private Graph generate(long seed) {
+		Rand.init(seed);
+		GraphDataStructure gds = this.directed ? GDS.directed() : GDS
+				.undirected();
+		// dense enough for many edges in both directions
+		return new RandomGraph(gds, 60, this.directed ? 1400 : 700)
+				.generate();
+	}
+
+	private ClusteringCoefficient compute(Graph g, boolean csr)
+			throws InstantiationException, IllegalAccessException {
+		Config.overwrite(CSR, Boolean.toString(csr));
+		ClusteringCoefficient m = this.metricType.newInstance();
+		m.setGraph(g);
+		assertTrue(((IRecomputation) m).recompute());
+		return m;
+	}
+
+	private void addSelfLoops(Graph g, int every) {
+		GraphDataStructure gds = g.getGraphDatastructures();
+		int before = g.getEdgeCount();
+		int added = 0;
+		for (IElement n_ : g.getNodes()) {
+			Node n = (Node) n_;
+			if (n.getIndex() % every != 0)
+				continue;
+			Edge e = gds.newEdgeInstance(n, n);
+			assertTrue(g.addEdge(e));
+			e.connectToNodes();
+			added++;
+		}
+		assertTrue(g.getEdgeCount() == before + added);
+	}
+
+	@Test
+	public void csrEqualsListBased() throws InstantiationException,
+			IllegalAccessException {
+		for (long seed = 0; seed < 5; seed++) {
+			Graph g = this.generate(seed);
+			ClusteringCoefficient lists = this.compute(g, false);
+			ClusteringCoefficient csr = this.compute(g, true);
+			assertTrue(csr.equals(lists));
+			// the graph must contain triangles
+			assertTrue(lists.getValues()[0].getValue() > 0);
+		}
+	}
+
+	@Test
+	public void selfLoopsAreIgnored() throws InstantiationException,
+			IllegalAccessException {
+		for (long seed = 0; seed < 5; seed++) {
+			Graph g = this.generate(seed);
+			ClusteringCoefficient withoutLoops = this.compute(g, false);
+			this.addSelfLoops(g, 3);
+			ClusteringCoefficient lists = this.compute(g, false);
+			ClusteringCoefficient csr = this.compute(g, true);
+			assertTrue(csr.equals(lists));
+			assertTrue(csr.equals(withoutLoops));
+		}
+	}
+}
@@ -0,0 +1,452 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.datastructures.DArrayList;
+import dna.graph.datastructures.DHashMap;
+import dna.graph.datastructures.DIntArrayAdjacency;
+import dna.graph.datastructures.DataStructure;
+import dna.graph.datastructures.DataStructure.ListType;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.datastructures.IDataStructure;
+import dna.graph.edges.DirectedEdge;
+import dna.graph.edges.DirectedWeightedEdge;
+import dna.graph.edges.Edge;
+import dna.graph.edges.UndirectedEdge;
+import dna.graph.edges.UndirectedWeightedEdge;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.nodes.DirectedNode;
+import dna.graph.nodes.Node;
+import dna.graph.nodes.UndirectedNode;
+import dna.graph.weights.IntWeight;
+import dna.graph.weights.Weight.WeightSelection;
+import dna.io.BatchReader;
+import dna.io.BatchWriter;
+import dna.updates.batch.Batch;
+import dna.updates.batch.BatchSanitization;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Rand;
+
+/**
+ * Compares DIntArrayAdjacency to a HashSet for random sequences of additions
+ * and removals. Small lists are searched linearly, in large ones the many
+ * collisions in the open-addressing table regularly require to shift entries
+ * backwards and to move the last element to the removed position. Graphs
+ * using the list for all but the global node list are compared to graphs
+ * using DArrayList, both for their content after random batches and for
+ * their memory consumption.
+ */
+@RunWith(Parameterized.class)
+public class DIntArrayAdjacencyTest {
+
+	private static final int STEPS = 20000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ListType listType;
+
+	private Class<? extends IElement> dataType;
+
+	private Graph g;
+
+	private Node owner;
+
+	private ArrayList<IElement> elements;
+
+	public DIntArrayAdjacencyTest(ListType listType,
+			Class<? extends IElement> dataType, int nodes) {
+		this.listType = listType;
+		this.dataType = dataType;
+		this.elements = new ArrayList<IElement>();
+
+		GraphDataStructure gds = gds(this.isDirected(),
+				DIntArrayAdjacency.class);
+		this.g = gds.newGraphInstance("DIntArrayAdjacencyTest", 0, nodes, 0);
+		for (int i = 0; i < nodes; i++) {
+			this.g.addNode(gds.newNodeInstance(i));
+		}
+		this.owner = this.g.getNode(0);
+
+		for (int i = 0; i < nodes; i++) {
+			Node n = this.g.getNode(i);
+			switch (listType) {
+			case LocalNodeList:
+				this.elements.add(n);
+				break;
+			case LocalInEdgeList:
+				this.elements.add(gds.newEdgeInstance(n, this.owner));
+				break;
+			case LocalOutEdgeList:
+			case LocalEdgeList:
+				this.elements.add(gds.newEdgeInstance(this.owner, n));
+				break;
+			default:
+				for (int j = 0; j < nodes; j++) {
+					if (i == j || (!this.isDirected() && j < i))
+						continue;
+					this.elements.add(gds.newEdgeInstance(n,
+							this.g.getNode(j)));
+				}
+			}
+		}
+	}
+
+	@Parameterized.Parameters(name = "{0} {1} {2}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] {
+				{ ListType.LocalNodeList, DirectedNode.class, 24 },
+				{ ListType.LocalNodeList, DirectedNode.class, 200 },
+				{ ListType.LocalInEdgeList, DirectedEdge.class, 24 },
+				{ ListType.LocalInEdgeList, DirectedEdge.class, 200 },
+				{ ListType.LocalOutEdgeList, DirectedEdge.class, 24 },
+				{ ListType.LocalOutEdgeList, DirectedEdge.class, 200 },
+				{ ListType.LocalEdgeList, UndirectedEdge.class, 24 },
+				{ ListType.LocalEdgeList, UndirectedEdge.class, 200 },
+				{ ListType.GlobalEdgeList, DirectedEdge.class, 24 },
+				{ ListType.GlobalEdgeList, UndirectedEdge.class, 24 } });
+	}
+
+	private boolean isDirected() {
+		return DirectedNode.class.isAssignableFrom(this.dataType)
+				|| DirectedEdge.class.isAssignableFrom(this.dataType);
+	}
+
+	/**
+	 * @return GDS using a DHashMap as global node list and the given class for
+	 *         all other lists
+	 */
+	private static GraphDataStructure gds(boolean directed,
+			Class<? extends IDataStructure> lists) {
+		EnumMap<ListType, Class<? extends IDataStructure>> listTypes = GraphDataStructure
+				.getList(ListType.GlobalNodeList, DHashMap.class,
+						ListType.GlobalEdgeList, lists, ListType.LocalEdgeList,
+						lists);
+		listTypes.put(ListType.LocalNodeList, lists);
+		return directed ? new GraphDataStructure(listTypes,
+				DirectedNode.class, DirectedEdge.class)
+				: new GraphDataStructure(listTypes, UndirectedNode.class,
+						UndirectedEdge.class);
+	}
+
+	private DIntArrayAdjacency newList() {
+		DIntArrayAdjacency list = new DIntArrayAdjacency(this.listType,
+				this.listType.getStoredClass());
+		list.bind(this.g, this.listType == ListType.GlobalEdgeList ? null
+				: this.owner);
+		return list;
+	}
+
+	private IElement random(Random rand) {
+		return this.elements.get(rand.nextInt(this.elements.size()));
+	}
+
+	private void assertSameContent(HashSet<IElement> expected,
+			DIntArrayAdjacency list) {
+		assertEquals(expected.size(), list.size());
+		HashSet<IElement> found = new HashSet<IElement>();
+		for (IElement e : list) {
+			assertTrue("duplicate " + e, found.add(e));
+		}
+		assertEquals(expected, found);
+		for (IElement e : this.elements) {
+			assertEquals(e.toString(), expected.contains(e), list.contains(e));
+			if (e instanceof Node) {
+				Node n = (Node) e;
+				assertEquals(expected.contains(e),
+						list.containsIndex(n.getIndex()));
+				if (expected.contains(e))
+					assertSame(e, list.get(n.getIndex()));
+				else
+					assertNull(list.get(n.getIndex()));
+			} else {
+				Edge edge = (Edge) e;
+				assertEquals(expected.contains(e), list.containsIndices(
+						edge.getN1Index(), edge.getN2Index()));
+				if (expected.contains(e)) {
+					// edges are created from the nodes of the graph
+					Edge created = list.get(edge);
+					assertEquals(e, created);
+					assertSame(edge.getN1(), created.getN1());
+					assertSame(edge.getN2(), created.getN2());
+				} else {
+					assertNull(list.get(edge));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void randomAddAndRemove() {
+		Random rand = new Random(42);
+		DIntArrayAdjacency list = this.newList();
+		HashSet<IElement> expected = new HashSet<IElement>();
+		for (int step = 0; step < STEPS; step++) {
+			IElement e = this.random(rand);
+			// remove more often than add once the list is large
+			if (rand.nextInt(this.elements.size()) < expected.size()) {
+				assertEquals(expected.remove(e), list.remove(e));
+			} else {
+				assertEquals(expected.add(e), list.add(e));
+			}
+			assertEquals(expected.size(), list.size());
+			IElement other = this.random(rand);
+			assertEquals(expected.contains(other), list.contains(other));
+			if (step % 500 == 0) {
+				this.assertSameContent(expected, list);
+			}
+		}
+		this.assertSameContent(expected, list);
+	}
+
+	@Test
+	public void removeAllInRandomOrder() {
+		Random rand = new Random(7);
+		DIntArrayAdjacency list = this.newList();
+		HashSet<IElement> expected = new HashSet<IElement>(this.elements);
+		for (IElement e : this.elements) {
+			assertTrue(list.add(e));
+			assertFalse(list.add(e));
+		}
+		this.assertSameContent(expected, list);
+
+		ArrayList<IElement> order = new ArrayList<IElement>(this.elements);
+		Collections.shuffle(order, rand);
+		for (IElement e : order) {
+			assertTrue(list.remove(e));
+			assertFalse(list.remove(e));
+			expected.remove(e);
+			assertEquals(expected.size(), list.size());
+			for (IElement other : this.elements) {
+				assertEquals(expected.contains(other), list.contains(other));
+			}
+		}
+		assertEquals(0, list.size());
+		assertFalse(list.iterator().hasNext());
+	}
+
+	@Test
+	public void removeViaIterator() {
+		Random rand = new Random(3);
+		DIntArrayAdjacency list = this.newList();
+		HashSet<IElement> expected = new HashSet<IElement>(this.elements);
+		for (IElement e : this.elements) {
+			list.add(e);
+		}
+		int visited = 0;
+		Iterator<IElement> it = list.iterator();
+		while (it.hasNext()) {
+			IElement e = it.next();
+			visited++;
+			if (rand.nextBoolean()) {
+				it.remove();
+				expected.remove(e);
+			}
+		}
+		assertEquals(this.elements.size(), visited);
+		this.assertSameContent(expected, list);
+	}
+
+	@Test
+	public void maxNodeIndex() {
+		if (!Node.class.isAssignableFrom(this.dataType))
+			return;
+		DIntArrayAdjacency list = this.newList();
+		assertEquals(-1, list.getMaxNodeIndex());
+		for (IElement e : this.elements) {
+			list.add(e);
+		}
+		assertEquals(this.elements.size() - 1, list.getMaxNodeIndex());
+		list.remove(this.elements.get(this.elements.size() - 1));
+		assertEquals(this.elements.size() - 2, list.getMaxNodeIndex());
+		list.remove(this.elements.get(0));
+		assertEquals(this.elements.size() - 2, list.getMaxNodeIndex());
+	}
+
+	@Test
+	public void rejectsEdgesOfOtherNodes() {
+		if (this.listType == ListType.LocalNodeList
+				|| this.listType == ListType.GlobalEdgeList)
+			return;
+		DIntArrayAdjacency list = this.newList();
+		Node n1 = this.g.getNode(1);
+		Node n2 = this.g.getNode(2);
+		Edge e = this.g.getGraphDatastructures().newEdgeInstance(n1, n2);
+		assertFalse(list.contains(e));
+		assertFalse(list.remove(e));
+		try {
+			list.add(e);
+		} catch (RuntimeException ex) {
+			assertEquals(0, list.size());
+			return;
+		}
+		throw new AssertionError("added edge " + e + " to list of node "
+				+ this.owner);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void rejectsWeightedEdges() {
+		EnumMap<ListType, Class<? extends IDataStructure>> listTypes = GraphDataStructure
+				.getList(ListType.GlobalNodeList, DHashMap.class,
+						ListType.GlobalEdgeList, DIntArrayAdjacency.class);
+		GraphDataStructure gds = this.isDirected() ? new GraphDataStructure(
+				listTypes, DirectedNode.class, DirectedWeightedEdge.class, null,
+				null, IntWeight.class, WeightSelection.One)
+				: new GraphDataStructure(listTypes, UndirectedNode.class,
+						UndirectedWeightedEdge.class, null, null,
+						IntWeight.class, WeightSelection.One);
+		gds.newGraphInstance("weighted", 0, 10, 10);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void rejectsGlobalNodeList() {
+		new DIntArrayAdjacency(ListType.GlobalNodeList, Node.class);
+	}
+
+	private static void assertSameGraph(Graph expected, Graph actual) {
+		assertEquals(expected.getNodeCount(), actual.getNodeCount());
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+		for (IElement nTemp : expected.getNodes()) {
+			Node n = (Node) nTemp;
+			Node other = actual.getNode(n.getIndex());
+			assertNotNull(other);
+			assertEquals(n.getDegree(), other.getDegree());
+			if (n instanceof DirectedNode) {
+				assertEquals(((DirectedNode) n).getInDegree(),
+						((DirectedNode) other).getInDegree());
+				assertEquals(((DirectedNode) n).getNeighborCount(),
+						((DirectedNode) other).getNeighborCount());
+				for (IElement neighbor : ((DirectedNode) other).getNeighbors()) {
+					assertTrue(((DirectedNode) n)
+							.hasNeighbor((DirectedNode) neighbor));
+				}
+			}
+			for (IElement e : other.getEdges()) {
+				assertTrue(n.hasEdge((Edge) e));
+			}
+		}
+		for (IElement eTemp : actual.getEdges()) {
+			Edge e = (Edge) eTemp;
+			assertTrue(expected.containsEdge(e));
+			assertSame(actual.getNode(e.getN1Index()), e.getN1());
+			assertSame(actual.getNode(e.getN2Index()), e.getN2());
+		}
+	}
+
+	/**
+	 * Applies random batches to a graph using DArrayList and (via batch files)
+	 * to a graph using DIntArrayAdjacency, the graphs must remain equal.
+	 */
+	@Test
+	public void graphEqualsArrayListGraph() {
+		if (this.listType != ListType.GlobalEdgeList)
+			return;
+		String dir = this.folder.getRoot().getPath() + File.separator;
+		Rand.init(0);
+		Graph expected = new RandomGraph(gds(this.isDirected(),
+				DArrayList.class), 200, 1500).generate();
+		Graph actual = gds(this.isDirected(), DIntArrayAdjacency.class)
+				.newGraphInstance(expected.getName(),
+						expected.getTimestamp(), 200, 1500);
+		for (IElement n : expected.getNodes()) {
+			actual.addNode(actual.getGraphDatastructures().newNodeInstance(
+					((Node) n).getIndex()));
+		}
+		for (IElement eTemp : expected.getEdges()) {
+			Edge e = (Edge) eTemp;
+			Edge copy = actual.getGraphDatastructures().newEdgeInstance(
+					actual.getNode(e.getN1Index()),
+					actual.getNode(e.getN2Index()));
+			assertTrue(actual.addEdge(copy));
+			assertTrue(copy.connectToNodes());
+		}
+		assertSameGraph(expected, actual);
+
+		RandomBatch bg = new RandomBatch(10, 10, 100, 100);
+		for (int i = 0; i < 20; i++) {
+			Batch b = bg.generate(expected);
+			BatchSanitization.sanitize(b);
+			assertTrue(BatchWriter.write(b, dir, "batch_" + i));
+			assertTrue(b.apply(expected));
+			assertTrue(BatchReader.read(dir, "batch_" + i, actual).apply(
+					actual));
+			assertSameGraph(expected, actual);
+		}
+	}
+
+	private static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	/**
+	 * @return memory used by a graph with the given list class for all but
+	 *         the global node list, 20000 nodes and 10 edges per node
+	 */
+	private long memory(Class<? extends IDataStructure> lists) {
+		int nodes = 20000;
+		int[] offsets = new int[10];
+		for (int k = 0; k < offsets.length; k++) {
+			offsets[k] = 37 * k * k + k + 1;
+		}
+		long before = usedMemory();
+		GraphDataStructure gds = gds(this.isDirected(), lists);
+		Graph g = gds.newGraphInstance("memory", 0, nodes, nodes
+				* offsets.length);
+		DataStructure.disableContainsOnAddition();
+		try {
+			for (int i = 0; i < nodes; i++) {
+				g.addNode(gds.newNodeInstance(i));
+			}
+			for (int i = 0; i < nodes; i++) {
+				for (int offset : offsets) {
+					Edge e = gds.newEdgeInstance(g.getNode(i),
+							g.getNode((i + offset) % nodes));
+					g.addEdge(e);
+					e.connectToNodes();
+				}
+			}
+		} finally {
+			DataStructure.enableContainsOnAddition();
+		}
+		long used = usedMemory() - before;
+		assertEquals(nodes * offsets.length, g.getEdgeCount());
+		return used;
+	}
+
+	@Test
+	public void lessMemoryThanArrayList() {
+		if (this.listType != ListType.GlobalEdgeList)
+			return;
+		long arrayList = this.memory(DArrayList.class);
+		long intArray = this.memory(DIntArrayAdjacency.class);
+		assertTrue("DIntArrayAdjacency: " + intArray + ", DArrayList: "
+				+ arrayList, intArray < 0.95 * arrayList);
+	}
+}
@@ -0,0 +1,342 @@
+package dna.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.io.BinaryReader;
+import dna.series.data.BinnedDistributionDouble;
+import dna.series.data.BinnedDistributionInt;
+import dna.series.data.BinnedDistributionLong;
+import dna.series.data.Distribution;
+import dna.series.data.DistributionDouble;
+import dna.series.data.DistributionInt;
+import dna.series.data.DistributionLong;
+import dna.series.data.NodeNodeValueList;
+import dna.series.data.NodeValueList;
+import dna.util.Config;
+
+/**
+ * Applies random sequences of incr, decr, set and truncate to distributions
+ * and compares their values, denominators and written files to a reference
+ * array that is trimmed to its length on every truncate. In addition, all
+ * distribution and node value list types are written and read back in the
+ * text and the binary format, and text files must still be read while
+ * GENERATION_AS_BINARY is set.
+ */
+@RunWith(Parameterized.class)
+public class DistributionTest {
+
+	private static final String BINARY = "GENERATION_AS_BINARY";
+
+	private static final String MAPPED = "READ_MEMORY_MAPPED";
+
+	private static final int SEQUENCES = 50;
+
+	private static final int OPERATIONS = 400;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private boolean binary;
+
+	public DistributionTest(boolean binary) {
+		this.binary = binary;
+	}
+
+	@Parameterized.Parameters(name = "binary={0}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] { { false }, { true } });
+	}
+
+	@After
+	public void resetConfig() {
+		Config.reset(BINARY);
+		Config.reset(MAPPED);
+	}
+
+	/** reference values, trimmed by truncate() */
+	private static class Reference {
+		private long[] values = new long[0];
+
+		private long denominator = 0;
+
+		private void add(int index, long delta, boolean denominator) {
+			if (index >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, index + 1);
+			}
+			this.values[index] += delta;
+			if (denominator) {
+				this.denominator += delta;
+			}
+		}
+
+		private void set(int index, long value) {
+			long old = index < this.values.length ? this.values[index] : 0;
+			this.add(index, value - old, false);
+		}
+
+		private void truncate() {
+			int length = this.values.length;
+			while (length > 0 && this.values[length - 1] == 0) {
+				length--;
+			}
+			this.values = Arrays.copyOf(this.values, length);
+		}
+	}
+
+	private static int[] toInts(long[] values) {
+		int[] ints = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			ints[i] = (int) values[i];
+		}
+		return ints;
+	}
+
+	private static double[] toDoubles(long[] values) {
+		double[] doubles = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			doubles[i] = values[i];
+		}
+		return doubles;
+	}
+
+	/**
+	 * Applies the same random operation to the reference and the given
+	 * distributions, indices are mostly small so that truncate() often drops
+	 * values that are incremented again afterwards.
+	 */
+	private static void apply(Random rand, Reference ref, DistributionLong l,
+			DistributionInt i, DistributionDouble d) {
+		int index = rand.nextInt(10) == 0 ? rand.nextInt(200) : rand
+				.nextInt(20);
+		switch (rand.nextInt(5)) {
+		case 0:
+		case 1:
+			ref.add(index, 1, true);
+			l.incr(index);
+			i.incr(index);
+			d.incr(index);
+			break;
+		case 2:
+			ref.add(index, -1, true);
+			l.decr(index);
+			i.decr(index);
+			d.decr(index);
+			break;
+		case 3:
+			long value = rand.nextInt(3) == 0 ? 0 : rand.nextInt(100) - 10;
+			ref.set(index, value);
+			l.set(index, value);
+			i.set(index, (int) value);
+			d.set(index, value);
+			break;
+		default:
+			ref.truncate();
+			l.truncate();
+			i.truncate();
+			d.truncate();
+			break;
+		}
+	}
+
+	private static void assertEqualValues(Reference ref, DistributionLong l,
+			DistributionInt i, DistributionDouble d) {
+		assertArrayEquals(ref.values, l.getLongValues());
+		assertArrayEquals(toInts(ref.values), i.getIntValues());
+		assertArrayEquals(toDoubles(ref.values), d.getDoubleValues(), 0);
+		assertEquals(ref.values.length, l.getLength());
+		assertEquals(ref.values.length, i.getLength());
+		assertEquals(ref.values.length, d.getLength());
+		for (int k = 0; k < ref.values.length; k++) {
+			assertEquals(ref.values[k], l.getValue(k));
+			assertEquals(ref.values[k], i.getValue(k));
+			assertEquals(ref.values[k], d.getValue(k), 0);
+		}
+		assertEquals(ref.denominator, l.getDenominator());
+		assertEquals(ref.denominator, i.getDenominator());
+	}
+
+	private void assertReferenceSequences(boolean sparse) throws IOException {
+		Config.overwrite(BINARY, Boolean.toString(this.binary));
+		String dir = this.folder.getRoot().getPath() + File.separator;
+		Random rand = new Random(sparse ? 1 : 0);
+		for (int s = 0; s < SEQUENCES; s++) {
+			Reference ref = new Reference();
+			DistributionLong l = new DistributionLong("l", sparse);
+			DistributionInt i = new DistributionInt("i", sparse);
+			DistributionDouble d = new DistributionDouble("d");
+			for (int k = 0; k < OPERATIONS; k++) {
+				apply(rand, ref, l, i, d);
+				if (rand.nextInt(20) == 0) {
+					assertEqualValues(ref, l, i, d);
+				}
+			}
+			ref.truncate();
+			l.truncate();
+			i.truncate();
+			d.truncate();
+			assertEqualValues(ref, l, i, d);
+
+			// writing does not change the values, reading results in the
+			// trimmed values
+			l.write(dir, "l");
+			i.write(dir, "i");
+			d.write(dir, "d");
+			assertEqualValues(ref, l, i, d);
+			assertEqualValues(ref, DistributionLong.read(dir, "l", "l", true),
+					DistributionInt.read(dir, "i", "i", true),
+					DistributionDouble.read(dir, "d", "d", true));
+
+			// set(..) does not change the denominator
+			l.updateDenominator();
+			i.updateDenominator();
+			assertEquals(sum(ref.values), l.getDenominator());
+			assertEquals(sum(ref.values), i.getDenominator());
+		}
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+		for (long v : values) {
+			sum += v;
+		}
+		return sum;
+	}
+
+	@Test
+	public void denseMatchesReference() throws IOException {
+		this.assertReferenceSequences(false);
+	}
+
+	@Test
+	public void sparseMatchesReference() throws IOException {
+		this.assertReferenceSequences(true);
+	}
+
+	// the denominators differ from the number and the sum of the values so
+	// that swapped fields are detected
+	private static final int[] INTS = { 3, 0, -7, Integer.MAX_VALUE };
+
+	private static final long[] LONGS = { 5, 0, 1L << 40, -9 };
+
+	private static final double[] DOUBLES = { 0.5, -0.0, 1e-300,
+			Double.MAX_VALUE, Double.NaN, -17 };
+
+	private static final double[][] MATRIX = { { 1.5, 0, -2 },
+			{ Double.NaN, 1e10, 0.1 }, { -0.0, 3, 4e-7 } };
+
+	/**
+	 * Writes one instance of each distribution and node value list type.
+	 */
+	private static void writeAll(String dir) throws IOException {
+		new Distribution("d", DOUBLES).write(dir, "d");
+		new DistributionInt("di", INTS, 42).write(dir, "di");
+		new DistributionLong("dl", LONGS, 1L << 41).write(dir, "dl");
+		new DistributionDouble("dd", DOUBLES).write(dir, "dd");
+		new BinnedDistributionInt("bi", 0.25, INTS, 43).write(dir, "bi");
+		new BinnedDistributionLong("bl", 2.5, LONGS, 44).write(dir, "bl");
+		new BinnedDistributionDouble("bd", 0.1, DOUBLES).write(dir, "bd");
+		new NodeValueList("nvl", DOUBLES).write(dir, "nvl");
+		new NodeNodeValueList("nnvl", MATRIX).write(dir, "nnvl");
+	}
+
+	/**
+	 * Reads all types written by {@link #writeAll(String)} and compares them
+	 * to the written values.
+	 */
+	private static void assertAllRead(String dir) throws IOException {
+		assertArrayEquals(DOUBLES,
+				Distribution.read(dir, "d", "d", true).getValues(), 0);
+
+		DistributionInt di = DistributionInt.read(dir, "di", "di", true);
+		assertArrayEquals(INTS, di.getIntValues());
+		assertEquals(42, di.getDenominator());
+
+		DistributionLong dl = DistributionLong.read(dir, "dl", "dl", true);
+		assertArrayEquals(LONGS, dl.getLongValues());
+		assertEquals(1L << 41, dl.getDenominator());
+
+		assertArrayEquals(DOUBLES,
+				DistributionDouble.read(dir, "dd", "dd", true)
+						.getDoubleValues(), 0);
+
+		BinnedDistributionInt bi = BinnedDistributionInt.read(dir, "bi",
+				"bi", true);
+		assertEquals(0.25, bi.getBinSize(), 0);
+		assertArrayEquals(INTS, bi.getIntValues());
+		assertEquals(43, bi.getDenominator());
+
+		BinnedDistributionLong bl = BinnedDistributionLong.read(dir, "bl",
+				"bl", true);
+		assertEquals(2.5, bl.getBinSize(), 0);
+		assertArrayEquals(LONGS, bl.getLongValues());
+		assertEquals(44, bl.getDenominator());
+
+		BinnedDistributionDouble bd = BinnedDistributionDouble.read(dir, "bd",
+				"bd", true);
+		assertEquals(0.1, bd.getBinSize(), 0);
+		assertArrayEquals(DOUBLES, bd.getDoubleValues(), 0);
+
+		assertArrayEquals(DOUBLES,
+				NodeValueList.read(dir, "nvl", "nvl", true).getValues(), 0);
+
+		double[][] matrix = NodeNodeValueList.read(dir, "nnvl", "nnvl", true)
+				.getValues();
+		assertEquals(MATRIX.length, matrix.length);
+		for (int i = 0; i < MATRIX.length; i++) {
+			assertArrayEquals(MATRIX[i], matrix[i], 0);
+		}
+	}
+
+	private static boolean isBinary(String dir, String filename)
+			throws IOException {
+		BinaryReader b = BinaryReader.getReader(dir, filename);
+		if (b == null) {
+			return false;
+		}
+		b.close();
+		return true;
+	}
+
+	@Test
+	public void allTypesRoundTrip() throws IOException {
+		Config.overwrite(BINARY, Boolean.toString(this.binary));
+		String dir = this.folder.getRoot().getPath() + File.separator;
+		writeAll(dir);
+		for (String name : new String[] { "d", "di", "dl", "dd", "bi", "bl",
+				"bd", "nvl", "nnvl" }) {
+			assertEquals(name, this.binary, isBinary(dir, name));
+		}
+		for (boolean mapped : new boolean[] { true, false }) {
+			Config.overwrite(MAPPED, Boolean.toString(mapped));
+			assertAllRead(dir);
+		}
+	}
+
+	@Test
+	public void textFilesAreReadWhileBinaryIsSet() throws IOException {
+		assumeTrue(this.binary);
+		String dir = this.folder.getRoot().getPath() + File.separator;
+		Config.overwrite(BINARY, "false");
+		writeAll(dir);
+		Config.overwrite(BINARY, "true");
+		for (boolean mapped : new boolean[] { true, false }) {
+			Config.overwrite(MAPPED, Boolean.toString(mapped));
+			assertAllRead(dir);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dna.io.MappedReader;
+import dna.util.Config;
+
+/**
+ * Compares the doubles parsed by MappedReader.readDouble() to the ones parsed
+ * by Double.parseDouble(..), for both the directly parsed and the fallback
+ * cases. Also checks that close() releases the mapping and that files too
+ * large for a single mapping are read without it.
+ */
+public class MappedReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String[] VALUES = { "0", "-0", "+0", "0.0", "-0.0",
+			"1", "-1", "+1", "1.", ".5", "-.5", "0.1", "0.2", "0.3", "1.5",
+			"3.141592653589793", "2.718281828459045", "00000.125",
+			"0001234.5000", "-007", "1e0", "1E5", "1e+5", "1e-5", "-2.5e-3",
+			"1.7976931348623157E308", "4.9E-324", "2.2250738585072014E-308",
+			"1e22", "1e23", "9007199254740992", "9007199254740993",
+			"9007199254740991e-22", "123456789012345678",
+			"1234567890123456789", "12345678901234567890",
+			"0.12345678901234567", "0.123456789012345678901234",
+			"1.00000000000000011102230246251565404", "1e0001", "1e-0001",
+			"0.000000000000000000000000000001", "1e400", "-1e400", "1e-400",
+			"NaN", "-NaN", "Infinity", "-Infinity", "+Infinity" };
+
+	@After
+	public void resetConfig() {
+		Config.reset("READ_MEMORY_MAPPED");
+	}
+
+	private String write(String content) throws IOException {
+		File f = this.folder.newFile();
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+		return f.getName();
+	}
+
+	private MappedReader reader(String content) throws IOException {
+		return new MappedReader(this.folder.getRoot().getPath()
+				+ File.separator, this.write(content));
+	}
+
+	private static void assertSameDouble(String value, double actual) {
+		double expected = Double.parseDouble(value);
+		// compare the bits to distinguish 0.0 from -0.0
+		assertEquals(value, Double.doubleToLongBits(expected),
+				Double.doubleToLongBits(actual));
+	}
+
+	private void assertParsedLikeParseDouble(ArrayList<String> values,
+			String lineEnd) throws IOException {
+		StringBuilder buff = new StringBuilder();
+		for (int i = 0; i < values.size(); i++) {
+			buff.append(i + "\t" + values.get(i) + "\t" + values.get(i)
+					+ lineEnd);
+		}
+		MappedReader r = this.reader(buff.toString());
+		for (int i = 0; i < values.size(); i++) {
+			assertTrue(r.nextLine());
+			assertEquals(i, r.readInt());
+			assertSameDouble(values.get(i), r.readDouble());
+			assertSameDouble(values.get(i), r.readDouble());
+		}
+		assertFalse(r.nextLine());
+		r.close();
+	}
+
+	private static ArrayList<String> values() {
+		ArrayList<String> values = new ArrayList<String>();
+		for (String v : VALUES)
+			values.add(v);
+		return values;
+	}
+
+	@Test
+	public void specialValues() throws IOException {
+		this.assertParsedLikeParseDouble(values(), "\n");
+	}
+
+	@Test
+	public void specialValuesCRLF() throws IOException {
+		this.assertParsedLikeParseDouble(values(), "\r\n");
+	}
+
+	@Test
+	public void randomValues() throws IOException {
+		Random rand = new Random(0);
+		ArrayList<String> values = new ArrayList<String>();
+		for (int i = 0; i < 20000; i++) {
+			double d = Double.longBitsToDouble(rand.nextLong());
+			if (Double.isNaN(d))
+				continue;
+			values.add(Double.toString(d));
+			double small = rand.nextDouble() * Math.pow(10, rand.nextInt(20));
+			values.add(Double.toString(small));
+			values.add(String.format(Locale.US, "%." + rand.nextInt(18) + "f",
+					small));
+			values.add(String.format(Locale.US, "%." + rand.nextInt(18) + "e",
+					small));
+			// random digits (up to 20) with a random decimal point and
+			// exponent
+			StringBuilder digits = new StringBuilder();
+			if (rand.nextBoolean())
+				digits.append('-');
+			int count = 1 + rand.nextInt(20);
+			int dot = rand.nextInt(count + 1);
+			for (int j = 0; j < count; j++) {
+				if (j == dot)
+					digits.append('.');
+				digits.append((char) ('0' + rand.nextInt(10)));
+			}
+			if (rand.nextBoolean())
+				digits.append("e" + (rand.nextInt(60) - 30));
+			values.add(digits.toString());
+		}
+		this.assertParsedLikeParseDouble(values, rand.nextBoolean() ? "\n"
+				: "\r\n");
+	}
+
+	@Test
+	public void lastLineWithoutLineEnd() throws IOException {
+		MappedReader r = this.reader("1.5\r\n-2.25e-1");
+		assertTrue(r.nextLine());
+		assertSameDouble("1.5", r.readDouble());
+		assertTrue(r.nextLine());
+		assertSameDouble("-2.25e-1", r.readDouble());
+		assertFalse(r.nextLine());
+		r.close();
+	}
+
+	@Test
+	public void readIndexedDoubles() throws IOException {
+		MappedReader r = this.reader("0\t0.1\r\n1\t-0\r\n2\tNaN\r\n3\t1e-5\r\n");
+		double[] values = r.readIndexedDoubles();
+		assertEquals(4, values.length);
+		assertSameDouble("0.1", values[0]);
+		assertSameDouble("-0", values[1]);
+		assertSameDouble("NaN", values[2]);
+		assertSameDouble("1e-5", values[3]);
+		r.close();
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void invalidValue() throws IOException {
+		MappedReader r = this.reader("1.2.3\n");
+		assertTrue(r.nextLine());
+		r.readDouble();
+	}
+
+	/**
+	 * @return true if the given file is mapped into the address space of this
+	 *         process (according to /proc/self/maps)
+	 */
+	private static boolean isMapped(File f) throws IOException {
+		String path = f.getCanonicalPath();
+		for (String line : Files.readAllLines(Paths.get("/proc/self/maps"),
+				StandardCharsets.UTF_8)) {
+			if (line.endsWith(path))
+				return true;
+		}
+		return false;
+	}
+
+	@Test
+	public void closeUnmapsFile() throws IOException {
+		assumeTrue(new File("/proc/self/maps").canRead());
+		String name = this.write("0\t1.5\n1\t2.5\n");
+		File f = new File(this.folder.getRoot(), name);
+		MappedReader r = new MappedReader(this.folder.getRoot().getPath()
+				+ File.separator, name);
+		assertTrue(isMapped(f));
+		r.close();
+		assertFalse(isMapped(f));
+		r.close();
+		assertTrue(f.delete());
+	}
+
+	@Test
+	public void largeFilesAreNotMapped() throws IOException {
+		Config.overwrite("READ_MEMORY_MAPPED", "true");
+		String dir = this.folder.getRoot().getPath() + File.separator;
+		String small = this.write("0\t1.5\n");
+		String large = this.write("");
+		// sparse file, no data is written
+		RandomAccessFile raf = new RandomAccessFile(dir + large, "rw");
+		try {
+			raf.setLength(Integer.MAX_VALUE + 1L);
+		} finally {
+			raf.close();
+		}
+		assertTrue(MappedReader.isEnabled(dir, small));
+		assertFalse(MappedReader.isEnabled(dir, large));
+		try {
+			new MappedReader(dir, large);
+			throw new AssertionError("mapped " + large);
+		} catch (IOException e) {
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package dna.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.Weight.WeightSelection;
+import dna.metrics.IMetric;
+import dna.metrics.MetricNotApplicableException;
+import dna.metrics.algorithms.Algorithms;
+import dna.metrics.similarityMeasures.CommonNeighbors;
+import dna.metrics.similarityMeasures.Measures.DirectedDegreeType;
+import dna.metrics.similarityMeasures.Measures.EdgeWeightType;
+import dna.metrics.similarityMeasures.dice.DiceR;
+import dna.metrics.similarityMeasures.dice.DiceU;
+import dna.metrics.similarityMeasures.jaccard.JaccardR;
+import dna.metrics.similarityMeasures.jaccard.JaccardU;
+import dna.metrics.similarityMeasures.matching.Matching;
+import dna.metrics.similarityMeasures.matching.MatchingR;
+import dna.metrics.similarityMeasures.matching.MatchingU;
+import dna.metrics.similarityMeasures.overlap.OverlapR;
+import dna.metrics.similarityMeasures.overlap.OverlapU;
+import dna.series.Series;
+import dna.series.SeriesGeneration;
+import dna.series.data.DistributionLong;
+import dna.updates.generators.BatchGenerator;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Rand;
+
+/**
+ * Applies random batches to small random graphs and checks after each batch
+ * that the U variant of each similarity measure computes the same pairs and
+ * the same pair distribution as its R variant. Pairs without common neighbors
+ * are not stored by the R variants but counted in bulk, so both distributions
+ * must count exactly {@link CommonNeighbors#getNumberOfPairs(Graph)} pairs.
+ * With random edge weights, the incrementally updated values may differ from
+ * the recomputed ones by rounding errors, which can move a value to the
+ * neighboring bin (e.g., 0.99999 instead of 1.0). Therefore, the bins are
+ * only compared for unweighted graphs and weights of 1.0.
+ */
+@RunWith(Parameterized.class)
+public class SimilarityMeasuresTest {
+
+	private static final int BATCHES = 15;
+
+	private boolean directed;
+
+	/** selection of the edge weights, null for unweighted graphs */
+	private WeightSelection weights;
+
+	private boolean weighted;
+
+	private String measure;
+
+	public SimilarityMeasuresTest(boolean directed, WeightSelection weights,
+			String measure) {
+		this.directed = directed;
+		this.weights = weights;
+		this.weighted = weights != null;
+		this.measure = measure;
+	}
+
+	@Parameterized.Parameters(name = "directed={0} weights={1} {2}")
+	public static Collection<Object[]> testPairs() {
+		String[] measures = new String[] { "Jaccard", "Dice", "Overlap",
+				"Matching" };
+		WeightSelection[] weights = new WeightSelection[] { null,
+				WeightSelection.One, WeightSelection.Rand };
+		Object[][] pairs = new Object[2 * weights.length * measures.length][];
+		int i = 0;
+		for (boolean directed : new boolean[] { true, false })
+			for (WeightSelection ws : weights)
+				for (String measure : measures)
+					pairs[i++] = new Object[] { directed, ws, measure };
+		return Arrays.asList(pairs);
+	}
+
+	/**
+	 * @return the R (index 0) and U (index 1) variant of the measure
+	 */
+	private IMetric[] metrics() {
+		EdgeWeightType ew = this.weighted ? EdgeWeightType.USE_WEIGHTS
+				: EdgeWeightType.IGNORE_WEIGHTS;
+		DirectedDegreeType dd = DirectedDegreeType.OUT;
+		switch (this.measure) {
+		case "Jaccard":
+			return new IMetric[] { new JaccardR(dd, ew), new JaccardU(dd, ew) };
+		case "Dice":
+			return new IMetric[] { new DiceR(dd, ew), new DiceU(dd, ew) };
+		case "Overlap":
+			return new IMetric[] { new OverlapR(dd, ew), new OverlapU(dd, ew) };
+		default:
+			Matching.EdgeWeightType mew = this.weighted
+					? Matching.EdgeWeightType.USE_WEIGHTS
+					: Matching.EdgeWeightType.IGNORE_WEIGHTS;
+			Matching.DirectedDegreeType mdd = Matching.DirectedDegreeType.OUT;
+			return new IMetric[] { new MatchingR(mdd, mew),
+					new MatchingU(mdd, mew) };
+		}
+	}
+
+	private GraphDataStructure gds() {
+		if (this.weighted)
+			return this.directed ? GDS.directedE(DoubleWeight.class,
+					this.weights) : GDS.undirectedE(DoubleWeight.class,
+					this.weights);
+		return this.directed ? GDS.directed() : GDS.undirected();
+	}
+
+	private BatchGenerator batches() {
+		if (this.weighted)
+			return new RandomBatch(2, 2, 0, null, 12, 12, 12, this.weights);
+		return new RandomBatch(2, 2, 12, 12);
+	}
+
+	/**
+	 * Asserts that both metrics store the same pairs and that their pair
+	 * distributions include all pairs of nodes and the same number of pairs
+	 * without common neighbors. The other bins are compared if the weights
+	 * do not cause rounding errors.
+	 */
+	private void assertSameResults(Graph g, IMetric r, IMetric u) {
+		assertTrue(u.equals(r));
+		DistributionLong rd = (DistributionLong) r.getDistributions()[0];
+		DistributionLong ud = (DistributionLong) u.getDistributions()[0];
+		long pairs = CommonNeighbors.getNumberOfPairs(g);
+		assertEquals(pairs, rd.getDenominator());
+		assertEquals(pairs, ud.getDenominator());
+		assertEquals("pairs without common neighbors", rd.getValue(0),
+				ud.getValue(0));
+		if (this.weights != WeightSelection.Rand)
+			assertArrayEquals(rd.getLongValues(), ud.getLongValues());
+	}
+
+	@Test
+	public void updatesEqualRecomputation()
+			throws MetricNotApplicableException {
+		for (long seed = 0; seed < 3; seed++) {
+			Rand.init(seed);
+			IMetric[] metrics = this.metrics();
+			Series s = new Series(new RandomGraph(this.gds(), 40, 160),
+					this.batches(), metrics, null, "SimilarityMeasuresTest");
+			Algorithms algorithms = new Algorithms(metrics);
+
+			SeriesGeneration.generateInitialData(s, algorithms);
+			assertSameResults(s.getGraph(), metrics[0], metrics[1]);
+			for (int i = 0; i < BATCHES; i++) {
+				SeriesGeneration.generateNextBatch(s, algorithms);
+				assertSameResults(s.getGraph(), metrics[0], metrics[1]);
+			}
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package dna.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.nodes.Node;
+import dna.graph.weights.DoubleWeight;
+import dna.graph.weights.Weight.WeightSelection;
+import dna.metrics.IMetric;
+import dna.metrics.MetricNotApplicableException;
+import dna.metrics.algorithms.Algorithms;
+import dna.metrics.similarityMeasures.Matrix;
+import dna.metrics.similarityMeasures.Measures.DirectedDegreeType;
+import dna.metrics.similarityMeasures.Measures.EdgeWeightType;
+import dna.metrics.similarityMeasures.TopK;
+import dna.metrics.similarityMeasures.jaccard.JaccardR;
+import dna.metrics.similarityMeasures.jaccard.JaccardU;
+import dna.metrics.similarityMeasures.matching.Matching;
+import dna.metrics.similarityMeasures.matching.MatchingR;
+import dna.metrics.similarityMeasures.matching.MatchingU;
+import dna.series.Series;
+import dna.series.SeriesGeneration;
+import dna.updates.generators.BatchGenerator;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Rand;
+
+/**
+ * Keeps the top-k lists of a similarity measure incrementally in its U variant
+ * and compares them after each batch to the k largest values of each node in
+ * the full matrix of the U variant and to the lists of the R variant. The
+ * batches remove edges and (for weighted graphs) change edge weights so that
+ * full lists regularly lose or decrease entries and have to be rebuilt from
+ * the matrix.
+ */
+@RunWith(Parameterized.class)
+public class TopKTest {
+
+	private static final int K = 3;
+
+	private static final int BATCHES = 15;
+
+	/** exposes the top-k lists and the matrix they are computed from */
+	private static class TopKJaccardU extends JaccardU {
+		public TopKJaccardU(EdgeWeightType ew) {
+			super(DirectedDegreeType.OUT, ew, K);
+		}
+
+		public TopK getTopK() {
+			return this.topK;
+		}
+
+		public Matrix getMatrix() {
+			return this.result;
+		}
+	}
+
+	/** exposes the top-k lists and the matrix they are computed from */
+	private static class TopKMatchingU extends MatchingU {
+		public TopKMatchingU(Matching.EdgeWeightType ew) {
+			super(Matching.DirectedDegreeType.OUT, ew, K);
+		}
+
+		public TopK getTopK() {
+			return this.topK;
+		}
+
+		public Matrix getMatrix() {
+			return this.matching;
+		}
+	}
+
+	private boolean directed;
+
+	private boolean weighted;
+
+	private String measure;
+
+	public TopKTest(boolean directed, boolean weighted, String measure) {
+		this.directed = directed;
+		this.weighted = weighted;
+		this.measure = measure;
+	}
+
+	@Parameterized.Parameters(name = "directed={0} weighted={1} {2}")
+	public static Collection<Object[]> testPairs() {
+		List<Object[]> pairs = new ArrayList<Object[]>();
+		for (boolean directed : new boolean[] { true, false })
+			for (boolean weighted : new boolean[] { false, true })
+				for (String measure : new String[] { "Jaccard", "Matching" })
+					pairs.add(new Object[] { directed, weighted, measure });
+		return pairs;
+	}
+
+	/**
+	 * @return the R (index 0) and U (index 1) variant of the measure
+	 */
+	private IMetric[] metrics() {
+		if (this.measure.equals("Jaccard")) {
+			EdgeWeightType ew = this.weighted ? EdgeWeightType.USE_WEIGHTS
+					: EdgeWeightType.IGNORE_WEIGHTS;
+			return new IMetric[] {
+					new JaccardR(DirectedDegreeType.OUT, ew, K),
+					new TopKJaccardU(ew) };
+		}
+		Matching.EdgeWeightType ew = this.weighted
+				? Matching.EdgeWeightType.USE_WEIGHTS
+				: Matching.EdgeWeightType.IGNORE_WEIGHTS;
+		return new IMetric[] {
+				new MatchingR(Matching.DirectedDegreeType.OUT, ew, K),
+				new TopKMatchingU(ew) };
+	}
+
+	private static TopK getTopK(IMetric u) {
+		if (u instanceof TopKJaccardU)
+			return ((TopKJaccardU) u).getTopK();
+		return ((TopKMatchingU) u).getTopK();
+	}
+
+	private static Matrix getMatrix(IMetric u) {
+		if (u instanceof TopKJaccardU)
+			return ((TopKJaccardU) u).getMatrix();
+		return ((TopKMatchingU) u).getMatrix();
+	}
+
+	private GraphDataStructure gds() {
+		if (this.weighted)
+			return this.directed ? GDS.directedE(DoubleWeight.class,
+					WeightSelection.Rand) : GDS.undirectedE(DoubleWeight.class,
+					WeightSelection.Rand);
+		return this.directed ? GDS.directed() : GDS.undirected();
+	}
+
+	private BatchGenerator batches() {
+		if (this.weighted)
+			return new RandomBatch(1, 1, 0, null, 10, 15, 20,
+					WeightSelection.Rand);
+		return new RandomBatch(1, 1, 10, 15);
+	}
+
+	/**
+	 * @return all positive values of the given node with other nodes in the
+	 *         matrix, by partner index
+	 */
+	private static HashMap<Integer, Double> getPartners(Matrix m, Node node,
+			Graph g) {
+		HashMap<Integer, Double> partners = new HashMap<Integer, Double>();
+		for (IElement e : g.getNodes()) {
+			int partner = ((Node) e).getIndex();
+			double value = m.get(node.getIndex(), partner, 0.0);
+			if (partner != node.getIndex() && value > 0)
+				partners.put(partner, value);
+		}
+		return partners;
+	}
+
+	/**
+	 * Asserts that the list of each node consists of the k largest values of
+	 * the node in the matrix and that the partners of the list have these
+	 * values.
+	 *
+	 * @return number of nodes whose full list lost or decreased an entry
+	 *         since the last batch
+	 */
+	private static int assertTopK(Graph g, TopK topK, Matrix m,
+			HashMap<Integer, HashMap<Integer, Double>> lastLists) {
+		int decreased = 0;
+		HashMap<Integer, HashMap<Integer, Double>> lists = new HashMap<Integer, HashMap<Integer, Double>>();
+		for (IElement e : g.getNodes()) {
+			Node node = (Node) e;
+			HashMap<Integer, Double> partners = getPartners(m, node, g);
+			List<Double> sorted = new ArrayList<Double>(partners.values());
+			Collections.sort(sorted, Collections.reverseOrder());
+			double[] expected = new double[Math.min(K, sorted.size())];
+			for (int i = 0; i < expected.length; i++)
+				expected[i] = sorted.get(i);
+
+			int[] indices = topK.getIndices(node.getIndex());
+			double[] values = topK.getValues(node.getIndex());
+			assertArrayEquals("top-k of " + node, expected, values, 0.0);
+			HashMap<Integer, Double> list = new HashMap<Integer, Double>();
+			for (int i = 0; i < indices.length; i++) {
+				assertEquals("partner " + indices[i] + " of " + node,
+						values[i], partners.get(indices[i]), 0.0);
+				list.put(indices[i], values[i]);
+			}
+			lists.put(node.getIndex(), list);
+
+			HashMap<Integer, Double> last = lastLists.get(node.getIndex());
+			if (last == null || last.size() < K)
+				continue;
+			for (Integer partner : last.keySet()) {
+				Double value = partners.get(partner);
+				if (value == null || value < last.get(partner)) {
+					decreased++;
+					break;
+				}
+			}
+		}
+		lastLists.clear();
+		lastLists.putAll(lists);
+		return decreased;
+	}
+
+	@Test
+	public void incrementalEqualsMatrix() throws MetricNotApplicableException {
+		int decreased = 0;
+		for (long seed = 0; seed < 3; seed++) {
+			Rand.init(seed);
+			IMetric[] metrics = this.metrics();
+			Series s = new Series(new RandomGraph(this.gds(), 40, 200),
+					this.batches(), metrics, null, "TopKTest");
+			Algorithms algorithms = new Algorithms(metrics);
+			HashMap<Integer, HashMap<Integer, Double>> lists = new HashMap<Integer, HashMap<Integer, Double>>();
+
+			SeriesGeneration.generateInitialData(s, algorithms);
+			assertTopK(s.getGraph(), getTopK(metrics[1]),
+					getMatrix(metrics[1]), lists);
+			assertTrue(metrics[1].equals(metrics[0]));
+			for (int i = 0; i < BATCHES; i++) {
+				SeriesGeneration.generateNextBatch(s, algorithms);
+				decreased += assertTopK(s.getGraph(), getTopK(metrics[1]),
+						getMatrix(metrics[1]), lists);
+				assertTrue(metrics[1].equals(metrics[0]));
+			}
+		}
+		// the lists must have been rebuilt from the matrix
+		assertTrue(decreased > 0);
+	}
+}
@@ -0,0 +1,118 @@
+package dna.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import dna.graph.IElement;
+import dna.graph.datastructures.GDS;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.generators.random.RandomGraph;
+import dna.graph.nodes.Node;
+import dna.metrics.IMetric;
+import dna.metrics.MetricNotApplicableException;
+import dna.metrics.algorithms.Algorithms;
+import dna.metrics.connectivity.WeakConnectivityR;
+import dna.metrics.connectivity.WeakConnectivityU;
+import dna.series.Series;
+import dna.series.SeriesGeneration;
+import dna.updates.generators.random.RandomBatch;
+import dna.util.Rand;
+
+/**
+ * Applies random batches of node and edge additions and removals to sparse
+ * random graphs and checks after each batch that WeakConnectivityU with the
+ * UNION_FIND state yields the same components as WeakConnectivityR.
+ */
+@RunWith(Parameterized.class)
+public class WeakConnectivityUnionFindTest {
+
+	private static final int BATCHES = 40;
+
+	/** exposes the component of a node */
+	private static class UnionFindU extends WeakConnectivityU {
+		public UnionFindU() {
+			super(StateType.UNION_FIND);
+		}
+
+		public int getComponent(Node n) {
+			return this.lookUp(n);
+		}
+	}
+
+	/** exposes the component of a node */
+	private static class Recomputation extends WeakConnectivityR {
+		public int getComponent(Node n) {
+			return this.lookUp(n);
+		}
+	}
+
+	private boolean directed;
+
+	public WeakConnectivityUnionFindTest(boolean directed) {
+		this.directed = directed;
+	}
+
+	@Parameterized.Parameters(name = "directed={0}")
+	public static Collection<Object[]> testPairs() {
+		return Arrays.asList(new Object[][] { { true }, { false } });
+	}
+
+	/**
+	 * Asserts that both metrics partition the nodes into the same components,
+	 * i.e., that their component ids map one-to-one onto each other.
+	 */
+	private static void assertSameComponents(Series s, UnionFindU u,
+			Recomputation r) {
+		assertTrue(u.equals(r));
+		HashMap<Integer, Integer> uToR = new HashMap<Integer, Integer>();
+		HashMap<Integer, Integer> rToU = new HashMap<Integer, Integer>();
+		for (IElement ie : s.getGraph().getNodes()) {
+			Node n = (Node) ie;
+			int uId = u.getComponent(n);
+			int rId = r.getComponent(n);
+			if (!uToR.containsKey(uId))
+				uToR.put(uId, rId);
+			if (!rToU.containsKey(rId))
+				rToU.put(rId, uId);
+			assertEquals("component of " + n, uToR.get(uId).intValue(), rId);
+			assertEquals("component of " + n, rToU.get(rId).intValue(), uId);
+		}
+		assertEquals(rToU.size(), uToR.size());
+		assertEquals(u.getValues()[0].getValue(), rToU.size(), 0);
+		assertEquals(r.getValues()[0].getValue(), rToU.size(), 0);
+	}
+
+	@Test
+	public void unionFindEqualsRecomputation()
+			throws MetricNotApplicableException {
+		for (long seed = 0; seed < 3; seed++) {
+			Rand.init(seed);
+			GraphDataStructure gds = this.directed ? GDS.directed() : GDS
+					.undirected();
+			UnionFindU u = new UnionFindU();
+			Recomputation r = new Recomputation();
+			IMetric[] metrics = new IMetric[] { u, r };
+			// sparse graphs with many small components, edge removals
+			// regularly split them and additions merge them
+			Series s = new Series(new RandomGraph(gds, 300, 270),
+					new RandomBatch(15, 15, 60, 60), metrics, null,
+					"WeakConnectivityUnionFindTest");
+			Algorithms algorithms = new Algorithms(metrics);
+
+			SeriesGeneration.generateInitialData(s, algorithms);
+			assertSameComponents(s, u, r);
+			for (int i = 0; i < BATCHES; i++) {
+				SeriesGeneration.generateNextBatch(s, algorithms);
+				assertSameComponents(s, u, r);
+			}
+		}
+	}
+}
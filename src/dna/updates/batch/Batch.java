@@ -1,11 +1,14 @@
 package dna.updates.batch;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 import com.google.common.collect.Iterables;
 
 import dna.graph.Graph;
 import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.nodes.Node;
 import dna.updates.update.EdgeAddition;
 import dna.updates.update.EdgeRemoval;
 import dna.updates.update.EdgeWeight;
@@ -13,6 +16,7 @@ import dna.updates.update.NodeAddition;
 import dna.updates.update.NodeRemoval;
 import dna.updates.update.NodeWeight;
 import dna.updates.update.Update;
+import dna.updates.update.Update.UpdateType;
 import dna.util.Log;
 
 public class Batch {
@@ -30,6 +34,12 @@ public class Batch {
 
 	private Iterable<Update> all;
 
+	/**
+	 * updates of a compact batch, null if the updates are stored in the sets
+	 * (see materialize())
+	 */
+	private CompactUpdates compact;
+
 	private GraphDataStructure gds;
 
 	private long from;
@@ -47,17 +57,92 @@ public class Batch {
 		this.gds = gds;
 		this.from = from;
 		this.to = to;
-		this.nodeAdditions = new HashSet<NodeAddition>(nodeAdditions);
-		this.nodeRemovals = new HashSet<NodeRemoval>(nodeRemovals);
-		this.nodeWeights = new HashSet<NodeWeight>(nodeWeights);
-		this.edgeAdditions = new HashSet<EdgeAddition>(edgeAdditions);
-		this.edgeRemovals = new HashSet<EdgeRemoval>(edgeRemovals);
-		this.edgeWeights = new HashSet<EdgeWeight>(edgeWeights);
+		this.nodeAdditions = new LinkedHashSet<NodeAddition>(nodeAdditions);
+		this.nodeRemovals = new LinkedHashSet<NodeRemoval>(nodeRemovals);
+		this.nodeWeights = new LinkedHashSet<NodeWeight>(nodeWeights);
+		this.edgeAdditions = new LinkedHashSet<EdgeAddition>(edgeAdditions);
+		this.edgeRemovals = new LinkedHashSet<EdgeRemoval>(edgeRemovals);
+		this.edgeWeights = new LinkedHashSet<EdgeWeight>(edgeWeights);
 		this.all = Iterables.unmodifiableIterable(Iterables.concat(
 				this.nodeAdditions, this.nodeRemovals, this.nodeWeights,
 				this.edgeAdditions, this.edgeRemovals, this.edgeWeights));
 	}
 
+	/**
+	 * creates a compact batch whose updates are stored in primitive arrays
+	 * (see CompactUpdates), update objects are only created in case they are
+	 * requested, e.g., via getEdgeAdditions()
+	 */
+	public Batch(GraphDataStructure gds, long from, long to,
+			CompactUpdates compact) {
+		this(gds, from, to);
+		this.compact = compact;
+	}
+
+	/*
+	 * COMPACT FORM
+	 */
+
+	public boolean isCompact() {
+		return this.compact != null;
+	}
+
+	/**
+	 * @return updates of a compact batch, null if the batch is not compact
+	 */
+	public CompactUpdates getCompactUpdates() {
+		return this.compact;
+	}
+
+	/**
+	 * Creates the update objects of a compact batch and adds them to the
+	 * sets of this batch, the batch is no longer compact afterwards. Nodes and
+	 * edges are resolved in the graph the compact updates have been created
+	 * for, so this must happen before the batch is applied.
+	 */
+	public void materialize() {
+		if (this.compact == null) {
+			return;
+		}
+		if (this.compact.getGraph().getTimestamp() != this.from) {
+			throw new IllegalStateException("cannot materialize batch "
+					+ this.toString() + " for graph "
+					+ this.compact.getGraph());
+		}
+		this.materialize(this.compact.getGraph());
+	}
+
+	/**
+	 * Creates the update objects of a compact batch like materialize(), but
+	 * resolves nodes and edges in the given graph without checking its
+	 * timestamp (like BatchReader does for batches read from text files).
+	 */
+	public void materialize(Graph g) {
+		if (this.compact == null) {
+			return;
+		}
+		CompactUpdates c = this.compact;
+		this.compact = null;
+
+		HashMap<Integer, Node> addedNodes = new HashMap<Integer, Node>(
+				c.getCount(UpdateType.NA));
+		UpdateType[] order = new UpdateType[] { UpdateType.NR, UpdateType.ER,
+				UpdateType.NA, UpdateType.EA, UpdateType.NW, UpdateType.EW };
+		for (UpdateType t : order) {
+			for (int i = 0; i < c.size(); i++) {
+				if (c.getType(i) != t) {
+					continue;
+				}
+				Update u = c.newUpdate(i, g, addedNodes);
+				if (u instanceof NodeAddition) {
+					Node n = (Node) ((NodeAddition) u).getNode();
+					addedNodes.put(n.getIndex(), n);
+				}
+				this.add(u);
+			}
+		}
+	}
+
 	/*
 	 * APPLICATION
 	 */
@@ -71,6 +156,21 @@ public class Batch {
 
 		boolean success = true;
 
+		if (this.compact != null) {
+			success &= this.apply(g, this.compact.getUpdates(UpdateType.NR, g));
+			success &= this.apply(g, this.compact.getUpdates(UpdateType.ER, g));
+
+			success &= this.apply(g, this.compact.getUpdates(UpdateType.NA, g));
+			success &= this.apply(g, this.compact.getUpdates(UpdateType.EA, g));
+
+			success &= this.apply(g, this.compact.getUpdates(UpdateType.NW, g));
+			success &= this.apply(g, this.compact.getUpdates(UpdateType.EW, g));
+
+			g.setTimestamp(this.to);
+
+			return success;
+		}
+
 		success &= this.apply(g, this.nodeRemovals);
 		success &= this.apply(g, this.edgeRemovals);
 
@@ -108,7 +208,20 @@ public class Batch {
 		return success;
 	}
 
+	/**
+	 * adds all updates of the given batch, in case both batches are compact,
+	 * the updates are added without creating update objects
+	 */
+	public boolean addAll(Batch b) {
+		if (this.compact != null && b.isCompact()) {
+			this.compact.addAll(b.getCompactUpdates());
+			return true;
+		}
+		return this.addAll(b.getAllUpdates());
+	}
+
 	public boolean add(Update u) {
+		this.materialize();
 		if (u instanceof NodeAddition) {
 			return this.nodeAdditions.add((NodeAddition) u);
 		} else if (u instanceof NodeRemoval) {
@@ -134,6 +247,7 @@ public class Batch {
 	}
 
 	public boolean remove(Update u) {
+		this.materialize();
 		if (u instanceof NodeAddition) {
 			return this.nodeAdditions.remove(u);
 		} else if (u instanceof NodeRemoval) {
@@ -155,30 +269,37 @@ public class Batch {
 	 */
 
 	public Iterable<NodeAddition> getNodeAdditions() {
+		this.materialize();
 		return nodeAdditions;
 	}
 
 	public Iterable<NodeRemoval> getNodeRemovals() {
+		this.materialize();
 		return nodeRemovals;
 	}
 
 	public Iterable<NodeWeight> getNodeWeights() {
+		this.materialize();
 		return nodeWeights;
 	}
 
 	public Iterable<EdgeAddition> getEdgeAdditions() {
+		this.materialize();
 		return edgeAdditions;
 	}
 
 	public Iterable<EdgeRemoval> getEdgeRemovals() {
+		this.materialize();
 		return edgeRemovals;
 	}
 
 	public Iterable<EdgeWeight> getEdgeWeights() {
+		this.materialize();
 		return edgeWeights;
 	}
 
 	public Iterable<Update> getAllUpdates() {
+		this.materialize();
 		return this.all;
 	}
 
@@ -203,30 +324,51 @@ public class Batch {
 	 */
 
 	public int getNodeAdditionsCount() {
+		if (this.compact != null) {
+			return this.compact.getCount(UpdateType.NA);
+		}
 		return nodeAdditions.size();
 	}
 
 	public int getNodeRemovalsCount() {
+		if (this.compact != null) {
+			return this.compact.getCount(UpdateType.NR);
+		}
 		return nodeRemovals.size();
 	}
 
 	public int getNodeWeightsCount() {
+		if (this.compact != null) {
+			return this.compact.getCount(UpdateType.NW);
+		}
 		return nodeWeights.size();
 	}
 
 	public int getEdgeAdditionsCount() {
+		if (this.compact != null) {
+			return this.compact.getCount(UpdateType.EA);
+		}
 		return edgeAdditions.size();
 	}
 
 	public int getEdgeRemovalsCount() {
+		if (this.compact != null) {
+			return this.compact.getCount(UpdateType.ER);
+		}
 		return edgeRemovals.size();
 	}
 
 	public int getEdgeWeightsCount() {
+		if (this.compact != null) {
+			return this.compact.getCount(UpdateType.EW);
+		}
 		return edgeWeights.size();
 	}
 
 	public int getSize() {
+		if (this.compact != null) {
+			return this.compact.getTotalCount();
+		}
 		return this.nodeAdditions.size() + this.nodeRemovals.size()
 				+ this.nodeWeights.size() + this.edgeAdditions.size()
 				+ this.edgeRemovals.size() + this.edgeWeights.size();
@@ -241,6 +383,9 @@ public class Batch {
 			return false;
 		Batch other = (Batch) otherO;
 
+		this.materialize();
+		other.materialize();
+
 		if (this.getSize() != other.getSize())
 			return false;
 
@@ -274,6 +419,7 @@ public class Batch {
 	}
 
 	public void print() {
+		this.materialize();
 		this.print(this.nodeAdditions, "Node Additions");
 		this.print(this.nodeRemovals, "Node Reovals");
 		this.print(this.nodeWeights, "Node Weights");
@@ -1,6 +1,7 @@
 package dna.updates.batch;
 
 import java.util.HashSet;
+import java.util.Iterator;
 
 import dna.graph.edges.DirectedEdge;
 import dna.graph.edges.Edge;
@@ -12,10 +13,41 @@ import dna.updates.update.EdgeWeight;
 import dna.updates.update.NodeAddition;
 import dna.updates.update.NodeRemoval;
 import dna.updates.update.NodeWeight;
+import dna.updates.update.Update.UpdateType;
+import dna.util.Config;
 import dna.util.Log;
 
 public class BatchSanitization {
 
+	/**
+	 * SETS: collects the nodes and edges of the batch in HashSets and removes
+	 * the updates to delete via Batch.removeAll(..)<br>
+	 * INDICES: collects the indices of the nodes and edges in primitive hash
+	 * sets and removes the updates to delete while iterating over the batch
+	 */
+	public static enum SanitizationType {
+		SETS, INDICES
+	}
+
+	/**
+	 * @return type of sanitization configured via
+	 *         GENERATION_BATCH_SANITIZATION
+	 */
+	public static SanitizationType getConfiguredType() {
+		return SanitizationType.valueOf(Config
+				.get("GENERATION_BATCH_SANITIZATION"));
+	}
+
+	/**
+	 * performs a sanitization of the updates stored in this batch using the
+	 * configured type of sanitization (see sanitize(Batch, SanitizationType))
+	 * 
+	 * @return
+	 */
+	public static BatchSanitizationStats sanitize(Batch b) {
+		return BatchSanitization.sanitize(b, getConfiguredType());
+	}
+
 	/**
 	 * performs a sanitization of the updates stored in this batch, i.e., (1)
 	 * deleted all edge removals that point to a node which is removed anyways
@@ -26,7 +58,20 @@ public class BatchSanitization {
 	 * 
 	 * @return
 	 */
-	public static BatchSanitizationStats sanitize(Batch b) {
+	public static BatchSanitizationStats sanitize(Batch b,
+			SanitizationType type) {
+		switch (type) {
+		case SETS:
+			return BatchSanitization.sanitizeSets(b);
+		case INDICES:
+			return BatchSanitization.sanitizeIndices(b);
+		default:
+			throw new IllegalArgumentException("unknown sanitization type: "
+					+ type);
+		}
+	}
+
+	private static BatchSanitizationStats sanitizeSets(Batch b) {
 		BatchSanitizationStats stats = new BatchSanitizationStats();
 
 		HashSet<Node> removedN = new HashSet<Node>(b.getNodeRemovalsCount());
@@ -107,6 +152,170 @@ public class BatchSanitization {
 		return stats;
 	}
 
+	/**
+	 * performs the same sanitization as sanitizeSets(..) but only keeps the
+	 * indices of removed and added nodes and of removed edges, the updates to
+	 * delete are removed in place via the iterators of the batch
+	 */
+	private static BatchSanitizationStats sanitizeIndices(Batch b) {
+		if (b.isCompact()) {
+			return BatchSanitization.sanitizeCompact(b.getCompactUpdates());
+		}
+
+		BatchSanitizationStats stats = new BatchSanitizationStats();
+
+		IndexSet removedN = new IndexSet(b.getNodeRemovalsCount());
+		for (NodeRemoval u : b.getNodeRemovals()) {
+			removedN.add(((Node) u.getNode()).getIndex());
+		}
+
+		IndexSet addedN = new IndexSet(b.getNodeAdditionsCount());
+		for (NodeAddition u : b.getNodeAdditions()) {
+			addedN.add(((Node) u.getNode()).getIndex());
+		}
+
+		IndexSet removedE = new IndexSet(b.getEdgeRemovalsCount());
+		for (EdgeRemoval u : b.getEdgeRemovals()) {
+			removedE.add(IndexSet.getEdgeKey((Edge) u.getEdge()));
+		}
+
+		int deleted = 0;
+		if (!removedN.isEmpty()) {
+			for (Iterator<EdgeRemoval> iter = b.getEdgeRemovals().iterator(); iter
+					.hasNext();) {
+				Edge e = (Edge) iter.next().getEdge();
+				if (removedN.contains(e.getN1Index())
+						|| removedN.contains(e.getN2Index())) {
+					iter.remove();
+					deleted++;
+				}
+			}
+		}
+		stats.setDeletedEdgeRemovals(deleted);
+
+		deleted = 0;
+		if (!removedN.isEmpty()) {
+			for (Iterator<EdgeAddition> iter = b.getEdgeAdditions().iterator(); iter
+					.hasNext();) {
+				Edge e = (Edge) iter.next().getEdge();
+				int n1 = e.getN1Index();
+				int n2 = e.getN2Index();
+				if ((removedN.contains(n1) && !addedN.contains(n1))
+						|| (removedN.contains(n2) && !addedN.contains(n2))) {
+					iter.remove();
+					deleted++;
+				}
+			}
+		}
+		stats.setDeletedEdgeAdditions(deleted);
+
+		deleted = 0;
+		if (!removedN.isEmpty()) {
+			for (Iterator<NodeWeight> iter = b.getNodeWeights().iterator(); iter
+					.hasNext();) {
+				Node n = (Node) iter.next().getNode();
+				if (removedN.contains(n.getIndex())) {
+					iter.remove();
+					deleted++;
+				}
+			}
+		}
+		stats.setDeletedNodeWeights(deleted);
+
+		deleted = 0;
+		if (!removedN.isEmpty() || !removedE.isEmpty()) {
+			for (Iterator<EdgeWeight> iter = b.getEdgeWeights().iterator(); iter
+					.hasNext();) {
+				Edge e = (Edge) iter.next().getEdge();
+				if (removedE.contains(IndexSet.getEdgeKey(e))
+						|| removedN.contains(e.getN1Index())
+						|| removedN.contains(e.getN2Index())) {
+					iter.remove();
+					deleted++;
+				}
+			}
+		}
+		stats.setDeletedEdgeWeights(deleted);
+
+		return stats;
+	}
+
+	/**
+	 * performs the same sanitization as sanitizeIndices(..) on the updates of
+	 * a compact batch, updates are deleted by marking them in place
+	 */
+	private static BatchSanitizationStats sanitizeCompact(CompactUpdates c) {
+		BatchSanitizationStats stats = new BatchSanitizationStats();
+
+		IndexSet removedN = new IndexSet(c.getCount(UpdateType.NR));
+		IndexSet addedN = new IndexSet(c.getCount(UpdateType.NA));
+		IndexSet removedE = new IndexSet(c.getCount(UpdateType.ER));
+		for (int i = 0; i < c.size(); i++) {
+			UpdateType t = c.getType(i);
+			if (t == UpdateType.NR) {
+				removedN.add(c.getIndex1(i));
+			} else if (t == UpdateType.NA) {
+				addedN.add(c.getIndex1(i));
+			} else if (t == UpdateType.ER) {
+				removedE.add(IndexSet.getEdgeKey(c.getIndex1(i),
+						c.getIndex2(i)));
+			}
+		}
+
+		if (removedN.isEmpty() && removedE.isEmpty()) {
+			return stats;
+		}
+
+		int deletedER = 0;
+		int deletedEA = 0;
+		int deletedNW = 0;
+		int deletedEW = 0;
+		for (int i = 0; i < c.size(); i++) {
+			UpdateType t = c.getType(i);
+			if (t == null) {
+				continue;
+			}
+			int n1 = c.getIndex1(i);
+			int n2 = c.getIndex2(i);
+			switch (t) {
+			case ER:
+				if (removedN.contains(n1) || removedN.contains(n2)) {
+					c.delete(i);
+					deletedER++;
+				}
+				break;
+			case EA:
+				if ((removedN.contains(n1) && !addedN.contains(n1))
+						|| (removedN.contains(n2) && !addedN.contains(n2))) {
+					c.delete(i);
+					deletedEA++;
+				}
+				break;
+			case NW:
+				if (removedN.contains(n1)) {
+					c.delete(i);
+					deletedNW++;
+				}
+				break;
+			case EW:
+				if (removedE.contains(IndexSet.getEdgeKey(n1, n2))
+						|| removedN.contains(n1) || removedN.contains(n2)) {
+					c.delete(i);
+					deletedEW++;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		stats.setDeletedEdgeRemovals(deletedER);
+		stats.setDeletedEdgeAdditions(deletedEA);
+		stats.setDeletedNodeWeights(deletedNW);
+		stats.setDeletedEdgeWeights(deletedEW);
+
+		return stats;
+	}
+
 	private static Node[] getNodesFromEdge(Edge e) {
 		if (e instanceof DirectedEdge) {
 			return new Node[] { ((DirectedEdge) e).getSrc(),
@@ -0,0 +1,332 @@
+package dna.updates.batch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import dna.graph.Graph;
+import dna.graph.datastructures.GraphDataStructure;
+import dna.graph.edges.Edge;
+import dna.graph.nodes.Node;
+import dna.graph.weights.IWeightedEdge;
+import dna.graph.weights.IWeightedNode;
+import dna.graph.weights.Weight;
+import dna.updates.update.EdgeAddition;
+import dna.updates.update.EdgeRemoval;
+import dna.updates.update.EdgeWeight;
+import dna.updates.update.NodeAddition;
+import dna.updates.update.NodeRemoval;
+import dna.updates.update.NodeWeight;
+import dna.updates.update.Update;
+import dna.updates.update.Update.UpdateType;
+import dna.util.Config;
+
+/**
+ * Compact representation of the updates of a batch based on parallel
+ * primitive arrays: the type of each update, the index of its (first) node,
+ * the index of the second node (for edge updates) and an optional weight.
+ * Each update requires 9 bytes (plus a reference in case weights are given)
+ * instead of an Update object holding a node or an edge.<br>
+ *
+ * Updates refer to nodes and edges only by their indices, they are resolved
+ * in the graph when the updates are applied (see getUpdates(..)) or when the
+ * batch is materialized (see Batch.materialize()). As for the update sets of
+ * a batch, node and edge additions without weight are created via the
+ * GraphDataStructure, i.e., they receive a weight according to its weight
+ * selection.<br>
+ *
+ * In contrast to the update sets of a batch, duplicate updates are not
+ * detected, generators must avoid them. Updates can be deleted (see
+ * delete(..)), which only marks them as deleted in place. Whether batch generators and readers create compact batches is
+ * configured via BATCH_COMPACT.
+ */
+public class CompactUpdates {
+
+	/**
+	 * @return true if batches should be created in their compact form
+	 *         (BATCH_COMPACT)
+	 */
+	public static boolean isEnabled() {
+		return Config.getBoolean("BATCH_COMPACT");
+	}
+
+	private static final UpdateType[] types = UpdateType.values();
+
+	/** type of deleted updates */
+	private static final byte DELETED = -1;
+
+	private Graph g;
+
+	private GraphDataStructure gds;
+
+	private byte[] type;
+
+	private int[] index1;
+
+	private int[] index2;
+
+	private Weight[] weight;
+
+	private int size;
+
+	private int[] counts;
+
+	/**
+	 * @param g
+	 *            graph the updates are generated for, i.e., the graph at the
+	 *            time the batch starts at
+	 * @param capacity
+	 *            expected number of updates
+	 */
+	public CompactUpdates(Graph g, int capacity) {
+		this.g = g;
+		this.gds = g.getGraphDatastructures();
+		capacity = Math.max(capacity, 4);
+		this.type = new byte[capacity];
+		this.index1 = new int[capacity];
+		this.index2 = new int[capacity];
+		this.weight = null;
+		this.size = 0;
+		this.counts = new int[types.length];
+	}
+
+	public Graph getGraph() {
+		return this.g;
+	}
+
+	/*
+	 * ADDING
+	 */
+
+	public void addNodeAddition(int index) {
+		this.add(UpdateType.NA, index, 0, null);
+	}
+
+	public void addNodeAddition(int index, Weight weight) {
+		this.add(UpdateType.NA, index, 0, weight);
+	}
+
+	public void addNodeRemoval(int index) {
+		this.add(UpdateType.NR, index, 0, null);
+	}
+
+	public void addNodeWeight(int index, Weight weight) {
+		this.add(UpdateType.NW, index, 0, weight);
+	}
+
+	public void addEdgeAddition(int n1, int n2) {
+		this.add(UpdateType.EA, n1, n2, null);
+	}
+
+	public void addEdgeAddition(int n1, int n2, Weight weight) {
+		this.add(UpdateType.EA, n1, n2, weight);
+	}
+
+	public void addEdgeRemoval(int n1, int n2) {
+		this.add(UpdateType.ER, n1, n2, null);
+	}
+
+	public void addEdgeWeight(int n1, int n2, Weight weight) {
+		this.add(UpdateType.EW, n1, n2, weight);
+	}
+
+	private void add(UpdateType t, int i1, int i2, Weight w) {
+		if (this.size == this.type.length) {
+			int length = this.size + (this.size >> 1) + 1;
+			this.type = Arrays.copyOf(this.type, length);
+			this.index1 = Arrays.copyOf(this.index1, length);
+			this.index2 = Arrays.copyOf(this.index2, length);
+			if (this.weight != null)
+				this.weight = Arrays.copyOf(this.weight, length);
+		}
+		if (w != null && this.weight == null)
+			this.weight = new Weight[this.type.length];
+		if (t.ordinal() >= UpdateType.EA.ordinal()
+				&& this.gds.createsUndirected() && i1 > i2) {
+			// undirected edges store the node with the lower index first
+			int temp = i1;
+			i1 = i2;
+			i2 = temp;
+		}
+		this.type[this.size] = (byte) t.ordinal();
+		this.index1[this.size] = i1;
+		this.index2[this.size] = i2;
+		if (w != null)
+			this.weight[this.size] = w;
+		this.size++;
+		this.counts[t.ordinal()]++;
+	}
+
+	/**
+	 * Appends all (not deleted) updates of the given compact updates.
+	 */
+	public void addAll(CompactUpdates other) {
+		for (int i = 0; i < other.size; i++) {
+			if (other.type[i] != DELETED)
+				this.add(types[other.type[i]], other.index1[i],
+						other.index2[i], other.getWeight(i));
+		}
+	}
+
+	/*
+	 * ACCESS
+	 */
+
+	/**
+	 * @return number of updates that have been added, including deleted ones
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return number of (not deleted) updates of the given type
+	 */
+	public int getCount(UpdateType t) {
+		return this.counts[t.ordinal()];
+	}
+
+	/**
+	 * @return number of (not deleted) updates
+	 */
+	public int getTotalCount() {
+		int total = 0;
+		for (int c : this.counts)
+			total += c;
+		return total;
+	}
+
+	/**
+	 * @return type of the i-th update, null if it has been deleted
+	 */
+	public UpdateType getType(int i) {
+		return this.type[i] == DELETED ? null : types[this.type[i]];
+	}
+
+	/**
+	 * @return index of the node of a node update or of the first node of an
+	 *         edge update
+	 */
+	public int getIndex1(int i) {
+		return this.index1[i];
+	}
+
+	/**
+	 * @return index of the second node of an edge update
+	 */
+	public int getIndex2(int i) {
+		return this.index2[i];
+	}
+
+	public Weight getWeight(int i) {
+		return this.weight == null ? null : this.weight[i];
+	}
+
+	/**
+	 * Marks the i-th update as deleted.
+	 *
+	 * @return false if it has already been deleted
+	 */
+	public boolean delete(int i) {
+		if (this.type[i] == DELETED)
+			return false;
+		this.counts[this.type[i]]--;
+		this.type[i] = DELETED;
+		if (this.weight != null)
+			this.weight[i] = null;
+		return true;
+	}
+
+	/*
+	 * MATERIALIZATION
+	 */
+
+	/**
+	 * Creates an update object for the i-th update. Nodes and edges are
+	 * resolved in the given graph, nodes added by this batch are taken from
+	 * addedNodes (if given).
+	 */
+	Update newUpdate(int i, Graph g, HashMap<Integer, Node> addedNodes) {
+		switch (this.getType(i)) {
+		case NA:
+			Weight w = this.getWeight(i);
+			return new NodeAddition(w == null ? this.gds
+					.newNodeInstance(this.index1[i]) : this.gds
+					.newWeightedNode(this.index1[i], w));
+		case NR:
+			return new NodeRemoval(g.getNode(this.index1[i]));
+		case NW:
+			return new NodeWeight((IWeightedNode) this.getNode(
+					this.index1[i], g, addedNodes), this.getWeight(i));
+		case EA:
+			Node src = this.getNode(this.index1[i], g, addedNodes);
+			Node dst = this.getNode(this.index2[i], g, addedNodes);
+			Edge e = this.getWeight(i) == null ? this.gds.newEdgeInstance(src,
+					dst) : this.gds.newWeightedEdge(src, dst,
+					this.getWeight(i));
+			return new EdgeAddition(e);
+		case ER:
+			return new EdgeRemoval(this.index1[i], this.index2[i], this.gds, g);
+		case EW:
+			return new EdgeWeight((IWeightedEdge) g.getEdge(
+					g.getNode(this.index1[i]), g.getNode(this.index2[i])),
+					this.getWeight(i));
+		default:
+			return null;
+		}
+	}
+
+	private Node getNode(int index, Graph g, HashMap<Integer, Node> addedNodes) {
+		if (addedNodes != null) {
+			Node n = addedNodes.get(index);
+			if (n != null)
+				return n;
+		}
+		return g.getNode(index);
+	}
+
+	/**
+	 * Returns the updates of the given type. The update objects are created
+	 * one at a time while iterating, nodes and edges are resolved in the
+	 * current state of the given graph. Therefore, the updates must be applied
+	 * in the order of Batch.apply(..) while iterating.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Update> Iterable<T> getUpdates(final UpdateType t,
+			final Graph g) {
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new Iterator<T>() {
+					private int next = this.find(0);
+
+					private int find(int from) {
+						while (from < size && type[from] != t.ordinal())
+							from++;
+						return from;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return this.next < size;
+					}
+
+					@Override
+					public T next() {
+						if (this.next >= size)
+							throw new NoSuchElementException();
+						T u = (T) newUpdate(this.next, g, null);
+						this.next = this.find(this.next + 1);
+						return u;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+}
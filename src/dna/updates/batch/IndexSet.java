@@ -0,0 +1,108 @@
+package dna.updates.batch;
+
+import java.util.Arrays;
+
+import dna.graph.edges.Edge;
+
+/**
+ * Set of node indices or edge keys (see getEdgeKey(..)) based on open
+ * addressing with linear probing in a single long array.
+ */
+public class IndexSet {
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private long[] keys;
+
+	private int size;
+
+	private boolean containsEmpty;
+
+	public IndexSet(int expected) {
+		int capacity = 8;
+		while (capacity < 2 * expected)
+			capacity <<= 1;
+		this.keys = new long[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.size = 0;
+		this.containsEmpty = false;
+	}
+
+	/**
+	 * @return key identifying the edge by the indices of its nodes, all edges
+	 *         of a batch are of the same type
+	 */
+	public static long getEdgeKey(Edge e) {
+		return IndexSet.getEdgeKey(e.getN1Index(), e.getN2Index());
+	}
+
+	/**
+	 * @return key identifying an edge by the indices of its nodes (for
+	 *         undirected edges, the lower index must be given first)
+	 */
+	public static long getEdgeKey(int n1, int n2) {
+		return ((long) n1 << 32) | (n2 & 0xffffffffL);
+	}
+
+	public int size() {
+		return this.containsEmpty ? this.size + 1 : this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0 && !this.containsEmpty;
+	}
+
+	private static int hash(long key) {
+		key *= 0x9e3779b97f4a7c15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	/**
+	 * @return true if the key was not contained before
+	 */
+	public boolean add(long key) {
+		if (key == EMPTY) {
+			boolean added = !this.containsEmpty;
+			this.containsEmpty = true;
+			return added;
+		}
+		int mask = this.keys.length - 1;
+		int i = hash(key) & mask;
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == key)
+				return false;
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = key;
+		if (++this.size * 2 > this.keys.length)
+			this.grow();
+		return true;
+	}
+
+	public boolean contains(long key) {
+		if (key == EMPTY)
+			return this.containsEmpty;
+		int mask = this.keys.length - 1;
+		int i = hash(key) & mask;
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == key)
+				return true;
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	private void grow() {
+		long[] old = this.keys;
+		this.keys = new long[old.length * 2];
+		Arrays.fill(this.keys, EMPTY);
+		int mask = this.keys.length - 1;
+		for (long key : old) {
+			if (key == EMPTY)
+				continue;
+			int i = hash(key) & mask;
+			while (this.keys[i] != EMPTY)
+				i = (i + 1) & mask;
+			this.keys[i] = key;
+		}
+	}
+}
@@ -1,19 +1,21 @@
 package dna.updates.generators.evolvingNetworks;
 
-import java.util.HashSet;
-
 import dna.graph.Graph;
-import dna.graph.IElement;
-import dna.graph.nodes.DirectedNode;
+import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.nodes.Node;
-import dna.graph.nodes.UndirectedNode;
 import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
 import dna.updates.generators.BatchGenerator;
 import dna.updates.update.EdgeAddition;
 import dna.updates.update.NodeAddition;
-import dna.util.Rand;
 import dna.util.parameters.IntParameter;
 
+/**
+ * Adds nodes to the graph one after the other, each connected to m distinct
+ * nodes chosen with a probability proportional to their degree (preferential
+ * attachment). Nodes are drawn from a DegreeSampler so that each pick takes
+ * O(1) instead of a scan over all nodes.
+ */
 public class BarabasiAlbertBatch extends BatchGenerator {
 
 	private int nodes;
@@ -29,87 +31,107 @@ public class BarabasiAlbertBatch extends BatchGenerator {
 
 	@Override
 	public Batch generate(Graph g) {
-		Batch b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
-				g.getTimestamp() + 1, this.nodes, 0, 0, this.nodes * this.m, 0,
-				0);
+		if (CompactUpdates.isEnabled()) {
+			return this.generateCompact(g);
+		}
+
+		GraphDataStructure gds = g.getGraphDatastructures();
+		Batch b = new Batch(gds, g.getTimestamp(), g.getTimestamp() + 1,
+				this.nodes, 0, 0, this.nodes * this.m, 0, 0);
 		Node[] newNodes = new Node[this.nodes];
-		int[] newDegrees = new int[this.nodes];
-		int[] oldDegrees = new int[g.getMaxNodeIndex() + 1];
+		int firstIndex = g.getMaxNodeIndex() + 1;
+		DegreeSampler sampler = DegreeSampler.fromGraph(g, 2 * this.nodes
+				* this.m);
+		int[] targets = new int[this.m];
 
-		for (int i = 0; i < nodes; i++) {
-			newNodes[i] = g.getGraphDatastructures().newNodeInstance(
-					g.getMaxNodeIndex() + i + 1);
+		for (int i = 0; i < this.nodes; i++) {
+			newNodes[i] = gds.newNodeInstance(firstIndex + i);
 			b.add(new NodeAddition(newNodes[i]));
 
-			HashSet<Node> targets = new HashSet<Node>(this.m);
-			int total = 2 * (g.getEdgeCount() + i * this.m);
+			this.selectTargets(sampler, targets);
+			for (int j = 0; j < this.m; j++) {
+				Node to = targets[j] >= firstIndex ? newNodes[targets[j]
+						- firstIndex] : g.getNode(targets[j]);
+				b.add(new EdgeAddition(gds.newEdgeInstance(newNodes[i], to)));
+			}
+
+			this.attach(sampler, targets, firstIndex + i);
+		}
+
+		return b;
+	}
+
+	/**
+	 * generates the same updates as generate(..) but stores them as compact
+	 * updates, no node or edge instances are created
+	 */
+	private Batch generateCompact(Graph g) {
+		GraphDataStructure gds = g.getGraphDatastructures();
+		boolean weightedNodes = gds.createsWeightedNodes();
+		boolean weightedEdges = gds.createsWeightedEdges();
+		CompactUpdates updates = new CompactUpdates(g, this.nodes
+				* (this.m + 1));
+		int firstIndex = g.getMaxNodeIndex() + 1;
+		DegreeSampler sampler = DegreeSampler.fromGraph(g, 2 * this.nodes
+				* this.m);
+		int[] targets = new int[this.m];
+
+		for (int i = 0; i < this.nodes; i++) {
+			int index = firstIndex + i;
+			if (weightedNodes) {
+				updates.addNodeAddition(index,
+						gds.newNodeWeight(gds.getNodeWeightSelection()));
+			} else {
+				updates.addNodeAddition(index);
+			}
 
+			this.selectTargets(sampler, targets);
 			for (int j = 0; j < this.m; j++) {
-				Node to = null;
-				while (to == null) {
-					int p = Rand.rand.nextInt(total);
-					int sum = 0;
-					for (IElement n : g.getNodes()) {
-						Node node = (Node) n;
-						if (node instanceof DirectedNode) {
-							sum += ((DirectedNode) node).getDegree();
-						} else if (node instanceof UndirectedNode) {
-							sum += ((UndirectedNode) node).getDegree();
-						}
-						sum += oldDegrees[node.getIndex()];
-
-						if (sum > p) {
-							if (!targets.contains(node)) {
-								to = node;
-								targets.add(node);
-								newDegrees[i]++;
-								oldDegrees[node.getIndex()]++;
-								// } else {
-								// System.out.println("duplicate... old");
-							}
-							break;
-						}
-					}
-
-					if (to != null) {
-						break;
-					}
-
-					if (sum <= p) {
-						for (int k = 0; k < i; k++) {
-							sum += newDegrees[k];
-							if (sum > p) {
-								if (!targets.contains(newNodes[k])) {
-									to = newNodes[k];
-									targets.add(newNodes[k]);
-									newDegrees[i]++;
-									newDegrees[k]++;
-									// } else {
-									// System.out.println("duplicate... new");
-								}
-								break;
-							}
-						}
-					}
-
-					if (to != null) {
-						break;
-					}
-
-					// System.out.println("MISS   - (p,sum,total) (" + p + ","
-					// + sum + "," + total + ")");
+				if (weightedEdges) {
+					updates.addEdgeAddition(index, targets[j],
+							gds.newEdgeWeight(gds.getEdgeWeightSelection()));
+				} else {
+					updates.addEdgeAddition(index, targets[j]);
 				}
-
-				b.add(new EdgeAddition(g.getGraphDatastructures()
-						.newEdgeInstance(newNodes[i], to)));
 			}
+
+			this.attach(sampler, targets, index);
 		}
 
-		// System.out.println("old: " + fromOld + " (" + g.getNodeCount() +
-		// ")");
-		// System.out.println("new: " + fromNew + " (" + this.nodes + ")");
+		return new Batch(gds, g.getTimestamp(), g.getTimestamp() + 1, updates);
+	}
 
-		return b;
+	/**
+	 * draws m distinct nodes proportional to their degree, the degrees are
+	 * not changed while drawing
+	 */
+	private void selectTargets(DegreeSampler sampler, int[] targets) {
+		for (int j = 0; j < this.m; j++) {
+			int to;
+			do {
+				to = sampler.sample();
+			} while (contains(targets, j, to));
+			targets[j] = to;
+		}
+	}
+
+	/**
+	 * adds the m edges between the new node and its targets to the sampler
+	 */
+	private void attach(DegreeSampler sampler, int[] targets, int index) {
+		for (int j = 0; j < this.m; j++) {
+			sampler.add(targets[j]);
+		}
+		sampler.add(index, this.m);
+	}
+
+	private static boolean contains(int[] values, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
@@ -0,0 +1,83 @@
+package dna.updates.generators.evolvingNetworks;
+
+import dna.graph.Graph;
+import dna.graph.IElement;
+import dna.graph.nodes.Node;
+import dna.util.Rand;
+
+/**
+ * Samples node indices with a probability proportional to their degree
+ * (preferential attachment) in O(1). Each endpoint of an edge is stored once
+ * in an array, i.e., a node of degree k is contained k times, so that drawing
+ * a uniformly random entry of the array yields a node proportional to its
+ * degree.
+ */
+public class DegreeSampler {
+
+	private int[] endpoints;
+
+	private int size;
+
+	public DegreeSampler(int capacity) {
+		this.endpoints = new int[Math.max(capacity, 16)];
+		this.size = 0;
+	}
+
+	/**
+	 * @param additionalEndpoints
+	 *            number of endpoints expected to be added later
+	 * @return sampler containing each node of the graph as often as its
+	 *         degree
+	 */
+	public static DegreeSampler fromGraph(Graph g, int additionalEndpoints) {
+		DegreeSampler res = new DegreeSampler(2 * g.getEdgeCount()
+				+ additionalEndpoints);
+		for (IElement n : g.getNodes()) {
+			Node node = (Node) n;
+			res.add(node.getIndex(), node.getDegree());
+		}
+		return res;
+	}
+
+	/**
+	 * Adds an endpoint, i.e., increases the degree of the node by one.
+	 */
+	public void add(int index) {
+		if (this.size == this.endpoints.length) {
+			this.grow(this.size + 1);
+		}
+		this.endpoints[this.size++] = index;
+	}
+
+	/**
+	 * Adds the given number of endpoints of a node.
+	 */
+	public void add(int index, int count) {
+		if (this.size + count > this.endpoints.length) {
+			this.grow(this.size + count);
+		}
+		for (int i = 0; i < count; i++) {
+			this.endpoints[this.size++] = index;
+		}
+	}
+
+	private void grow(int minCapacity) {
+		int[] grown = new int[Math.max(minCapacity, this.endpoints.length * 2)];
+		System.arraycopy(this.endpoints, 0, grown, 0, this.size);
+		this.endpoints = grown;
+	}
+
+	/**
+	 * @return number of endpoints, i.e., the sum of all degrees
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return index of a node drawn proportional to its degree
+	 */
+	public int sample() {
+		return this.endpoints[Rand.rand.nextInt(this.size)];
+	}
+}
@@ -0,0 +1,70 @@
+package dna.updates.generators.evolvingNetworks;
+
+import dna.util.Rand;
+
+/**
+ * Samples indices 0..size-1 with a probability proportional to an arbitrary
+ * non-negative weight per index. The weights are stored in a Fenwick tree
+ * (binary indexed tree) so that changing a weight as well as drawing an index
+ * takes O(log size).
+ */
+public class FenwickSampler {
+
+	private double[] weights;
+
+	/** tree[i] is the sum of weights (i - lowestOneBit(i), i] (1-based) */
+	private double[] tree;
+
+	private double total;
+
+	public FenwickSampler(int size) {
+		this.weights = new double[size];
+		this.tree = new double[size + 1];
+		this.total = 0;
+	}
+
+	public int size() {
+		return this.weights.length;
+	}
+
+	public double get(int index) {
+		return this.weights[index];
+	}
+
+	public void set(int index, double weight) {
+		double delta = weight - this.weights[index];
+		this.weights[index] = weight;
+		this.total += delta;
+		for (int i = index + 1; i < this.tree.length; i += i & -i) {
+			this.tree[i] += delta;
+		}
+	}
+
+	public double getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * @return index drawn proportional to its weight
+	 */
+	public int sample() {
+		if (this.total <= 0) {
+			throw new IllegalStateException(
+					"cannot sample from weights summing up to " + this.total);
+		}
+		while (true) {
+			double r = Rand.rand.nextDouble() * this.total;
+			int pos = 0;
+			for (int step = Integer.highestOneBit(this.weights.length); step > 0; step >>= 1) {
+				if (pos + step < this.tree.length && this.tree[pos + step] <= r) {
+					pos += step;
+					r -= this.tree[pos];
+				}
+			}
+			// rounding errors might point to an index without weight
+			if (pos < this.weights.length && this.weights[pos] > 0) {
+				return pos;
+			}
+		}
+	}
+}
@@ -1,14 +1,8 @@
 package dna.updates.generators.evolvingNetworks;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Random;
-
 import dna.graph.Graph;
 import dna.graph.IElement;
-import dna.graph.nodes.DirectedNode;
 import dna.graph.nodes.Node;
-import dna.graph.nodes.UndirectedNode;
 import dna.updates.batch.Batch;
 import dna.updates.generators.BatchGenerator;
 import dna.updates.update.EdgeAddition;
@@ -87,13 +81,17 @@ public class PositiveFeedbackPreferenceBatch extends BatchGenerator {
 	private void growGraph(Graph g, Batch b) {
 		// new nodes can be targets for later nodes
 		Node[] newNodes = new Node[this.nodes];
-		int[] newDegrees = new int[this.nodes];
-		Arrays.fill(newDegrees, 0);
-		
-		// to avoid the recurring casts and degree computation
-		int[] oldDegrees = collectOldDegrees(g);
 		int maxOldId = g.getMaxNodeIndex();
-		
+
+		// to avoid the recurring casts and degree computation, indexed by node
+		// index (old and new nodes)
+		int[] degrees = collectDegrees(g, maxOldId + 1 + this.nodes);
+
+		// nodes are drawn proportional to k^(1 + delta * log10(k))
+		FenwickSampler sampler = new FenwickSampler(degrees.length);
+		for (int j = 0; j <= maxOldId; j++) {
+			sampler.set(j, calcWeight(degrees[j]));
+		}
 
 		// add node by node
 		for (int i = 0; i < this.nodes; i++) {
@@ -111,18 +109,18 @@ public class PositiveFeedbackPreferenceBatch extends BatchGenerator {
 				// 1 of the host nodes: 1 link to a peer
 				
 				// calculate destination 1 - no need to ignore a node
-				Node to1 = getNPPNode(g, oldDegrees, newNodes, newDegrees, 
-						maxOldId, newNodes[i].getIndex(), noIgnoredNode, newNodes[i].getIndex());
+				Node to1 = getNPPNode(g, sampler, newNodes, maxOldId, 
+						noIgnoredNode, newNodes[i].getIndex());
 				
 				// calculate destination 2 - ignore destination 1
-				Node to2 = getNPPNode(g, oldDegrees, newNodes, newDegrees, 
-						maxOldId, newNodes[i].getIndex(), to1.getIndex(), newNodes[i].getIndex());
+				Node to2 = getNPPNode(g, sampler, newNodes, maxOldId, 
+						to1.getIndex(), newNodes[i].getIndex());
 				
 				// choose destination 1 or destination 2 randomly to be the source of the third edge
 				Node host = (Rand.rand.nextDouble() < 0.5) ? to1 : to2;
 				// calculate destination 3, ignore only the host/chosen destination/2
-				Node peer = getNPPNode(g, oldDegrees, newNodes, newDegrees, maxOldId, 
-						newNodes[i].getIndex(), host.getIndex(), host.getIndex());
+				Node peer = getNPPNode(g, sampler, newNodes, maxOldId, 
+						host.getIndex(), host.getIndex());
 				
 				// add EdgeAdditions to batch
 				b.add(new EdgeAddition(g.getGraphDatastructures().newEdgeInstance(newNodes[i], to1)));
@@ -130,14 +128,14 @@ public class PositiveFeedbackPreferenceBatch extends BatchGenerator {
 				b.add(new EdgeAddition(g.getGraphDatastructures().newEdgeInstance(host, peer)));
 				
 				// increase degree of chosen nodes
-				increaseDegree(oldDegrees, newDegrees, maxOldId, new Node[]{to1, to2, host, peer, newNodes[i]});
+				increaseDegree(degrees, sampler, new Node[]{to1, to2, host, peer, newNodes[i]});
 			} else if (pi <= 1 - pPFP){
 				// new node: 1 link to a host node
 				// host node: 2 links to peers
 				
 				// calulate destination - no need to ignore a node
-				Node to = getNPPNode(g, oldDegrees, newNodes, newDegrees, 
-						maxOldId, newNodes[i].getIndex(), noIgnoredNode, newNodes[i].getIndex());
+				Node to = getNPPNode(g, sampler, newNodes, maxOldId, 
+						noIgnoredNode, newNodes[i].getIndex());
 				b.add(new EdgeAddition(g.getGraphDatastructures().newEdgeInstance(newNodes[i], to)));
 				
 				
@@ -145,8 +143,8 @@ public class PositiveFeedbackPreferenceBatch extends BatchGenerator {
 				Node peer1 = null;
 				Node peer2 = null;
 				for(int j=0; j<2; j++){
-					Node peer = getNPPNode(g, oldDegrees, newNodes, newDegrees, 
-							maxOldId, newNodes[i].getIndex(), to.getIndex(), to.getIndex());
+					Node peer = getNPPNode(g, sampler, newNodes, maxOldId, 
+							to.getIndex(), to.getIndex());
 					if(j==0)
 						peer1 = peer;
 					else
@@ -163,120 +161,82 @@ public class PositiveFeedbackPreferenceBatch extends BatchGenerator {
 				}
 				
 				// increase degree of chosen nodes
-				increaseDegree(oldDegrees, newDegrees, maxOldId, new Node[]{to, peer1, peer2, newNodes[i]});
+				increaseDegree(degrees, sampler, new Node[]{to, peer1, peer2, newNodes[i]});
 			} else if (pi <= 1){
 				// new node: 1 link to a host node
 				// host node: 1 link to a peer
 				
 				// calculate destination node - no need to ignore a node
-				Node to = getNPPNode(g, oldDegrees, newNodes, newDegrees, 
-						maxOldId, newNodes[i].getIndex(), noIgnoredNode, newNodes[i].getIndex());
+				Node to = getNPPNode(g, sampler, newNodes, maxOldId, 
+						noIgnoredNode, newNodes[i].getIndex());
 				b.add(new EdgeAddition(g.getGraphDatastructures().newEdgeInstance(newNodes[i], to)));
 				
 				// calculate the peer to connect the destination with
-				Node peer = getNPPNode(g, oldDegrees, newNodes, newDegrees,
-						maxOldId, newNodes[i].getIndex(), to.getIndex(), to.getIndex());
+				Node peer = getNPPNode(g, sampler, newNodes, maxOldId, 
+						to.getIndex(), to.getIndex());
 				b.add(new EdgeAddition(g.getGraphDatastructures().newEdgeInstance(to, peer)));
 				
 				// increase degree of chosen node
-				increaseDegree(oldDegrees, newDegrees, maxOldId, new Node[]{to, peer, newNodes[i]});
+				increaseDegree(degrees, sampler, new Node[]{to, peer, newNodes[i]});
 			}
 		}
 	}
 	
 	/**
 	 * increase the degree of the provided nodes by one
-	 * @param oldDegrees array with degrees of the in g contained nodes
-	 * @param newDegrees array with degrees of the in this batch added nodes
-	 * @param maxOldIndex maximum index of nodes in g (to get the switch to the newDegree array)
+	 * @param degrees	array with degrees of all nodes (old and new)
+	 * @param sampler	sampler whose weights are updated to the new degrees
 	 * @param nodes nodes with changed degree
 	 */
-	private void increaseDegree(int[] oldDegrees, int[] newDegrees, int maxOldIndex,
+	private void increaseDegree(int[] degrees, FenwickSampler sampler,
 			Node[] nodes) {
 		for(Node n : nodes){
-			if(n.getIndex() <= maxOldIndex) {
-				oldDegrees[n.getIndex()] += 1;
-			} else {
-				newDegrees[n.getIndex()-maxOldIndex-1] +=1; 
-			}
+			int index = n.getIndex();
+			degrees[index] += 1;
+			sampler.set(index, calcWeight(degrees[index]));
 		}
 		
 	}
 
 	/**
-	 * Iterate over all nodes and calculate a valid one.
+	 * Draw nodes proportional to their weight until a valid one is found.
 	 * Probability formula is given by the paper:
 	 * 
 	 * @param g	Graph to retrieve the old nodes
-	 * @param oldDegrees	degrees of the old nodes
+	 * @param sampler	sampler with the weights of all nodes
 	 * @param newNodes		array with new nodes
-	 * @param newDegrees	degrees of the new nodes
 	 * @param maxOldId		last old node index, nodes with higher index are new nodes
-	 * @param maxId			id of the last added nodes (highest id)
 	 * @param ignoreNode	node, that should be ignored as destination for this edge
 	 * @param srcNode		source node of this edge
 	 * @return				destination node
 	 */
-	private Node getNPPNode(Graph g, int[] oldDegrees, Node[] newNodes, int[] newDegrees, int maxOldId, int maxId,
+	private Node getNPPNode(Graph g, FenwickSampler sampler, Node[] newNodes, int maxOldId,
 			int ignoreNode, int srcNode) {
 		
-		int npp = -1;		
-		double sumK = 0;
-		
-		// sum on old nodes
-		for (int j = 0; j <= maxOldId; j++){ 
-			int kj = oldDegrees[j];
-			if(kj!=0)	
-				sumK += Math.pow(kj,  calcExponent(kj));
-		}
-		// sum on new nodes
-		for(int j = 0; j < (maxId-maxOldId-1); j++){
-			int kj = newDegrees[j];
-			if(kj!=0)
-			sumK += Math.pow(kj, calcExponent(kj));
-		}
-		
-		double sumK2 = 0;
-		
-		
 		// get the source node, if srcNode id is > maxOldId, then is the src a new node and has to be retrieved from the new node array
 		Node src = (srcNode <= maxOldId) ? g.getNode(srcNode) : newNodes[srcNode-maxOldId-1];
 		
-		// iterate over all nodes ("old" and in this batch added) to find a destination for this edge
-		while(npp <0){
-			double takeNode = Rand.rand.nextDouble();
-			// check old nodes for valid destination
-			for(int k = 0; k <= maxOldId; k++){
-				int kj = oldDegrees[k];
-				if(kj!=0)
-					sumK2 += Math.pow(kj, calcExponent(kj)) / sumK;
-				
-				Node dst = g.getNode(k);
-				if(sumK2 > takeNode && 
-						k != srcNode && 
-						k != ignoreNode && 
-						!g.containsEdge(src, dst)){
-					return dst;
-				}
-			}
-			// check new nodes for valid destination
-			for(int k = 0; k <= maxId-maxOldId-1; k++){
-				int kj = newDegrees[k];
-				if(kj!=0)
-					sumK2 += Math.pow(kj, calcExponent(kj)) / sumK;
-				
-				Node dst = newNodes[k];
-				
-				if(sumK2 > takeNode && 
-						k+maxOldId+1 != srcNode &&
-						k+maxOldId+1 != ignoreNode && 
-						!g.containsEdge(src, dst)){
-					return dst;
-				}
+		while(true){
+			int k = sampler.sample();
+			if(k == srcNode || k == ignoreNode)
+				continue;
+			Node dst = (k <= maxOldId) ? g.getNode(k) : newNodes[k-maxOldId-1];
+			if(dst != null && !g.containsEdge(src, dst)){
+				return dst;
 			}
 		}
-		// should not be reachable!
-		return null;
+	}
+
+	/**
+	 * calculates the (unnormalized) probability k^(1 + delta * log10(k)) of
+	 * choosing a node with degree k
+	 * @param kj
+	 * @return
+	 */
+	private double calcWeight(int kj) {
+		if(kj == 0)
+			return 0;
+		return Math.pow(kj, calcExponent(kj));
 	}
 
 	/**
@@ -298,19 +258,16 @@ public class PositiveFeedbackPreferenceBatch extends BatchGenerator {
 	/**
 	 * collects the degrees of the nodes in g
 	 * @param g	current graph
-	 * @return	array of node-degrees
+	 * @param size	size of the array, at least the maximum node index + 1
+	 * @return	array of node-degrees, indexed by node index
 	 */
-	private int[] collectOldDegrees(Graph g) {
-		int[] oldDegrees = new int[g.getNodeCount()];
+	private int[] collectDegrees(Graph g, int size) {
+		int[] degrees = new int[size];
 		for(IElement n : g.getNodes()){
 			Node node = (Node) n;
-			if(node instanceof DirectedNode){
-				oldDegrees[node.getIndex()] = ((DirectedNode) node).getDegree();
-			} else if (node instanceof UndirectedNode) {
-				oldDegrees[node.getIndex()] = ((UndirectedNode) node).getDegree();
-			}
+			degrees[node.getIndex()] = node.getDegree();
 		}
-		return oldDegrees;
+		return degrees;
 	}
 
 	@Override
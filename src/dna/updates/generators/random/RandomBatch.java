@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import dna.graph.Graph;
 import dna.graph.weights.Weight.WeightSelection;
 import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
 import dna.updates.generators.BatchGenerator;
 import dna.util.parameters.IntParameter;
 import dna.util.parameters.ObjectParameter;
@@ -87,12 +88,19 @@ public class RandomBatch extends BatchGenerator {
 
 	@Override
 	public Batch generate(Graph g) {
-		Batch b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
-				g.getTimestamp() + 1, this.na, this.nr, this.nw, this.ea,
-				this.er, this.ew);
+		Batch b;
+		if (CompactUpdates.isEnabled()) {
+			b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
+					g.getTimestamp() + 1, new CompactUpdates(g, this.na
+							+ this.nr + this.nw + this.ea + this.er + this.ew));
+		} else {
+			b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
+					g.getTimestamp() + 1, this.na, this.nr, this.nw, this.ea,
+					this.er, this.ew);
+		}
 
 		for (BatchGenerator bg : this.bgs) {
-			b.addAll(bg.generate(g).getAllUpdates());
+			b.addAll(bg.generate(g));
 		}
 
 		return b;
@@ -4,9 +4,13 @@ import java.math.BigInteger;
 import java.util.HashSet;
 
 import dna.graph.Graph;
+import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.edges.Edge;
 import dna.graph.nodes.Node;
+import dna.graph.weights.IWeighted;
 import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
+import dna.updates.batch.IndexSet;
 import dna.updates.generators.BatchGenerator;
 import dna.updates.update.EdgeAddition;
 import dna.util.parameters.IntParameter;
@@ -22,10 +26,6 @@ public class RandomEdgeAdditions extends BatchGenerator {
 
 	@Override
 	public Batch generate(Graph g) {
-		Batch b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
-				g.getTimestamp() + 1, 0, 0, 0, this.count, 0, 0);
-
-		HashSet<Edge> added = new HashSet<Edge>();
 		int maxEdgesToAdd = this.count;
 
 		int oldEdgeCount = g.getEdgeCount();
@@ -47,6 +47,14 @@ public class RandomEdgeAdditions extends BatchGenerator {
 			maxEdgesToAdd = absoluteMaximumToInsert.intValue();
 		}
 
+		if (CompactUpdates.isEnabled()) {
+			return this.generateCompact(g, maxEdgesToAdd);
+		}
+
+		Batch b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
+				g.getTimestamp() + 1, 0, 0, 0, this.count, 0, 0);
+
+		HashSet<Edge> added = new HashSet<Edge>();
 		while (added.size() < maxEdgesToAdd) {
 			Node n1 = g.getRandomNode();
 			Node n2 = g.getRandomNode();
@@ -64,6 +72,43 @@ public class RandomEdgeAdditions extends BatchGenerator {
 		return b;
 	}
 
+	/**
+	 * generates the same edge additions as generate(..) but stores them as
+	 * compact updates, edge instances are only created for weighted edges
+	 */
+	private Batch generateCompact(Graph g, int maxEdgesToAdd) {
+		GraphDataStructure gds = g.getGraphDatastructures();
+		boolean weighted = gds.createsWeightedEdges();
+		CompactUpdates updates = new CompactUpdates(g, maxEdgesToAdd);
+
+		IndexSet added = new IndexSet(maxEdgesToAdd);
+		int count = 0;
+		while (count < maxEdgesToAdd) {
+			Node n1 = g.getRandomNode();
+			Node n2 = g.getRandomNode();
+			if (n1.equals(n2)) {
+				continue;
+			}
+			Edge e = weighted ? gds.newEdgeInstance(n1, n2) : null;
+			int i1 = n1.getIndex();
+			int i2 = n2.getIndex();
+			long key = gds.createsUndirected() && i1 > i2 ? IndexSet
+					.getEdgeKey(i2, i1) : IndexSet.getEdgeKey(i1, i2);
+			if (added.contains(key) || g.containsEdge(i1, i2)) {
+				continue;
+			}
+			added.add(key);
+			if (weighted) {
+				updates.addEdgeAddition(i1, i2, ((IWeighted) e).getWeight());
+			} else {
+				updates.addEdgeAddition(i1, i2);
+			}
+			count++;
+		}
+
+		return new Batch(gds, g.getTimestamp(), g.getTimestamp() + 1, updates);
+	}
+
 	@Override
 	public void reset() {
 	}
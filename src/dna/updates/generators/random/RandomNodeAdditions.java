@@ -4,7 +4,9 @@ import java.util.HashSet;
 
 import dna.graph.Graph;
 import dna.graph.nodes.Node;
+import dna.graph.weights.IWeighted;
 import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
 import dna.updates.generators.BatchGenerator;
 import dna.updates.update.NodeAddition;
 import dna.util.parameters.IntParameter;
@@ -20,6 +22,10 @@ public class RandomNodeAdditions extends BatchGenerator {
 
 	@Override
 	public Batch generate(Graph g) {
+		if (CompactUpdates.isEnabled()) {
+			return this.generateCompact(g);
+		}
+
 		Batch b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
 				g.getTimestamp() + 1, this.count, 0, 0, 0, 0, 0);
 
@@ -34,6 +40,29 @@ public class RandomNodeAdditions extends BatchGenerator {
 		return b;
 	}
 
+	/**
+	 * generates the same node additions as generate(..) but stores them as
+	 * compact updates, node instances are only created for weighted nodes
+	 */
+	private Batch generateCompact(Graph g) {
+		CompactUpdates updates = new CompactUpdates(g, this.count);
+
+		boolean weighted = g.getGraphDatastructures().createsWeightedNodes();
+		int index = g.getMaxNodeIndex() + 1;
+		for (int i = 0; i < this.count; i++) {
+			if (weighted) {
+				Node n = g.getGraphDatastructures().newNodeInstance(index);
+				updates.addNodeAddition(index, ((IWeighted) n).getWeight());
+			} else {
+				updates.addNodeAddition(index);
+			}
+			index++;
+		}
+
+		return new Batch(g.getGraphDatastructures(), g.getTimestamp(),
+				g.getTimestamp() + 1, updates);
+	}
+
 	@Override
 	public void reset() {
 	}
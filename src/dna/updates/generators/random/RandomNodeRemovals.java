@@ -5,6 +5,8 @@ import java.util.HashSet;
 import dna.graph.Graph;
 import dna.graph.nodes.Node;
 import dna.updates.batch.Batch;
+import dna.updates.batch.CompactUpdates;
+import dna.updates.batch.IndexSet;
 import dna.updates.generators.BatchGenerator;
 import dna.updates.update.NodeRemoval;
 import dna.util.parameters.IntParameter;
@@ -20,6 +22,10 @@ public class RandomNodeRemovals extends BatchGenerator {
 
 	@Override
 	public Batch generate(Graph g) {
+		if (CompactUpdates.isEnabled()) {
+			return this.generateCompact(g);
+		}
+
 		Batch b = new Batch(g.getGraphDatastructures(), g.getTimestamp(),
 				g.getTimestamp() + 1, 0, this.count, 0, 0, 0, 0);
 
@@ -36,6 +42,25 @@ public class RandomNodeRemovals extends BatchGenerator {
 		return b;
 	}
 
+	/**
+	 * generates the same node removals as generate(..) but stores them as
+	 * compact updates
+	 */
+	private Batch generateCompact(Graph g) {
+		CompactUpdates updates = new CompactUpdates(g, this.count);
+
+		IndexSet removed = new IndexSet(this.count);
+		while (removed.size() < this.count && removed.size() < g.getNodeCount()) {
+			Node n = g.getRandomNode();
+			if (removed.add(n.getIndex())) {
+				updates.addNodeRemoval(n.getIndex());
+			}
+		}
+
+		return new Batch(g.getGraphDatastructures(), g.getTimestamp(),
+				g.getTimestamp() + 1, updates);
+	}
+
 	@Override
 	public void reset() {
 	}
@@ -0,0 +1,84 @@
+package dna.updates.generators.util;
+
+import java.io.IOException;
+
+import dna.graph.Graph;
+import dna.io.BinaryBatchReader;
+import dna.updates.batch.Batch;
+import dna.updates.generators.BatchGenerator;
+
+/**
+ *
+ * Batch generator that reads batches from a single file in binary batch
+ * format (see BinaryBatchWriter). Every time a new batch is generated, the
+ * next batch of the file is read. In case the file contains an index and the
+ * next batch does not start at the graph's current timestamp, reading
+ * continues at the batch that does (if it exists). When all batches are read,
+ * the process starts again at the beginning after reset().
+ */
+public class ReadableBinaryBatchGenerator extends BatchGenerator {
+
+	protected String dir;
+
+	protected String filename;
+
+	protected BinaryBatchReader reader;
+
+	public ReadableBinaryBatchGenerator(String name, String dir,
+			String filename) {
+		super(name);
+		this.dir = dir;
+		this.filename = filename;
+		this.reader = null;
+	}
+
+	protected BinaryBatchReader getReader() throws IOException {
+		if (this.reader == null) {
+			this.reader = BinaryBatchReader.getReader(this.dir, this.filename);
+			if (this.reader == null) {
+				throw new IOException(this.dir + this.filename
+						+ " is not a binary batch file");
+			}
+		}
+		return this.reader;
+	}
+
+	@Override
+	public Batch generate(Graph g) {
+		try {
+			BinaryBatchReader r = this.getReader();
+			if (r.hasIndex()
+					&& (!r.hasNext() || r.readTimestamps()[0] != g
+							.getTimestamp())) {
+				r.seek(g.getTimestamp());
+			}
+			return r.read(g);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	@Override
+	public void reset() {
+		if (this.reader != null) {
+			try {
+				this.reader.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			this.reader = null;
+		}
+	}
+
+	@Override
+	public boolean isFurtherBatchPossible(Graph g) {
+		try {
+			return this.getReader().hasNext();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+}
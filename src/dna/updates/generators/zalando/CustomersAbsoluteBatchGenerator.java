@@ -2,8 +2,8 @@ package dna.updates.generators.zalando;
 
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.zalando.ZalandoGraphDataStructure;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
-import dna.graph.generators.zalando.EventReader;
 
 public class CustomersAbsoluteBatchGenerator extends
 		ZalandoEqualityBatchGenerator {
@@ -21,7 +21,7 @@ public class CustomersAbsoluteBatchGenerator extends
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public CustomersAbsoluteBatchGenerator(ZalandoGraphDataStructure gds,
 			long timestampInit, int numberOfLinesPerBatch, String eventsFilepath) {
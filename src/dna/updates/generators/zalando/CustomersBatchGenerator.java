@@ -2,8 +2,8 @@ package dna.updates.generators.zalando;
 
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.zalando.ZalandoGraphDataStructure;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
-import dna.graph.generators.zalando.EventReader;
 
 public class CustomersBatchGenerator extends ZalandoEqualityBatchGenerator {
 
@@ -20,7 +20,7 @@ public class CustomersBatchGenerator extends ZalandoEqualityBatchGenerator {
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public CustomersBatchGenerator(ZalandoGraphDataStructure gds,
 			long timestampInit, int numberOfLinesPerBatch, String eventsFilepath) {
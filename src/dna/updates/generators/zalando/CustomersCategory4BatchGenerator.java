@@ -3,9 +3,9 @@ package dna.updates.generators.zalando;
 import dna.graph.Graph;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.zalando.ZalandoGraphDataStructure;
-import dna.graph.generators.zalando.Event;
+import dna.graph.generators.zalando.EncodedEvent;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
-import dna.graph.generators.zalando.EventReader;
 import dna.graph.nodes.Node;
 import dna.graph.nodes.zalando.ZalandoNode;
 
@@ -25,7 +25,7 @@ public class CustomersCategory4BatchGenerator extends
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public CustomersCategory4BatchGenerator(ZalandoGraphDataStructure gds,
 			long timestampInit, int numberOfLinesPerBatch, String eventsFilepath) {
@@ -45,7 +45,7 @@ public class CustomersCategory4BatchGenerator extends
 	 * categories.</b>
 	 */
 	@Override
-	void addEdgesForColumns(Graph g, Event event) {
+	void addEdgesForColumns(Graph g, EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		nodeForEventIndex = this.mappings.getMapping(
 				this.columnGroupsToAddAsNodes[0], event);
@@ -3,9 +3,9 @@ package dna.updates.generators.zalando;
 import dna.graph.Graph;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.zalando.ZalandoGraphDataStructure;
-import dna.graph.generators.zalando.Event;
+import dna.graph.generators.zalando.EncodedEvent;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
-import dna.graph.generators.zalando.EventReader;
 
 public class ProductsActionsChronologyBatchGenerator extends
 		ZalandoChronologyBatchGenerator {
@@ -23,7 +23,7 @@ public class ProductsActionsChronologyBatchGenerator extends
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 */
 	public ProductsActionsChronologyBatchGenerator(
 			ZalandoGraphDataStructure gds, long timestampInit,
@@ -44,7 +44,7 @@ public class ProductsActionsChronologyBatchGenerator extends
 	 *            The {@link Event} for which values the edges should be added.
 	 */
 	@Override
-	void addEdgesForColumns(Graph g, Event event) {
+	void addEdgesForColumns(Graph g, EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		nodeForEventIndex = this.mappings.getMapping(
 				this.columnGroupsToAddAsNodes[0], event);
@@ -13,11 +13,12 @@ import dna.graph.edges.DirectedWeightedEdge;
 import dna.graph.edges.Edge;
 import dna.graph.edges.UndirectedWeightedEdge;
 import dna.graph.generators.zalando.EdgeValuesForNodes;
-import dna.graph.generators.zalando.Event;
+import dna.graph.generators.zalando.EncodedEvent;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
+import dna.graph.generators.zalando.EventDictionary;
 import dna.graph.generators.zalando.EventFilter;
 import dna.graph.generators.zalando.EventMappings;
-import dna.graph.generators.zalando.EventReader;
 import dna.graph.nodes.Node;
 import dna.graph.weights.DoubleWeight;
 import dna.graph.weights.IWeightedEdge;
@@ -76,10 +77,16 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 	/** The time flies in one batch of this generator. */
 	private int timeOfBatch;
 
-	// fields for EventReader
+	// fields for EncodedEventReader
 
 	/** The parser of the log file. */
-	private EventReader reader;
+	private EncodedEventReader reader;
+	/**
+	 * The dictionaries the values of the read {@link EncodedEvent}s are
+	 * interned into. Kept by {@link #reset()} so that {@link #mappings} stay
+	 * valid.
+	 */
+	private EventDictionary dictionary;
 	/**
 	 * The maximum number of events (i.e. lines of file) to read in. The actual
 	 * number of lines may be smaller than this value.
@@ -111,8 +118,9 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 	EventColumn[][] columnGroupsToCheckForEquality;
 	/**
 	 * Contains all indices for {@link Node}s added so far by
-	 * {@link #addNodesForColumns(Event)} to get all {@link Node}s to which an
-	 * edge should be added in {@link #addEdgesForColumns(Event)}.
+	 * {@link #addNodesForColumns(EncodedEvent)} to get all {@link Node}s to
+	 * which an edge should be added in
+	 * {@link #addEdgesForColumns(EncodedEvent)}.
 	 */
 	EdgeValuesForNodes nodesSortedByColumnGroupsToCheckForEquality;
 	/**
@@ -177,7 +185,7 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 * @param columnsToAddAsNodes
 	 *            The {@link EventColumn}s of an event which values will be
 	 *            represented as nodes in the graph.
@@ -234,7 +242,9 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 		this.nodesAdded = new HashMap<Integer, Node>();
 
 		this.numberOfRuns = 0;
-		this.reader = new EventReader(this.eventsFilepath);
+		this.dictionary = EventDictionary.forEvents(this.eventsFilepath);
+		this.reader = new EncodedEventReader(this.eventsFilepath,
+				this.dictionary);
 
 		this.nodeAdditions = new HashMap<Node, NodeAddition>();
 		this.edgeAdditions = new HashMap<Edge, EdgeAddition>();
@@ -390,14 +400,14 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 					Integer.valueOf(weight.toString()));
 	}
 
-	abstract void addEdgesForColumns(Graph g, Event currentEvent);
+	abstract void addEdgesForColumns(Graph g, EncodedEvent currentEvent);
 
 	/**
 	 * Adds the {@link Node}s for given {@link Event} to given graph.
 	 * <p>
 	 * Additionally groups added {@link Node}s into
 	 * {@link #nodesSortedByColumnGroupsToCheckForEquality} for
-	 * {@link #addEdgesForColumns(Event)}.
+	 * {@link #addEdgesForColumns(EncodedEvent)}.
 	 * </p>
 	 * <p>
 	 * Instead of adding the nodes directly to the graph, they are added to
@@ -408,7 +418,7 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 	 * @param event
 	 *            The {@link Event} which nodes should be added.
 	 */
-	private void addNodesForColumns(Graph g, Event event) {
+	private void addNodesForColumns(Graph g, EncodedEvent event) {
 		int globalMappingForEvent;
 		// TODO
 //		final GraphDataStructure gds = g.getGraphDatastructures();
@@ -427,8 +437,8 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 
 			// Group recently added nodes by the value for
 			// columnGroupsToCheckForEquality of the given event. This
-			// simplifies adding edges in addEdgesForColumns(Event) between
-			// events (nodes) with equal values.
+			// simplifies adding edges in addEdgesForColumns(EncodedEvent)
+			// between events (nodes) with equal values.
 			for (EventColumn[] eventColumnGroup2 : this.columnGroupsToCheckForEquality)
 				this.nodesSortedByColumnGroupsToCheckForEquality.addNode(
 						this.mappings
@@ -706,7 +716,7 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 		Batch b = new Batch(g.getGraphDatastructures(), this.timeOfBatch
 				* this.numberOfRuns, this.timeOfBatch * (this.numberOfRuns + 1));
 
-		Event currentEvent;
+		EncodedEvent currentEvent;
 		for (int currentNumberOfEvents = 0; currentNumberOfEvents < this.numberOfLinesPerBatch; currentNumberOfEvents++) {
 			if ((currentEvent = reader.readNext()) == null) {
 				// no more events(although maxNumberOfEvents not reached
@@ -761,7 +771,9 @@ public abstract class ZalandoBatchGenerator extends BatchGenerator {
 		this.nodesAdded.clear();
 
 		this.numberOfRuns = 0;
-		this.reader = new EventReader(this.eventsFilepath);
+		this.reader.close();
+		this.reader = new EncodedEventReader(this.eventsFilepath,
+				this.dictionary);
 
 		this.nodeAdditions.clear();
 		this.edgeAdditions.clear();
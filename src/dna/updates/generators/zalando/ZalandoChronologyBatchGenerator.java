@@ -4,10 +4,10 @@ import dna.graph.Graph;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.zalando.ZalandoGraphDataStructure;
 import dna.graph.edges.Edge;
-import dna.graph.generators.zalando.Event;
+import dna.graph.generators.zalando.EncodedEvent;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
 import dna.graph.generators.zalando.EventFilter;
-import dna.graph.generators.zalando.EventReader;
 import dna.graph.nodes.Node;
 
 /**
@@ -42,7 +42,7 @@ public class ZalandoChronologyBatchGenerator extends ZalandoBatchGenerator {
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 * @param columnsToAddAsNodes
 	 *            The {@link EventColumn}s of an event which values will be
 	 *            represented as nodes in the graph.
@@ -102,7 +102,7 @@ public class ZalandoChronologyBatchGenerator extends ZalandoBatchGenerator {
 	 * @see #addEdge(Node, Node, Object)
 	 */
 	@Override
-	void addEdgesForColumns(Graph g, Event event) {
+	void addEdgesForColumns(Graph g, EncodedEvent event) {
 		// TODO
 //		final GraphDataStructure gds = g.getGraphDatastructures();
 
@@ -4,10 +4,10 @@ import dna.graph.Graph;
 import dna.graph.datastructures.GraphDataStructure;
 import dna.graph.datastructures.zalando.ZalandoGraphDataStructure;
 import dna.graph.edges.Edge;
-import dna.graph.generators.zalando.Event;
+import dna.graph.generators.zalando.EncodedEvent;
+import dna.graph.generators.zalando.EncodedEventReader;
 import dna.graph.generators.zalando.EventColumn;
 import dna.graph.generators.zalando.EventFilter;
-import dna.graph.generators.zalando.EventReader;
 import dna.graph.nodes.Node;
 
 /**
@@ -47,7 +47,7 @@ public class ZalandoEqualityBatchGenerator extends ZalandoBatchGenerator {
 	 *            fewer lines.
 	 * @param eventsFilepath
 	 *            The full path of the Zalando log file. Will be passed to
-	 *            {@link EventReader}.
+	 *            {@link EncodedEventReader}.
 	 * @param columnsToAddAsNodes
 	 *            The {@link EventColumn}s of an event which values will be
 	 *            represented as nodes in the graph.
@@ -136,7 +136,7 @@ public class ZalandoEqualityBatchGenerator extends ZalandoBatchGenerator {
 	 * @see #addBidirectionalEdge(Node, Node, int)
 	 */
 	@Override
-	void addEdgesForColumns(Graph g, Event event) {
+	void addEdgesForColumns(Graph g, EncodedEvent event) {
 		int nodeForEventIndex, mappingForColumnGroup;
 		// TODO
 		// final GraphDataStructure gds = g.getGraphDatastructures();
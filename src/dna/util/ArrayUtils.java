@@ -343,6 +343,66 @@ public class ArrayUtils {
 		return sum;
 	}
 
+	/**
+	 * Counts the elements contained in both of the given ranges. Both ranges
+	 * must be sorted in ascending order.
+	 * 
+	 * @param v1
+	 *            first array
+	 * @param from1
+	 *            first index of the range in v1 (inclusive)
+	 * @param to1
+	 *            last index of the range in v1 (exclusive)
+	 * @param v2
+	 *            second array
+	 * @param from2
+	 *            first index of the range in v2 (inclusive)
+	 * @param to2
+	 *            last index of the range in v2 (exclusive)
+	 * @return number of elements contained in both ranges
+	 */
+	public static int countIntersection(int[] v1, int from1, int to1,
+			int[] v2, int from2, int to2) {
+		int count = 0;
+		while (from1 < to1 && from2 < to2) {
+			if (v1[from1] < v2[from2]) {
+				from1++;
+			} else if (v1[from1] > v2[from2]) {
+				from2++;
+			} else {
+				count++;
+				from1++;
+				from2++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes all occurrences of the given value from the given range by
+	 * moving the subsequent elements forward. The order of the remaining
+	 * elements is kept.
+	 *
+	 * @param v
+	 *            array
+	 * @param from
+	 *            first index of the range (inclusive)
+	 * @param length
+	 *            number of elements in the range
+	 * @param value
+	 *            value to remove
+	 * @return number of elements remaining in the range
+	 */
+	public static int remove(int[] v, int from, int length, int value) {
+		int end = from;
+		for (int i = from; i < from + length; i++) {
+			if (v[i] != value) {
+				v[end++] = v[i];
+			}
+		}
+		return end - from;
+	}
+
 	public static String toString(int[] values) {
 		StringBuffer buff = new StringBuffer();
 		for (int v : values) {
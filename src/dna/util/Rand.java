@@ -5,12 +5,111 @@ import java.util.Random;
 public class Rand {
 	public static long seed = System.currentTimeMillis();
 
-	public static Random rand = new Random(seed);
+	/**
+	 * Stream of the current thread. Each thread that calls Rand.init(..)
+	 * draws from its own stream so that runs generated concurrently produce
+	 * the same numbers as they would sequentially.
+	 */
+	private static ThreadLocal<RandomStream> current = new ThreadLocal<RandomStream>() {
+		@Override
+		protected RandomStream initialValue() {
+			return new RandomStream(Rand.seed);
+		}
+	};
+
+	public static Random rand = new ThreadRandom();
 
 	public static void init(long seed) {
 		Rand.seed = seed;
-		Rand.rand = new Random(seed);
+		Rand.current.set(new RandomStream(seed));
 		Log.debug("initializing Rand with seed " + Rand.seed);
 	}
 
+	/**
+	 * @return stream of the current thread (used by Rand.rand)
+	 */
+	public static RandomStream getStream() {
+		return Rand.current.get();
+	}
+
+	/**
+	 * Sets the stream of the current thread, e.g., a stream derived for a
+	 * task executed by a worker thread.
+	 */
+	public static void setStream(RandomStream stream) {
+		Rand.current.set(stream);
+	}
+
+	/**
+	 * @return stream derived from the stream of the current thread and the
+	 *         given name (see RandomStream.derive(..)), the stream of the
+	 *         current thread is not advanced
+	 */
+	public static RandomStream derive(String name) {
+		return Rand.current.get().derive(name);
+	}
+
+	/**
+	 * Random that delegates all calls to the stream of the calling thread.
+	 */
+	private static class ThreadRandom extends Random {
+		private static final long serialVersionUID = 1L;
+
+		private static RandomStream get() {
+			return Rand.current.get();
+		}
+
+		@Override
+		public void setSeed(long seed) {
+			// called by the constructor of Random before current is set
+			if (Rand.current != null)
+				get().setSeed(seed);
+		}
+
+		@Override
+		protected int next(int bits) {
+			return get().nextInt() >>> (32 - bits);
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes) {
+			get().nextBytes(bytes);
+		}
+
+		@Override
+		public int nextInt() {
+			return get().nextInt();
+		}
+
+		@Override
+		public int nextInt(int n) {
+			return get().nextInt(n);
+		}
+
+		@Override
+		public long nextLong() {
+			return get().nextLong();
+		}
+
+		@Override
+		public boolean nextBoolean() {
+			return get().nextBoolean();
+		}
+
+		@Override
+		public float nextFloat() {
+			return get().nextFloat();
+		}
+
+		@Override
+		public double nextDouble() {
+			return get().nextDouble();
+		}
+
+		@Override
+		public double nextGaussian() {
+			return get().nextGaussian();
+		}
+	}
+
 }
@@ -0,0 +1,153 @@
+package dna.util;
+
+import java.util.Random;
+
+/**
+ * Stream of pseudo-random numbers based on the SplitMix64 algorithm (as used
+ * by java.util.SplittableRandom).<br>
+ *
+ * In contrast to java.util.Random, a stream is not synchronized and does not
+ * update an atomic seed per call, so it must only be used by a single thread
+ * at a time (see Rand, which keeps one stream per thread).<br>
+ *
+ * New streams can be derived from a stream in two ways: split() returns an
+ * independent stream and advances this stream, derive(..) returns a stream
+ * determined by the current state of this stream and the given key without
+ * advancing it. The latter allows to hand out streams, e.g., per metric or
+ * per thread, whose numbers do not depend on the order in which they are
+ * created or used.
+ */
+public class RandomStream extends Random {
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+	private long state;
+
+	private long gamma;
+
+	private double nextGaussian;
+
+	private boolean haveNextGaussian;
+
+	public RandomStream(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private RandomStream(long seed, long gamma) {
+		super(0);
+		this.state = seed;
+		this.gamma = gamma;
+		this.haveNextGaussian = false;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+	private long nextState() {
+		return this.state += this.gamma;
+	}
+
+	/**
+	 * @return new stream, this stream is advanced
+	 */
+	public RandomStream split() {
+		return new RandomStream(this.nextLong(), mixGamma(this.nextState()));
+	}
+
+	/**
+	 * @return stream determined by the current state of this stream and the
+	 *         given key, this stream is not advanced
+	 */
+	public RandomStream derive(long key) {
+		long seed = mix64(this.state ^ mix64(key + GOLDEN_GAMMA));
+		return new RandomStream(seed, mixGamma(seed + GOLDEN_GAMMA));
+	}
+
+	/**
+	 * @return stream determined by the current state of this stream and the
+	 *         given name, this stream is not advanced
+	 */
+	public RandomStream derive(String name) {
+		long h = 1125899906842597L;
+		for (int i = 0; i < name.length(); i++)
+			h = 31 * h + name.charAt(i);
+		return this.derive(h);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		// called by the constructor of Random before the fields are set
+		this.state = seed;
+		this.gamma = GOLDEN_GAMMA;
+		this.haveNextGaussian = false;
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (this.nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return mix32(this.nextState());
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(this.nextState());
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return this.nextInt() < 0;
+	}
+
+	@Override
+	public float nextFloat() {
+		return (this.nextInt() >>> 8) * FLOAT_UNIT;
+	}
+
+	@Override
+	public double nextDouble() {
+		return (this.nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	public double nextGaussian() {
+		if (this.haveNextGaussian) {
+			this.haveNextGaussian = false;
+			return this.nextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * this.nextDouble() - 1;
+			v2 = 2 * this.nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		this.nextGaussian = v2 * multiplier;
+		this.haveNextGaussian = true;
+		return v1 * multiplier;
+	}
+}
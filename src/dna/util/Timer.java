@@ -31,6 +31,16 @@ public class Timer {
 		return this.toString();
 	}
 
+	/**
+	 * Adds the duration measured by another timer to this one.
+	 * 
+	 * @param t
+	 *            timer whose duration is added
+	 */
+	public void add(Timer t) {
+		this.duration += t.getDutation();
+	}
+
 	public RunTime getRuntime() {
 		return new RunTime(this.name, this.duration);
 	}
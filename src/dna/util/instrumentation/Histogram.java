@@ -0,0 +1,174 @@
+package dna.util.instrumentation;
+
+/**
+ * Histogram of recorded values with fixed bucket bounds (like Prometheus
+ * histograms). Besides the number of values per bucket, count, sum, minimum,
+ * maximum and the last recorded value are kept. Quantiles are estimated by
+ * linear interpolation within the bucket they fall into.
+ */
+public class Histogram implements HistogramMBean {
+
+	/** bucket bounds for runtimes (in ms), from 0.1 ms to about 7 min */
+	public static final double[] runtimeBuckets = exponentialBuckets(0.1, 2,
+			23);
+
+	private String name;
+
+	private String unit;
+
+	/** upper bounds (inclusive) of the buckets, the last one is +Inf */
+	private double[] bounds;
+
+	private long[] counts;
+
+	private long count;
+
+	private double sum;
+
+	private double min;
+
+	private double max;
+
+	private double last;
+
+	public Histogram(String name, String unit, double[] bounds) {
+		this.name = name;
+		this.unit = unit;
+		this.bounds = bounds;
+		this.counts = new long[bounds.length + 1];
+		this.count = 0;
+		this.sum = 0;
+		this.min = Double.NaN;
+		this.max = Double.NaN;
+		this.last = Double.NaN;
+	}
+
+	/**
+	 * @return count bounds start, start * factor, start * factor^2, ...
+	 */
+	public static double[] exponentialBuckets(double start, double factor,
+			int count) {
+		double[] res = new double[count];
+		for (int i = 0; i < count; i++) {
+			res[i] = start * Math.pow(factor, i);
+		}
+		return res;
+	}
+
+	public synchronized void record(double value) {
+		int i = 0;
+		while (i < this.bounds.length && value > this.bounds[i]) {
+			i++;
+		}
+		this.counts[i]++;
+		if (this.count == 0) {
+			this.min = value;
+			this.max = value;
+		} else {
+			this.min = Math.min(this.min, value);
+			this.max = Math.max(this.max, value);
+		}
+		this.count++;
+		this.sum += value;
+		this.last = value;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public String getUnit() {
+		return this.unit;
+	}
+
+	public double[] getBounds() {
+		return this.bounds;
+	}
+
+	/**
+	 * @return number of values smaller or equal to each bound, the last
+	 *         entry is the number of all values (+Inf)
+	 */
+	public synchronized long[] getCumulativeCounts() {
+		long[] res = new long[this.counts.length];
+		long sum = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			sum += this.counts[i];
+			res[i] = sum;
+		}
+		return res;
+	}
+
+	@Override
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public synchronized double getSum() {
+		return this.sum;
+	}
+
+	@Override
+	public synchronized double getMean() {
+		return this.count == 0 ? Double.NaN : this.sum / this.count;
+	}
+
+	@Override
+	public synchronized double getMin() {
+		return this.min;
+	}
+
+	@Override
+	public synchronized double getMax() {
+		return this.max;
+	}
+
+	@Override
+	public synchronized double getLast() {
+		return this.last;
+	}
+
+	/**
+	 * @param q
+	 *            quantile (between 0 and 1)
+	 * @return estimate of the q-quantile of all recorded values, NaN in case
+	 *         no value has been recorded
+	 */
+	public synchronized double getQuantile(double q) {
+		if (this.count == 0) {
+			return Double.NaN;
+		}
+		double rank = q * this.count;
+		long seen = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			if (this.counts[i] == 0 || seen + this.counts[i] < rank) {
+				seen += this.counts[i];
+				continue;
+			}
+			double lower = i == 0 ? this.min : Math.max(this.min,
+					this.bounds[i - 1]);
+			double upper = i == this.bounds.length ? this.max : Math.min(
+					this.max, this.bounds[i]);
+			return lower + (upper - lower) * (rank - seen) / this.counts[i];
+		}
+		return this.max;
+	}
+
+	@Override
+	public double getP50() {
+		return this.getQuantile(0.5);
+	}
+
+	@Override
+	public double getP90() {
+		return this.getQuantile(0.9);
+	}
+
+	@Override
+	public double getP99() {
+		return this.getQuantile(0.99);
+	}
+}
@@ -0,0 +1,28 @@
+package dna.util.instrumentation;
+
+/**
+ * JMX view of a Histogram.
+ */
+public interface HistogramMBean {
+	public String getName();
+
+	public String getUnit();
+
+	public long getCount();
+
+	public double getSum();
+
+	public double getMean();
+
+	public double getMin();
+
+	public double getMax();
+
+	public double getLast();
+
+	public double getP50();
+
+	public double getP90();
+
+	public double getP99();
+}
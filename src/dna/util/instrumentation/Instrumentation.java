@@ -0,0 +1,514 @@
+package dna.util.instrumentation;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import dna.series.Series;
+import dna.series.SeriesStats;
+import dna.series.data.BatchData;
+import dna.series.data.RunTime;
+import dna.series.data.Value;
+import dna.updates.update.Update.UpdateType;
+import dna.util.Config;
+import dna.util.Log;
+import dna.util.Memory;
+
+/**
+ * Exposes the runtimes measured during the generation of a series (the
+ * general runtimes of each batch as measured by TimerAspects and the runtimes
+ * of each metric), the number of applied updates per type, the update
+ * throughput and the heap usage while the series is generated.<br>
+ *
+ * Runtimes, throughput and heap usage are recorded in histograms. The state
+ * is exposed as MBeans (domain "dna") and written every
+ * INSTRUMENTATION_FLUSH_INTERVAL seconds to INSTRUMENTATION_DIR: one JSON
+ * object per line (including the batches finished since the last flush) is
+ * appended to metrics.jsonl and metrics.prom is replaced by the current state
+ * in Prometheus' text format.<br>
+ *
+ * Instrumentation is enabled via INSTRUMENTATION_ENABLED, SeriesGeneration
+ * reports each finished batch via batchFinished(..).
+ */
+public class Instrumentation implements InstrumentationMBean {
+
+	private static boolean enabled = Config
+			.getBoolean("INSTRUMENTATION_ENABLED");
+
+	private static Instrumentation instance = null;
+
+	public static final String jsonLinesFilename = "metrics.jsonl";
+
+	public static final String prometheusFilename = "metrics.prom";
+
+	/** histogram families */
+	private static final String runtimes = "runtime";
+	private static final String metricRuntimes = "metric_runtime";
+	private static final String throughputs = "throughput";
+	private static final String heap = "heap";
+
+	private static final UpdateType[] updateTypes = UpdateType.values();
+
+	private static final String[] updateTypeValues = new String[] {
+			SeriesStats.addedNodes, SeriesStats.removedNodes,
+			SeriesStats.updatedNodeWeights, SeriesStats.addedEdges,
+			SeriesStats.removedEdges, SeriesStats.updatedEdgeWeights };
+
+	private String series;
+
+	private int run;
+
+	private long batches;
+
+	private long lastBatchTimestamp;
+
+	private double lastBatchRuntime;
+
+	private double nodes;
+
+	private double edges;
+
+	private double heapUsed;
+
+	private double throughput;
+
+	private EnumMap<UpdateType, Long> updates;
+
+	/** family -> label -> histogram */
+	private TreeMap<String, TreeMap<String, Histogram>> histograms;
+
+	/** JSON objects of the batches finished since the last flush */
+	private ArrayList<String> finishedBatches;
+
+	private String dir;
+
+	private MBeanServer mbs;
+
+	private ScheduledExecutorService flusher;
+
+	private Instrumentation() {
+		this.series = null;
+		this.run = -1;
+		this.batches = 0;
+		this.lastBatchTimestamp = -1;
+		this.lastBatchRuntime = Double.NaN;
+		this.nodes = Double.NaN;
+		this.edges = Double.NaN;
+		this.heapUsed = Double.NaN;
+		this.throughput = Double.NaN;
+		this.updates = new EnumMap<UpdateType, Long>(UpdateType.class);
+		for (UpdateType t : updateTypes) {
+			this.updates.put(t, 0L);
+		}
+		this.histograms = new TreeMap<String, TreeMap<String, Histogram>>();
+		this.finishedBatches = new ArrayList<String>();
+		this.dir = Config.get("INSTRUMENTATION_DIR");
+
+		this.mbs = null;
+		if (Config.getBoolean("INSTRUMENTATION_JMX")) {
+			this.mbs = ManagementFactory.getPlatformMBeanServer();
+			this.register(this, "dna:type=Generation");
+		}
+
+		int interval = Config.getInt("INSTRUMENTATION_FLUSH_INTERVAL");
+		if (interval > 0) {
+			this.flusher = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "InstrumentationFlusher");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			this.flusher.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					flush();
+				}
+			}, interval, interval, TimeUnit.SECONDS);
+		}
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static synchronized Instrumentation getInstance() {
+		if (instance == null) {
+			instance = new Instrumentation();
+		}
+		return instance;
+	}
+
+	/**
+	 * Records the runtimes and statistics of a batch after its generation.
+	 */
+	public static void batchFinished(Series s, int run, BatchData b) {
+		if (!enabled)
+			return;
+		getInstance().record(s.getName(), run, b);
+	}
+
+	/**
+	 * Writes the current state in case instrumentation is enabled.
+	 */
+	public static void flushNow() {
+		if (!enabled || instance == null)
+			return;
+		instance.flush();
+	}
+
+	private void register(Object mbean, String name) {
+		try {
+			ObjectName on = new ObjectName(name);
+			if (this.mbs.isRegistered(on)) {
+				this.mbs.unregisterMBean(on);
+			}
+			this.mbs.registerMBean(mbean, on);
+		} catch (Exception e) {
+			Log.error("could not register MBean " + name + ": "
+					+ e.getMessage());
+		}
+	}
+
+	private Histogram getHistogram(String family, String label) {
+		TreeMap<String, Histogram> h = this.histograms.get(family);
+		if (h == null) {
+			h = new TreeMap<String, Histogram>();
+			this.histograms.put(family, h);
+		}
+		Histogram res = h.get(label);
+		if (res == null) {
+			if (family.equals(throughputs)) {
+				res = new Histogram(label, "updates/s",
+						Histogram.exponentialBuckets(1, 10, 9));
+			} else if (family.equals(heap)) {
+				res = new Histogram(label, "MB", Histogram.exponentialBuckets(
+						1, 2, 20));
+			} else {
+				res = new Histogram(label, "ms", Histogram.runtimeBuckets);
+			}
+			h.put(label, res);
+			if (this.mbs != null) {
+				this.register(res, "dna:type=Histogram,family=" + family
+						+ ",name="
+						+ ObjectName.quote(label.isEmpty() ? family : label));
+			}
+		}
+		return res;
+	}
+
+	public synchronized void record(String series, int run, BatchData b) {
+		this.series = series;
+		this.run = run;
+		this.batches++;
+		this.lastBatchTimestamp = b.getTimestamp();
+
+		for (RunTime rt : b.getGeneralRuntimes().getList()) {
+			this.getHistogram(runtimes, rt.getName()).record(rt.getMilliSec());
+		}
+		for (RunTime rt : b.getMetricRuntimes().getList()) {
+			this.getHistogram(metricRuntimes, rt.getName()).record(
+					rt.getMilliSec());
+		}
+
+		long applied = 0;
+		for (int i = 0; i < updateTypes.length; i++) {
+			long count = (long) this.value(b, updateTypeValues[i], 0);
+			this.updates.put(updateTypes[i], this.updates.get(updateTypes[i])
+					+ count);
+			applied += count;
+		}
+
+		RunTime graphUpdate = b.getGeneralRuntimes().get(
+				SeriesStats.graphUpdateRuntime);
+		if (applied > 0 && graphUpdate != null && graphUpdate.getSec() > 0) {
+			this.throughput = applied / graphUpdate.getSec();
+			this.getHistogram(throughputs, "").record(this.throughput);
+		}
+
+		this.heapUsed = this.value(b, SeriesStats.memory,
+				new Memory().getUsed());
+		this.getHistogram(heap, "").record(this.heapUsed);
+		this.nodes = this.value(b, SeriesStats.nodes, Double.NaN);
+		this.edges = this.value(b, SeriesStats.edges, Double.NaN);
+
+		RunTime total = b.getGeneralRuntimes().get(SeriesStats.totalRuntime);
+		this.lastBatchRuntime = total == null ? Double.NaN : total
+				.getMilliSec();
+		this.finishedBatches.add("{\"run\":" + run + ",\"timestamp\":"
+				+ b.getTimestamp() + ",\"updates\":" + applied
+				+ ",\"total_ms\":" + json(this.lastBatchRuntime) + "}");
+	}
+
+	private double value(BatchData b, String name, double defaultValue) {
+		Value v = b.getValues().get(name);
+		return v == null ? defaultValue : v.getValue();
+	}
+
+	/*
+	 * OUTPUT
+	 */
+
+	/**
+	 * Appends the current state to the JSON-lines file and replaces the
+	 * Prometheus file.
+	 */
+	public void flush() {
+		String json;
+		String prometheus;
+		synchronized (this) {
+			json = this.toJson();
+			prometheus = this.toPrometheus();
+			this.finishedBatches.clear();
+		}
+		try {
+			File d = new File(this.dir);
+			if (!d.exists() && !d.mkdirs()) {
+				throw new IOException("cannot create directory " + this.dir);
+			}
+			if (Config.getBoolean("INSTRUMENTATION_JSONLINES")) {
+				FileWriter w = new FileWriter(new File(d, jsonLinesFilename),
+						true);
+				try {
+					w.write(json);
+					w.write("\n");
+				} finally {
+					w.close();
+				}
+			}
+			if (Config.getBoolean("INSTRUMENTATION_PROMETHEUS")) {
+				File tmp = new File(d, prometheusFilename + ".tmp");
+				FileWriter w = new FileWriter(tmp);
+				try {
+					w.write(prometheus);
+				} finally {
+					w.close();
+				}
+				Files.move(tmp.toPath(), new File(d, prometheusFilename)
+						.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+		} catch (IOException e) {
+			Log.error("could not write instrumentation data: "
+					+ e.getMessage());
+		}
+	}
+
+	public synchronized String toJson() {
+		StringBuilder buff = new StringBuilder();
+		buff.append("{\"time\":" + System.currentTimeMillis());
+		buff.append(",\"series\":" + json(this.series));
+		buff.append(",\"run\":" + this.run);
+		buff.append(",\"batches\":" + this.batches);
+		buff.append(",\"timestamp\":" + this.lastBatchTimestamp);
+		buff.append(",\"nodes\":" + json(this.nodes));
+		buff.append(",\"edges\":" + json(this.edges));
+		buff.append(",\"heap_mb\":" + json(this.heapUsed));
+		buff.append(",\"throughput\":" + json(this.throughput));
+		buff.append(",\"updates\":{");
+		for (UpdateType t : updateTypes) {
+			buff.append((t.ordinal() == 0 ? "" : ",") + "\"" + t + "\":"
+					+ this.updates.get(t));
+		}
+		buff.append("},\"histograms\":{");
+		boolean firstFamily = true;
+		for (Map.Entry<String, TreeMap<String, Histogram>> family : this.histograms
+				.entrySet()) {
+			buff.append((firstFamily ? "" : ",") + "\"" + family.getKey()
+					+ "\":");
+			firstFamily = false;
+			Histogram unlabelled = family.getValue().get("");
+			if (unlabelled != null) {
+				buff.append(json(unlabelled));
+				continue;
+			}
+			buff.append("{");
+			boolean first = true;
+			for (Histogram h : family.getValue().values()) {
+				buff.append((first ? "" : ",") + json(h.getName()) + ":"
+						+ json(h));
+				first = false;
+			}
+			buff.append("}");
+		}
+		buff.append("},\"finished\":[");
+		for (int i = 0; i < this.finishedBatches.size(); i++) {
+			buff.append((i == 0 ? "" : ",") + this.finishedBatches.get(i));
+		}
+		buff.append("]}");
+		return buff.toString();
+	}
+
+	public synchronized String toPrometheus() {
+		StringBuilder buff = new StringBuilder();
+		gauge(buff, "dna_batches_total", "counter",
+				"number of generated batches", this.batches);
+		gauge(buff, "dna_last_batch_timestamp", "gauge",
+				"timestamp of the last generated batch",
+				this.lastBatchTimestamp);
+		gauge(buff, "dna_nodes", "gauge", "number of nodes", this.nodes);
+		gauge(buff, "dna_edges", "gauge", "number of edges", this.edges);
+		gauge(buff, "dna_heap_used_mb", "gauge",
+				"used heap after the last batch", this.heapUsed);
+
+		buff.append("# HELP dna_updates_total number of applied updates\n");
+		buff.append("# TYPE dna_updates_total counter\n");
+		for (UpdateType t : updateTypes) {
+			buff.append("dna_updates_total{type=\"" + t + "\"} "
+					+ this.updates.get(t) + "\n");
+		}
+
+		for (Map.Entry<String, TreeMap<String, Histogram>> family : this.histograms
+				.entrySet()) {
+			String unit = family.getValue().firstEntry().getValue().getUnit();
+			String name = "dna_"
+					+ family.getKey()
+					+ "_"
+					+ (unit.equals("updates/s") ? "updates_per_second" : unit
+							.toLowerCase());
+			String label = family.getKey().equals(runtimes) ? "timer"
+					: "metric";
+			buff.append("# HELP " + name + " " + family.getKey() + " per batch\n");
+			buff.append("# TYPE " + name + " histogram\n");
+			for (Histogram h : family.getValue().values()) {
+				String labels = h.getName().isEmpty() ? "" : label + "=\""
+						+ escape(h.getName()) + "\",";
+				double[] bounds = h.getBounds();
+				long[] counts = h.getCumulativeCounts();
+				for (int i = 0; i < counts.length; i++) {
+					buff.append(name + "_bucket{" + labels + "le=\""
+							+ (i < bounds.length ? bounds[i] : "+Inf")
+							+ "\"} " + counts[i] + "\n");
+				}
+				String l = labels.isEmpty() ? "" : "{"
+						+ labels.substring(0, labels.length() - 1) + "}";
+				buff.append(name + "_sum" + l + " " + h.getSum() + "\n");
+				buff.append(name + "_count" + l + " " + h.getCount() + "\n");
+			}
+		}
+		return buff.toString();
+	}
+
+	private static void gauge(StringBuilder buff, String name, String type,
+			String help, double value) {
+		buff.append("# HELP " + name + " " + help + "\n");
+		buff.append("# TYPE " + name + " " + type + "\n");
+		buff.append(name + " " + value + "\n");
+	}
+
+	private static String escape(String str) {
+		return str.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String json(String str) {
+		return str == null ? "null" : "\"" + escape(str) + "\"";
+	}
+
+	private static String json(Histogram h) {
+		return "{\"count\":" + h.getCount() + ",\"mean\":" + json(h.getMean())
+				+ ",\"p50\":" + json(h.getP50()) + ",\"p90\":"
+				+ json(h.getP90()) + ",\"p99\":" + json(h.getP99())
+				+ ",\"max\":" + json(h.getMax()) + ",\"last\":"
+				+ json(h.getLast()) + "}";
+	}
+
+	private static String json(double value) {
+		return Double.isNaN(value) || Double.isInfinite(value) ? "null"
+				: Double.toString(value);
+	}
+
+	/*
+	 * MBEAN
+	 */
+
+	@Override
+	public synchronized String getSeries() {
+		return this.series;
+	}
+
+	@Override
+	public synchronized int getRun() {
+		return this.run;
+	}
+
+	@Override
+	public synchronized long getBatches() {
+		return this.batches;
+	}
+
+	@Override
+	public synchronized long getLastBatchTimestamp() {
+		return this.lastBatchTimestamp;
+	}
+
+	@Override
+	public synchronized double getLastBatchRuntime() {
+		return this.lastBatchRuntime;
+	}
+
+	@Override
+	public synchronized double getNodes() {
+		return this.nodes;
+	}
+
+	@Override
+	public synchronized double getEdges() {
+		return this.edges;
+	}
+
+	@Override
+	public synchronized double getHeapUsed() {
+		return this.heapUsed;
+	}
+
+	@Override
+	public synchronized double getThroughput() {
+		return this.throughput;
+	}
+
+	@Override
+	public synchronized long getNodeAdditions() {
+		return this.updates.get(UpdateType.NA);
+	}
+
+	@Override
+	public synchronized long getNodeRemovals() {
+		return this.updates.get(UpdateType.NR);
+	}
+
+	@Override
+	public synchronized long getNodeWeightUpdates() {
+		return this.updates.get(UpdateType.NW);
+	}
+
+	@Override
+	public synchronized long getEdgeAdditions() {
+		return this.updates.get(UpdateType.EA);
+	}
+
+	@Override
+	public synchronized long getEdgeRemovals() {
+		return this.updates.get(UpdateType.ER);
+	}
+
+	@Override
+	public synchronized long getEdgeWeightUpdates() {
+		return this.updates.get(UpdateType.EW);
+	}
+}
@@ -0,0 +1,36 @@
+package dna.util.instrumentation;
+
+/**
+ * JMX view of the state of the current series generation.
+ */
+public interface InstrumentationMBean {
+	public String getSeries();
+
+	public int getRun();
+
+	public long getBatches();
+
+	public long getLastBatchTimestamp();
+
+	public double getLastBatchRuntime();
+
+	public double getNodes();
+
+	public double getEdges();
+
+	public double getHeapUsed();
+
+	public double getThroughput();
+
+	public long getNodeAdditions();
+
+	public long getNodeRemovals();
+
+	public long getNodeWeightUpdates();
+
+	public long getEdgeAdditions();
+
+	public long getEdgeRemovals();
+
+	public long getEdgeWeightUpdates();
+}